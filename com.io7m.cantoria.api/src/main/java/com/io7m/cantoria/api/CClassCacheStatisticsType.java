@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import org.immutables.value.Value;
+import org.immutables.vavr.encodings.VavrEncodingEnabled;
+
+/**
+ * Statistics for a class cache.
+ */
+
+@CImmutableStyleType
+@VavrEncodingEnabled
+@Value.Immutable
+public interface CClassCacheStatisticsType
+{
+  /**
+   * @return The number of requests answered from the cache, including
+   * requests that waited for a load started by another thread
+   */
+
+  @Value.Parameter
+  long hits();
+
+  /**
+   * @return The number of requests that caused a class to be loaded
+   */
+
+  @Value.Parameter
+  long misses();
+
+  /**
+   * @return The number of entries evicted from the cache
+   */
+
+  @Value.Parameter
+  long evictions();
+
+  /**
+   * @return The total time spent loading classes, in nanoseconds
+   */
+
+  @Value.Parameter
+  long loadTimeNanoseconds();
+
+  /**
+   * @return The number of entries currently in the cache
+   */
+
+  @Value.Parameter
+  int size();
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import org.immutables.value.Value;
+import org.immutables.vavr.encodings.VavrEncodingEnabled;
+
+/**
+ * A cheap digest of the stored bytes of a class file, as recorded by the
+ * archive containing the class. Two classes with equal digests are
+ * almost certainly byte-for-byte identical.
+ */
+
+@CImmutableStyleType
+@VavrEncodingEnabled
+@Value.Immutable
+public interface CClassDigestType
+{
+  /**
+   * @return The CRC-32 of the uncompressed class file
+   */
+
+  @Value.Parameter(order = 0)
+  long crc32();
+
+  /**
+   * @return The size in bytes of the uncompressed class file
+   */
+
+  @Value.Parameter(order = 1)
+  long size();
+}
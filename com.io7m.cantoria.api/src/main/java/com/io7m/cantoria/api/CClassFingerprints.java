@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import com.io7m.junreachable.UnreachableCodeException;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.ToIntFunction;
+
+/**
+ * Functions to compute API fingerprints of classes. An API fingerprint is a
+ * stable hash over the parts of a class that are visible to the comparison
+ * checks: the class name, access flags, bytecode version, generic signature,
+ * superclass and interfaces, and the sorted list of non-private fields and
+ * methods (including their access flags, descriptors, signatures, declared
+ * exceptions, and constant values). Two classes with equal fingerprints
+ * differ at most in method bodies, private members, debugging information,
+ * and annotations.
+ */
+
+public final class CClassFingerprints
+{
+  private static final Comparator<MethodNode> METHOD_ORDER =
+    Comparator.<MethodNode, String>comparing(m -> m.name)
+      .thenComparing(m -> m.desc);
+
+  private static final Comparator<FieldNode> FIELD_ORDER =
+    Comparator.<FieldNode, String>comparing(f -> f.name)
+      .thenComparing(f -> f.desc);
+
+  private CClassFingerprints()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  private static boolean isPrivate(
+    final int access)
+  {
+    return (access & Opcodes.ACC_PRIVATE) == Opcodes.ACC_PRIVATE;
+  }
+
+  private static void updateInt(
+    final MessageDigest digest,
+    final int value)
+  {
+    digest.update(ByteBuffer.allocate(4).putInt(value).array());
+  }
+
+  private static void updateString(
+    final MessageDigest digest,
+    final String value)
+  {
+    if (value == null) {
+      updateInt(digest, -1);
+      return;
+    }
+
+    final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    updateInt(digest, bytes.length);
+    digest.update(bytes);
+  }
+
+  private static void updateStrings(
+    final MessageDigest digest,
+    final List<String> values)
+  {
+    if (values == null) {
+      updateInt(digest, 0);
+      return;
+    }
+
+    final ArrayList<String> sorted = new ArrayList<>(values);
+    sorted.sort(Comparator.naturalOrder());
+    updateInt(digest, sorted.size());
+    for (final String value : sorted) {
+      updateString(digest, value);
+    }
+  }
+
+  private static <T> List<T> sortedNonPrivate(
+    final List<T> members,
+    final Comparator<T> order,
+    final ToIntFunction<T> access)
+  {
+    final ArrayList<T> results = new ArrayList<>();
+    if (members != null) {
+      for (final T member : members) {
+        if (!isPrivate(access.applyAsInt(member))) {
+          results.add(member);
+        }
+      }
+    }
+    results.sort(order);
+    return results;
+  }
+
+  /**
+   * Compute the API fingerprint of the given class node.
+   *
+   * @param node The class node
+   *
+   * @return A fingerprint, as a string of hexadecimal digits
+   */
+
+  public static String fingerprint(
+    final ClassNode node)
+  {
+    Objects.requireNonNull(node, "Node");
+
+    final MessageDigest digest = CHashes.sha256();
+
+    updateString(digest, node.name);
+    updateInt(digest, node.access);
+    updateInt(digest, node.version);
+    updateString(digest, node.signature);
+    updateString(digest, node.superName);
+    updateStrings(digest, node.interfaces);
+
+    final List<FieldNode> fields =
+      sortedNonPrivate(node.fields, FIELD_ORDER, f -> f.access);
+    updateInt(digest, fields.size());
+    for (final FieldNode field : fields) {
+      updateString(digest, field.name);
+      updateString(digest, field.desc);
+      updateInt(digest, field.access);
+      updateString(digest, field.signature);
+      updateString(digest, Objects.toString(field.value, null));
+    }
+
+    final List<MethodNode> methods =
+      sortedNonPrivate(node.methods, METHOD_ORDER, m -> m.access);
+    updateInt(digest, methods.size());
+    for (final MethodNode method : methods) {
+      updateString(digest, method.name);
+      updateString(digest, method.desc);
+      updateInt(digest, method.access);
+      updateString(digest, method.signature);
+      updateStrings(digest, method.exceptions);
+    }
+
+    return CHashes.hex(digest.digest());
+  }
+}
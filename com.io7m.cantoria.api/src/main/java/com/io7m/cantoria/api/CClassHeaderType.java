@@ -0,0 +1,66 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import io.vavr.collection.List;
+import org.immutables.value.Value;
+import org.immutables.vavr.encodings.VavrEncodingEnabled;
+
+import java.util.Optional;
+
+/**
+ * The header of a class file: the access flags, name, superclass name and
+ * interface names, read directly from the constant pool without building a
+ * class tree.
+ */
+
+@CImmutableStyleType
+@VavrEncodingEnabled
+@Value.Immutable
+public interface CClassHeaderType
+{
+  /**
+   * @return The access flags of the class
+   *
+   * @see org.objectweb.asm.Opcodes
+   */
+
+  @Value.Parameter(order = 0)
+  int access();
+
+  /**
+   * @return The internal name of the class
+   */
+
+  @Value.Parameter(order = 1)
+  String name();
+
+  /**
+   * @return The internal name of the superclass, if any
+   */
+
+  @Value.Parameter(order = 2)
+  Optional<String> superName();
+
+  /**
+   * @return The internal names of the direct superinterfaces, in declaration
+   * order
+   */
+
+  @Value.Parameter(order = 3)
+  List<String> interfaces();
+}
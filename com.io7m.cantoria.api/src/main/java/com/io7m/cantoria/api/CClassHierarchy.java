@@ -0,0 +1,434 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+
+/**
+ * The default implementation of the {@link CClassHierarchyType} interface.
+ *
+ * <p>Superclass chains are memoized by the internal name of the class at the
+ * bottom of the chain, so classes that share an ancestor share the resolved
+ * chain of that ancestor. Inherited member tables are built once per chain and
+ * answer lookups by name and type descriptor in constant time.</p>
+ *
+ * <p>A hierarchy service for a child registry layer resolves classes in
+ * packages that the layer does not define by consulting the hierarchy service
+ * of the parent layer, so the chains memoized by a shared parent are computed
+ * once and reused by every child layer.</p>
+ *
+ * <p>The service is safe for concurrent use. Concurrent requests for the same
+ * chain may resolve it more than once, but only one result is retained.</p>
+ */
+
+public final class CClassHierarchy implements CClassHierarchyType
+{
+  private final CClassRegistryType registry;
+  private final Optional<CClassRegistryType> parent;
+  private final Predicate<String> local_packages;
+  private final ConcurrentHashMap<String, List<CClass>> chains;
+  private final ConcurrentHashMap<String, List<CClass>> interfaces;
+  private final ConcurrentHashMap<String, InheritedMembers> members;
+
+  private CClassHierarchy(
+    final CClassRegistryType in_registry,
+    final Optional<CClassRegistryType> in_parent,
+    final Predicate<String> in_local_packages)
+  {
+    this.registry = Objects.requireNonNull(in_registry, "Registry");
+    this.parent = Objects.requireNonNull(in_parent, "Parent");
+    this.local_packages =
+      Objects.requireNonNull(in_local_packages, "Local packages");
+    this.chains = new ConcurrentHashMap<>(128);
+    this.interfaces = new ConcurrentHashMap<>(128);
+    this.members = new ConcurrentHashMap<>(128);
+  }
+
+  /**
+   * Create a hierarchy service that resolves classes against the given
+   * registry.
+   *
+   * @param registry The class registry
+   *
+   * @return A new hierarchy service
+   */
+
+  public static CClassHierarchyType create(
+    final CClassRegistryType registry)
+  {
+    return new CClassHierarchy(registry, Optional.empty(), p -> true);
+  }
+
+  /**
+   * Create a hierarchy service for a child registry layer. Classes in packages
+   * for which {@code local_packages} returns {@code true} are resolved against
+   * {@code layer}, and the chains of all other classes are taken from the
+   * hierarchy service of {@code parent}.
+   *
+   * @param layer          The child registry layer
+   * @param parent         The parent registry layer
+   * @param local_packages A predicate that identifies the packages defined by
+   *                       the child layer
+   *
+   * @return A new hierarchy service
+   */
+
+  static CClassHierarchyType createLayer(
+    final CClassRegistryType layer,
+    final CClassRegistryType parent,
+    final Predicate<String> local_packages)
+  {
+    return new CClassHierarchy(layer, Optional.of(parent), local_packages);
+  }
+
+  /**
+   * @return The class with the given internal name, if it is defined by a
+   * parent layer
+   */
+
+  private Optional<CClass> resolveInParent(
+    final String internal_name)
+    throws IOException
+  {
+    if (!this.parent.isPresent()) {
+      return Optional.empty();
+    }
+
+    final Tuple2<String, String> pair =
+      CClassNames.parseFullyQualifiedDotted(
+        CClassNames.toDottedName(internal_name));
+    if (this.local_packages.test(pair._1)) {
+      return Optional.empty();
+    }
+    return this.parent.get().findClass(pair._1, pair._2);
+  }
+
+  /**
+   * @return The class with the given internal name, as referenced by a class
+   * in the given module
+   */
+
+  private Optional<CClass> resolve(
+    final String module_name,
+    final String internal_name)
+    throws IOException
+  {
+    final Tuple2<String, String> pair =
+      CClassNames.parseFullyQualifiedDotted(
+        CClassNames.toDottedName(internal_name));
+
+    /*
+     * A class may extend or implement classes in packages that its module
+     * does not export, and such classes can only be defined by the same
+     * module.
+     */
+
+    final Optional<CClass> local =
+      this.registry.findClassInModule(module_name, pair._1, pair._2);
+    if (local.isPresent()) {
+      return local;
+    }
+    return this.registry.findClass(pair._1, pair._2);
+  }
+
+  /**
+   * @return The resolved chain of superclasses ending with (and including) the
+   * class with the given internal name, as referenced by a class in the given
+   * module, most distant ancestor first
+   */
+
+  private List<CClass> chainOf(
+    final String module_name,
+    final String internal_name)
+    throws IOException
+  {
+    if (internal_name == null) {
+      return List.empty();
+    }
+
+    final List<CClass> cached = this.chains.get(internal_name);
+    if (cached != null) {
+      return cached;
+    }
+
+    /*
+     * Walk up the hierarchy until either a memoized chain or an unresolvable
+     * class is encountered, and then memoize each chain on the way back down.
+     */
+
+    final HashSet<String> visited = new HashSet<>(16);
+    List<Tuple2<String, CClass>> pending = List.empty();
+    List<CClass> base = List.empty();
+    String current = internal_name;
+    String current_module = module_name;
+
+    while (current != null && visited.add(current)) {
+      final List<CClass> current_cached = this.chains.get(current);
+      if (current_cached != null) {
+        base = current_cached;
+        break;
+      }
+
+      final Optional<CClass> inherited = this.resolveInParent(current);
+      if (inherited.isPresent()) {
+        final CClass c = inherited.get();
+        base = this.parent.get().hierarchy().superclassesOf(c).append(c);
+        break;
+      }
+
+      final Optional<CClass> c_opt = this.resolve(current_module, current);
+      if (!c_opt.isPresent()) {
+        this.chains.putIfAbsent(current, List.empty());
+        break;
+      }
+
+      final CClass c = c_opt.get();
+      pending = pending.prepend(Tuple.of(current, c));
+      current = c.node().superName;
+      current_module = c.name().moduleName();
+    }
+
+    List<CClass> result = base;
+    for (final Tuple2<String, CClass> p : pending) {
+      final List<CClass> extended = result.append(p._2);
+      final List<CClass> existing = this.chains.putIfAbsent(p._1, extended);
+      result = existing != null ? existing : extended;
+    }
+    return result;
+  }
+
+  /**
+   * @return The interface with the given internal name, as referenced by a
+   * class in the given module, followed by all of its resolvable
+   * superinterfaces
+   */
+
+  private List<CClass> interfaceClosureOf(
+    final String module_name,
+    final String internal_name,
+    final HashSet<String> visiting)
+    throws IOException
+  {
+    final List<CClass> cached = this.interfaces.get(internal_name);
+    if (cached != null) {
+      return cached;
+    }
+
+    /*
+     * Malformed cyclic hierarchies are cut at the first repeated interface.
+     */
+
+    if (!visiting.add(internal_name)) {
+      return List.empty();
+    }
+
+    final Optional<CClass> inherited = this.resolveInParent(internal_name);
+    if (inherited.isPresent()) {
+      final CClass c = inherited.get();
+      visiting.remove(internal_name);
+      return List.of(c)
+        .appendAll(this.parent.get().hierarchy().superinterfacesOf(c))
+        .distinctBy(k -> k.node().name);
+    }
+
+    final Optional<CClass> c_opt = this.resolve(module_name, internal_name);
+    List<CClass> result = List.empty();
+    if (c_opt.isPresent()) {
+      final CClass c = c_opt.get();
+      result = List.of(c);
+      for (final String super_name : c.node().interfaces) {
+        result = result.appendAll(
+          this.interfaceClosureOf(c.name().moduleName(), super_name, visiting));
+      }
+      result = result.distinctBy(k -> k.node().name);
+    }
+
+    visiting.remove(internal_name);
+    final List<CClass> existing =
+      this.interfaces.putIfAbsent(internal_name, result);
+    return existing != null ? existing : result;
+  }
+
+  private InheritedMembers membersOf(
+    final String module_name,
+    final String super_name)
+    throws IOException
+  {
+    final InheritedMembers cached = this.members.get(super_name);
+    if (cached != null) {
+      return cached;
+    }
+
+    final InheritedMembers created =
+      new InheritedMembers(this.chainOf(module_name, super_name));
+    final InheritedMembers existing =
+      this.members.putIfAbsent(super_name, created);
+    return existing != null ? existing : created;
+  }
+
+  @Override
+  public List<CClass> superclassesOf(
+    final CClass c)
+    throws IOException
+  {
+    Objects.requireNonNull(c, "Class");
+    return this.chainOf(c.name().moduleName(), c.node().superName);
+  }
+
+  @Override
+  public List<CClass> superinterfacesOf(
+    final CClass c)
+    throws IOException
+  {
+    Objects.requireNonNull(c, "Class");
+
+    final HashSet<String> visiting = new HashSet<>(16);
+    List<CClass> result = List.empty();
+    for (final String name : c.node().interfaces) {
+      result = result.appendAll(
+        this.interfaceClosureOf(c.name().moduleName(), name, visiting));
+    }
+    for (final CClass s : this.superclassesOf(c).reverse()) {
+      for (final String name : s.node().interfaces) {
+        result = result.appendAll(
+          this.interfaceClosureOf(s.name().moduleName(), name, visiting));
+      }
+    }
+    return result.distinctBy(k -> k.node().name);
+  }
+
+  @Override
+  public List<Tuple2<CClass, MethodNode>> superclassMethodsWithNameAndType(
+    final CClass c,
+    final String name,
+    final String descriptor)
+    throws IOException
+  {
+    Objects.requireNonNull(c, "Class");
+    Objects.requireNonNull(name, "Name");
+    Objects.requireNonNull(descriptor, "Descriptor");
+
+    final String super_name = c.node().superName;
+    if (super_name == null) {
+      return List.empty();
+    }
+    return this.membersOf(c.name().moduleName(), super_name)
+      .methods.getOrDefault(
+        Tuple.of(name, descriptor), List.empty());
+  }
+
+  @Override
+  public List<Tuple2<CClass, FieldNode>> superclassFieldsWithName(
+    final CClass c,
+    final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(c, "Class");
+    Objects.requireNonNull(name, "Name");
+
+    final String super_name = c.node().superName;
+    if (super_name == null) {
+      return List.empty();
+    }
+    return this.membersOf(c.name().moduleName(), super_name)
+      .fields_by_name.getOrDefault(
+        name, List.empty());
+  }
+
+  @Override
+  public List<Tuple2<CClass, FieldNode>> superclassFieldsWithNameAndType(
+    final CClass c,
+    final String name,
+    final String type)
+    throws IOException
+  {
+    Objects.requireNonNull(c, "Class");
+    Objects.requireNonNull(name, "Name");
+    Objects.requireNonNull(type, "Type");
+
+    final String super_name = c.node().superName;
+    if (super_name == null) {
+      return List.empty();
+    }
+    return this.membersOf(c.name().moduleName(), super_name)
+      .fields.getOrDefault(
+        Tuple.of(name, type), List.empty());
+  }
+
+  /**
+   * The members declared by each class in a superclass chain, indexed by name
+   * and type descriptor. Each list of members is ordered most distant ancestor
+   * first, and contains at most one member per class.
+   */
+
+  private static final class InheritedMembers
+  {
+    private final Map<Tuple2<String, String>, List<Tuple2<CClass, MethodNode>>> methods;
+    private final Map<String, List<Tuple2<CClass, FieldNode>>> fields_by_name;
+    private final Map<Tuple2<String, String>, List<Tuple2<CClass, FieldNode>>> fields;
+
+    InheritedMembers(
+      final List<CClass> chain)
+    {
+      this.methods = new HashMap<>(64);
+      this.fields_by_name = new HashMap<>(64);
+      this.fields = new HashMap<>(64);
+
+      for (final CClass c : chain) {
+        final ClassNode node = c.node();
+
+        for (final MethodNode m : node.methods) {
+          final Tuple2<String, String> key = Tuple.of(m.name, m.desc);
+          final List<Tuple2<CClass, MethodNode>> existing =
+            this.methods.getOrDefault(key, List.empty());
+          if (existing.isEmpty() || existing.last()._1 != c) {
+            this.methods.put(key, existing.append(Tuple.of(c, m)));
+          }
+        }
+
+        for (final FieldNode f : node.fields) {
+          final List<Tuple2<CClass, FieldNode>> by_name =
+            this.fields_by_name.getOrDefault(f.name, List.empty());
+          if (by_name.isEmpty() || by_name.last()._1 != c) {
+            this.fields_by_name.put(f.name, by_name.append(Tuple.of(c, f)));
+          }
+
+          final Tuple2<String, String> key = Tuple.of(f.name, f.desc);
+          final List<Tuple2<CClass, FieldNode>> by_type =
+            this.fields.getOrDefault(key, List.empty());
+          if (by_type.isEmpty() || by_type.last()._1 != c) {
+            this.fields.put(key, by_type.append(Tuple.of(c, f)));
+          }
+        }
+      }
+    }
+  }
+}
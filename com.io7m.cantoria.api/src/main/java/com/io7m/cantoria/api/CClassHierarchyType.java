@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.IOException;
+
+/**
+ * A type hierarchy service. A hierarchy service resolves classes against a
+ * single class registry and memoizes the resolved superclass and
+ * superinterface chains, along with tables of inherited members indexed by
+ * name and type descriptor.
+ */
+
+public interface CClassHierarchyType
+{
+  /**
+   * Determine all superclasses of the given class. The result will not include
+   * {@code c}.
+   *
+   * @param c The current class
+   *
+   * @return A list of superclasses, most distant ancestor first
+   *
+   * @throws IOException On I/O errors
+   */
+
+  List<CClass> superclassesOf(
+    CClass c)
+    throws IOException;
+
+  /**
+   * Determine all interfaces implemented by the given class, either directly,
+   * via superclasses, or via superinterfaces. Interfaces that cannot be
+   * resolved in the registry are omitted.
+   *
+   * @param c The current class
+   *
+   * @return A list of distinct superinterfaces, nearest first
+   *
+   * @throws IOException On I/O errors
+   */
+
+  List<CClass> superinterfacesOf(
+    CClass c)
+    throws IOException;
+
+  /**
+   * Find all methods with the given name and type in all superclasses of the
+   * given class. The results are given in order of most distant ancestor
+   * superclass first.
+   *
+   * @param c          The class
+   * @param name       The method name
+   * @param descriptor The method type descriptor
+   *
+   * @return A list of methods, if any
+   *
+   * @throws IOException On I/O errors
+   * @see MethodNode#desc
+   */
+
+  List<Tuple2<CClass, MethodNode>> superclassMethodsWithNameAndType(
+    CClass c,
+    String name,
+    String descriptor)
+    throws IOException;
+
+  /**
+   * Find all fields with the given name in all superclasses of the given
+   * class. The results are given in order of most distant ancestor superclass
+   * first.
+   *
+   * @param c    The class
+   * @param name The field name
+   *
+   * @return A list of fields, if any
+   *
+   * @throws IOException On I/O errors
+   */
+
+  List<Tuple2<CClass, FieldNode>> superclassFieldsWithName(
+    CClass c,
+    String name)
+    throws IOException;
+
+  /**
+   * Find all fields with the given name and type in all superclasses of the
+   * given class. The results are given in order of most distant ancestor
+   * superclass first.
+   *
+   * @param c    The class
+   * @param name The field name
+   * @param type The field type descriptor
+   *
+   * @return A list of fields, if any
+   *
+   * @throws IOException On I/O errors
+   * @see FieldNode#desc
+   */
+
+  List<Tuple2<CClass, FieldNode>> superclassFieldsWithNameAndType(
+    CClass c,
+    String name,
+    String type)
+    throws IOException;
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * The amount of information retained when parsing classes.
+ */
+
+public enum CClassParsingMode
+{
+  /**
+   * Parse everything, including method bodies, stack map frames, and debugging
+   * information such as line numbers and local variable tables.
+   */
+
+  CLASS_PARSING_FULL(0),
+
+  /**
+   * Parse only the API surface of classes: class headers, signatures, fields,
+   * methods, annotations, and the attributes used by checks. Method bodies,
+   * stack map frames, and debugging information are skipped.
+   */
+
+  CLASS_PARSING_API_SURFACE(
+    ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+
+  private final int flags;
+
+  CClassParsingMode(
+    final int in_flags)
+  {
+    this.flags = in_flags;
+  }
+
+  /**
+   * @return The flags that should be passed to {@link ClassReader}
+   */
+
+  public int readerFlags()
+  {
+    return this.flags;
+  }
+}
@@ -29,6 +29,17 @@ import java.util.Optional;
 
 /**
  * The class registry.
+ *
+ * <p>Registries may be arranged in layers, in a manner similar to
+ * {@link java.lang.ModuleLayer}. A registry created with
+ * {@link #create(List)} is a root layer. A registry created with
+ * {@link #createLayer(CClassRegistryType, List)} is a child layer that
+ * resolves classes against its own modules first, and consults its parent
+ * layer for any package that none of its own modules define. Registries are
+ * immutable and safe for concurrent use, so a single parent layer holding the
+ * platform and dependency modules, along with the superclass chains memoized
+ * by its hierarchy service, can be shared by every comparison performed in a
+ * process.</p>
  */
 
 public final class CClassRegistry implements CClassRegistryType
@@ -38,15 +49,27 @@ public final class CClassRegistry implements CClassRegistryType
 
   private final HashMap<String, CModuleType> modules_by_name;
   private final HashMap<String, String> module_by_package;
+  private final Optional<CClassRegistryType> parent;
+  private final CClassHierarchyType hierarchy;
 
   private CClassRegistry(
     final HashMap<String, CModuleType> in_modules_by_name,
-    final HashMap<String, String> in_module_by_package)
+    final HashMap<String, String> in_module_by_package,
+    final Optional<CClassRegistryType> in_parent)
   {
     this.modules_by_name =
       Objects.requireNonNull(in_modules_by_name, "Modules");
     this.module_by_package =
       Objects.requireNonNull(in_module_by_package, "Modules");
+    this.parent =
+      Objects.requireNonNull(in_parent, "Parent");
+
+    if (this.parent.isPresent()) {
+      this.hierarchy = CClassHierarchy.createLayer(
+        this, this.parent.get(), this.module_by_package::containsKey);
+    } else {
+      this.hierarchy = CClassHierarchy.create(this);
+    }
   }
 
   /**
@@ -58,9 +81,69 @@ public final class CClassRegistry implements CClassRegistryType
    */
 
   public static CClassRegistryType create(
-    final List<CModuleType> modules)
+    final List<? extends CModuleType> modules)
+  {
+    Objects.requireNonNull(modules, "Archives");
+    return build(modules, Optional.empty());
+  }
+
+  /**
+   * Create a child class registry layer. Classes in packages that are defined
+   * by the given modules are resolved against those modules, and all other
+   * classes are resolved against {@code parent}. Creating a layer is cheap:
+   * the parent layer and its memoized superclass chains are shared, not
+   * copied.
+   *
+   * @param parent  The parent layer
+   * @param modules The list of modules in the new layer
+   *
+   * @return A new class registry
+   */
+
+  public static CClassRegistryType createLayer(
+    final CClassRegistryType parent,
+    final List<? extends CModuleType> modules)
   {
+    Objects.requireNonNull(parent, "Parent");
     Objects.requireNonNull(modules, "Archives");
+    return build(modules, Optional.of(parent));
+  }
+
+  /**
+   * Create a class registry for comparing two versions of a module. Separate
+   * child layers of {@code parent} are created for the old and the new module,
+   * so that the two versions never shadow each other. The hierarchy service
+   * of the returned registry resolves the ancestors of a class in the old
+   * module against the old layer, and the ancestors of any other class
+   * against the new layer. Direct lookups by name are resolved against the new
+   * layer.
+   *
+   * @param parent     The parent layer
+   * @param module_old The old module
+   * @param module_new The new module
+   *
+   * @return A new class registry
+   */
+
+  public static CClassRegistryType createComparison(
+    final CClassRegistryType parent,
+    final CModuleType module_old,
+    final CModuleType module_new)
+  {
+    Objects.requireNonNull(parent, "Parent");
+    Objects.requireNonNull(module_old, "Module old");
+    Objects.requireNonNull(module_new, "Module new");
+
+    return new CClassRegistryComparison(
+      module_old,
+      createLayer(parent, List.of(module_old)),
+      createLayer(parent, List.of(module_new)));
+  }
+
+  private static CClassRegistryType build(
+    final List<? extends CModuleType> modules,
+    final Optional<CClassRegistryType> parent)
+  {
 
     HashMap<String, CModuleType> modules_by_name = HashMap.empty();
     HashMap<String, String> module_by_package = HashMap.empty();
@@ -81,7 +164,7 @@ public final class CClassRegistry implements CClassRegistryType
       }
     }
 
-    return new CClassRegistry(modules_by_name, module_by_package);
+    return new CClassRegistry(modules_by_name, module_by_package, parent);
   }
 
   @Override
@@ -109,6 +192,11 @@ public final class CClassRegistry implements CClassRegistryType
         return module.classValue(package_name, class_name);
       }
 
+      if (this.parent.isPresent()) {
+        return this.parent.get().findClassInModule(
+          module_name, package_name, class_name);
+      }
+
       LOG.debug("no such module: {}", module_name);
       return Optional.empty();
     } catch (final UncheckedIOException e) {
@@ -136,6 +224,10 @@ public final class CClassRegistry implements CClassRegistryType
         return this.findClassInModule(module_name, package_name, class_name);
       }
 
+      if (this.parent.isPresent()) {
+        return this.parent.get().findClass(package_name, class_name);
+      }
+
       LOG.debug("no module for package: {}", package_name);
       return Optional.empty();
     } catch (final UncheckedIOException e) {
@@ -153,4 +245,10 @@ public final class CClassRegistry implements CClassRegistryType
       opt.isPresent(), "java.lang.Object must be present");
     return opt.get();
   }
+
+  @Override
+  public CClassHierarchyType hierarchy()
+  {
+    return this.hierarchy;
+  }
 }
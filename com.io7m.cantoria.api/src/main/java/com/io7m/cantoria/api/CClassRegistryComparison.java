@@ -0,0 +1,163 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A class registry that holds separate layers for the old and the new version
+ * of a module.
+ *
+ * <p>Classes are attributed to the old layer by the descriptor of the archive
+ * of their module rather than by the identity of the module, because a class
+ * loaded through a caching or lazy wrapper refers to the wrapped module rather
+ * than the wrapper.</p>
+ */
+
+final class CClassRegistryComparison implements CClassRegistryType
+{
+  private final CArchiveDescriptor archive_old;
+  private final CClassRegistryType layer_old;
+  private final CClassRegistryType layer_new;
+  private final CClassHierarchyType hierarchy;
+
+  CClassRegistryComparison(
+    final CModuleType in_module_old,
+    final CClassRegistryType in_layer_old,
+    final CClassRegistryType in_layer_new)
+  {
+    this.archive_old =
+      Objects.requireNonNull(in_module_old, "Module old").archive().descriptor();
+    this.layer_old =
+      Objects.requireNonNull(in_layer_old, "Layer old");
+    this.layer_new =
+      Objects.requireNonNull(in_layer_new, "Layer new");
+    this.hierarchy = new Hierarchy();
+  }
+
+  private CClassHierarchyType hierarchyFor(
+    final CClass c)
+  {
+    if (c.module().archive().descriptor().equals(this.archive_old)) {
+      return this.layer_old.hierarchy();
+    }
+    return this.layer_new.hierarchy();
+  }
+
+  @Override
+  public Optional<CClass> findClassInModule(
+    final String module_name,
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return this.layer_new.findClassInModule(
+      module_name, package_name, class_name);
+  }
+
+  @Override
+  public Optional<CClass> findClass(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return this.layer_new.findClass(package_name, class_name);
+  }
+
+  @Override
+  public CClass javaLangObject()
+    throws IOException
+  {
+    return this.layer_new.javaLangObject();
+  }
+
+  @Override
+  public CClassHierarchyType hierarchy()
+  {
+    return this.hierarchy;
+  }
+
+  private final class Hierarchy implements CClassHierarchyType
+  {
+    Hierarchy()
+    {
+
+    }
+
+    @Override
+    public List<CClass> superclassesOf(
+      final CClass c)
+      throws IOException
+    {
+      Objects.requireNonNull(c, "Class");
+      return CClassRegistryComparison.this.hierarchyFor(c)
+        .superclassesOf(c);
+    }
+
+    @Override
+    public List<CClass> superinterfacesOf(
+      final CClass c)
+      throws IOException
+    {
+      Objects.requireNonNull(c, "Class");
+      return CClassRegistryComparison.this.hierarchyFor(c)
+        .superinterfacesOf(c);
+    }
+
+    @Override
+    public List<Tuple2<CClass, MethodNode>> superclassMethodsWithNameAndType(
+      final CClass c,
+      final String name,
+      final String descriptor)
+      throws IOException
+    {
+      Objects.requireNonNull(c, "Class");
+      return CClassRegistryComparison.this.hierarchyFor(c)
+        .superclassMethodsWithNameAndType(c, name, descriptor);
+    }
+
+    @Override
+    public List<Tuple2<CClass, FieldNode>> superclassFieldsWithName(
+      final CClass c,
+      final String name)
+      throws IOException
+    {
+      Objects.requireNonNull(c, "Class");
+      return CClassRegistryComparison.this.hierarchyFor(c)
+        .superclassFieldsWithName(c, name);
+    }
+
+    @Override
+    public List<Tuple2<CClass, FieldNode>> superclassFieldsWithNameAndType(
+      final CClass c,
+      final String name,
+      final String type)
+      throws IOException
+    {
+      Objects.requireNonNull(c, "Class");
+      return CClassRegistryComparison.this.hierarchyFor(c)
+        .superclassFieldsWithNameAndType(c, name, type);
+    }
+  }
+}
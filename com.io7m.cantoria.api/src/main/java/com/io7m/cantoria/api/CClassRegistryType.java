@@ -67,4 +67,10 @@ public interface CClassRegistryType
 
   CClass javaLangObject()
     throws IOException;
+
+  /**
+   * @return The type hierarchy service for this registry
+   */
+
+  CClassHierarchyType hierarchy();
 }
@@ -62,6 +62,18 @@ public interface CClassType extends CClassValuesType
   @Value.Parameter
   Optional<CGClassSignature> signature();
 
+  /**
+   * @return The API fingerprint of the class
+   *
+   * @see CClassFingerprints#fingerprint(ClassNode)
+   */
+
+  @Value.Lazy
+  default String apiFingerprint()
+  {
+    return CClassFingerprints.fingerprint(this.node());
+  }
+
   /**
    * @return {@code true} if the class is an enum
    */
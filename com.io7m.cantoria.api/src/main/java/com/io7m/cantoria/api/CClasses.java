@@ -17,11 +17,13 @@
 package com.io7m.cantoria.api;
 
 import com.io7m.junreachable.UnreachableCodeException;
-import io.vavr.Tuple2;
 import io.vavr.collection.List;
 import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
 
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Objects;
@@ -33,6 +35,26 @@ import java.util.Optional;
 
 public final class CClasses
 {
+  private static final int CONSTANT_UTF8 = 1;
+  private static final int CONSTANT_INTEGER = 3;
+  private static final int CONSTANT_FLOAT = 4;
+  private static final int CONSTANT_LONG = 5;
+  private static final int CONSTANT_DOUBLE = 6;
+  private static final int CONSTANT_CLASS = 7;
+  private static final int CONSTANT_STRING = 8;
+  private static final int CONSTANT_FIELD_REF = 9;
+  private static final int CONSTANT_METHOD_REF = 10;
+  private static final int CONSTANT_INTERFACE_METHOD_REF = 11;
+  private static final int CONSTANT_NAME_AND_TYPE = 12;
+  private static final int CONSTANT_METHOD_HANDLE = 15;
+  private static final int CONSTANT_METHOD_TYPE = 16;
+  private static final int CONSTANT_DYNAMIC = 17;
+  private static final int CONSTANT_INVOKE_DYNAMIC = 18;
+  private static final int CONSTANT_MODULE = 19;
+  private static final int CONSTANT_PACKAGE = 20;
+
+  private static final int[] CONSTANT_SIZES = constantSizes();
+
   private CClasses()
   {
     throw new UnreachableCodeException();
@@ -58,29 +80,7 @@ public final class CClasses
     Objects.requireNonNull(registry, "Registry");
     Objects.requireNonNull(c, "Class");
 
-    CClass current = c;
-    List<CClass> supers = List.empty();
-
-    while (current.node().superName != null) {
-      final Tuple2<String, String> pair =
-        CClassNames.parseFullyQualifiedDotted(
-          CClassNames.toDottedName(current.node().superName));
-
-      final String package_name = pair._1;
-      final String class_name = pair._2;
-
-      final Optional<CClass> c_opt =
-        registry.findClass(package_name, class_name);
-
-      if (c_opt.isPresent()) {
-        current = c_opt.get();
-      } else {
-        break;
-      }
-      supers = supers.prepend(current);
-    }
-
-    return supers;
+    return registry.hierarchy().superclassesOf(c);
   }
 
   /**
@@ -114,7 +114,8 @@ public final class CClasses
   }
 
   /**
-   * Parse a class node from the given stream.
+   * Parse a class node from the given stream. The entire class is parsed,
+   * including method bodies.
    *
    * @param stream The stream
    *
@@ -127,9 +128,233 @@ public final class CClasses
     final InputStream stream)
     throws IOException
   {
+    return classNodeFromStream(stream, CClassParsingMode.CLASS_PARSING_FULL);
+  }
+
+  /**
+   * Parse a class node from the given stream.
+   *
+   * @param stream The stream
+   * @param mode   The parsing mode
+   *
+   * @return A class node
+   *
+   * @throws IOException On I/O or parse errors
+   */
+
+  public static ClassNode classNodeFromStream(
+    final InputStream stream,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    Objects.requireNonNull(stream, "Stream");
+    Objects.requireNonNull(mode, "Mode");
+
     final ClassReader reader_new = new ClassReader(stream);
     final ClassNode class_node_new = new ClassNode();
-    reader_new.accept(class_node_new, 0);
+    reader_new.accept(class_node_new, mode.readerFlags());
+    return class_node_new;
+  }
+
+  /**
+   * Parse a class node from the given region of a byte array. The array is not
+   * retained after this method returns, and so may be reused by the caller.
+   *
+   * @param data   The array containing the class
+   * @param offset The offset of the class within the array
+   * @param length The length of the class in bytes
+   * @param mode   The parsing mode
+   *
+   * @return A class node
+   */
+
+  public static ClassNode classNodeFromBytes(
+    final byte[] data,
+    final int offset,
+    final int length,
+    final CClassParsingMode mode)
+  {
+    Objects.requireNonNull(data, "Data");
+    Objects.requireNonNull(mode, "Mode");
+
+    final ClassReader reader_new = new ClassReader(data, offset, length);
+    final ClassNode class_node_new = new ClassNode();
+    reader_new.accept(class_node_new, mode.readerFlags());
     return class_node_new;
   }
+
+  /**
+   * Read the header of a class from the given region of a byte array. Only
+   * the constant pool and the fixed fields that follow it are examined; no
+   * class tree is built. The array is not retained after this method
+   * returns.
+   *
+   * @param data   The array containing the class
+   * @param offset The offset of the class within the array
+   * @param length The length of the class in bytes
+   *
+   * @return A class header
+   */
+
+  public static CClassHeader classHeaderFromBytes(
+    final byte[] data,
+    final int offset,
+    final int length)
+  {
+    Objects.requireNonNull(data, "Data");
+
+    final ClassReader reader = new ClassReader(data, offset, length);
+    return CClassHeader.of(
+      reader.getAccess(),
+      reader.getClassName(),
+      Optional.ofNullable(reader.getSuperName()),
+      List.of(reader.getInterfaces()));
+  }
+
+  /**
+   * Construct the header of a class from an already parsed class node. The
+   * pseudo access flags that ASM adds to {@link ClassNode#access} (such as
+   * {@link Opcodes#ACC_DEPRECATED}) are not part of the class file header and
+   * are therefore discarded.
+   *
+   * @param node The class node
+   *
+   * @return A class header
+   */
+
+  public static CClassHeader classHeaderFromNode(
+    final ClassNode node)
+  {
+    Objects.requireNonNull(node, "Node");
+
+    return CClassHeader.of(
+      node.access & 0xffff,
+      node.name,
+      Optional.ofNullable(node.superName),
+      node.interfaces == null ? List.empty() : List.ofAll(node.interfaces));
+  }
+
+  /**
+   * Read the header of a class from the given stream. Only the prefix of the
+   * class file up to and including the interface indices is needed, and the
+   * stream is read no further than a small buffer beyond that point. Callers
+   * reading from compressed archives therefore avoid inflating the rest of
+   * the class.
+   *
+   * @param stream The stream
+   *
+   * @return A class header
+   *
+   * @throws IOException On I/O errors, or if the stream does not contain a
+   *                     well-formed class file header
+   * @see #classHeaderFromBytes(byte[], int, int)
+   */
+
+  public static CClassHeader classHeaderFromStream(
+    final InputStream stream)
+    throws IOException
+  {
+    Objects.requireNonNull(stream, "Stream");
+
+    final DataInputStream data =
+      new DataInputStream(new BufferedInputStream(stream, 512));
+
+    if (data.readInt() != 0xcafebabe) {
+      throw new IOException("Not a class file");
+    }
+
+    data.readUnsignedShort();
+    data.readUnsignedShort();
+
+    final int count = data.readUnsignedShort();
+    final String[] strings = new String[count];
+    final int[] classes = new int[count];
+    final byte[] skip = new byte[8];
+    int index = 1;
+    while (index < count) {
+      final int tag = data.readUnsignedByte();
+      if (tag == CONSTANT_UTF8) {
+        strings[index] = data.readUTF();
+      } else if (tag == CONSTANT_CLASS) {
+        classes[index] = data.readUnsignedShort();
+      } else if (tag < CONSTANT_SIZES.length && CONSTANT_SIZES[tag] > 0) {
+        data.readFully(skip, 0, CONSTANT_SIZES[tag]);
+      } else {
+        throw new IOException(
+          new StringBuilder(64)
+            .append("Unrecognized constant pool tag ")
+            .append(tag)
+            .append(" at index ")
+            .append(index)
+            .toString());
+      }
+
+      /*
+       * Long and double constants occupy two constant pool slots.
+       */
+
+      if (tag == CONSTANT_LONG || tag == CONSTANT_DOUBLE) {
+        index += 2;
+      } else {
+        index += 1;
+      }
+    }
+
+    final int access = data.readUnsignedShort();
+    final int this_class = data.readUnsignedShort();
+    final int super_class = data.readUnsignedShort();
+
+    final int interface_count = data.readUnsignedShort();
+    final String[] interfaces = new String[interface_count];
+    for (int i = 0; i < interface_count; ++i) {
+      interfaces[i] = className(strings, classes, data.readUnsignedShort());
+    }
+
+    final String name = className(strings, classes, this_class);
+    final Optional<String> super_name;
+    if (super_class == 0) {
+      super_name = Optional.empty();
+    } else {
+      super_name = Optional.of(className(strings, classes, super_class));
+    }
+    return CClassHeader.of(access, name, super_name, List.of(interfaces));
+  }
+
+  private static int[] constantSizes()
+  {
+    final int[] sizes = new int[CONSTANT_PACKAGE + 1];
+    sizes[CONSTANT_INTEGER] = 4;
+    sizes[CONSTANT_FLOAT] = 4;
+    sizes[CONSTANT_LONG] = 8;
+    sizes[CONSTANT_DOUBLE] = 8;
+    sizes[CONSTANT_STRING] = 2;
+    sizes[CONSTANT_FIELD_REF] = 4;
+    sizes[CONSTANT_METHOD_REF] = 4;
+    sizes[CONSTANT_INTERFACE_METHOD_REF] = 4;
+    sizes[CONSTANT_NAME_AND_TYPE] = 4;
+    sizes[CONSTANT_METHOD_HANDLE] = 3;
+    sizes[CONSTANT_METHOD_TYPE] = 2;
+    sizes[CONSTANT_DYNAMIC] = 4;
+    sizes[CONSTANT_INVOKE_DYNAMIC] = 4;
+    sizes[CONSTANT_MODULE] = 2;
+    sizes[CONSTANT_PACKAGE] = 2;
+    return sizes;
+  }
+
+  private static String className(
+    final String[] strings,
+    final int[] classes,
+    final int index)
+    throws IOException
+  {
+    if (index <= 0 || index >= classes.length || classes[index] <= 0) {
+      throw new IOException("Invalid class index " + index);
+    }
+
+    final int name_index = classes[index];
+    if (name_index >= strings.length || strings[name_index] == null) {
+      throw new IOException("Invalid class name index " + name_index);
+    }
+    return strings[name_index];
+  }
 }
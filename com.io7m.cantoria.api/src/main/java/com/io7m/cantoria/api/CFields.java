@@ -17,7 +17,6 @@
 package com.io7m.cantoria.api;
 
 import com.io7m.junreachable.UnreachableCodeException;
-import io.vavr.Tuple;
 import io.vavr.Tuple2;
 import io.vavr.collection.List;
 import org.objectweb.asm.tree.FieldNode;
@@ -112,10 +111,8 @@ public final class CFields
     Objects.requireNonNull(clazz, "Clazz");
     Objects.requireNonNull(name, "Name");
 
-    return CClasses.superclassesOf(class_registry, clazz)
-      .map(c -> Tuple.of(c, findFieldsWithName(c, name)))
-      .filter(p -> p._2.isPresent())
-      .map(p -> Tuple.of(p._1, p._2.get()));
+    return class_registry.hierarchy()
+      .superclassFieldsWithName(clazz, name);
   }
 
   /**
@@ -147,10 +144,8 @@ public final class CFields
     Objects.requireNonNull(name, "Name");
     Objects.requireNonNull(type, "Type");
 
-    return CClasses.superclassesOf(class_registry, clazz)
-      .map(c -> Tuple.of(c, findFieldsWithNameAndType(c, name, type)))
-      .filter(p -> p._2.isPresent())
-      .map(p -> Tuple.of(p._1, p._2.get()));
+    return class_registry.hierarchy()
+      .superclassFieldsWithNameAndType(clazz, name, type);
   }
 
   /**
@@ -169,13 +164,36 @@ public final class CFields
     Objects.requireNonNull(clazz, "Class");
     Objects.requireNonNull(field, "Field");
 
+    return field(clazz, field, CFieldTypes.parseFieldType(field.desc));
+  }
+
+  /**
+   * Construct a field from the given field node, using a type that has
+   * already been parsed from the descriptor of the node.
+   *
+   * @param clazz The containing class
+   * @param field The field
+   * @param type  The parsed type of the field
+   *
+   * @return A field
+   */
+
+  public static CField field(
+    final CClassName clazz,
+    final FieldNode field,
+    final String type)
+  {
+    Objects.requireNonNull(clazz, "Class");
+    Objects.requireNonNull(field, "Field");
+    Objects.requireNonNull(type, "Type");
+
     return CField.builder()
       .setAccessibility(CFieldModifiers.fieldAccessibility(field))
       .setClassName(clazz)
       .setModifiers(CFieldModifiers.fieldModifiers(field))
       .setNode(field)
       .setName(field.name)
-      .setType(CFieldTypes.parseFieldType(field.desc))
+      .setType(type)
       .build();
   }
 
@@ -0,0 +1,69 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Objects;
+
+/**
+ * Functions to compute hashes.
+ */
+
+public final class CHashes
+{
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private CHashes()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * @return A new SHA-256 message digest
+   */
+
+  public static MessageDigest sha256()
+  {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * @param data The data
+   *
+   * @return The given data as a string of lowercase hexadecimal digits
+   */
+
+  public static String hex(
+    final byte[] data)
+  {
+    Objects.requireNonNull(data, "Data");
+
+    final StringBuilder sb = new StringBuilder(data.length * 2);
+    for (final byte b : data) {
+      sb.append(HEX_DIGITS[(b >>> 4) & 0xf]);
+      sb.append(HEX_DIGITS[b & 0xf]);
+    }
+    return sb.toString();
+  }
+}
@@ -147,10 +147,8 @@ public final class CMethods
     Objects.requireNonNull(name, "Name");
     Objects.requireNonNull(descriptor, "Descriptor");
 
-    return CClasses.superclassesOf(class_registry, clazz)
-      .map(c -> Tuple.of(c, findMethodWithNameAndType(c, name, descriptor)))
-      .filter(p -> p._2.isPresent())
-      .map(p -> Tuple.of(p._1, p._2.get()));
+    return class_registry.hierarchy()
+      .superclassMethodsWithNameAndType(clazz, name, descriptor);
   }
 
   /**
@@ -205,6 +203,31 @@ public final class CMethods
   public static CMethod method(
     final CClassName clazz,
     final MethodNode method)
+  {
+    return method(
+      clazz,
+      method,
+      CMethodTypes.parseParameterTypesFromSignature(method.desc),
+      CMethodTypes.parseReturnTypeFromSignature(method.desc));
+  }
+
+  /**
+   * Construct a method from the given method node, using types that have
+   * already been parsed from the descriptor of the node.
+   *
+   * @param clazz           The containing class
+   * @param method          The method
+   * @param parameter_types The parsed parameter types of the method
+   * @param return_type     The parsed return type of the method
+   *
+   * @return A method
+   */
+
+  public static CMethod method(
+    final CClassName clazz,
+    final MethodNode method,
+    final List<String> parameter_types,
+    final String return_type)
   {
     return CMethod.builder()
       .setAccessibility(CMethodModifiers.methodAccessibility(method))
@@ -213,8 +236,8 @@ public final class CMethods
       .setModifiers(CMethodModifiers.methodModifiers(method))
       .setName(method.name)
       .setNode(method)
-      .setParameterTypes(CMethodTypes.parseParameterTypesFromSignature(method.desc))
-      .setReturnType(CMethodTypes.parseReturnTypeFromSignature(method.desc))
+      .setParameterTypes(parameter_types)
+      .setReturnType(return_type)
       .build();
   }
 }
@@ -0,0 +1,312 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.api;
+
+import com.io7m.jaffirm.core.Preconditions;
+import io.vavr.collection.SortedSet;
+import org.objectweb.asm.tree.ModuleNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An implementation of the {@link CModuleType} interface that delegates to an
+ * existing implementation for all operations, but also caches the results of
+ * {@link #classValue(String, String)} to avoid repeated I/O and parsing. The
+ * cache holds at most a fixed number of classes and evicts the least recently
+ * used class when full. The cache is safe for concurrent use, and concurrent
+ * requests for the same class cause the class to be loaded only once.
+ */
+
+public final class CModuleCaching implements CModuleType
+{
+  /**
+   * The default maximum number of cached classes.
+   */
+
+  public static final int DEFAULT_MAXIMUM_SIZE = 8192;
+
+  private final CModuleType module;
+  private final LinkedHashMap<String, CompletableFuture<Optional<CClass>>> cache;
+  private final LongAdder hits;
+  private final LongAdder misses;
+  private final LongAdder evictions;
+  private final LongAdder load_time;
+
+  private CModuleCaching(
+    final CModuleType in_module,
+    final int in_maximum_size)
+  {
+    this.module = Objects.requireNonNull(in_module, "Module");
+
+    Preconditions.checkPreconditionI(
+      in_maximum_size,
+      in_maximum_size > 0,
+      x -> "Maximum size must be positive");
+
+    this.hits = new LongAdder();
+    this.misses = new LongAdder();
+    this.evictions = new LongAdder();
+    this.load_time = new LongAdder();
+
+    this.cache =
+      new LinkedHashMap<>(Math.min(in_maximum_size, 1024), 0.75f, true)
+      {
+        @Override
+        protected boolean removeEldestEntry(
+          final Map.Entry<String, CompletableFuture<Optional<CClass>>> eldest)
+        {
+          final boolean remove = this.size() > in_maximum_size;
+          if (remove) {
+            CModuleCaching.this.evictions.increment();
+          }
+          return remove;
+        }
+      };
+  }
+
+  /**
+   * Wrap an existing module, caching at most {@link #DEFAULT_MAXIMUM_SIZE}
+   * classes.
+   *
+   * @param module The module
+   *
+   * @return A wrapped module
+   */
+
+  public static CModuleCaching wrap(
+    final CModuleType module)
+  {
+    return wrap(module, DEFAULT_MAXIMUM_SIZE);
+  }
+
+  /**
+   * Wrap an existing module.
+   *
+   * @param module       The module
+   * @param maximum_size The maximum number of cached classes
+   *
+   * @return A wrapped module
+   */
+
+  public static CModuleCaching wrap(
+    final CModuleType module,
+    final int maximum_size)
+  {
+    return new CModuleCaching(module, maximum_size);
+  }
+
+  private static Optional<CClass> await(
+    final CompletableFuture<Optional<CClass>> future)
+    throws IOException
+  {
+    try {
+      return future.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException(e.getMessage());
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  /**
+   * @return The current cache statistics
+   */
+
+  public CClassCacheStatistics statistics()
+  {
+    final int size;
+    synchronized (this.cache) {
+      size = this.cache.size();
+    }
+
+    return CClassCacheStatistics.of(
+      this.hits.sum(),
+      this.misses.sum(),
+      this.evictions.sum(),
+      this.load_time.sum(),
+      size);
+  }
+
+  @Override
+  public boolean isClosed()
+  {
+    return this.module.isClosed();
+  }
+
+  @Override
+  public CModuleDescriptor descriptor()
+  {
+    return this.module.descriptor();
+  }
+
+  @Override
+  public CArchiveType archive()
+  {
+    return this.module.archive();
+  }
+
+  @Override
+  public ModuleNode node()
+  {
+    return this.module.node();
+  }
+
+  @Override
+  public CClassParsingMode parsingMode()
+  {
+    return this.module.parsingMode();
+  }
+
+  @Override
+  public Optional<InputStream> classBytes(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return this.module.classBytes(package_name, class_name);
+  }
+
+  @Override
+  public Optional<CClassHeader> classHeader(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    Objects.requireNonNull(package_name, "Package");
+    Objects.requireNonNull(class_name, "Class");
+
+    /*
+     * If the class has already been parsed, the header can be taken from the
+     * cached class node instead of reading the class from the module again.
+     */
+
+    final CompletableFuture<Optional<CClass>> existing;
+    synchronized (this.cache) {
+      existing = this.cache.get(qualified(package_name, class_name));
+    }
+
+    if (existing != null
+      && existing.isDone()
+      && !existing.isCompletedExceptionally()) {
+      return existing.join().map(c -> CClasses.classHeaderFromNode(c.node()));
+    }
+
+    return this.module.classHeader(package_name, class_name);
+  }
+
+  private static String qualified(
+    final String package_name,
+    final String class_name)
+  {
+    return new StringBuilder(32)
+      .append(package_name)
+      .append(".")
+      .append(class_name)
+      .toString();
+  }
+
+  @Override
+  public Optional<CClassDigest> classDigest(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return this.module.classDigest(package_name, class_name);
+  }
+
+  @Override
+  public Optional<CClass> classValue(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    Objects.requireNonNull(package_name, "Package");
+    Objects.requireNonNull(class_name, "Class");
+
+    final String qual = qualified(package_name, class_name);
+
+    final CompletableFuture<Optional<CClass>> future;
+    final boolean owner;
+    synchronized (this.cache) {
+      final CompletableFuture<Optional<CClass>> existing = this.cache.get(qual);
+      if (existing != null) {
+        future = existing;
+        owner = false;
+      } else {
+        future = new CompletableFuture<>();
+        owner = true;
+        this.cache.put(qual, future);
+      }
+    }
+
+    if (!owner) {
+      this.hits.increment();
+      return await(future);
+    }
+
+    this.misses.increment();
+    final long time_then = System.nanoTime();
+    try {
+      final Optional<CClass> result =
+        this.module.classValue(package_name, class_name);
+      future.complete(result);
+      return result;
+    } catch (final IOException | RuntimeException | Error e) {
+      synchronized (this.cache) {
+        this.cache.remove(qual, future);
+      }
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.load_time.add(System.nanoTime() - time_then);
+    }
+  }
+
+  @Override
+  public SortedSet<String> classesInPackage(
+    final String package_name)
+  {
+    return this.module.classesInPackage(package_name);
+  }
+
+  @Override
+  public void close()
+    throws IOException
+  {
+    this.module.close();
+  }
+}
@@ -29,6 +29,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 /**
  * Functions over module descriptors.
@@ -65,6 +66,17 @@ public final class CModuleDescriptors
     return visitor.module;
   }
 
+  /**
+   * ASM 6 represents an unqualified export or opens directive with a
+   * {@code null} module list, whereas ASM 7 uses an empty list.
+   */
+
+  private static boolean isQualified(
+    final List<String> modules)
+  {
+    return modules != null && !modules.isEmpty();
+  }
+
   /**
    * Load a module descriptor.
    *
@@ -102,7 +114,7 @@ public final class CModuleDescriptors
       module.exports.forEach(
         export -> {
           final String pack = export.packaze.replace('/', '.');
-          if (export.modules != null) {
+          if (isQualified(export.modules)) {
             export.modules.forEach(mod -> {
               LOG.trace("export qualified: {} -> {}", pack, mod);
               b.addExportsQualified(CModuleQualifiedExport.of(pack, mod));
@@ -118,7 +130,7 @@ public final class CModuleDescriptors
       module.opens.forEach(
         open -> {
           final String pack = open.packaze.replace('/', '.');
-          if (open.modules != null) {
+          if (isQualified(open.modules)) {
             open.modules.forEach(mod -> {
               LOG.trace("opens qualified: {} -> {}", pack, mod);
               b.addOpensQualified(CModuleQualifiedOpens.of(pack, mod));
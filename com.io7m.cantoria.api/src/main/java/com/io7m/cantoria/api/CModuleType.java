@@ -54,6 +54,13 @@ public interface CModuleType extends Closeable
 
   ModuleNode node();
 
+  /**
+   * @return The mode used to parse classes returned by
+   * {@link #classValue(String, String)}
+   */
+
+  CClassParsingMode parsingMode();
+
   /**
    * Get the bytes for the given class.
    *
@@ -71,6 +78,58 @@ public interface CModuleType extends Closeable
     String class_name)
     throws IOException;
 
+  /**
+   * Read the header of the given class without parsing the rest of the class.
+   * The default implementation reads the bytes of the class up to the end of
+   * the class header and examines the constant pool.
+   *
+   * @param package_name The package name
+   * @param class_name   The class name
+   *
+   * @return A class header, or nothing if the class is not present
+   *
+   * @throws IOException On I/O errors
+   */
+
+  default Optional<CClassHeader>
+  classHeader(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    final Optional<InputStream> opt_stream =
+      this.classBytes(package_name, class_name);
+    if (opt_stream.isPresent()) {
+      try (InputStream stream = opt_stream.get()) {
+        return Optional.of(CClasses.classHeaderFromStream(stream));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Get a digest of the bytes of the given class, if the underlying archive
+   * records one and it can be obtained without reading the class. The
+   * default implementation returns nothing.
+   *
+   * @param package_name The package name
+   * @param class_name   The class name
+   *
+   * @return A digest, or nothing if the class is not present or no digest is
+   * available
+   *
+   * @throws IOException On I/O errors
+   */
+
+  default Optional<CClassDigest>
+  classDigest(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return Optional.empty();
+  }
+
   /**
    * Get the parsed class for the given name.
    *
@@ -0,0 +1,116 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package com.io7m.cantoria.changes.spi;
+
+import com.io7m.cantoria.api.CClassName;
+import com.io7m.cantoria.api.CMethod;
+import com.io7m.cantoria.changes.api.CChangeClassType;
+import com.io7m.cantoria.changes.api.CChangeConstructorType;
+import com.io7m.cantoria.changes.api.CChangeEnumType;
+import com.io7m.cantoria.changes.api.CChangeFieldType;
+import com.io7m.cantoria.changes.api.CChangeMethodType;
+import com.io7m.cantoria.changes.api.CChangeModuleType;
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.junreachable.UnreachableCodeException;
+import io.vavr.Tuple;
+import io.vavr.Tuple3;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A deterministic ordering of changes by (package, class, member). Module
+ * changes are ordered before all other changes.
+ */
+
+public final class CChangeOrdering
+{
+  private static final Comparator<CChangeType> ORDER =
+    Comparator.comparing(CChangeOrdering::key);
+
+  private CChangeOrdering()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  private static Tuple3<String, String, String> classKey(
+    final CClassName name,
+    final String member)
+  {
+    return Tuple.of(name.packageName(), name.className(), member);
+  }
+
+  private static String methodKey(
+    final CMethod method)
+  {
+    return method.parameterTypes()
+      .mkString(method.name() + "(", ",", ")");
+  }
+
+  /**
+   * Determine the ordering key of the given change.
+   *
+   * @param change The change
+   *
+   * @return The (package, class, member) key of the change
+   */
+
+  public static Tuple3<String, String, String> key(
+    final CChangeType change)
+  {
+    Objects.requireNonNull(change, "Change");
+
+    switch (change.category()) {
+      case CHANGE_FIELD: {
+        final CChangeFieldType c = (CChangeFieldType) change;
+        return classKey(c.field().className(), c.field().name());
+      }
+      case CHANGE_CLASS: {
+        final CChangeClassType c = (CChangeClassType) change;
+        return classKey(c.classValue().name(), "");
+      }
+      case CHANGE_CONSTRUCTOR: {
+        final CChangeConstructorType c = (CChangeConstructorType) change;
+        return classKey(c.className(), methodKey(c.constructor().method()));
+      }
+      case CHANGE_METHOD: {
+        final CChangeMethodType c = (CChangeMethodType) change;
+        return classKey(c.className(), methodKey(c.method()));
+      }
+      case CHANGE_MODULE: {
+        final CChangeModuleType c = (CChangeModuleType) change;
+        return Tuple.of("", "", c.module());
+      }
+      case CHANGE_ENUM: {
+        final CChangeEnumType c = (CChangeEnumType) change;
+        return classKey(c.enumType().name(), "");
+      }
+    }
+
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * @return A comparator that orders changes by their keys
+   *
+   * @see #key(CChangeType)
+   */
+
+  public static Comparator<CChangeType> comparator()
+  {
+    return ORDER;
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package com.io7m.cantoria.changes.spi;
+
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.jaffirm.core.Preconditions;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Objects;
+
+/**
+ * <p>A bounded reorder buffer for changes produced concurrently.</p>
+ *
+ * <p>Work is divided into <i>slots</i> numbered from {@code 0}, where the
+ * slot numbers give the order in which changes must be delivered (for
+ * example, one slot per class in (package, class) order). Each producer
+ * obtains a receiver for its slot with {@link #slot(int)} and calls {@link
+ * #complete(int)} when it has finished. Changes for the lowest incomplete
+ * slot are delivered immediately; changes for later slots are buffered and
+ * delivered as soon as all earlier slots are complete. The downstream
+ * receiver is only ever called by one thread at a time.</p>
+ *
+ * <p>At most {@code capacity} changes are buffered. A producer that would
+ * exceed the capacity blocks until earlier slots complete, so producers must
+ * be scheduled such that the lowest incomplete slot can always make progress
+ * (for example, by submitting tasks to an executor in slot order).</p>
+ */
+
+public final class CChangeReceiverReordering
+{
+  private final CChangeReceiverType downstream;
+  private final int capacity;
+  private final Object lock;
+  private final HashMap<Integer, ArrayList<Tuple2<CChangeCheckType, CChangeType>>> pending;
+  private final BitSet completed;
+  private int head;
+  private int buffered;
+
+  private CChangeReceiverReordering(
+    final CChangeReceiverType in_downstream,
+    final int in_capacity)
+  {
+    this.downstream =
+      Objects.requireNonNull(in_downstream, "Downstream");
+    this.capacity =
+      Preconditions.checkPreconditionI(
+        in_capacity, in_capacity > 0, i -> "Capacity must be positive");
+    this.lock = new Object();
+    this.pending = new HashMap<>(16);
+    this.completed = new BitSet();
+    this.head = 0;
+    this.buffered = 0;
+  }
+
+  /**
+   * Create a reorder buffer.
+   *
+   * @param downstream The receiver to which changes are delivered in order
+   * @param capacity   The maximum number of buffered changes
+   *
+   * @return A new reorder buffer
+   */
+
+  public static CChangeReceiverReordering create(
+    final CChangeReceiverType downstream,
+    final int capacity)
+  {
+    return new CChangeReceiverReordering(downstream, capacity);
+  }
+
+  /**
+   * @param index The slot number
+   *
+   * @return A receiver for changes belonging to the given slot
+   */
+
+  public CChangeReceiverType slot(
+    final int index)
+  {
+    Preconditions.checkPreconditionI(
+      index, index >= 0, i -> "Slot index must be non-negative");
+    return (originator, change) -> this.onSlotChange(index, originator, change);
+  }
+
+  /**
+   * Mark the given slot as complete. No further changes may be delivered to
+   * the slot.
+   *
+   * @param index The slot number
+   */
+
+  public void complete(
+    final int index)
+  {
+    synchronized (this.lock) {
+      Preconditions.checkPreconditionI(
+        index,
+        index >= this.head && !this.completed.get(index),
+        i -> "Slot " + i + " must not already be complete");
+
+      this.completed.set(index);
+      while (this.completed.get(this.head)) {
+        this.completed.clear(this.head);
+        ++this.head;
+
+        final ArrayList<Tuple2<CChangeCheckType, CChangeType>> changes =
+          this.pending.remove(Integer.valueOf(this.head));
+        if (changes != null) {
+          this.buffered -= changes.size();
+          for (final Tuple2<CChangeCheckType, CChangeType> p : changes) {
+            this.downstream.onChange(p._1, p._2);
+          }
+        }
+      }
+      this.lock.notifyAll();
+    }
+  }
+
+  /**
+   * @return The lowest slot that is not yet complete
+   */
+
+  public int head()
+  {
+    synchronized (this.lock) {
+      return this.head;
+    }
+  }
+
+  /**
+   * @return The number of changes currently buffered
+   */
+
+  public int buffered()
+  {
+    synchronized (this.lock) {
+      return this.buffered;
+    }
+  }
+
+  private void onSlotChange(
+    final int index,
+    final CChangeCheckType originator,
+    final CChangeType change)
+  {
+    Objects.requireNonNull(originator, "Originator");
+    Objects.requireNonNull(change, "Change");
+
+    synchronized (this.lock) {
+      Preconditions.checkPreconditionI(
+        index,
+        index >= this.head && !this.completed.get(index),
+        i -> "Slot " + i + " must not be complete");
+
+      while (index != this.head && this.buffered >= this.capacity) {
+        try {
+          this.lock.wait();
+        } catch (final InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new IllegalStateException(
+            "Interrupted while waiting for buffer space", e);
+        }
+      }
+
+      if (index == this.head) {
+        this.downstream.onChange(originator, change);
+        return;
+      }
+
+      this.pending.computeIfAbsent(
+        Integer.valueOf(index), k -> new ArrayList<>(8))
+        .add(Tuple.of(originator, change));
+      ++this.buffered;
+    }
+  }
+}
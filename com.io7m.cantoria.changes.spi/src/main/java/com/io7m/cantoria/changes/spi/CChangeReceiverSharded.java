@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+package com.io7m.cantoria.changes.spi;
+
+import com.io7m.cantoria.changes.api.CChangeType;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * A change receiver that may be used concurrently by any number of threads.
+ * Each thread appends changes to its own shard without synchronization, and
+ * the shards are merged into a single deterministic sequence by {@link
+ * #merged()} once all producers have finished. Changes are ordered by the
+ * given comparator, then by the name of the originating check. Changes that
+ * compare as equal and were produced by the same thread retain the order in
+ * which they were received.
+ */
+
+public final class CChangeReceiverSharded implements CChangeReceiverType
+{
+  private final Comparator<Tuple2<CChangeCheckType, CChangeType>> order;
+  private final ConcurrentLinkedQueue<ArrayList<Tuple2<CChangeCheckType, CChangeType>>> shards;
+  private final ThreadLocal<ArrayList<Tuple2<CChangeCheckType, CChangeType>>> shard;
+
+  private CChangeReceiverSharded(
+    final Comparator<CChangeType> in_order)
+  {
+    Objects.requireNonNull(in_order, "Order");
+
+    this.order =
+      Comparator.<Tuple2<CChangeCheckType, CChangeType>, CChangeType>comparing(
+        p -> p._2, in_order)
+        .thenComparing(p -> p._1.name());
+    this.shards =
+      new ConcurrentLinkedQueue<>();
+    this.shard =
+      ThreadLocal.withInitial(() -> {
+        final ArrayList<Tuple2<CChangeCheckType, CChangeType>> changes =
+          new ArrayList<>(32);
+        this.shards.add(changes);
+        return changes;
+      });
+  }
+
+  /**
+   * Create a receiver that orders changes using {@link
+   * CChangeOrdering#comparator()}.
+   *
+   * @return A new receiver
+   */
+
+  public static CChangeReceiverSharded create()
+  {
+    return create(CChangeOrdering.comparator());
+  }
+
+  /**
+   * Create a receiver that orders changes using the given comparator.
+   *
+   * @param order The comparator used to merge changes
+   *
+   * @return A new receiver
+   */
+
+  public static CChangeReceiverSharded create(
+    final Comparator<CChangeType> order)
+  {
+    return new CChangeReceiverSharded(order);
+  }
+
+  @Override
+  public void onChange(
+    final CChangeCheckType originator,
+    final CChangeType change)
+  {
+    Objects.requireNonNull(originator, "Originator");
+    Objects.requireNonNull(change, "Change");
+    this.shard.get().add(Tuple.of(originator, change));
+  }
+
+  /**
+   * Merge all shards. This method must only be called once all producers
+   * have finished, and the completion of the producers must happen-before
+   * the call (for example, by waiting on the futures of the producing
+   * tasks).
+   *
+   * @return All received changes, in deterministic order
+   */
+
+  public List<Tuple2<CChangeCheckType, CChangeType>> merged()
+  {
+    final ArrayList<Tuple2<CChangeCheckType, CChangeType>> all =
+      new ArrayList<>(64);
+    for (final ArrayList<Tuple2<CChangeCheckType, CChangeType>> s : this.shards) {
+      all.addAll(s);
+    }
+    all.sort(this.order);
+    return List.ofAll(all);
+  }
+
+  /**
+   * Merge all shards and deliver the changes to the given receiver.
+   *
+   * @param receiver The receiver
+   *
+   * @see #merged()
+   */
+
+  public void mergeInto(
+    final CChangeReceiverType receiver)
+  {
+    Objects.requireNonNull(receiver, "Receiver");
+    this.merged().forEach(p -> receiver.onChange(p._1, p._2));
+  }
+}
@@ -70,4 +70,24 @@ public interface CClassComparatorType extends CChangeCheckType
 
     this.compareClass(receiver, registry, clazz_old, clazz_new);
   }
+
+  /**
+   * Determine whether a class-level change that this comparator reports for
+   * the given classes makes the comparison of the members of the classes
+   * redundant. Drivers may skip method and field comparisons for classes
+   * for which any comparator returns {@code true}. The default implementation
+   * returns {@code false}.
+   *
+   * @param clazz_old The old version of the class
+   * @param clazz_new The new version of the class
+   *
+   * @return {@code true} if the change subsumes any member changes
+   */
+
+  default boolean subsumesMembers(
+    final CClass clazz_old,
+    final CClass clazz_new)
+  {
+    return false;
+  }
 }
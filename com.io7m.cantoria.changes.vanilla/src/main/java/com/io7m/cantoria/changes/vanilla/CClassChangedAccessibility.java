@@ -83,6 +83,19 @@ public final class CClassChangedAccessibility
     }
   }
 
+  /**
+   * A class that stops being public removes all of its members from the API.
+   */
+
+  @Override
+  public boolean subsumesMembers(
+    final CClass class_old,
+    final CClass class_new)
+  {
+    return class_old.accessibility() == CAccessibility.PUBLIC
+      && class_new.accessibility() != CAccessibility.PUBLIC;
+  }
+
   @Override
   public String name()
   {
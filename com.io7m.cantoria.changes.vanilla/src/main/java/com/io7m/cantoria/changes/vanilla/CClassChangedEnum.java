@@ -83,6 +83,21 @@ public final class CClassChangedEnum
     }
   }
 
+  /**
+   * A class that becomes an enum can no longer be instantiated or extended,
+   * so changes to its members add no further information.
+   */
+
+  @Override
+  public boolean subsumesMembers(
+    final CClass class_old,
+    final CClass class_new)
+  {
+    return class_new.accessibility() == CAccessibility.PUBLIC
+      && !class_old.isEnum()
+      && class_new.isEnum();
+  }
+
   @Override
   public String name()
   {
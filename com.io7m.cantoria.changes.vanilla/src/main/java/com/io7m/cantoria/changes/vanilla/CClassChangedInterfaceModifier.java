@@ -86,6 +86,22 @@ public final class CClassChangedInterfaceModifier
     }
   }
 
+  /**
+   * A class that becomes an interface breaks every use of its constructors
+   * and instance members, so changes to its members add no further
+   * information.
+   */
+
+  @Override
+  public boolean subsumesMembers(
+    final CClass class_old,
+    final CClass class_new)
+  {
+    return class_new.accessibility() == CAccessibility.PUBLIC
+      && !class_old.modifiers().contains(CModifier.INTERFACE)
+      && class_new.modifiers().contains(CModifier.INTERFACE);
+  }
+
   @Override
   public String name()
   {
@@ -64,7 +64,7 @@ public final class CFieldAddedCheckStaticLinkage
     if (field.accessibility() != CAccessibility.PRIVATE) {
       try {
         final List<Tuple2<CClass, FieldNode>> r =
-          CFields.findSuperclassFieldsWithName(registry, clazz, field.name());
+          registry.hierarchy().superclassFieldsWithName(clazz, field.name());
 
         if (!r.isEmpty()) {
           final CField super_field =
@@ -74,8 +74,8 @@ public final class CFieldCheckRemovedOrMoved
 
     try {
       final List<Tuple2<CClass, FieldNode>> r =
-        CFields.findSuperclassFieldsWithNameAndType(
-          registry, clazz, field.name(), field.node().desc);
+        registry.hierarchy().superclassFieldsWithNameAndType(
+          clazz, field.name(), field.node().desc);
 
       if (!r.isEmpty()) {
         receiver.onChange(
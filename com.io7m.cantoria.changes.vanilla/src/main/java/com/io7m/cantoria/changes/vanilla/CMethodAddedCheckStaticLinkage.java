@@ -82,8 +82,8 @@ public final class CMethodAddedCheckStaticLinkage
 
     try {
       final List<Tuple2<CClass, MethodNode>> r =
-        CMethods.findSuperclassMethodsWithNameAndType(
-          registry, class_new, method.name(), method.node().desc);
+        registry.hierarchy().superclassMethodsWithNameAndType(
+          class_new, method.name(), method.node().desc);
 
       if (!r.isEmpty()) {
         final CMethod super_method =
@@ -109,8 +109,8 @@ public final class CMethodRemovedFromClass
       final List<Tuple2<CClass, MethodNode>> supers;
 
       try {
-        supers = CMethods.findSuperclassMethodsWithNameAndType(
-          registry, class_new, method.name(), method.node().desc);
+        supers = registry.hierarchy().superclassMethodsWithNameAndType(
+          class_new, method.name(), method.node().desc);
       } catch (final IOException e) {
         throw new UncheckedIOException(e);
       }
@@ -0,0 +1,159 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.cmdline;
+
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.api.CVersions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A batch manifest. Each non-empty line of a manifest that does not begin
+ * with {@code #} names a pair of modules to be compared, as four
+ * whitespace-separated fields: the old module, the old version, the new
+ * module, and the new version. Relative module paths are resolved against
+ * the directory containing the manifest.
+ */
+
+final class CBatchManifest
+{
+  private final List<Entry> entries;
+
+  private CBatchManifest(
+    final List<Entry> in_entries)
+  {
+    this.entries = Objects.requireNonNull(in_entries, "Entries");
+  }
+
+  /**
+   * Parse the given manifest.
+   *
+   * @param path The manifest file
+   *
+   * @return A parsed manifest
+   *
+   * @throws IOException On I/O errors or malformed lines
+   */
+
+  static CBatchManifest parse(
+    final Path path)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "Path");
+
+    final Path base = path.toAbsolutePath().getParent();
+    final ArrayList<Entry> entries = new ArrayList<>(64);
+
+    try (BufferedReader reader = Files.newBufferedReader(path, UTF_8)) {
+      int line_number = 0;
+      while (true) {
+        final String line = reader.readLine();
+        if (line == null) {
+          break;
+        }
+        ++line_number;
+
+        final String trimmed = line.trim();
+        if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+          continue;
+        }
+
+        final String[] fields = trimmed.split("\\s+");
+        if (fields.length != 4) {
+          throw new IOException(String.format(
+            "%s:%d: Expected <old module> <old version> <new module> <new version>",
+            path,
+            Integer.valueOf(line_number)));
+        }
+
+        try {
+          entries.add(new Entry(
+            base.resolve(fields[0]),
+            CVersions.parse(fields[1]),
+            base.resolve(fields[2]),
+            CVersions.parse(fields[3])));
+        } catch (final IllegalArgumentException e) {
+          throw new IOException(String.format(
+            "%s:%d: %s", path, Integer.valueOf(line_number), e.getMessage()), e);
+        }
+      }
+    }
+
+    return new CBatchManifest(entries);
+  }
+
+  /**
+   * @return The pairs named by the manifest, in manifest order
+   */
+
+  List<Entry> entries()
+  {
+    return this.entries;
+  }
+
+  /**
+   * A pair of modules named by a manifest.
+   */
+
+  static final class Entry
+  {
+    private final Path module_old;
+    private final CVersion version_old;
+    private final Path module_new;
+    private final CVersion version_new;
+
+    Entry(
+      final Path in_module_old,
+      final CVersion in_version_old,
+      final Path in_module_new,
+      final CVersion in_version_new)
+    {
+      this.module_old = Objects.requireNonNull(in_module_old, "Old module");
+      this.version_old = Objects.requireNonNull(in_version_old, "Old version");
+      this.module_new = Objects.requireNonNull(in_module_new, "New module");
+      this.version_new = Objects.requireNonNull(in_version_new, "New version");
+    }
+
+    Path moduleOld()
+    {
+      return this.module_old;
+    }
+
+    CVersion versionOld()
+    {
+      return this.version_old;
+    }
+
+    Path moduleNew()
+    {
+      return this.module_new;
+    }
+
+    CVersion versionNew()
+    {
+      return this.version_new;
+    }
+  }
+}
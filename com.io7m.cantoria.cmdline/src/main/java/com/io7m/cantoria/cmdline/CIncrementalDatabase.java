@@ -0,0 +1,426 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.cmdline;
+
+import com.io7m.cantoria.api.CClassDigest;
+import com.io7m.cantoria.api.CClassHeader;
+import com.io7m.cantoria.api.CHashes;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.changes.api.CChangeBinaryCompatibility;
+import com.io7m.cantoria.changes.api.CChangeSemanticVersioning;
+import com.io7m.cantoria.changes.api.CChangeSourceCompatibility;
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
+import com.io7m.cantoria.driver.api.CComparisonMemoType;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.CRC32;
+
+/**
+ * A file-backed database of the report records produced for each class by
+ * earlier comparisons.
+ *
+ * <p>Each class is keyed by a fingerprint of the bytes of the class in both
+ * modules, and of the bytes of those superclasses and superinterfaces of the
+ * class that are present in the same module. Classes resolved from other
+ * modules are covered by the database header, which the caller computes from
+ * the tool version, the runtime, the set of checks, the driver configuration
+ * and the modules in the class registry. A database whose header does not
+ * match is ignored and rewritten.</p>
+ */
+
+public final class CIncrementalDatabase implements CComparisonMemoType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CIncrementalDatabase.class);
+
+  private static final int MAGIC = 0x43414e54;
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path path;
+  private final Consumer<CReportRecord> output;
+  private final Function<Tuple2<CChangeCheckType, CChangeType>, CReportRecord> renderer;
+  private final ConcurrentHashMap<String, String> keys;
+  private final TreeMap<String, Entry> current;
+  private Map<String, Entry> previous;
+  private String header;
+  private int replayed;
+
+  /**
+   * Construct a database.
+   *
+   * @param in_path     The file that holds the database
+   * @param in_output   A consumer of the records replayed from the database
+   * @param in_renderer A function that renders changes to records
+   */
+
+  public CIncrementalDatabase(
+    final Path in_path,
+    final Consumer<CReportRecord> in_output,
+    final Function<Tuple2<CChangeCheckType, CChangeType>, CReportRecord> in_renderer)
+  {
+    this.path = Objects.requireNonNull(in_path, "Path");
+    this.output = Objects.requireNonNull(in_output, "Output");
+    this.renderer = Objects.requireNonNull(in_renderer, "Renderer");
+    this.keys = new ConcurrentHashMap<>(128);
+    this.current = new TreeMap<>();
+    this.previous = new HashMap<>();
+  }
+
+  private static String id(
+    final String package_name,
+    final String class_name)
+  {
+    return package_name + "/" + class_name;
+  }
+
+  /**
+   * @param text The text
+   *
+   * @return The SHA-256 hash of the given text, as hexadecimal digits
+   */
+
+  static String hashOf(
+    final String text)
+  {
+    final byte[] data = text.getBytes(StandardCharsets.UTF_8);
+    return CHashes.hex(CHashes.sha256().digest(data));
+  }
+
+  private static String digestOf(
+    final CModuleType module,
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    final Optional<CClassDigest> digest_opt =
+      module.classDigest(package_name, class_name);
+    if (digest_opt.isPresent()) {
+      final CClassDigest digest = digest_opt.get();
+      return Long.toHexString(digest.crc32()) + ":" + digest.size();
+    }
+
+    final Optional<InputStream> stream_opt =
+      module.classBytes(package_name, class_name);
+    if (!stream_opt.isPresent()) {
+      return "-";
+    }
+
+    try (InputStream stream = stream_opt.get()) {
+      final CRC32 crc = new CRC32();
+      final byte[] buffer = new byte[4096];
+      long size = 0L;
+      while (true) {
+        final int r = stream.read(buffer);
+        if (r == -1) {
+          break;
+        }
+        crc.update(buffer, 0, r);
+        size += (long) r;
+      }
+      return Long.toHexString(crc.getValue()) + ":" + size;
+    }
+  }
+
+  private static void appendClass(
+    final StringBuilder key,
+    final CModuleType module,
+    final String package_name,
+    final String class_name,
+    final Set<String> visited)
+    throws IOException
+  {
+    if (!visited.add(id(package_name, class_name))) {
+      return;
+    }
+
+    final String digest = digestOf(module, package_name, class_name);
+    key.append(package_name);
+    key.append('/');
+    key.append(class_name);
+    key.append('=');
+    key.append(digest);
+    key.append(';');
+
+    if ("-".equals(digest)) {
+      return;
+    }
+
+    final Optional<CClassHeader> header_opt =
+      module.classHeader(package_name, class_name);
+    if (!header_opt.isPresent()) {
+      return;
+    }
+
+    final CClassHeader header = header_opt.get();
+    if (header.superName().isPresent()) {
+      appendInternalName(key, module, header.superName().get(), visited);
+    }
+    for (final String name : header.interfaces()) {
+      appendInternalName(key, module, name, visited);
+    }
+  }
+
+  private static void appendInternalName(
+    final StringBuilder key,
+    final CModuleType module,
+    final String internal_name,
+    final Set<String> visited)
+    throws IOException
+  {
+    final int index = internal_name.lastIndexOf('/');
+    final String package_name =
+      index < 0 ? "" : internal_name.substring(0, index).replace('/', '.');
+    final String class_name = internal_name.substring(index + 1);
+    appendClass(key, module, package_name, class_name, visited);
+  }
+
+  private static Entry readEntry(
+    final DataInputStream input)
+    throws IOException
+  {
+    final String package_name = input.readUTF();
+    final String class_name = input.readUTF();
+    final String key = input.readUTF();
+    final int count = input.readInt();
+
+    final ArrayList<CReportRecord> records =
+      new ArrayList<>(count);
+    for (int index = 0; index < count; ++index) {
+      final CChangeType.Category category =
+        CChangeType.Category.valueOf(input.readUTF());
+      final CChangeSemanticVersioning semantic =
+        CChangeSemanticVersioning.valueOf(input.readUTF());
+      final CChangeBinaryCompatibility binary =
+        CChangeBinaryCompatibility.valueOf(input.readUTF());
+      final CChangeSourceCompatibility source =
+        CChangeSourceCompatibility.valueOf(input.readUTF());
+      final String type_name = input.readUTF();
+      final byte[] text = new byte[input.readInt()];
+      input.readFully(text);
+      records.add(new CReportRecord(
+        category, semantic, binary, source, type_name, text));
+    }
+
+    return new Entry(package_name, class_name, key, List.ofAll(records));
+  }
+
+  private static void writeEntry(
+    final DataOutputStream output,
+    final Entry entry)
+    throws IOException
+  {
+    output.writeUTF(entry.package_name);
+    output.writeUTF(entry.class_name);
+    output.writeUTF(entry.key);
+    output.writeInt(entry.records.size());
+
+    for (final CReportRecord record : entry.records) {
+      output.writeUTF(record.category().name());
+      output.writeUTF(record.semanticVersioning().name());
+      output.writeUTF(record.binaryCompatibility().name());
+      output.writeUTF(record.sourceCompatibility().name());
+      output.writeUTF(record.typeName());
+      final byte[] text = record.text().get();
+      output.writeInt(text.length);
+      output.write(text);
+    }
+  }
+
+  /**
+   * Load the database. If the database does not exist, or was written with a
+   * different header, the database starts empty.
+   *
+   * @param in_header The header that the loaded database must match
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void load(
+    final String in_header)
+    throws IOException
+  {
+    this.header = Objects.requireNonNull(in_header, "Header");
+    this.previous = new HashMap<>();
+
+    try (DataInputStream input = new DataInputStream(
+      new BufferedInputStream(Files.newInputStream(this.path)))) {
+      if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+        LOG.info("ignoring incremental database {}: unrecognized format", this.path);
+        return;
+      }
+      if (!Objects.equals(input.readUTF(), this.header)) {
+        LOG.info("ignoring incremental database {}: configuration changed", this.path);
+        return;
+      }
+
+      final int count = input.readInt();
+      final HashMap<String, Entry> entries = new HashMap<>(count);
+      for (int index = 0; index < count; ++index) {
+        final Entry entry = readEntry(input);
+        entries.put(id(entry.package_name, entry.class_name), entry);
+      }
+      this.previous = entries;
+      LOG.debug("loaded {} classes from incremental database {}", Integer.valueOf(count), this.path);
+    } catch (final NoSuchFileException e) {
+      LOG.debug("incremental database {} does not exist", this.path);
+    } catch (final EOFException e) {
+      LOG.info("ignoring incremental database {}: truncated", this.path);
+    } catch (final IllegalArgumentException e) {
+      LOG.info("ignoring incremental database {}: {}", this.path, e.getMessage());
+    }
+  }
+
+  /**
+   * Write the results of the current comparison to the database, replacing
+   * the existing database atomically.
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public void save()
+    throws IOException
+  {
+    final Path parent = this.path.toAbsolutePath().getParent();
+    if (parent != null) {
+      Files.createDirectories(parent);
+    }
+
+    final Path temporary =
+      this.path.resolveSibling(this.path.getFileName() + ".tmp");
+    try (DataOutputStream output = new DataOutputStream(
+      new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+      output.writeInt(MAGIC);
+      output.writeInt(FORMAT_VERSION);
+      output.writeUTF(this.header);
+      output.writeInt(this.current.size());
+      for (final Entry entry : this.current.values()) {
+        writeEntry(output, entry);
+      }
+    }
+
+    Files.move(
+      temporary,
+      this.path,
+      StandardCopyOption.REPLACE_EXISTING,
+      StandardCopyOption.ATOMIC_MOVE);
+
+    LOG.debug(
+      "incremental database {}: {} classes, {} replayed",
+      this.path,
+      Integer.valueOf(this.current.size()),
+      Integer.valueOf(this.replayed));
+  }
+
+  @Override
+  public boolean isCurrent(
+    final CModuleType module_old,
+    final CModuleType module_new,
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    Objects.requireNonNull(module_old, "Old module");
+    Objects.requireNonNull(module_new, "New module");
+    Objects.requireNonNull(package_name, "Package");
+    Objects.requireNonNull(class_name, "Class");
+
+    final StringBuilder key = new StringBuilder(128);
+    appendClass(key, module_old, package_name, class_name, new HashSet<>());
+    key.append('|');
+    appendClass(key, module_new, package_name, class_name, new HashSet<>());
+
+    final String id = id(package_name, class_name);
+    final String hash = hashOf(key.toString());
+    this.keys.put(id, hash);
+
+    final Entry entry = this.previous.get(id);
+    return entry != null && Objects.equals(entry.key, hash);
+  }
+
+  @Override
+  public void replay(
+    final String package_name,
+    final String class_name)
+  {
+    final String id = id(package_name, class_name);
+    final Entry entry = this.previous.get(id);
+    this.current.put(id, entry);
+    entry.records.forEach(this.output);
+    ++this.replayed;
+  }
+
+  @Override
+  public void compared(
+    final String package_name,
+    final String class_name,
+    final List<Tuple2<CChangeCheckType, CChangeType>> changes)
+  {
+    final String id = id(package_name, class_name);
+    final List<CReportRecord> records = changes.map(this.renderer);
+    if (records.forAll(record -> record.text().isPresent())) {
+      this.current.put(
+        id, new Entry(package_name, class_name, this.keys.get(id), records));
+    }
+  }
+
+  private static final class Entry
+  {
+    private final String package_name;
+    private final String class_name;
+    private final String key;
+    private final List<CReportRecord> records;
+
+    Entry(
+      final String in_package_name,
+      final String in_class_name,
+      final String in_key,
+      final List<CReportRecord> in_records)
+    {
+      this.package_name = Objects.requireNonNull(in_package_name, "Package");
+      this.class_name = Objects.requireNonNull(in_class_name, "Class");
+      this.key = Objects.requireNonNull(in_key, "Key");
+      this.records = Objects.requireNonNull(in_records, "Records");
+    }
+  }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.cmdline;
+
+import com.beust.jcommander.Parameter;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+
+/**
+ * The command line option that selects the module loader implementation used
+ * to open modules. Commands include this option as a parameters delegate.
+ */
+
+final class CModuleLoaderSelection
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CModuleLoaderSelection.class);
+
+  @Parameter(
+    names = "--module-loader",
+    description = "The name of the module loader implementation used to open modules (default: the first available)",
+    required = false)
+  private String name;
+
+  CModuleLoaderSelection()
+  {
+
+  }
+
+  /**
+   * Find the selected module loader, logging an error if no loader with the
+   * selected name is available.
+   *
+   * @return The selected module loader, if one is available
+   */
+
+  Optional<CModuleLoaderType> loader()
+  {
+    final List<CModuleLoaderType> loaders = new ArrayList<>(4);
+    ServiceLoader.load(CModuleLoaderType.class).forEach(loaders::add);
+
+    if (loaders.isEmpty()) {
+      LOG.error("No module loader implementations available.");
+      return Optional.empty();
+    }
+
+    if (this.name == null) {
+      return Optional.of(loaders.get(0));
+    }
+
+    for (final CModuleLoaderType loader : loaders) {
+      if (loader.name().equals(this.name)) {
+        return Optional.of(loader);
+      }
+    }
+
+    LOG.error("No module loader named {} is available.", this.name);
+    loaders.forEach(loader -> LOG.error("  available: {}", loader.name()));
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.cmdline;
+
+import com.beust.jcommander.Parameter;
+import com.io7m.cantoria.api.CClassParsingMode;
+import com.io7m.cantoria.api.CClassRegistry;
+import com.io7m.cantoria.api.CClassRegistryType;
+import com.io7m.cantoria.api.CModuleCaching;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.driver.api.CModuleOpenerType;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import com.io7m.cantoria.modules.api.CModuleSkeletonCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_FAILURE;
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_SUCCESS;
+
+/**
+ * The command line options that specify the modules used to resolve classes,
+ * and the set of modules opened from them. Commands include these options
+ * as a parameters delegate.
+ */
+
+public final class CRegistryModules
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CRegistryModules.class);
+
+  private final ArrayList<CModuleType> opened_modules;
+  private CClassRegistryType registry;
+
+  @Parameter(
+    names = "--add-module",
+    description = "Load extra platform modules used to resolve classes (may be specified multiple times)",
+    required = false)
+  private List<String> platform_modules = List.of("java.base");
+  @Parameter(
+    names = "--add-all-system-modules",
+    description = "Load all platform modules provided by the running JDK",
+    required = false)
+  private boolean all_platform_modules;
+  @Parameter(
+    names = "--module-path",
+    description = "Specify directories containing modules used to resolve classes (may be specified multiple times)",
+    required = false)
+  private Iterable<String> extra_module_directories = new ArrayList<>();
+  @Parameter(
+    names = "--cache-directory",
+    description = "A directory used to cache API skeletons of the modules used to resolve classes",
+    required = false)
+  private String cache_directory;
+
+  /**
+   * Construct a set of registry modules.
+   */
+
+  public CRegistryModules()
+  {
+    this.opened_modules = new ArrayList<>(32);
+  }
+
+  /**
+   * @return The modules that have been opened, in the order in which they
+   * were specified
+   */
+
+  public List<CModuleType> modules()
+  {
+    return this.opened_modules;
+  }
+
+  /**
+   * The registry is created on first use and is then shared by every
+   * comparison that the command performs, so that the superclass chains
+   * resolved within the opened modules are only resolved once.
+   *
+   * @return A registry layer containing the opened modules
+   */
+
+  CClassRegistryType registry()
+  {
+    if (this.registry == null) {
+      this.registry = CClassRegistry.create(
+        io.vavr.collection.List.ofAll(this.opened_modules));
+    }
+    return this.registry;
+  }
+
+  /**
+   * Close all opened modules.
+   */
+
+  public void unload()
+  {
+    this.registry = null;
+    this.opened_modules.forEach(module -> {
+      if (module instanceof CModuleCaching && LOG.isDebugEnabled()) {
+        LOG.debug(
+          "class cache {}: {}",
+          module.descriptor().name(),
+          ((CModuleCaching) module).statistics());
+      }
+
+      try {
+        module.close();
+      } catch (final Exception e) {
+        LOG.error(
+          "Could not close archive {}: {}: ",
+          module.archive().descriptor().path(),
+          e.getMessage(),
+          e);
+      }
+    });
+    this.opened_modules.clear();
+  }
+
+  /**
+   * @return The loader used to open modules that are used to resolve classes
+   */
+
+  private Optional<CModuleLoaderType> registryLoader(
+    final CModuleLoaderType module_loader)
+  {
+    if (this.cache_directory == null) {
+      return Optional.of(module_loader);
+    }
+
+    try {
+      return Optional.of(CModuleSkeletonCache.create(
+        Paths.get(this.cache_directory), module_loader));
+    } catch (final IOException e) {
+      LOG.error(
+        "Unable to create cache directory {}: {}: ",
+        this.cache_directory,
+        e.getClass().getCanonicalName(),
+        e);
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Open all platform and module path modules. Modules are opened
+   * concurrently on the given executor, but are added to the list of opened
+   * modules, and errors are reported, in the order in which the modules were
+   * specified.
+   *
+   * @param module_loader The loader used to open modules
+   * @param executor      The executor used to open modules
+   *
+   * @return The status of the operation
+   */
+
+  public CommandStatus load(
+    final CModuleLoaderType module_loader,
+    final Executor executor)
+  {
+    Objects.requireNonNull(module_loader, "Module loader");
+    Objects.requireNonNull(executor, "Executor");
+
+    final Optional<CModuleLoaderType> registry_loader_opt =
+      this.registryLoader(module_loader);
+    if (!registry_loader_opt.isPresent()) {
+      return COMMAND_FAILURE;
+    }
+
+    final CModuleLoaderType registry_loader = registry_loader_opt.get();
+    final ArrayList<OpenTask> tasks = new ArrayList<>(32);
+    CommandStatus status = COMMAND_SUCCESS;
+
+    if (this.loadPlatformModules(registry_loader, tasks) == COMMAND_FAILURE) {
+      status = COMMAND_FAILURE;
+    }
+    if (this.loadExtraModules(registry_loader, tasks) == COMMAND_FAILURE) {
+      status = COMMAND_FAILURE;
+    }
+
+    final ArrayList<CompletableFuture<CModuleType>> futures =
+      new ArrayList<>(tasks.size());
+    for (final OpenTask task : tasks) {
+      futures.add(CompletableFuture.supplyAsync(() -> {
+        try {
+          return CModuleCaching.wrap(task.opener.open());
+        } catch (final IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }, executor));
+    }
+
+    for (int index = 0; index < tasks.size(); ++index) {
+      final OpenTask task = tasks.get(index);
+      try {
+        this.opened_modules.add(futures.get(index).join());
+      } catch (final CompletionException e) {
+        final Throwable cause =
+          e.getCause() instanceof UncheckedIOException
+            ? e.getCause().getCause()
+            : e.getCause();
+        LOG.error(
+          task.message,
+          task.subject,
+          cause.getClass().getCanonicalName(),
+          cause);
+        status = COMMAND_FAILURE;
+      }
+    }
+
+    return status;
+  }
+
+  private CommandStatus loadPlatformModules(
+    final CModuleLoaderType module_loader,
+    final Collection<OpenTask> tasks)
+  {
+    final Collection<String> names;
+    if (this.all_platform_modules) {
+      try {
+        names = module_loader.listPlatformModules()
+          .addAll(this.platform_modules)
+          .toJavaList();
+      } catch (final IOException e) {
+        LOG.error(
+          "Failed to list platform modules: {}: ",
+          e.getClass().getCanonicalName(),
+          e);
+        return COMMAND_FAILURE;
+      }
+    } else {
+      names = this.platform_modules;
+    }
+
+    for (final String name : names) {
+      tasks.add(new OpenTask(
+        "Failed to load module {}: {}: ",
+        name,
+        () -> module_loader.openPlatformModule(name)));
+    }
+    return COMMAND_SUCCESS;
+  }
+
+  private CommandStatus loadExtraModules(
+    final CModuleLoaderType module_loader,
+    final Collection<OpenTask> tasks)
+  {
+    CommandStatus status = COMMAND_SUCCESS;
+
+    for (final String path_name : this.extra_module_directories) {
+      final Path dir_path = Paths.get(path_name);
+      final List<Path> archives;
+
+      try (Stream<Path> paths = Files.list(dir_path)) {
+        archives = paths.sorted().collect(Collectors.toList());
+      } catch (final IOException e) {
+        LOG.error(
+          "Unable to list directory {}: {}: ",
+          dir_path,
+          e.getClass().getCanonicalName(),
+          e);
+        status = COMMAND_FAILURE;
+        continue;
+      }
+
+      for (final Path archive : archives) {
+        tasks.add(new OpenTask(
+          "Unable to load archive {}: {}: ",
+          archive,
+          () -> module_loader.openLazily(
+            archive,
+            CVersion.of(0, 0, 0, ""),
+            CClassParsingMode.CLASS_PARSING_API_SURFACE)));
+      }
+    }
+    return status;
+  }
+
+  private static final class OpenTask
+  {
+    private final String message;
+    private final Object subject;
+    private final CModuleOpenerType opener;
+
+    OpenTask(
+      final String in_message,
+      final Object in_subject,
+      final CModuleOpenerType in_opener)
+    {
+      this.message = Objects.requireNonNull(in_message, "Message");
+      this.subject = Objects.requireNonNull(in_subject, "Subject");
+      this.opener = Objects.requireNonNull(in_opener, "Opener");
+    }
+  }
+}
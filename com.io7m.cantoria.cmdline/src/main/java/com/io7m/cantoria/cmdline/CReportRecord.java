@@ -0,0 +1,157 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.cmdline;
+
+import com.io7m.cantoria.changes.api.CChangeBinaryCompatibility;
+import com.io7m.cantoria.changes.api.CChangeSemanticVersioning;
+import com.io7m.cantoria.changes.api.CChangeSourceCompatibility;
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
+import com.io7m.cantoria.changes.spi.CChangeDescriberType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * A rendered entry in a comparison report. A record carries the
+ * compatibility values of the change it describes so that the record can be
+ * passed to a compatibility tracker in place of the change itself.
+ */
+
+public final class CReportRecord implements CChangeType
+{
+  private static final String FORMAT = "com.io7m.cantoria.format.text";
+
+  private final Category category;
+  private final CChangeSemanticVersioning semantic;
+  private final CChangeBinaryCompatibility binary;
+  private final CChangeSourceCompatibility source;
+  private final String type_name;
+  private final byte[] text;
+
+  CReportRecord(
+    final Category in_category,
+    final CChangeSemanticVersioning in_semantic,
+    final CChangeBinaryCompatibility in_binary,
+    final CChangeSourceCompatibility in_source,
+    final String in_type_name,
+    final byte[] in_text)
+  {
+    this.category = Objects.requireNonNull(in_category, "Category");
+    this.semantic = Objects.requireNonNull(in_semantic, "Semantic");
+    this.binary = Objects.requireNonNull(in_binary, "Binary");
+    this.source = Objects.requireNonNull(in_source, "Source");
+    this.type_name = Objects.requireNonNull(in_type_name, "Type name");
+    this.text = in_text;
+  }
+
+  /**
+   * Render the given change using all of the given describers that support
+   * the text format and can describe the change.
+   *
+   * @param describers The available describers
+   * @param originator The originating check
+   * @param change     The change
+   *
+   * @return A rendered record
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static CReportRecord render(
+    final Iterable<CChangeDescriberType> describers,
+    final CChangeCheckType originator,
+    final CChangeType change)
+    throws IOException
+  {
+    Objects.requireNonNull(describers, "Describers");
+    Objects.requireNonNull(originator, "Originator");
+    Objects.requireNonNull(change, "Change");
+
+    final ByteArrayOutputStream out = new ByteArrayOutputStream(256);
+    boolean described = false;
+    for (final CChangeDescriberType describer : describers) {
+      if (Objects.equals(describer.format(), FORMAT)
+        && describer.canDescribe(change)) {
+        describer.describe(originator, change, out);
+        described = true;
+      }
+    }
+
+    return new CReportRecord(
+      change.category(),
+      change.semanticVersioning(),
+      change.binaryCompatibility(),
+      change.sourceCompatibility(),
+      change.getClass().getCanonicalName(),
+      described ? out.toByteArray() : null);
+  }
+
+  /**
+   * @return The name of the format used to render records
+   */
+
+  static String format()
+  {
+    return FORMAT;
+  }
+
+  /**
+   * @return The name of the type of the rendered change
+   */
+
+  public String typeName()
+  {
+    return this.type_name;
+  }
+
+  /**
+   * @return The rendered text, or nothing if no describer could describe the
+   * change
+   */
+
+  public Optional<byte[]> text()
+  {
+    return Optional.ofNullable(this.text);
+  }
+
+  @Override
+  public Category category()
+  {
+    return this.category;
+  }
+
+  @Override
+  public CChangeSemanticVersioning semanticVersioning()
+  {
+    return this.semantic;
+  }
+
+  @Override
+  public CChangeBinaryCompatibility binaryCompatibility()
+  {
+    return this.binary;
+  }
+
+  @Override
+  public CChangeSourceCompatibility sourceCompatibility()
+  {
+    return this.source;
+  }
+}
@@ -0,0 +1,451 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.cmdline;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersions;
+import com.io7m.cantoria.changes.api.CCompatibilityTracker;
+import com.io7m.cantoria.changes.spi.CChangeDescriberType;
+import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+import com.io7m.cantoria.driver.api.CAPIVisibility;
+import com.io7m.cantoria.driver.api.CComparisonBatchReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
+import com.io7m.cantoria.driver.api.CComparisonDriverProviderType;
+import com.io7m.cantoria.driver.api.CComparisonDriverType;
+import com.io7m.cantoria.driver.api.CComparisonPair;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import io.vavr.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static com.io7m.cantoria.changes.api.CChangeBinaryCompatibility.BINARY_COMPATIBLE;
+import static com.io7m.cantoria.changes.api.CChangeSourceCompatibility.SOURCE_COMPATIBLE;
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_FAILURE;
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_SUCCESS;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A command to compare a batch of module pairs named by a manifest.
+ */
+
+@Parameters(
+  commandNames = "batch",
+  commandDescription = "Compare each pair of modules named in a manifest")
+public final class CommandBatch implements CCommandType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CommandBatch.class);
+
+  @ParametersDelegate
+  private final CRegistryModules registry_modules;
+  @ParametersDelegate
+  private final CModuleLoaderSelection module_loader_selection;
+
+  @Parameter(
+    names = "--manifest",
+    description = "A manifest file with one '<old jar> <old version> <new jar> <new version>' line per pair",
+    required = true)
+  private String manifest;
+  @Parameter(
+    names = "--verify-identical-classes",
+    description = "Compare the contents of classes that the archives record as identical before skipping them",
+    required = false)
+  private boolean verify_identical_classes;
+  @Parameter(
+    names = "--api-visibility",
+    description = "The policy that decides which classes and members are part of the API "
+      + "(package-private classes are only skipped under API_VISIBILITY_EXPORTED)",
+    required = false)
+  private CAPIVisibility api_visibility =
+    CAPIVisibility.API_VISIBILITY_NON_PRIVATE;
+  @Parameter(
+    names = "--exhaustive-members",
+    description = "Compare the members of classes even when a class-level change makes doing so redundant",
+    required = false)
+  private boolean exhaustive_members;
+  @Parameter(
+    names = "--threads",
+    description = "The number of threads used to open modules and compare classes",
+    required = false)
+  private int threads = 1;
+  @Parameter(
+    names = "--max-concurrent-comparisons",
+    description = "The maximum number of pairs compared at once (default: the value of --threads)",
+    required = false)
+  private Integer max_concurrent_comparisons;
+
+  /**
+   * Construct a command.
+   */
+
+  public CommandBatch()
+  {
+    this.registry_modules = new CRegistryModules();
+    this.module_loader_selection = new CModuleLoaderSelection();
+  }
+
+  private static String failure(
+    final IOException error)
+  {
+    return String.format(
+      "Failed: %s: %s",
+      error.getClass().getSimpleName(),
+      error.getMessage());
+  }
+
+  private static String verdict(
+    final PairResult result)
+  {
+    if (result.error != null) {
+      return failure(result.error);
+    }
+
+    final CCompatibilityTracker tracker = CCompatibilityTracker.create();
+    result.report.forEach(tracker::onChange);
+
+    final StringBuilder sb = new StringBuilder(64);
+    switch (tracker.semanticVersioning()) {
+      case SEMANTIC_MAJOR: {
+        sb.append("Major increment");
+        break;
+      }
+      case SEMANTIC_MINOR: {
+        sb.append("Minor increment");
+        break;
+      }
+      case SEMANTIC_NONE: {
+        sb.append("None");
+        break;
+      }
+    }
+
+    if (tracker.binaryCompatibility() != BINARY_COMPATIBLE) {
+      sb.append(", binary incompatible");
+    }
+    if (tracker.sourceCompatibility() != SOURCE_COMPATIBLE) {
+      sb.append(", source incompatible");
+    }
+    return sb.toString();
+  }
+
+  private static CommandStatus writeReports(
+    final List<CBatchManifest.Entry> entries,
+    final List<PairResult> results)
+    throws IOException
+  {
+    CommandStatus status = COMMAND_SUCCESS;
+
+    for (int index = 0; index < results.size(); ++index) {
+      final CBatchManifest.Entry entry = entries.get(index);
+      final PairResult result = results.get(index);
+
+      CommandCompare.writeHeading(
+        String.format("Pair %d (%s)", Integer.valueOf(index + 1), result.name(entry)),
+        index == 0,
+        entry.versionOld(),
+        entry.versionNew());
+
+      if (result.error != null) {
+        LOG.error(
+          "Could not compare {} and {}: {}: ",
+          entry.moduleOld(),
+          entry.moduleNew(),
+          result.error.getClass().getCanonicalName(),
+          result.error);
+
+        final BufferedWriter w =
+          new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+        w.append(failure(result.error));
+        w.newLine();
+        w.flush();
+        status = COMMAND_FAILURE;
+        continue;
+      }
+
+      if (CommandCompare.writeReport(
+        entry.versionOld(), entry.versionNew(), result.report)
+        == COMMAND_FAILURE) {
+        status = COMMAND_FAILURE;
+      }
+    }
+
+    writeSummary(entries, results);
+    return status;
+  }
+
+  private static void writeSummary(
+    final List<CBatchManifest.Entry> entries,
+    final List<PairResult> results)
+    throws IOException
+  {
+    final BufferedWriter w =
+      new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+
+    w.newLine();
+    w.append("Summary:");
+    w.newLine();
+
+    int failed = 0;
+    for (int index = 0; index < results.size(); ++index) {
+      final CBatchManifest.Entry entry = entries.get(index);
+      final PairResult result = results.get(index);
+      if (result.error != null) {
+        ++failed;
+      }
+
+      w.append(String.format(
+        "  %-40s %s → %s: %s",
+        result.name(entry),
+        CVersions.showVersion(entry.versionOld()),
+        CVersions.showVersion(entry.versionNew()),
+        verdict(result)));
+      w.newLine();
+    }
+
+    w.append(String.format(
+      "Pairs compared: %d, failed: %d",
+      Integer.valueOf(results.size()),
+      Integer.valueOf(failed)));
+    w.newLine();
+    w.flush();
+  }
+
+  /**
+   * Check the arguments and parse the manifest.
+   */
+
+  private Optional<CBatchManifest> checkArguments()
+  {
+    if (this.threads < 1) {
+      LOG.error("The number of threads must be at least 1");
+      return Optional.empty();
+    }
+    if (this.max_concurrent_comparisons != null
+      && this.max_concurrent_comparisons.intValue() < 1) {
+      LOG.error("The maximum number of concurrent comparisons must be at least 1");
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(CBatchManifest.parse(Paths.get(this.manifest)));
+    } catch (final IOException e) {
+      LOG.error(
+        "Could not read manifest {}: {}: ",
+        this.manifest,
+        e.getMessage(),
+        e);
+      return Optional.empty();
+    }
+  }
+
+  private CComparisonDriverConfiguration.Builder configuration()
+  {
+    final CComparisonDriverConfiguration.Builder configuration_builder =
+      CComparisonDriverConfiguration.builder()
+        .setVerifyIdenticalClasses(this.verify_identical_classes)
+        .setApiVisibility(this.api_visibility)
+        .setExhaustiveMembers(this.exhaustive_members);
+    if (this.max_concurrent_comparisons != null) {
+      configuration_builder.setMaxConcurrentComparisons(
+        this.max_concurrent_comparisons.intValue());
+    }
+    return configuration_builder;
+  }
+
+  @Override
+  public CommandStatus run()
+  {
+    final Optional<CBatchManifest> parsed_opt = this.checkArguments();
+    if (!parsed_opt.isPresent()) {
+      return COMMAND_FAILURE;
+    }
+
+    final Optional<CComparisonDriverProviderType> driver_opt =
+      ServiceLoader.load(CComparisonDriverProviderType.class).findFirst();
+    if (!driver_opt.isPresent()) {
+      LOG.error("No comparison driver providers available.");
+      return COMMAND_FAILURE;
+    }
+
+    final Optional<CModuleLoaderType> modules_opt =
+      this.module_loader_selection.loader();
+    if (!modules_opt.isPresent()) {
+      return COMMAND_FAILURE;
+    }
+
+    final CModuleLoaderType module_loader = modules_opt.get();
+    LOG.debug("using module loader {}", module_loader.name());
+
+    final CComparisonDriverConfiguration.Builder configuration_builder =
+      this.configuration();
+
+    final ForkJoinPool pool;
+    if (this.threads > 1) {
+      pool = new ForkJoinPool(this.threads);
+      configuration_builder.setExecutor(pool);
+    } else {
+      pool = null;
+    }
+
+    try {
+      if (this.registry_modules.load(
+        module_loader, pool != null ? pool : Runnable::run) == COMMAND_FAILURE) {
+        return COMMAND_FAILURE;
+      }
+
+      return this.runWithDriver(
+        parsed_opt.get().entries(),
+        module_loader,
+        driver_opt.get().create(configuration_builder.build()));
+    } finally {
+      this.registry_modules.unload();
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  private CommandStatus runWithDriver(
+    final List<CBatchManifest.Entry> entries,
+    final CModuleLoaderType module_loader,
+    final CComparisonDriverType driver)
+  {
+    final List<CChangeDescriberType> describers =
+      ServiceLoader.load(CChangeDescriberType.class)
+        .stream()
+        .map(ServiceLoader.Provider::get)
+        .collect(Collectors.toList());
+
+    final List<CComparisonPair> pairs =
+      entries.stream()
+        .map(entry -> CComparisonPair.of(
+          () -> CommandCompare.openOld(
+            module_loader, entry.moduleOld(), entry.versionOld()),
+          () -> module_loader.open(entry.moduleNew(), entry.versionNew())))
+        .collect(Collectors.toList());
+
+    final BatchReceiver receiver = new BatchReceiver(describers, pairs.size());
+    driver.compareBatch(
+      receiver,
+      this.registry_modules.registry(),
+      io.vavr.collection.List.ofAll(pairs));
+
+    try {
+      return writeReports(entries, receiver.results);
+    } catch (final IOException e) {
+      LOG.error(
+        "I/O error during report generation: {}: {}: ",
+        e.getClass().getCanonicalName(),
+        e.getMessage(),
+        e);
+      return COMMAND_FAILURE;
+    }
+  }
+
+  /**
+   * The result of comparing a single pair. A result is only accessed by the
+   * thread comparing its pair until the comparison of all pairs has
+   * completed.
+   */
+
+  private static final class PairResult
+  {
+    private final ArrayList<CReportRecord> report;
+    private String module_name;
+    private IOException error;
+
+    PairResult()
+    {
+      this.report = new ArrayList<>(32);
+    }
+
+    String name(
+      final CBatchManifest.Entry entry)
+    {
+      if (this.module_name != null) {
+        return this.module_name;
+      }
+      return entry.moduleNew().getFileName().toString();
+    }
+  }
+
+  private static final class BatchReceiver
+    implements CComparisonBatchReceiverType
+  {
+    private final List<CChangeDescriberType> describers;
+    private final List<PairResult> results;
+
+    BatchReceiver(
+      final List<CChangeDescriberType> in_describers,
+      final int count)
+    {
+      this.describers = in_describers;
+      this.results = new ArrayList<>(count);
+      for (int index = 0; index < count; ++index) {
+        this.results.add(new PairResult());
+      }
+    }
+
+    @Override
+    public CChangeReceiverType onPairStarted(
+      final int pair,
+      final CModuleType module_old,
+      final CModuleType module_new)
+    {
+      final PairResult result = this.results.get(pair);
+      result.module_name = module_new.descriptor().name();
+      return (originator, change) -> result.report.add(
+        CommandCompare.render(this.describers, Tuple.of(originator, change)));
+    }
+
+    @Override
+    public void onPairFinished(
+      final int pair,
+      final CModuleType module_old,
+      final CModuleType module_new)
+    {
+      LOG.debug(
+        "pair {}: {} changes",
+        Integer.valueOf(pair),
+        Integer.valueOf(this.results.get(pair).report.size()));
+    }
+
+    @Override
+    public void onPairFailed(
+      final int pair,
+      final IOException error)
+    {
+      final PairResult result = this.results.get(pair);
+      result.report.clear();
+      result.error = error;
+    }
+  }
+}
@@ -18,19 +18,26 @@ package com.io7m.cantoria.cmdline;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import com.io7m.cantoria.api.CClassParsingMode;
 import com.io7m.cantoria.api.CClassRegistry;
 import com.io7m.cantoria.api.CClassRegistryType;
 import com.io7m.cantoria.api.CModuleType;
-import com.io7m.cantoria.api.CModuleWeaklyCaching;
 import com.io7m.cantoria.api.CVersion;
 import com.io7m.cantoria.api.CVersions;
 import com.io7m.cantoria.changes.api.CChangeType;
 import com.io7m.cantoria.changes.api.CCompatibilityTracker;
 import com.io7m.cantoria.changes.spi.CChangeCheckType;
 import com.io7m.cantoria.changes.spi.CChangeDescriberType;
+import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+import com.io7m.cantoria.driver.api.CAPIVisibility;
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
 import com.io7m.cantoria.driver.api.CComparisonDriverProviderType;
 import com.io7m.cantoria.driver.api.CComparisonDriverType;
+import com.io7m.cantoria.driver.api.CComparisonGate;
+import com.io7m.cantoria.driver.api.CComparisonVerdict;
 import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import com.io7m.cantoria.modules.api.CModuleSnapshots;
 import io.vavr.Tuple;
 import io.vavr.Tuple2;
 import org.slf4j.Logger;
@@ -44,14 +51,12 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
 import java.util.List;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.ServiceLoader;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
-import java.util.zip.ZipFile;
 
 import static com.io7m.cantoria.changes.api.CChangeBinaryCompatibility.BINARY_COMPATIBLE;
 import static com.io7m.cantoria.changes.api.CChangeSourceCompatibility.SOURCE_COMPATIBLE;
@@ -71,17 +76,23 @@ public final class CommandCompare implements CCommandType
   private static final Logger LOG =
     LoggerFactory.getLogger(CommandCompare.class);
 
-  private final ArrayList<CModuleType> opened_modules;
+  private final ArrayList<CReportRecord> report;
+  private boolean gate_reached;
+
+  @ParametersDelegate
+  private final CRegistryModules registry_modules;
+  @ParametersDelegate
+  private final CModuleLoaderSelection module_loader_selection;
 
   @Parameter(
     names = "--module-old",
-    description = "A jar file containing the old version of the module",
+    description = "A jar file or exported snapshot containing the old version of the module",
     required = true)
   private String module_old;
   @Parameter(
     names = "--module-old-version",
-    description = "The version string for the old module",
-    required = true)
+    description = "The version string for the old module (defaults to the version recorded in a snapshot)",
+    required = false)
   private String module_old_version;
   @Parameter(
     names = "--module-new",
@@ -94,15 +105,37 @@ public final class CommandCompare implements CCommandType
     required = true)
   private String module_new_version;
   @Parameter(
-    names = "--add-module",
-    description = "Load extra platform modules used to resolve classes (may be specified multiple times)",
+    names = "--incremental-database",
+    description = "A file used to record per-class results so that unchanged classes are not compared again",
+    required = false)
+  private String incremental_database;
+  @Parameter(
+    names = "--verify-identical-classes",
+    description = "Compare the contents of classes that the archives record as identical before skipping them",
+    required = false)
+  private boolean verify_identical_classes;
+  @Parameter(
+    names = "--api-visibility",
+    description = "The policy that decides which classes and members are part of the API "
+      + "(package-private classes are only skipped under API_VISIBILITY_EXPORTED)",
+    required = false)
+  private CAPIVisibility api_visibility =
+    CAPIVisibility.API_VISIBILITY_NON_PRIVATE;
+  @Parameter(
+    names = "--exhaustive-members",
+    description = "Compare the members of classes even when a class-level change makes doing so redundant",
+    required = false)
+  private boolean exhaustive_members;
+  @Parameter(
+    names = "--gate",
+    description = "Stop comparing as soon as the given condition holds, and fail if it does",
     required = false)
-  private List<String> platform_modules = List.of("java.base");
+  private CComparisonGate gate;
   @Parameter(
-    names = "--module-path",
-    description = "Specify directories containing modules used to resolve classes (may be specified multiple times)",
+    names = "--threads",
+    description = "The number of threads used to open modules and compare classes",
     required = false)
-  private Iterable<String> extra_module_directories = new ArrayList<>();
+  private int threads = 1;
 
   /**
    * Construct a command.
@@ -110,71 +143,42 @@ public final class CommandCompare implements CCommandType
 
   public CommandCompare()
   {
-    this.opened_modules = new ArrayList<>(32);
+    this.report = new ArrayList<>(32);
+    this.registry_modules = new CRegistryModules();
+    this.module_loader_selection = new CModuleLoaderSelection();
   }
 
-  private static CommandStatus compareModules(
-    final CClassRegistryType registry,
-    final CComparisonDriverType driver,
-    final CModuleType module_old,
-    final CModuleType module_new,
-    final ArrayList<Tuple2<CChangeCheckType, CChangeType>> changes)
+  static CReportRecord render(
+    final Iterable<CChangeDescriberType> describers,
+    final Tuple2<CChangeCheckType, CChangeType> change_pair)
   {
     try {
-      driver.compareModules(
-        (originator, change) -> changes.add(Tuple.of(originator, change)),
-        registry,
-        module_old,
-        module_new);
-      return COMMAND_SUCCESS;
+      return CReportRecord.render(describers, change_pair._1, change_pair._2);
     } catch (final IOException e) {
-      LOG.error(
-        "I/O error during module comparison: {}: {}: ",
-        e.getClass().getCanonicalName(),
-        e.getMessage(),
-        e);
-      return COMMAND_FAILURE;
+      throw new UncheckedIOException(e);
     }
   }
 
-  private static CommandStatus writeReport(
+  static CommandStatus writeReport(
     final CVersion module_old_version,
     final CVersion module_new_version,
-    final Iterable<Tuple2<CChangeCheckType, CChangeType>> changes)
+    final Iterable<CReportRecord> records)
   {
     try {
-      final ServiceLoader<CChangeDescriberType> providers =
-        ServiceLoader.load(CChangeDescriberType.class);
-
       final CCompatibilityTracker tracker = CCompatibilityTracker.create();
 
-      final String format = "com.io7m.cantoria.format.text";
-      for (final Tuple2<CChangeCheckType, CChangeType> change_pair : changes) {
-        final CChangeType change = change_pair._2;
-        tracker.onChange(change);
-
-        boolean described = false;
-        final Iterator<CChangeDescriberType> iter = providers.iterator();
-        while (iter.hasNext()) {
-          final CChangeDescriberType describer = iter.next();
-          if (Objects.equals(describer.format(), format)
-            && describer.canDescribe(change)) {
-            try {
-              describer.describe(change_pair._1, change, System.out);
-              described = true;
-            } catch (final IOException e) {
-              throw new UncheckedIOException(e);
-            }
-          }
-        }
+      for (final CReportRecord record : records) {
+        tracker.onChange(record);
 
-        if (!described) {
+        final Optional<byte[]> text_opt = record.text();
+        if (!text_opt.isPresent()) {
           LOG.error(
             "No available describer of format {} for change type {}",
-            format,
-            change.getClass().getCanonicalName());
+            CReportRecord.format(),
+            record.typeName());
           return COMMAND_FAILURE;
         }
+        System.out.write(text_opt.get());
       }
 
       writeVersionCompatibilityReport(module_old_version, tracker);
@@ -187,17 +191,35 @@ public final class CommandCompare implements CCommandType
         e.getMessage(),
         e);
       return COMMAND_FAILURE;
-    } catch (final UncheckedIOException e) {
-      final IOException ec = e.getCause();
-      LOG.error(
-        "I/O error during report generation comparison: {}: {}: ",
-        ec.getClass().getCanonicalName(),
-        ec.getMessage(),
-        ec);
-      return COMMAND_FAILURE;
     }
   }
 
+  /**
+   * Write a heading that introduces one of several reports.
+   */
+
+  static void writeHeading(
+    final String title,
+    final boolean first,
+    final CVersion version_old,
+    final CVersion version_new)
+    throws IOException
+  {
+    final BufferedWriter w =
+      new BufferedWriter(new OutputStreamWriter(System.out, UTF_8));
+
+    if (!first) {
+      w.newLine();
+    }
+    w.append(String.format("%-31s", title + ":"));
+    w.append(CVersions.showVersion(version_old));
+    w.append(" → ");
+    w.append(CVersions.showVersion(version_new));
+    w.newLine();
+    w.newLine();
+    w.flush();
+  }
+
   private static void writeVersionCompatibilityReport(
     final CVersion module_old_version,
     final CCompatibilityTracker tracker)
@@ -242,11 +264,154 @@ public final class CommandCompare implements CCommandType
   }
 
 
+  private CommandStatus compareModules(
+    final CClassRegistryType registry,
+    final CComparisonDriverType driver,
+    final Iterable<CChangeDescriberType> describers,
+    final CModuleType old_module,
+    final CModuleType new_module)
+  {
+    try {
+      final CChangeReceiverType receiver =
+        (originator, change) -> this.report.add(
+          render(describers, Tuple.of(originator, change)));
+
+      if (this.gate == null) {
+        driver.compareModules(receiver, registry, old_module, new_module);
+        return COMMAND_SUCCESS;
+      }
+
+      final CComparisonVerdict verdict =
+        driver.compareModulesGated(
+          receiver, this.gate, registry, old_module, new_module);
+      this.gate_reached = verdict.gateReached();
+      return COMMAND_SUCCESS;
+    } catch (final IOException e) {
+      LOG.error(
+        "I/O error during module comparison: {}: {}: ",
+        e.getClass().getCanonicalName(),
+        e.getMessage(),
+        e);
+      return COMMAND_FAILURE;
+    } catch (final UncheckedIOException e) {
+      final IOException ec = e.getCause();
+      LOG.error(
+        "I/O error during module comparison: {}: {}: ",
+        ec.getClass().getCanonicalName(),
+        ec.getMessage(),
+        ec);
+      return COMMAND_FAILURE;
+    }
+  }
+
+  /**
+   * Compute the header of the incremental database. The header covers
+   * everything other than the compared classes themselves that can affect
+   * the results of comparing a class.
+   */
+
+  private String databaseHeader(
+    final CComparisonDriverType driver)
+    throws IOException
+  {
+    final StringBuilder sb = new StringBuilder(1024);
+    sb.append(CommandCompare.class.getPackage().getImplementationVersion());
+    sb.append('\n');
+    sb.append(System.getProperty("java.runtime.version"));
+    sb.append('\n');
+    sb.append(System.getProperty("java.home"));
+    sb.append('\n');
+    sb.append(driver.checks().mkString(","));
+    sb.append('\n');
+    sb.append(this.verify_identical_classes);
+    sb.append('\n');
+    sb.append(this.api_visibility);
+    sb.append('\n');
+    sb.append(this.exhaustive_members);
+    sb.append('\n');
+
+    for (final CModuleType module : this.registry_modules.modules()) {
+      final Path path = module.archive().descriptor().path();
+      sb.append(module.descriptor().name());
+      sb.append(' ');
+      sb.append(path);
+      if (Files.isRegularFile(path)) {
+        sb.append(' ');
+        sb.append(Files.size(path));
+        sb.append(' ');
+        sb.append(Files.getLastModifiedTime(path).toMillis());
+      }
+      sb.append('\n');
+    }
+
+    return CIncrementalDatabase.hashOf(sb.toString());
+  }
+
+  static CModuleType openOld(
+    final CModuleLoaderType module_loader,
+    final Path path,
+    final CVersion version)
+    throws IOException
+  {
+    if (CModuleSnapshots.isSnapshot(path)) {
+      LOG.debug("loading old module from snapshot {}", path);
+      return CModuleSnapshots.open(
+        module_loader,
+        path,
+        version,
+        CClassParsingMode.CLASS_PARSING_API_SURFACE);
+    }
+    return module_loader.open(path, version);
+  }
+
+  private Optional<CVersion> oldVersion(
+    final Path path)
+  {
+    if (this.module_old_version != null) {
+      return Optional.of(CVersions.parse(this.module_old_version));
+    }
+
+    try {
+      if (CModuleSnapshots.isSnapshot(path)) {
+        return Optional.of(CModuleSnapshots.version(path));
+      }
+    } catch (final IOException e) {
+      LOG.error(
+        "Could not load old module: {}: {}: ",
+        path,
+        e.getClass().getCanonicalName(),
+        e);
+      return Optional.empty();
+    }
+
+    LOG.error(
+      "--module-old-version is required unless --module-old is a snapshot");
+    return Optional.empty();
+  }
+
+  private boolean parametersValid()
+  {
+    if (this.threads < 1) {
+      LOG.error("The number of threads must be at least 1");
+      return false;
+    }
+    if (this.gate != null && this.incremental_database != null) {
+      LOG.error("--gate cannot be combined with --incremental-database");
+      return false;
+    }
+    return true;
+  }
+
   @Override
   public CommandStatus run()
   {
     final Path mo_path = Paths.get(this.module_old);
-    final CVersion mo_version = CVersions.parse(this.module_old_version);
+    final Optional<CVersion> mo_version_opt = this.oldVersion(mo_path);
+    if (!mo_version_opt.isPresent()) {
+      return COMMAND_FAILURE;
+    }
+
+    final CVersion mo_version = mo_version_opt.get();
     final Path mn_path = Paths.get(this.module_new);
     final CVersion mn_version = CVersions.parse(this.module_new_version);
 
@@ -258,9 +423,8 @@ public final class CommandCompare implements CCommandType
     }
 
     final Optional<CModuleLoaderType> modules_opt =
-      ServiceLoader.load(CModuleLoaderType.class).findFirst();
+      this.module_loader_selection.loader();
     if (!modules_opt.isPresent()) {
-      LOG.error("No module loader implementations available.");
       return COMMAND_FAILURE;
     }
 
@@ -268,32 +432,111 @@ public final class CommandCompare implements CCommandType
     LOG.debug("using module loader {}", module_loader.name());
 
     final CComparisonDriverProviderType driver_provider = driver_opt.get();
-    final CComparisonDriverType driver = driver_provider.create();
+    if (!this.parametersValid()) {
+      return COMMAND_FAILURE;
+    }
+
+    final CComparisonDriverConfiguration.Builder configuration_builder =
+      CComparisonDriverConfiguration.builder()
+        .setVerifyIdenticalClasses(this.verify_identical_classes)
+        .setApiVisibility(this.api_visibility)
+        .setExhaustiveMembers(this.exhaustive_members);
+
+    final List<CChangeDescriberType> describers =
+      ServiceLoader.load(CChangeDescriberType.class)
+        .stream()
+        .map(ServiceLoader.Provider::get)
+        .collect(Collectors.toList());
+
+    final Optional<CIncrementalDatabase> database =
+      this.incrementalDatabase(describers);
+    database.ifPresent(configuration_builder::setMemo);
+
+    final ForkJoinPool pool;
+    if (this.threads > 1) {
+      pool = new ForkJoinPool(this.threads);
+      configuration_builder.setExecutor(pool);
+    } else {
+      pool = null;
+    }
+
+    try {
+      return this.runWithDriver(
+        mo_path,
+        mo_version,
+        mn_path,
+        mn_version,
+        module_loader,
+        pool != null ? pool : Runnable::run,
+        driver_provider.create(configuration_builder.build()),
+        describers,
+        database);
+    } finally {
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  private Optional<CIncrementalDatabase> incrementalDatabase(
+    final Iterable<CChangeDescriberType> describers)
+  {
+    if (this.incremental_database == null) {
+      return Optional.empty();
+    }
+
+    return Optional.of(new CIncrementalDatabase(
+      Paths.get(this.incremental_database),
+      this.report::add,
+      change_pair -> render(describers, change_pair)));
+  }
 
-    try (CModuleType module_old = module_loader.open(mo_path, mo_version)) {
+  private CommandStatus runWithDriver(
+    final Path mo_path,
+    final CVersion mo_version,
+    final Path mn_path,
+    final CVersion mn_version,
+    final CModuleLoaderType module_loader,
+    final Executor executor,
+    final CComparisonDriverType driver,
+    final Iterable<CChangeDescriberType> describers,
+    final Optional<CIncrementalDatabase> database)
+  {
+    try (CModuleType module_old =
+           openOld(module_loader, mo_path, mo_version)) {
       try (CModuleType module_new = module_loader.open(mn_path, mn_version)) {
         try {
-          if (this.loadModules(module_loader) == COMMAND_FAILURE) {
+          if (this.registry_modules.load(module_loader, executor)
+            == COMMAND_FAILURE) {
             return COMMAND_FAILURE;
           }
 
-          this.opened_modules.add(module_old);
-          this.opened_modules.add(module_new);
+          if (database.isPresent()) {
+            database.get().load(this.databaseHeader(driver));
+          }
 
           final CClassRegistryType registry =
-            CClassRegistry.create(io.vavr.collection.List.ofAll(this.opened_modules));
-
-          final ArrayList<Tuple2<CChangeCheckType, CChangeType>> changes =
-            new ArrayList<>(32);
+            CClassRegistry.createComparison(
+              this.registry_modules.registry(), module_old, module_new);
 
-          if (compareModules(registry, driver, module_old, module_new, changes)
+          if (this.compareModules(
+            registry, driver, describers, module_old, module_new)
             == COMMAND_FAILURE) {
             return COMMAND_FAILURE;
           }
 
-          return writeReport(mo_version, mn_version, changes);
+          final CommandStatus status =
+            writeReport(mo_version, mn_version, this.report);
+          if (status == COMMAND_SUCCESS && database.isPresent()) {
+            database.get().save();
+          }
+          if (this.gate_reached) {
+            LOG.error("Gate {} reached; the comparison stopped early", this.gate);
+            return COMMAND_FAILURE;
+          }
+          return status;
         } finally {
-          this.unloadModules();
+          this.registry_modules.unload();
         }
       } catch (final IOException e) {
         LOG.error(
@@ -312,98 +555,4 @@ public final class CommandCompare implements CCommandType
       return COMMAND_FAILURE;
     }
   }
-
-  private void unloadModules()
-  {
-    this.opened_modules.forEach(module -> {
-      try {
-        module.close();
-      } catch (final Exception e) {
-        LOG.error(
-          "Could not close archive {}: {}: ",
-          module.archive().descriptor().path(),
-          e.getMessage(),
-          e);
-      }
-    });
-  }
-
-  private CommandStatus loadModules(
-    final CModuleLoaderType module_loader)
-  {
-    if (this.loadPlatformModules(
-      module_loader, this.opened_modules) == COMMAND_FAILURE) {
-      return COMMAND_FAILURE;
-    }
-    if (this.loadExtraModules(
-      module_loader, this.opened_modules) == COMMAND_FAILURE) {
-      return COMMAND_FAILURE;
-    }
-
-    return COMMAND_SUCCESS;
-  }
-
-  private CommandStatus loadPlatformModules(
-    final CModuleLoaderType module_loader,
-    final Collection<CModuleType> modules)
-  {
-    CommandStatus status = COMMAND_SUCCESS;
-
-    for (final String name : this.platform_modules) {
-      try {
-        modules.add(CModuleWeaklyCaching.wrap(
-          module_loader.openPlatformModule(name)));
-      } catch (final IOException e) {
-        LOG.error(
-          "Failed to load module {}: {}: ",
-          name,
-          e.getClass().getCanonicalName(),
-          e);
-        status = COMMAND_FAILURE;
-      }
-    }
-    return status;
-  }
-
-  private CommandStatus loadExtraModules(
-    final CModuleLoaderType module_loader,
-    final Collection<CModuleType> modules)
-  {
-    CommandStatus status = COMMAND_SUCCESS;
-
-    for (final String path_name : this.extra_module_directories) {
-      final Path dir_path = Paths.get(path_name);
-      final List<Path> archives;
-
-      try {
-        archives = Files.list(dir_path).collect(Collectors.toList());
-      } catch (final IOException e) {
-        LOG.error(
-          "Unable to list directory {}: {}: ",
-          dir_path,
-          e.getClass().getCanonicalName(),
-          e);
-        status = COMMAND_FAILURE;
-        continue;
-      }
-
-      for (final Path archive : archives) {
-        try {
-          modules.add(CModuleWeaklyCaching.wrap(module_loader.openFromZip(
-            archive,
-            CVersion.of(0, 0, 0, ""),
-            new ZipFile(archive.toFile()))));
-        } catch (final IOException e) {
-          LOG.error(
-            "Unable to load archive {}: {}: ",
-            archive,
-            e.getClass().getCanonicalName(),
-            e);
-          status = COMMAND_FAILURE;
-          continue;
-        }
-      }
-    }
-    return status;
-  }
 }
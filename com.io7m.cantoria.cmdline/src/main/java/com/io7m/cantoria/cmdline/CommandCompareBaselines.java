@@ -0,0 +1,356 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.cmdline;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import com.io7m.cantoria.api.CModuleCaching;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.api.CVersions;
+import com.io7m.cantoria.changes.spi.CChangeDescriberType;
+import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+import com.io7m.cantoria.driver.api.CAPIVisibility;
+import com.io7m.cantoria.driver.api.CComparisonBaselinesReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
+import com.io7m.cantoria.driver.api.CComparisonDriverProviderType;
+import com.io7m.cantoria.driver.api.CComparisonDriverType;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import io.vavr.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_FAILURE;
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_SUCCESS;
+
+/**
+ * A command to compare a module against several baselines.
+ */
+
+@Parameters(
+  commandNames = "compare-baselines",
+  commandDescription = "Compare a module against several older versions")
+public final class CommandCompareBaselines implements CCommandType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CommandCompareBaselines.class);
+
+  private final ArrayList<CModuleType> baselines;
+
+  @ParametersDelegate
+  private final CRegistryModules registry_modules;
+  @ParametersDelegate
+  private final CModuleLoaderSelection module_loader_selection;
+
+  @Parameter(
+    names = "--module-old",
+    description = "A jar file or exported snapshot containing a baseline version of the module (repeatable)",
+    required = true)
+  private List<String> modules_old = new ArrayList<>();
+  @Parameter(
+    names = "--module-old-version",
+    description = "The version string for the baseline at the same position",
+    required = true)
+  private List<String> modules_old_versions = new ArrayList<>();
+  @Parameter(
+    names = "--module-new",
+    description = "A jar file containing the new version of the module",
+    required = true)
+  private String module_new;
+  @Parameter(
+    names = "--module-new-version",
+    description = "The version string for the new module",
+    required = true)
+  private String module_new_version;
+  @Parameter(
+    names = "--verify-identical-classes",
+    description = "Compare the contents of classes that the archives record as identical before skipping them",
+    required = false)
+  private boolean verify_identical_classes;
+  @Parameter(
+    names = "--api-visibility",
+    description = "The policy that decides which classes and members are part of the API "
+      + "(package-private classes are only skipped under API_VISIBILITY_EXPORTED)",
+    required = false)
+  private CAPIVisibility api_visibility =
+    CAPIVisibility.API_VISIBILITY_NON_PRIVATE;
+  @Parameter(
+    names = "--exhaustive-members",
+    description = "Compare the members of classes even when a class-level change makes doing so redundant",
+    required = false)
+  private boolean exhaustive_members;
+  @Parameter(
+    names = "--threads",
+    description = "The number of threads used to open modules and compare classes",
+    required = false)
+  private int threads = 1;
+  @Parameter(
+    names = "--max-concurrent-comparisons",
+    description = "The maximum number of baselines compared at once (default: the value of --threads)",
+    required = false)
+  private Integer max_concurrent_comparisons;
+
+  /**
+   * Construct a command.
+   */
+
+  public CommandCompareBaselines()
+  {
+    this.baselines = new ArrayList<>(8);
+    this.registry_modules = new CRegistryModules();
+    this.module_loader_selection = new CModuleLoaderSelection();
+  }
+
+  private CommandStatus checkArguments()
+  {
+    if (this.modules_old.size() != this.modules_old_versions.size()) {
+      LOG.error("Each --module-old must have a corresponding --module-old-version");
+      return COMMAND_FAILURE;
+    }
+    if (this.threads < 1) {
+      LOG.error("The number of threads must be at least 1");
+      return COMMAND_FAILURE;
+    }
+    if (this.max_concurrent_comparisons != null
+      && this.max_concurrent_comparisons.intValue() < 1) {
+      LOG.error("The maximum number of concurrent comparisons must be at least 1");
+      return COMMAND_FAILURE;
+    }
+    return COMMAND_SUCCESS;
+  }
+
+  private CComparisonDriverConfiguration.Builder configuration()
+  {
+    final CComparisonDriverConfiguration.Builder configuration_builder =
+      CComparisonDriverConfiguration.builder()
+        .setVerifyIdenticalClasses(this.verify_identical_classes)
+        .setApiVisibility(this.api_visibility)
+        .setExhaustiveMembers(this.exhaustive_members);
+    if (this.max_concurrent_comparisons != null) {
+      configuration_builder.setMaxConcurrentComparisons(
+        this.max_concurrent_comparisons.intValue());
+    }
+    return configuration_builder;
+  }
+
+  @Override
+  public CommandStatus run()
+  {
+    if (this.checkArguments() == COMMAND_FAILURE) {
+      return COMMAND_FAILURE;
+    }
+
+    final Optional<CComparisonDriverProviderType> driver_opt =
+      ServiceLoader.load(CComparisonDriverProviderType.class).findFirst();
+    if (!driver_opt.isPresent()) {
+      LOG.error("No comparison driver providers available.");
+      return COMMAND_FAILURE;
+    }
+
+    final Optional<CModuleLoaderType> modules_opt =
+      this.module_loader_selection.loader();
+    if (!modules_opt.isPresent()) {
+      return COMMAND_FAILURE;
+    }
+
+    final CModuleLoaderType module_loader = modules_opt.get();
+    LOG.debug("using module loader {}", module_loader.name());
+
+    final CComparisonDriverConfiguration.Builder configuration_builder =
+      this.configuration();
+
+    final ForkJoinPool pool;
+    if (this.threads > 1) {
+      pool = new ForkJoinPool(this.threads);
+      configuration_builder.setExecutor(pool);
+    } else {
+      pool = null;
+    }
+
+    try {
+      if (this.registry_modules.load(
+        module_loader, pool != null ? pool : Runnable::run) == COMMAND_FAILURE) {
+        return COMMAND_FAILURE;
+      }
+
+      return this.runWithDriver(
+        module_loader,
+        driver_opt.get().create(configuration_builder.build()));
+    } finally {
+      this.unloadBaselines();
+      this.registry_modules.unload();
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  private void unloadBaselines()
+  {
+    this.baselines.forEach(module -> {
+      try {
+        module.close();
+      } catch (final IOException e) {
+        LOG.error(
+          "Could not close archive {}: {}: ",
+          module.archive().descriptor().path(),
+          e.getMessage(),
+          e);
+      }
+    });
+    this.baselines.clear();
+  }
+
+  private CommandStatus runWithDriver(
+    final CModuleLoaderType module_loader,
+    final CComparisonDriverType driver)
+  {
+    final List<CChangeDescriberType> describers =
+      ServiceLoader.load(CChangeDescriberType.class)
+        .stream()
+        .map(ServiceLoader.Provider::get)
+        .collect(Collectors.toList());
+
+    final List<CVersion> versions =
+      this.modules_old_versions.stream()
+        .map(CVersions::parse)
+        .collect(Collectors.toList());
+    final CVersion mn_version = CVersions.parse(this.module_new_version);
+
+    try {
+      for (int index = 0; index < this.modules_old.size(); ++index) {
+        this.baselines.add(CommandCompare.openOld(
+          module_loader,
+          Paths.get(this.modules_old.get(index)),
+          versions.get(index)));
+      }
+    } catch (final IOException e) {
+      LOG.error(
+        "Could not load old module: {}: {}: ",
+        this.modules_old,
+        e.getClass().getCanonicalName(),
+        e);
+      return COMMAND_FAILURE;
+    }
+
+    try (CModuleType module_new =
+           CModuleCaching.wrap(module_loader.open(Paths.get(this.module_new), mn_version))) {
+      final BaselinesReceiver receiver =
+        new BaselinesReceiver(describers, this.baselines.size());
+
+      driver.compareBaselines(
+        receiver,
+        this.registry_modules.registry(),
+        io.vavr.collection.List.ofAll(this.baselines),
+        module_new);
+
+      return writeReports(versions, mn_version, receiver.reports);
+    } catch (final IOException e) {
+      LOG.error(
+        "I/O error during module comparison: {}: {}: ",
+        e.getClass().getCanonicalName(),
+        e.getMessage(),
+        e);
+      return COMMAND_FAILURE;
+    } catch (final UncheckedIOException e) {
+      final IOException ec = e.getCause();
+      LOG.error(
+        "I/O error during module comparison: {}: {}: ",
+        ec.getClass().getCanonicalName(),
+        ec.getMessage(),
+        ec);
+      return COMMAND_FAILURE;
+    }
+  }
+
+  private static CommandStatus writeReports(
+    final List<CVersion> versions,
+    final CVersion mn_version,
+    final List<ArrayList<CReportRecord>> reports)
+    throws IOException
+  {
+    CommandStatus status = COMMAND_SUCCESS;
+    for (int index = 0; index < reports.size(); ++index) {
+      final CVersion version_old = versions.get(index);
+      CommandCompare.writeHeading(
+        "Baseline " + (index + 1), index == 0, version_old, mn_version);
+      if (CommandCompare.writeReport(version_old, mn_version, reports.get(index))
+        == COMMAND_FAILURE) {
+        status = COMMAND_FAILURE;
+      }
+    }
+    return status;
+  }
+
+  /**
+   * A receiver that collects a separate report for each baseline. Each
+   * report is only accessed by the thread comparing its baseline until the
+   * comparison of all baselines has completed.
+   */
+
+  private static final class BaselinesReceiver
+    implements CComparisonBaselinesReceiverType
+  {
+    private final List<CChangeDescriberType> describers;
+    private final List<ArrayList<CReportRecord>> reports;
+
+    BaselinesReceiver(
+      final List<CChangeDescriberType> in_describers,
+      final int count)
+    {
+      this.describers = in_describers;
+      this.reports = new ArrayList<>(count);
+      for (int index = 0; index < count; ++index) {
+        this.reports.add(new ArrayList<>(32));
+      }
+    }
+
+    @Override
+    public CChangeReceiverType onBaselineStarted(
+      final int baseline,
+      final CModuleType module_old,
+      final CModuleType module_new)
+    {
+      final ArrayList<CReportRecord> report = this.reports.get(baseline);
+      return (originator, change) -> report.add(
+        CommandCompare.render(this.describers, Tuple.of(originator, change)));
+    }
+
+    @Override
+    public void onBaselineFinished(
+      final int baseline,
+      final CModuleType module_old,
+      final CModuleType module_new)
+    {
+      LOG.debug(
+        "baseline {}: {} changes",
+        Integer.valueOf(baseline),
+        Integer.valueOf(this.reports.get(baseline).size()));
+    }
+  }
+}
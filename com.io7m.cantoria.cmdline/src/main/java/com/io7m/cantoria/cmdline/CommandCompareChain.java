@@ -0,0 +1,290 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.cmdline;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import com.io7m.cantoria.api.CModuleCaching;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.api.CVersions;
+import com.io7m.cantoria.changes.spi.CChangeDescriberType;
+import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+import com.io7m.cantoria.driver.api.CAPIVisibility;
+import com.io7m.cantoria.driver.api.CComparisonChainReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
+import com.io7m.cantoria.driver.api.CComparisonDriverProviderType;
+import com.io7m.cantoria.driver.api.CComparisonDriverType;
+import com.io7m.cantoria.driver.api.CModuleOpenerType;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import io.vavr.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_FAILURE;
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_SUCCESS;
+
+/**
+ * A command to compare a chain of versions of a module.
+ */
+
+@Parameters(
+  commandNames = "compare-chain",
+  commandDescription = "Compare each version of a module with its successor")
+public final class CommandCompareChain implements CCommandType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CommandCompareChain.class);
+
+  private final ArrayList<CReportRecord> report;
+
+  @ParametersDelegate
+  private final CRegistryModules registry_modules;
+  @ParametersDelegate
+  private final CModuleLoaderSelection module_loader_selection;
+
+  @Parameter(
+    names = "--module",
+    description = "A jar file containing a version of the module (specified once per version, oldest first)",
+    required = true)
+  private List<String> modules = new ArrayList<>();
+  @Parameter(
+    names = "--module-version",
+    description = "The version string for the module at the same position",
+    required = true)
+  private List<String> module_versions = new ArrayList<>();
+  @Parameter(
+    names = "--verify-identical-classes",
+    description = "Compare the contents of classes that the archives record as identical before skipping them",
+    required = false)
+  private boolean verify_identical_classes;
+  @Parameter(
+    names = "--api-visibility",
+    description = "The policy that decides which classes and members are part of the API "
+      + "(package-private classes are only skipped under API_VISIBILITY_EXPORTED)",
+    required = false)
+  private CAPIVisibility api_visibility =
+    CAPIVisibility.API_VISIBILITY_NON_PRIVATE;
+  @Parameter(
+    names = "--exhaustive-members",
+    description = "Compare the members of classes even when a class-level change makes doing so redundant",
+    required = false)
+  private boolean exhaustive_members;
+  @Parameter(
+    names = "--threads",
+    description = "The number of threads used to open modules and compare classes",
+    required = false)
+  private int threads = 1;
+
+  /**
+   * Construct a command.
+   */
+
+  public CommandCompareChain()
+  {
+    this.report = new ArrayList<>(32);
+    this.registry_modules = new CRegistryModules();
+    this.module_loader_selection = new CModuleLoaderSelection();
+  }
+
+  private CommandStatus checkArguments()
+  {
+    if (this.modules.size() != this.module_versions.size()) {
+      LOG.error("Each --module must have a corresponding --module-version");
+      return COMMAND_FAILURE;
+    }
+    if (this.modules.size() < 2) {
+      LOG.error("At least two versions of the module must be specified");
+      return COMMAND_FAILURE;
+    }
+    if (this.threads < 1) {
+      LOG.error("The number of threads must be at least 1");
+      return COMMAND_FAILURE;
+    }
+    return COMMAND_SUCCESS;
+  }
+
+  @Override
+  public CommandStatus run()
+  {
+    if (this.checkArguments() == COMMAND_FAILURE) {
+      return COMMAND_FAILURE;
+    }
+
+    final Optional<CComparisonDriverProviderType> driver_opt =
+      ServiceLoader.load(CComparisonDriverProviderType.class).findFirst();
+    if (!driver_opt.isPresent()) {
+      LOG.error("No comparison driver providers available.");
+      return COMMAND_FAILURE;
+    }
+
+    final Optional<CModuleLoaderType> modules_opt =
+      this.module_loader_selection.loader();
+    if (!modules_opt.isPresent()) {
+      return COMMAND_FAILURE;
+    }
+
+    final CModuleLoaderType module_loader = modules_opt.get();
+    LOG.debug("using module loader {}", module_loader.name());
+
+    final CComparisonDriverConfiguration.Builder configuration_builder =
+      CComparisonDriverConfiguration.builder()
+        .setVerifyIdenticalClasses(this.verify_identical_classes)
+        .setApiVisibility(this.api_visibility)
+        .setExhaustiveMembers(this.exhaustive_members);
+
+    final ForkJoinPool pool;
+    if (this.threads > 1) {
+      pool = new ForkJoinPool(this.threads);
+      configuration_builder.setExecutor(pool);
+    } else {
+      pool = null;
+    }
+
+    try {
+      if (this.registry_modules.load(
+        module_loader, pool != null ? pool : Runnable::run) == COMMAND_FAILURE) {
+        return COMMAND_FAILURE;
+      }
+
+      return this.runWithDriver(
+        module_loader,
+        driver_opt.get().create(configuration_builder.build()));
+    } finally {
+      this.registry_modules.unload();
+      if (pool != null) {
+        pool.shutdown();
+      }
+    }
+  }
+
+  private CommandStatus runWithDriver(
+    final CModuleLoaderType module_loader,
+    final CComparisonDriverType driver)
+  {
+    final List<CChangeDescriberType> describers =
+      ServiceLoader.load(CChangeDescriberType.class)
+        .stream()
+        .map(ServiceLoader.Provider::get)
+        .collect(Collectors.toList());
+
+    final List<CVersion> versions =
+      this.module_versions.stream()
+        .map(CVersions::parse)
+        .collect(Collectors.toList());
+
+    final ArrayList<CModuleOpenerType> chain =
+      new ArrayList<>(this.modules.size());
+    for (int index = 0; index < this.modules.size(); ++index) {
+      final Path path = Paths.get(this.modules.get(index));
+      final CVersion version = versions.get(index);
+      chain.add(() -> CModuleCaching.wrap(module_loader.open(path, version)));
+    }
+
+    final ChainReceiver receiver = new ChainReceiver(describers, versions);
+    try {
+      driver.compareChain(
+        receiver,
+        this.registry_modules.registry(),
+        io.vavr.collection.List.ofAll(chain));
+      return receiver.status;
+    } catch (final IOException e) {
+      LOG.error(
+        "I/O error during module comparison: {}: {}: ",
+        e.getClass().getCanonicalName(),
+        e.getMessage(),
+        e);
+      return COMMAND_FAILURE;
+    } catch (final UncheckedIOException e) {
+      final IOException ec = e.getCause();
+      LOG.error(
+        "I/O error during module comparison: {}: {}: ",
+        ec.getClass().getCanonicalName(),
+        ec.getMessage(),
+        ec);
+      return COMMAND_FAILURE;
+    }
+  }
+
+  /**
+   * A receiver that writes a separate report for each step of the chain as
+   * soon as the step has been compared.
+   */
+
+  private final class ChainReceiver implements CComparisonChainReceiverType
+  {
+    private final List<CChangeDescriberType> describers;
+    private final List<CVersion> versions;
+    private CommandStatus status;
+
+    ChainReceiver(
+      final List<CChangeDescriberType> in_describers,
+      final List<CVersion> in_versions)
+    {
+      this.describers = in_describers;
+      this.versions = in_versions;
+      this.status = COMMAND_SUCCESS;
+    }
+
+    @Override
+    public CChangeReceiverType onStepStarted(
+      final int step,
+      final CModuleType module_old,
+      final CModuleType module_new)
+    {
+      CommandCompareChain.this.report.clear();
+      return (originator, change) -> CommandCompareChain.this.report.add(
+        CommandCompare.render(this.describers, Tuple.of(originator, change)));
+    }
+
+    @Override
+    public void onStepFinished(
+      final int step,
+      final CModuleType module_old,
+      final CModuleType module_new)
+    {
+      final CVersion version_old = this.versions.get(step);
+      final CVersion version_new = this.versions.get(step + 1);
+
+      try {
+        CommandCompare.writeHeading(
+          "Comparison " + (step + 1), step == 0, version_old, version_new);
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+
+      if (CommandCompare.writeReport(
+        version_old, version_new, CommandCompareChain.this.report)
+        == COMMAND_FAILURE) {
+        this.status = COMMAND_FAILURE;
+      }
+      CommandCompareChain.this.report.clear();
+    }
+  }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.cmdline;
+
+import com.beust.jcommander.Parameter;
+import com.beust.jcommander.Parameters;
+import com.beust.jcommander.ParametersDelegate;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.api.CVersions;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import com.io7m.cantoria.modules.api.CModuleSnapshots;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_FAILURE;
+import static com.io7m.cantoria.cmdline.CommandStatus.COMMAND_SUCCESS;
+
+/**
+ * A command to export an API snapshot of a module.
+ */
+
+@Parameters(
+  commandNames = "export",
+  commandDescription = "Export an API snapshot of a module")
+public final class CommandExport implements CCommandType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CommandExport.class);
+
+  @Parameter(
+    names = "--module",
+    description = "A jar file containing the module",
+    required = true)
+  private String module;
+  @Parameter(
+    names = "--module-version",
+    description = "The version string for the module",
+    required = true)
+  private String module_version;
+  @Parameter(
+    names = "--output",
+    description = "The snapshot file that will be written",
+    required = true)
+  private String output;
+  @ParametersDelegate
+  private final CModuleLoaderSelection module_loader_selection;
+
+  /**
+   * Construct a command.
+   */
+
+  public CommandExport()
+  {
+    this.module_loader_selection = new CModuleLoaderSelection();
+  }
+
+  @Override
+  public CommandStatus run()
+  {
+    final Path path = Paths.get(this.module);
+    final CVersion version = CVersions.parse(this.module_version);
+    final Path output_path = Paths.get(this.output);
+
+    final Optional<CModuleLoaderType> modules_opt =
+      this.module_loader_selection.loader();
+    if (!modules_opt.isPresent()) {
+      return COMMAND_FAILURE;
+    }
+
+    final CModuleLoaderType module_loader = modules_opt.get();
+    LOG.debug("using module loader {}", module_loader.name());
+
+    try (CModuleType m = module_loader.open(path, version)) {
+      CModuleSnapshots.export(m, version, output_path);
+      LOG.info("exported {} to {}", m.descriptor().name(), output_path);
+      return COMMAND_SUCCESS;
+    } catch (final IOException e) {
+      LOG.error(
+        "Could not export module: {}: {}: ",
+        this.module,
+        e.getClass().getCanonicalName(),
+        e);
+      return COMMAND_FAILURE;
+    }
+  }
+}
@@ -37,19 +37,33 @@ public final class Main
 
   private final JCommander jcommander;
   private final String[] args;
-  private final HashMap<String, CommandCompare> commands;
+  private final HashMap<String, CCommandType> commands;
 
   private Main(
     final String[] in_args)
   {
     this.args = Objects.requireNonNull(in_args, "Arguments");
 
+    final CommandBatch cb = new CommandBatch();
     final CommandCompare cc = new CommandCompare();
-    this.commands = HashMap.of("compare", cc);
+    final CommandCompareBaselines ccb = new CommandCompareBaselines();
+    final CommandCompareChain ccc = new CommandCompareChain();
+    final CommandExport ce = new CommandExport();
+    this.commands =
+      HashMap.of(
+        "batch", cb,
+        "compare", cc,
+        "compare-baselines", ccb,
+        "compare-chain", ccc,
+        "export", ce);
     this.jcommander =
       JCommander.newBuilder()
         .programName("cantoria")
+        .addCommand(cb)
         .addCommand(cc)
+        .addCommand(ccb)
+        .addCommand(ccc)
+        .addCommand(ce)
         .build();
   }
 
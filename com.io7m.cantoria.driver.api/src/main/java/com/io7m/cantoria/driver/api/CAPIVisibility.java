@@ -0,0 +1,48 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver.api;
+
+/**
+ * The policy that decides which classes and members form part of the API of
+ * a module. Classes and members that are not part of the API in either
+ * version of a module are discarded before any model objects are built for
+ * them, and are therefore never seen by checks.
+ */
+
+public enum CAPIVisibility
+{
+  /**
+   * Every class and member is compared.
+   */
+
+  API_VISIBILITY_ALL,
+
+  /**
+   * Private members are not compared.
+   */
+
+  API_VISIBILITY_NON_PRIVATE,
+
+  /**
+   * Only public classes are compared. Within those classes, only public
+   * members, and the protected members of classes that are not final, are
+   * compared. Protected members of final classes cannot be accessed by
+   * subclasses in other packages, and so are not part of the API.
+   */
+
+  API_VISIBILITY_EXPORTED
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver.api;
+
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+
+/**
+ * A receiver of the results of comparing a module against several baselines.
+ * The changes for each baseline are delivered to the receiver returned by
+ * {@link #onBaselineStarted(int, CModuleType, CModuleType)} for that
+ * baseline.
+ *
+ * <p>Baselines may be compared concurrently, and so the methods of this
+ * interface may be called concurrently from different threads for different
+ * baselines. All calls for a single baseline, including calls to the
+ * baseline's change receiver, are made from one thread, in order.</p>
+ */
+
+public interface CComparisonBaselinesReceiverType
+{
+  /**
+   * A baseline is about to be compared.
+   *
+   * @param baseline   The index of the baseline, starting at {@code 0}
+   * @param module_old The baseline module
+   * @param module_new The new module
+   *
+   * @return A receiver for the changes against the baseline
+   */
+
+  CChangeReceiverType onBaselineStarted(
+    int baseline,
+    CModuleType module_old,
+    CModuleType module_new);
+
+  /**
+   * A baseline has been compared. No further changes will be delivered for
+   * the baseline.
+   *
+   * @param baseline   The index of the baseline, starting at {@code 0}
+   * @param module_old The baseline module
+   * @param module_new The new module
+   */
+
+  void onBaselineFinished(
+    int baseline,
+    CModuleType module_old,
+    CModuleType module_new);
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver.api;
+
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+
+import java.io.IOException;
+
+/**
+ * A receiver of the results of comparing a batch of module pairs. The
+ * changes for each pair are delivered to the receiver returned by
+ * {@link #onPairStarted(int, CModuleType, CModuleType)} for that pair.
+ *
+ * <p>Pairs may be compared concurrently, and so the methods of this
+ * interface may be called concurrently from different threads for different
+ * pairs. All calls for a single pair, including calls to the pair's change
+ * receiver, are made from one thread, in order.</p>
+ */
+
+public interface CComparisonBatchReceiverType
+{
+  /**
+   * A pair is about to be compared.
+   *
+   * @param pair       The index of the pair, starting at {@code 0}
+   * @param module_old The old module
+   * @param module_new The new module
+   *
+   * @return A receiver for the changes in the pair
+   */
+
+  CChangeReceiverType onPairStarted(
+    int pair,
+    CModuleType module_old,
+    CModuleType module_new);
+
+  /**
+   * A pair has been compared. No further changes will be delivered for the
+   * pair.
+   *
+   * @param pair       The index of the pair, starting at {@code 0}
+   * @param module_old The old module
+   * @param module_new The new module
+   */
+
+  void onPairFinished(
+    int pair,
+    CModuleType module_old,
+    CModuleType module_new);
+
+  /**
+   * A pair could not be opened or compared. Changes may already have been
+   * delivered for the pair, and should be discarded.
+   *
+   * @param pair  The index of the pair, starting at {@code 0}
+   * @param error The error
+   */
+
+  void onPairFailed(
+    int pair,
+    IOException error);
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver.api;
+
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+
+/**
+ * A receiver of the results of comparing a chain of module versions. Each
+ * step of the chain compares a module with its immediate successor, and the
+ * changes for each step are delivered to the receiver returned by
+ * {@link #onStepStarted(int, CModuleType, CModuleType)} for that step.
+ */
+
+public interface CComparisonChainReceiverType
+{
+  /**
+   * A step of the chain is about to be compared.
+   *
+   * @param step       The index of the step, starting at {@code 0}
+   * @param module_old The old module
+   * @param module_new The new module
+   *
+   * @return A receiver for the changes in the step
+   */
+
+  CChangeReceiverType onStepStarted(
+    int step,
+    CModuleType module_old,
+    CModuleType module_new);
+
+  /**
+   * A step of the chain has been compared. No further changes will be
+   * delivered for the step, and the old module will be closed when this
+   * method returns.
+   *
+   * @param step       The index of the step, starting at {@code 0}
+   * @param module_old The old module
+   * @param module_new The new module
+   */
+
+  void onStepFinished(
+    int step,
+    CModuleType module_old,
+    CModuleType module_new);
+}
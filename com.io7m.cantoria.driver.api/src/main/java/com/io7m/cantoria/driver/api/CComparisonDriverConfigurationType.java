@@ -0,0 +1,149 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver.api;
+
+import com.io7m.cantoria.api.CImmutableStyleType;
+import com.io7m.jaffirm.core.Preconditions;
+import org.immutables.value.Value;
+import org.immutables.vavr.encodings.VavrEncodingEnabled;
+
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuration values for comparison drivers.
+ */
+
+@CImmutableStyleType
+@VavrEncodingEnabled
+@Value.Immutable
+public interface CComparisonDriverConfigurationType
+{
+  /**
+   * Classes whose archive digests (CRC-32 and size) are equal are assumed to
+   * be identical and are not compared. If this value is {@code true}, the
+   * full contents of such classes are additionally compared before the
+   * classes are skipped.
+   *
+   * @return {@code true} if identical digests should be confirmed by
+   * comparing class contents
+   */
+
+  @Value.Default
+  default boolean verifyIdenticalClasses()
+  {
+    return false;
+  }
+
+  /**
+   * The policy that decides which classes and members are compared. A class
+   * or member is compared if it is part of the API in either version of a
+   * module, so that changes in accessibility are still observed.
+   *
+   * @return The API visibility policy
+   */
+
+  @Value.Default
+  default CAPIVisibility apiVisibility()
+  {
+    return CAPIVisibility.API_VISIBILITY_NON_PRIVATE;
+  }
+
+  /**
+   * Class comparators may declare that a class-level change (such as a class
+   * ceasing to be public, or becoming an interface or enum) makes the
+   * comparison of the members of the class redundant, in which case the
+   * members of the class are not compared. If this value is {@code true},
+   * the members of such classes are compared anyway.
+   *
+   * @return {@code true} if members should always be compared
+   */
+
+  @Value.Default
+  default boolean exhaustiveMembers()
+  {
+    return false;
+  }
+
+  /**
+   * An executor used to compare classes in parallel. If no executor is
+   * specified, classes are compared sequentially on the calling thread.
+   * Regardless of the executor used, changes are delivered to receivers on
+   * the calling thread, in the same order as sequential comparisons would
+   * deliver them. Only the comparisons of individual classes are submitted
+   * to the executor, and those never wait for each other, so any executor,
+   * including a fixed-size thread pool, may be used.
+   *
+   * @return The executor used to compare classes
+   */
+
+  @Value.Auxiliary
+  Optional<Executor> executor();
+
+  /**
+   * The maximum number of module comparisons that may be in progress at once
+   * when comparing a batch of module pairs or several baselines. Each
+   * comparison in progress holds its modules open and waits on a dedicated
+   * coordinating thread for its classes to be compared on the configured
+   * executor, so this value bounds the number of open modules and
+   * coordinating threads, whereas the executor alone bounds the number of
+   * classes compared at once. If no executor is specified, comparisons are
+   * performed one at a time regardless of this value. The default is the
+   * parallelism of the executor if it is a {@link ForkJoinPool}, and
+   * {@code 1} otherwise.
+   *
+   * @return The maximum number of module comparisons in progress at once
+   */
+
+  @Value.Default
+  default int maxConcurrentComparisons()
+  {
+    final Optional<Executor> executor_opt = this.executor();
+    if (executor_opt.isPresent()) {
+      final Executor executor = executor_opt.get();
+      if (executor instanceof ForkJoinPool) {
+        return ((ForkJoinPool) executor).getParallelism();
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * Check preconditions for the type.
+   */
+
+  @Value.Check
+  default void checkPreconditions()
+  {
+    Preconditions.checkPreconditionI(
+      this.maxConcurrentComparisons(),
+      this.maxConcurrentComparisons() >= 1,
+      count -> "Maximum concurrent comparisons must be at least 1");
+  }
+
+  /**
+   * A memo of earlier class comparisons. If a memo is specified, classes
+   * whose recorded results are current are not compared, and the memo
+   * replays the recorded results instead.
+   *
+   * @return The memo of earlier class comparisons
+   */
+
+  @Value.Auxiliary
+  Optional<CComparisonMemoType> memo();
+}
@@ -23,8 +23,20 @@ package com.io7m.cantoria.driver.api;
 public interface CComparisonDriverProviderType
 {
   /**
+   * @return A new driver using the default configuration
+   */
+
+  default CComparisonDriverType create()
+  {
+    return this.create(CComparisonDriverConfiguration.builder().build());
+  }
+
+  /**
+   * @param configuration The driver configuration
+   *
    * @return A new driver
    */
 
-  CComparisonDriverType create();
+  CComparisonDriverType create(
+    CComparisonDriverConfiguration configuration);
 }
@@ -20,6 +20,9 @@ import com.io7m.cantoria.api.CClassRegistryType;
 import com.io7m.cantoria.api.CModuleDescriptor;
 import com.io7m.cantoria.api.CModuleType;
 import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+import io.vavr.collection.List;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.SortedSet;
 
 import java.io.IOException;
 
@@ -59,4 +62,122 @@ public interface CComparisonDriverType
     CModuleType module_old,
     CModuleType module_new)
     throws IOException;
+
+  /**
+   * Compare the given modules until the given gate condition is reached,
+   * delivering changes to the receiver. As soon as the condition holds, the
+   * remaining package and class comparisons are abandoned, and the receiver
+   * will have seen only some of the changes: exactly those that a sequential
+   * comparison would have delivered up to and including the class that
+   * caused the condition to hold, regardless of the configured executor.
+   * Comparisons that are already running concurrently on the configured
+   * executor when the condition holds are allowed to finish, and this method
+   * does not return until they have, but their changes are not delivered.
+   * The configured memo, if any, is neither consulted nor updated, as a gated
+   * comparison does not produce complete results.
+   *
+   * @param receiver   The change receiver
+   * @param gate       The condition at which to stop
+   * @param registry   A class registry for finding external classes
+   * @param module_old The old module
+   * @param module_new The new module
+   *
+   * @return The verdict of the comparison
+   *
+   * @throws IOException On I/O errors
+   */
+
+  CComparisonVerdict compareModulesGated(
+    CChangeReceiverType receiver,
+    CComparisonGate gate,
+    CClassRegistryType registry,
+    CModuleType module_old,
+    CModuleType module_new)
+    throws IOException;
+
+  /**
+   * Compare a chain of versions of a module. Each module in the chain is
+   * compared with its immediate successor. Each module is opened once, when
+   * it is first needed, and is closed as soon as the step in which it is the
+   * old module has been compared. Each step resolves external classes
+   * against child layers of the given parent registry, one for each of the
+   * two modules being compared.
+   *
+   * @param receiver The chain receiver
+   * @param parent   The registry layer used to resolve external classes
+   * @param chain    The chain of modules, oldest first, containing at least
+   *                 two modules
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void compareChain(
+    CComparisonChainReceiverType receiver,
+    CClassRegistryType parent,
+    List<CModuleOpenerType> chain)
+    throws IOException;
+
+  /**
+   * Compare a new module against each of several older baseline modules.
+   * The new module is parsed once, and its parsed classes are shared by the
+   * comparisons against all of the baselines. If the driver is configured
+   * with an executor, the baselines are compared concurrently, with at most
+   * {@link CComparisonDriverConfigurationType#maxConcurrentComparisons()}
+   * baselines in progress at once. Each
+   * baseline resolves external classes against child layers of the given
+   * parent registry, one for the baseline module and one for the new module.
+   * The modules remain open when this method returns.
+   *
+   * @param receiver   The baselines receiver
+   * @param parent     The registry layer used to resolve external classes
+   * @param baselines  The baseline modules, containing at least one module
+   * @param module_new The new module
+   *
+   * @throws IOException On I/O errors
+   */
+
+  void compareBaselines(
+    CComparisonBaselinesReceiverType receiver,
+    CClassRegistryType parent,
+    List<CModuleType> baselines,
+    CModuleType module_new)
+    throws IOException;
+
+  /**
+   * Compare each of a batch of module pairs. If the driver is configured
+   * with an executor, pairs are compared concurrently, with at most
+   * {@link CComparisonDriverConfigurationType#maxConcurrentComparisons()}
+   * pairs in progress at once. The modules of each pair are opened when the
+   * pair is compared, and are closed when the comparison is complete. Each
+   * pair resolves external classes against child layers of the given parent
+   * registry, which is shared by all pairs, one for each of the two modules
+   * of the pair. A failure to open or compare one pair is reported to the
+   * receiver and does not prevent the other pairs from being compared.
+   *
+   * @param receiver The batch receiver
+   * @param parent   The registry layer used to resolve external classes
+   * @param pairs    The pairs of modules
+   */
+
+  void compareBatch(
+    CComparisonBatchReceiverType receiver,
+    CClassRegistryType parent,
+    List<CComparisonPair> pairs);
+
+  /**
+   * @return The names of all of the checks that the driver runs
+   */
+
+  SortedSet<String> checks();
+
+  /**
+   * The composition of the driver's check pipeline, for diagnostics. Each key
+   * names a point in a comparison at which checks are run, and each value is
+   * the list of the names of the checks run at that point, in the order in
+   * which they are run.
+   *
+   * @return The composition of the check pipeline
+   */
+
+  SortedMap<String, List<String>> checkPipeline();
 }
@@ -0,0 +1,79 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver.api;
+
+import com.io7m.cantoria.changes.api.CCompatibilityTracker;
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.util.Objects;
+
+import static com.io7m.cantoria.changes.api.CChangeBinaryCompatibility.BINARY_INCOMPATIBLE;
+import static com.io7m.cantoria.changes.api.CChangeSemanticVersioning.SEMANTIC_MAJOR;
+import static com.io7m.cantoria.changes.api.CChangeSourceCompatibility.SOURCE_INCOMPATIBLE;
+
+/**
+ * The condition at which a gated comparison stops. Once the condition holds,
+ * no further changes can alter the verdict, and so the rest of the
+ * comparison is abandoned.
+ */
+
+public enum CComparisonGate
+{
+  /**
+   * Stop at the first binary-incompatible change.
+   */
+
+  GATE_BINARY_INCOMPATIBLE,
+
+  /**
+   * Stop at the first source-incompatible change.
+   */
+
+  GATE_SOURCE_INCOMPATIBLE,
+
+  /**
+   * Stop at the first change that requires a major version increment.
+   */
+
+  GATE_SEMANTIC_MAJOR;
+
+  /**
+   * @param tracker A compatibility tracker
+   *
+   * @return {@code true} if the condition holds for the given tracker
+   */
+
+  public boolean isReached(
+    final CCompatibilityTracker tracker)
+  {
+    Objects.requireNonNull(tracker, "Tracker");
+
+    switch (this) {
+      case GATE_BINARY_INCOMPATIBLE: {
+        return tracker.binaryCompatibility() == BINARY_INCOMPATIBLE;
+      }
+      case GATE_SOURCE_INCOMPATIBLE: {
+        return tracker.sourceCompatibility() == SOURCE_INCOMPATIBLE;
+      }
+      case GATE_SEMANTIC_MAJOR: {
+        return tracker.semanticVersioning() == SEMANTIC_MAJOR;
+      }
+    }
+
+    throw new UnreachableCodeException();
+  }
+}
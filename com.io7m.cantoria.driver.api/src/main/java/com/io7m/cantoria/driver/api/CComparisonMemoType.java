@@ -0,0 +1,92 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver.api;
+
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+
+import java.io.IOException;
+
+/**
+ * A memo of class comparisons performed by earlier runs.
+ *
+ * <p>For each class in a package exported by both modules, a driver
+ * configured with a memo asks the memo whether the recorded results for the
+ * class are still current. If they are, the driver does not compare the class
+ * and instead asks the memo to replay the recorded results at the point at
+ * which the changes for the class would otherwise have been delivered. If they
+ * are not, the driver compares the class, delivers the resulting changes, and
+ * then passes the changes to the memo to be recorded. A class that is
+ * byte-identical in both modules produces no changes, and the driver skips it
+ * without consulting the memo at all.</p>
+ *
+ * <p>{@link #isCurrent(CModuleType, CModuleType, String, String)} may be
+ * called concurrently from the threads of the configured executor. The
+ * {@link #replay(String, String)} and {@link #compared(String, String, List)}
+ * methods are only called on the thread that is comparing the modules, in
+ * delivery order.</p>
+ */
+
+public interface CComparisonMemoType
+{
+  /**
+   * @param module_old   The old module
+   * @param module_new   The new module
+   * @param package_name The package name
+   * @param class_name   The class name, which may be absent from one of the
+   *                     modules
+   *
+   * @return {@code true} if the recorded results for the given class are
+   * current
+   *
+   * @throws IOException On I/O errors
+   */
+
+  boolean isCurrent(
+    CModuleType module_old,
+    CModuleType module_new,
+    String package_name,
+    String class_name)
+    throws IOException;
+
+  /**
+   * Replay the recorded results for the given class.
+   *
+   * @param package_name The package name
+   * @param class_name   The class name
+   */
+
+  void replay(
+    String package_name,
+    String class_name);
+
+  /**
+   * Record the changes produced by comparing the given class.
+   *
+   * @param package_name The package name
+   * @param class_name   The class name
+   * @param changes      The changes, in delivery order
+   */
+
+  void compared(
+    String package_name,
+    String class_name,
+    List<Tuple2<CChangeCheckType, CChangeType>> changes);
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver.api;
+
+import com.io7m.cantoria.api.CImmutableStyleType;
+import com.io7m.cantoria.changes.api.CChangeBinaryCompatibility;
+import com.io7m.cantoria.changes.api.CChangeSemanticVersioning;
+import com.io7m.cantoria.changes.api.CChangeSourceCompatibility;
+import org.immutables.value.Value;
+import org.immutables.vavr.encodings.VavrEncodingEnabled;
+
+/**
+ * The verdict of a gated comparison. If the gate was reached, the
+ * compatibility values are lower bounds: the comparison stopped before every
+ * class was examined.
+ */
+
+@CImmutableStyleType
+@VavrEncodingEnabled
+@Value.Immutable
+public interface CComparisonVerdictType
+{
+  /**
+   * @return The gate condition
+   */
+
+  @Value.Parameter(order = 0)
+  CComparisonGate gate();
+
+  /**
+   * @return {@code true} if the gate condition was reached
+   */
+
+  @Value.Parameter(order = 1)
+  boolean gateReached();
+
+  /**
+   * @return The degree of binary compatibility observed
+   */
+
+  @Value.Parameter(order = 2)
+  CChangeBinaryCompatibility binaryCompatibility();
+
+  /**
+   * @return The degree of source compatibility observed
+   */
+
+  @Value.Parameter(order = 3)
+  CChangeSourceCompatibility sourceCompatibility();
+
+  /**
+   * @return The semantic versioning requirement observed
+   */
+
+  @Value.Parameter(order = 4)
+  CChangeSemanticVersioning semanticVersioning();
+}
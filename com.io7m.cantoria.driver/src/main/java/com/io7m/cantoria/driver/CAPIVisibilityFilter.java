@@ -0,0 +1,211 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver;
+
+import com.io7m.cantoria.driver.api.CAPIVisibility;
+import com.io7m.junreachable.UnreachableCodeException;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The application of an API visibility policy to class and member access
+ * flags. Decisions are made on the raw nodes so that no model objects need to
+ * be built for classes and members that are not part of the API.
+ */
+
+public final class CAPIVisibilityFilter
+{
+  private final CAPIVisibility visibility;
+
+  /**
+   * Construct a filter.
+   *
+   * @param in_visibility The API visibility policy
+   */
+
+  public CAPIVisibilityFilter(
+    final CAPIVisibility in_visibility)
+  {
+    this.visibility = Objects.requireNonNull(in_visibility, "Visibility");
+  }
+
+  /**
+   * @return {@code true} if every class and member is part of the API
+   */
+
+  public boolean includesEverything()
+  {
+    return this.visibility == CAPIVisibility.API_VISIBILITY_ALL;
+  }
+
+  /**
+   * @return {@code true} if every class is part of the API, regardless of its
+   * access flags, so that there is no need to read the access flags of a
+   * class in order to decide whether to compare it
+   */
+
+  public boolean classesAllAPI()
+  {
+    switch (this.visibility) {
+      case API_VISIBILITY_ALL:
+      case API_VISIBILITY_NON_PRIVATE: {
+        return true;
+      }
+      case API_VISIBILITY_EXPORTED: {
+        return false;
+      }
+    }
+
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * @param access The access flags of the class
+   *
+   * @return {@code true} if a class with the given access flags is part of
+   * the API
+   */
+
+  public boolean classIsAPI(
+    final int access)
+  {
+    switch (this.visibility) {
+      case API_VISIBILITY_ALL:
+      case API_VISIBILITY_NON_PRIVATE: {
+        return true;
+      }
+      case API_VISIBILITY_EXPORTED: {
+        return (access & Opcodes.ACC_PUBLIC) != 0;
+      }
+    }
+
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * @param owner  The class that declares the member
+   * @param access The access flags of the member
+   *
+   * @return {@code true} if a member with the given access flags is part of
+   * the API
+   */
+
+  public boolean memberIsAPI(
+    final ClassNode owner,
+    final int access)
+  {
+    switch (this.visibility) {
+      case API_VISIBILITY_ALL: {
+        return true;
+      }
+      case API_VISIBILITY_NON_PRIVATE: {
+        return (access & Opcodes.ACC_PRIVATE) == 0;
+      }
+      case API_VISIBILITY_EXPORTED: {
+        if ((access & Opcodes.ACC_PUBLIC) != 0) {
+          return true;
+        }
+        return (access & Opcodes.ACC_PROTECTED) != 0
+          && (owner.access & Opcodes.ACC_FINAL) == 0;
+      }
+    }
+
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * @param class_old The old class
+   * @param class_new The new class
+   *
+   * @return The name and type descriptor of each method that is part of the
+   * API in either of the given classes
+   */
+
+  public HashSet<String> methodsAPI(
+    final ClassNode class_old,
+    final ClassNode class_new)
+  {
+    final HashSet<String> names =
+      new HashSet<>(class_old.methods.size() + class_new.methods.size());
+    this.addMethods(names, class_old, class_old.methods);
+    this.addMethods(names, class_new, class_new.methods);
+    return names;
+  }
+
+  private void addMethods(
+    final HashSet<String> names,
+    final ClassNode owner,
+    final List<MethodNode> methods)
+  {
+    for (int index = 0; index < methods.size(); ++index) {
+      final MethodNode method = methods.get(index);
+      if (this.memberIsAPI(owner, method.access)) {
+        names.add(methodKey(method));
+      }
+    }
+  }
+
+  /**
+   * @param method The method
+   *
+   * @return A key that uniquely identifies the method within its class
+   */
+
+  public static String methodKey(
+    final MethodNode method)
+  {
+    return method.name + method.desc;
+  }
+
+  /**
+   * @param class_old The old class
+   * @param class_new The new class
+   *
+   * @return The name of each field that is part of the API in either of the
+   * given classes
+   */
+
+  public HashSet<String> fieldsAPI(
+    final ClassNode class_old,
+    final ClassNode class_new)
+  {
+    final HashSet<String> names =
+      new HashSet<>(class_old.fields.size() + class_new.fields.size());
+    this.addFields(names, class_old, class_old.fields);
+    this.addFields(names, class_new, class_new.fields);
+    return names;
+  }
+
+  private void addFields(
+    final HashSet<String> names,
+    final ClassNode owner,
+    final List<FieldNode> fields)
+  {
+    for (int index = 0; index < fields.size(); ++index) {
+      final FieldNode field = fields.get(index);
+      if (this.memberIsAPI(owner, field.access)) {
+        names.add(field.name);
+      }
+    }
+  }
+}
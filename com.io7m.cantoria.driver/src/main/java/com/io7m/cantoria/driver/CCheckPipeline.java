@@ -0,0 +1,213 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver;
+
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
+import com.io7m.cantoria.changes.spi.CClassCheckAdditionType;
+import com.io7m.cantoria.changes.spi.CClassCheckRemovalType;
+import com.io7m.cantoria.changes.spi.CClassComparatorType;
+import com.io7m.cantoria.changes.spi.CEnumComparatorType;
+import com.io7m.cantoria.changes.spi.CFieldCheckAdditionType;
+import com.io7m.cantoria.changes.spi.CFieldCheckRemovalType;
+import com.io7m.cantoria.changes.spi.CFieldComparatorType;
+import com.io7m.cantoria.changes.spi.CMethodCheckAdditionType;
+import com.io7m.cantoria.changes.spi.CMethodCheckRemovalType;
+import com.io7m.cantoria.changes.spi.CMethodOverloadComparatorType;
+import com.io7m.cantoria.changes.spi.CModuleDescriptorComparatorType;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeMap;
+import io.vavr.collection.TreeSet;
+
+import java.util.ServiceLoader;
+
+/**
+ * The set of checks run by a driver, resolved once from the available
+ * service providers.
+ *
+ * <p>Providers are resolved eagerly into one array per hook, so that running
+ * the checks for each class, method, and field is a plain array traversal
+ * that neither creates iterators nor consults the lazy provider machinery of
+ * {@link ServiceLoader}. The arrays returned by the package-private accessors
+ * are shared and must not be modified.</p>
+ */
+
+public final class CCheckPipeline
+{
+  private final CModuleDescriptorComparatorType[] module_descriptor_comparators;
+  private final CClassCheckAdditionType[] class_additions;
+  private final CClassCheckRemovalType[] class_removals;
+  private final CClassComparatorType[] class_comparators;
+  private final CEnumComparatorType[] enum_comparators;
+  private final CFieldCheckAdditionType[] field_additions;
+  private final CFieldCheckRemovalType[] field_removals;
+  private final CFieldComparatorType[] field_comparators;
+  private final CMethodCheckAdditionType[] method_additions;
+  private final CMethodCheckRemovalType[] method_removals;
+  private final CMethodOverloadComparatorType[] method_overload_comparators;
+  private final SortedMap<String, List<String>> composition;
+  private final SortedSet<String> checks;
+
+  private CCheckPipeline()
+  {
+    this.module_descriptor_comparators =
+      resolve(CModuleDescriptorComparatorType.class);
+    this.class_additions =
+      resolve(CClassCheckAdditionType.class);
+    this.class_removals =
+      resolve(CClassCheckRemovalType.class);
+    this.class_comparators =
+      resolve(CClassComparatorType.class);
+    this.enum_comparators =
+      resolve(CEnumComparatorType.class);
+    this.field_additions =
+      resolve(CFieldCheckAdditionType.class);
+    this.field_removals =
+      resolve(CFieldCheckRemovalType.class);
+    this.field_comparators =
+      resolve(CFieldComparatorType.class);
+    this.method_additions =
+      resolve(CMethodCheckAdditionType.class);
+    this.method_removals =
+      resolve(CMethodCheckRemovalType.class);
+    this.method_overload_comparators =
+      resolve(CMethodOverloadComparatorType.class);
+
+    this.composition = TreeMap.<String, List<String>>empty()
+      .put(hook(CModuleDescriptorComparatorType.class, this.module_descriptor_comparators))
+      .put(hook(CClassCheckAdditionType.class, this.class_additions))
+      .put(hook(CClassCheckRemovalType.class, this.class_removals))
+      .put(hook(CClassComparatorType.class, this.class_comparators))
+      .put(hook(CEnumComparatorType.class, this.enum_comparators))
+      .put(hook(CFieldCheckAdditionType.class, this.field_additions))
+      .put(hook(CFieldCheckRemovalType.class, this.field_removals))
+      .put(hook(CFieldComparatorType.class, this.field_comparators))
+      .put(hook(CMethodCheckAdditionType.class, this.method_additions))
+      .put(hook(CMethodCheckRemovalType.class, this.method_removals))
+      .put(hook(CMethodOverloadComparatorType.class, this.method_overload_comparators));
+
+    this.checks =
+      TreeSet.ofAll(this.composition.values().flatMap(names -> names));
+  }
+
+  /**
+   * Resolve all of the checks provided by the available service providers.
+   *
+   * @return A new check pipeline
+   */
+
+  public static CCheckPipeline load()
+  {
+    return new CCheckPipeline();
+  }
+
+  private static <T extends CChangeCheckType> T[] resolve(
+    final Class<T> clazz)
+  {
+    return List.ofAll(ServiceLoader.load(clazz)).toJavaArray(clazz);
+  }
+
+  private static Tuple2<String, List<String>> hook(
+    final Class<? extends CChangeCheckType> clazz,
+    final CChangeCheckType[] hook_checks)
+  {
+    return Tuple.of(
+      clazz.getSimpleName(),
+      List.of(hook_checks).map(CChangeCheckType::name));
+  }
+
+  /**
+   * @return The names of all of the checks in the pipeline
+   */
+
+  public SortedSet<String> checks()
+  {
+    return this.checks;
+  }
+
+  /**
+   * The composition of the pipeline, for diagnostics. Each key is the simple
+   * name of the service interface that defines a hook, and each value is the
+   * list of the names of the checks run at that hook, in the order in which
+   * they are run.
+   *
+   * @return The composition of the pipeline
+   */
+
+  public SortedMap<String, List<String>> composition()
+  {
+    return this.composition;
+  }
+
+  CModuleDescriptorComparatorType[] moduleDescriptorComparators()
+  {
+    return this.module_descriptor_comparators;
+  }
+
+  CClassCheckAdditionType[] classAdditions()
+  {
+    return this.class_additions;
+  }
+
+  CClassCheckRemovalType[] classRemovals()
+  {
+    return this.class_removals;
+  }
+
+  CClassComparatorType[] classComparators()
+  {
+    return this.class_comparators;
+  }
+
+  CEnumComparatorType[] enumComparators()
+  {
+    return this.enum_comparators;
+  }
+
+  CFieldCheckAdditionType[] fieldAdditions()
+  {
+    return this.field_additions;
+  }
+
+  CFieldCheckRemovalType[] fieldRemovals()
+  {
+    return this.field_removals;
+  }
+
+  CFieldComparatorType[] fieldComparators()
+  {
+    return this.field_comparators;
+  }
+
+  CMethodCheckAdditionType[] methodAdditions()
+  {
+    return this.method_additions;
+  }
+
+  CMethodCheckRemovalType[] methodRemovals()
+  {
+    return this.method_removals;
+  }
+
+  CMethodOverloadComparatorType[] methodOverloadComparators()
+  {
+    return this.method_overload_comparators;
+  }
+}
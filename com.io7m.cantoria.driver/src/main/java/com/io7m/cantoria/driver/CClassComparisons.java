@@ -20,15 +20,19 @@ import com.io7m.cantoria.api.CClass;
 import com.io7m.cantoria.api.CClassNames;
 import com.io7m.cantoria.api.CClassRegistryType;
 import com.io7m.cantoria.api.CEnum;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
 import com.io7m.cantoria.changes.spi.CChangeReceiverType;
 import com.io7m.cantoria.changes.spi.CClassComparatorType;
 import com.io7m.cantoria.changes.spi.CEnumComparatorType;
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
 import com.io7m.jaffirm.core.Preconditions;
+import io.vavr.collection.List;
+import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
-import java.util.ServiceLoader;
 
 /**
  * Functions to compare classes.
@@ -39,17 +43,25 @@ public final class CClassComparisons
   private static final Logger LOG =
     LoggerFactory.getLogger(CClassComparisons.class);
 
-  private final ServiceLoader<CClassComparatorType> class_comparators;
+  private final CClassComparatorType[] class_comparators;
   private final CFieldComparisons field_comparisons;
   private final CMethodComparisons method_comparisons;
-  private final ServiceLoader<CEnumComparatorType> enum_comparators;
+  private final CEnumComparatorType[] enum_comparators;
+  private final boolean exhaustive_members;
 
-  private CClassComparisons()
+  private CClassComparisons(
+    final CCheckPipeline in_pipeline,
+    final CComparisonDriverConfiguration in_configuration)
   {
-    this.class_comparators = ServiceLoader.load(CClassComparatorType.class);
-    this.enum_comparators = ServiceLoader.load(CEnumComparatorType.class);
-    this.field_comparisons = CFieldComparisons.create();
-    this.method_comparisons = CMethodComparisons.create();
+    Objects.requireNonNull(in_pipeline, "Pipeline");
+    Objects.requireNonNull(in_configuration, "Configuration");
+    this.class_comparators = in_pipeline.classComparators();
+    this.enum_comparators = in_pipeline.enumComparators();
+    this.exhaustive_members = in_configuration.exhaustiveMembers();
+    this.field_comparisons =
+      CFieldComparisons.create(in_pipeline, in_configuration.apiVisibility());
+    this.method_comparisons =
+      CMethodComparisons.create(in_pipeline, in_configuration.apiVisibility());
   }
 
   /**
@@ -58,11 +70,57 @@ public final class CClassComparisons
 
   public static CClassComparisons create()
   {
-    return new CClassComparisons();
+    return create(
+      CCheckPipeline.load(), CComparisonDriverConfiguration.builder().build());
   }
 
   /**
-   * Compare the given classes, delivering changes to the receiver.
+   * @param pipeline      The pipeline of checks
+   * @param configuration The driver configuration
+   *
+   * @return A class comparison driver
+   */
+
+  public static CClassComparisons create(
+    final CCheckPipeline pipeline,
+    final CComparisonDriverConfiguration configuration)
+  {
+    return new CClassComparisons(pipeline, configuration);
+  }
+
+  /**
+   * @return The names of all of the checks that this driver runs
+   */
+
+  public SortedSet<String> checks()
+  {
+    return TreeSet.<String>empty()
+      .addAll(List.of(this.class_comparators).map(CChangeCheckType::name))
+      .addAll(List.of(this.enum_comparators).map(CChangeCheckType::name))
+      .addAll(this.field_comparisons.checks())
+      .addAll(this.method_comparisons.checks());
+  }
+
+  private static boolean sameAPI(
+    final CClass class_old,
+    final CClass class_new)
+  {
+    final boolean same =
+      Objects.equals(class_old.apiFingerprint(), class_new.apiFingerprint());
+    if (same && LOG.isTraceEnabled()) {
+      LOG.trace(
+        "skipping {}: API fingerprints are equal",
+        CClassNames.show(class_new.name()));
+    }
+    return same;
+  }
+
+  /**
+   * Compare the given classes, delivering changes to the receiver. If the
+   * classes have equal API fingerprints, no comparisons are performed. If
+   * any class comparator reports that a class-level change subsumes the
+   * members of the classes, and exhaustive member comparisons are not
+   * enabled, the methods and fields of the classes are not compared.
    *
    * @param receiver  The change receiver
    * @param registry  A class registry
@@ -86,16 +144,30 @@ public final class CClassComparisons
       s -> Objects.equals(s, class_old.name()),
       s -> "Class name " + class_old.name() + " must match " + class_new.name());
 
-    this.class_comparators.forEach(
-      compare -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}",
-            compare.name(),
-            CClassNames.show(class_new.name()));
-        }
-        compare.compareClassChecked(receiver, registry, class_old, class_new);
-      });
+    if (sameAPI(class_old, class_new)) {
+      return;
+    }
+
+    boolean subsumed = false;
+    for (final CClassComparatorType compare : this.class_comparators) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}",
+          compare.name(),
+          CClassNames.show(class_new.name()));
+      }
+      compare.compareClassChecked(receiver, registry, class_old, class_new);
+      subsumed = subsumed || compare.subsumesMembers(class_old, class_new);
+    }
+
+    if (subsumed && !this.exhaustive_members) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "skipping members of {}: subsumed by a class-level change",
+          CClassNames.show(class_new.name()));
+      }
+      return;
+    }
 
     this.method_comparisons.compareAllMethods(
       receiver, registry, class_old, class_new);
@@ -104,7 +176,8 @@ public final class CClassComparisons
   }
 
   /**
-   * Compare the given enums, delivering changes to the receiver.
+   * Compare the given enums, delivering changes to the receiver. If the
+   * enums have equal API fingerprints, no comparisons are performed.
    *
    * @param receiver The change receiver
    * @param registry A class registry
@@ -128,16 +201,19 @@ public final class CClassComparisons
       s -> Objects.equals(s, enum_old.name()),
       s -> "Class name " + enum_old.name() + " must match " + enum_new.name());
 
-    this.enum_comparators.forEach(
-      compare -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}",
-            compare.name(),
-            CClassNames.show(enum_new.name()));
-        }
-        compare.compareEnumChecked(receiver, registry, enum_old, enum_new);
-      });
+    if (sameAPI(enum_old.classValue(), enum_new.classValue())) {
+      return;
+    }
+
+    for (final CEnumComparatorType compare : this.enum_comparators) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}",
+          compare.name(),
+          CClassNames.show(enum_new.name()));
+      }
+      compare.compareEnumChecked(receiver, registry, enum_old, enum_new);
+    }
 
     this.compareClasses(
       receiver, registry, enum_old.classValue(), enum_new.classValue());
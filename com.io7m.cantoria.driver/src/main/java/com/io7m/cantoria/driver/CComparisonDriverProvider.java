@@ -16,14 +16,39 @@
 
 package com.io7m.cantoria.driver;
 
+import com.io7m.cantoria.api.CClassRegistry;
 import com.io7m.cantoria.api.CClassRegistryType;
+import com.io7m.cantoria.api.CModuleCaching;
 import com.io7m.cantoria.api.CModuleDescriptor;
 import com.io7m.cantoria.api.CModuleType;
 import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonBaselinesReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonBatchReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonChainReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
 import com.io7m.cantoria.driver.api.CComparisonDriverProviderType;
 import com.io7m.cantoria.driver.api.CComparisonDriverType;
+import com.io7m.cantoria.driver.api.CComparisonGate;
+import com.io7m.cantoria.driver.api.CComparisonPair;
+import com.io7m.cantoria.driver.api.CComparisonVerdict;
+import com.io7m.cantoria.driver.api.CModuleOpenerType;
+import com.io7m.jaffirm.core.Preconditions;
+import com.io7m.junreachable.UnreachableCodeException;
+import io.vavr.collection.List;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.SortedSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * A driver provider.
@@ -42,20 +67,74 @@ public final class CComparisonDriverProvider implements
   }
 
   @Override
-  public CComparisonDriverType create()
+  public CComparisonDriverType create(
+    final CComparisonDriverConfiguration configuration)
   {
-    return new CDriver();
+    return new CDriver(configuration);
+  }
+
+  private static void rethrow(
+    final Throwable failure)
+    throws IOException
+  {
+    if (failure instanceof UncheckedIOException) {
+      throw ((UncheckedIOException) failure).getCause();
+    }
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IllegalStateException(failure);
+  }
+
+  @FunctionalInterface
+  private interface IndexedTaskType
+  {
+    void run(int index)
+      throws IOException;
   }
 
   private static final class CDriver implements CComparisonDriverType
   {
+    private static final Logger LOG =
+      LoggerFactory.getLogger(CDriver.class);
+
     private final CModuleComparisons module_comp;
     private final CModuleDescriptorComparisons module_desc_comp;
+    private final Optional<Executor> executor;
+    private final int max_concurrent;
+    private final CCheckPipeline pipeline;
 
-    CDriver()
+    CDriver(
+      final CComparisonDriverConfiguration in_configuration)
     {
-      this.module_desc_comp = CModuleDescriptorComparisons.create();
-      this.module_comp = CModuleComparisons.create();
+      Objects.requireNonNull(in_configuration, "Configuration");
+      this.executor = in_configuration.executor();
+      this.max_concurrent = in_configuration.maxConcurrentComparisons();
+      this.pipeline = CCheckPipeline.load();
+      this.module_desc_comp =
+        CModuleDescriptorComparisons.create(this.pipeline);
+      this.module_comp =
+        CModuleComparisons.create(in_configuration, this.pipeline);
+
+      if (LOG.isDebugEnabled()) {
+        this.pipeline.composition().forEach(
+          (hook, names) -> LOG.debug("pipeline {}: {}", hook, names));
+      }
+    }
+
+    @Override
+    public SortedSet<String> checks()
+    {
+      return this.pipeline.checks();
+    }
+
+    @Override
+    public SortedMap<String, List<String>> checkPipeline()
+    {
+      return this.pipeline.composition();
     }
 
     @Override
@@ -78,5 +157,253 @@ public final class CComparisonDriverProvider implements
       this.module_comp.compareModules(
         receiver, registry, module_old, module_new);
     }
+
+    @Override
+    public CComparisonVerdict compareModulesGated(
+      final CChangeReceiverType receiver,
+      final CComparisonGate gate,
+      final CClassRegistryType registry,
+      final CModuleType module_old,
+      final CModuleType module_new)
+      throws IOException
+    {
+      return this.module_comp.compareModulesGated(
+        receiver, gate, registry, module_old, module_new);
+    }
+
+    @Override
+    public void compareChain(
+      final CComparisonChainReceiverType receiver,
+      final CClassRegistryType parent,
+      final List<CModuleOpenerType> chain)
+      throws IOException
+    {
+      Objects.requireNonNull(receiver, "Receiver");
+      Objects.requireNonNull(parent, "Parent");
+      Objects.requireNonNull(chain, "Chain");
+
+      Preconditions.checkPreconditionI(
+        chain.size(),
+        chain.size() >= 2,
+        size -> "Chain must contain at least two modules");
+
+      CModuleType module_old = chain.get(0).open();
+      try {
+        for (int index = 1; index < chain.size(); ++index) {
+          final CModuleType module_new = chain.get(index).open();
+          try {
+            this.compareStep(
+              receiver, parent, index - 1, module_old, module_new);
+          } catch (final IOException | RuntimeException e) {
+            module_new.close();
+            throw e;
+          }
+
+          module_old.close();
+          module_old = module_new;
+        }
+      } finally {
+        if (!module_old.isClosed()) {
+          module_old.close();
+        }
+      }
+    }
+
+    @Override
+    public void compareBaselines(
+      final CComparisonBaselinesReceiverType receiver,
+      final CClassRegistryType parent,
+      final List<CModuleType> baselines,
+      final CModuleType module_new)
+      throws IOException
+    {
+      Objects.requireNonNull(receiver, "Receiver");
+      Objects.requireNonNull(parent, "Parent");
+      Objects.requireNonNull(baselines, "Baselines");
+      Objects.requireNonNull(module_new, "New module");
+
+      Preconditions.checkPreconditionI(
+        baselines.size(),
+        !baselines.isEmpty(),
+        size -> "At least one baseline must be specified");
+
+      final CModuleType shared =
+        module_new instanceof CModuleCaching
+          ? module_new
+          : CModuleCaching.wrap(module_new);
+
+      this.runAll(
+        baselines.size(),
+        index -> this.compareBaseline(
+          receiver, parent, index, baselines.get(index), shared));
+    }
+
+    @Override
+    public void compareBatch(
+      final CComparisonBatchReceiverType receiver,
+      final CClassRegistryType parent,
+      final List<CComparisonPair> pairs)
+    {
+      Objects.requireNonNull(receiver, "Receiver");
+      Objects.requireNonNull(parent, "Parent");
+      Objects.requireNonNull(pairs, "Pairs");
+
+      try {
+        this.runAll(
+          pairs.size(),
+          index -> this.comparePair(
+            receiver, parent, index, pairs.get(index)));
+      } catch (final IOException e) {
+        throw new UnreachableCodeException(e);
+      }
+    }
+
+    private void comparePair(
+      final CComparisonBatchReceiverType receiver,
+      final CClassRegistryType parent,
+      final int pair_index,
+      final CComparisonPair pair)
+    {
+      try (CModuleType module_old = pair.moduleOld().open()) {
+        try (CModuleType module_new = pair.moduleNew().open()) {
+          LOG.debug(
+            "pair {}: {} -> {}",
+            Integer.valueOf(pair_index),
+            module_old.archive().descriptor().path(),
+            module_new.archive().descriptor().path());
+
+          final CClassRegistryType registry =
+            CClassRegistry.createComparison(parent, module_old, module_new);
+
+          this.module_comp.compareModules(
+            receiver.onPairStarted(pair_index, module_old, module_new),
+            registry,
+            module_old,
+            module_new);
+          receiver.onPairFinished(pair_index, module_old, module_new);
+        }
+      } catch (final IOException e) {
+        receiver.onPairFailed(pair_index, e);
+      } catch (final UncheckedIOException e) {
+        receiver.onPairFailed(pair_index, e.getCause());
+      }
+    }
+
+    /**
+     * Run the given task for each index in {@code [0, count)}, running at
+     * most the configured maximum number of concurrent comparisons at once
+     * if an executor is configured. All of the tasks are waited for before
+     * the first failure is rethrown, so that no further calls are made to
+     * receivers after this method returns.
+     *
+     * The tasks are not run on the configured executor: each task submits
+     * its per-class comparisons to that executor and then waits for them, so
+     * running the tasks there could occupy every thread of a fixed-size
+     * executor with tasks that are waiting for work that can never start.
+     * Instead, each task waits on one of a bounded number of coordinating
+     * threads, and all of the comparison work still happens on the
+     * configured executor.
+     */
+
+    private void runAll(
+      final int count,
+      final IndexedTaskType task)
+      throws IOException
+    {
+      final int concurrent = Math.min(count, this.max_concurrent);
+      if (!this.executor.isPresent() || concurrent <= 1) {
+        for (int index = 0; index < count; ++index) {
+          task.run(index);
+        }
+        return;
+      }
+
+      final ExecutorService exec = Executors.newFixedThreadPool(
+        concurrent,
+        runnable -> {
+          final Thread thread = new Thread(runnable);
+          thread.setName("com.io7m.cantoria.driver.run-" + thread.getId());
+          thread.setDaemon(true);
+          return thread;
+        });
+
+      Throwable failure = null;
+      try {
+        final List<CompletableFuture<Void>> futures =
+          List.range(0, count).map(
+            index -> CompletableFuture.runAsync(() -> {
+              try {
+                task.run(index);
+              } catch (final IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            }, exec));
+
+        for (final CompletableFuture<Void> future : futures) {
+          try {
+            future.join();
+          } catch (final CompletionException e) {
+            if (failure == null) {
+              failure = e.getCause();
+            }
+          }
+        }
+      } finally {
+        exec.shutdown();
+      }
+
+      if (failure != null) {
+        rethrow(failure);
+      }
+    }
+
+    private void compareBaseline(
+      final CComparisonBaselinesReceiverType receiver,
+      final CClassRegistryType parent,
+      final int baseline,
+      final CModuleType module_old,
+      final CModuleType module_new)
+      throws IOException
+    {
+      LOG.debug(
+        "baseline {}: {}",
+        Integer.valueOf(baseline),
+        module_old.archive().descriptor().path());
+
+      final CClassRegistryType registry =
+        CClassRegistry.createComparison(parent, module_old, module_new);
+
+      this.module_comp.compareModules(
+        receiver.onBaselineStarted(baseline, module_old, module_new),
+        registry,
+        module_old,
+        module_new);
+      receiver.onBaselineFinished(baseline, module_old, module_new);
+    }
+
+    private void compareStep(
+      final CComparisonChainReceiverType receiver,
+      final CClassRegistryType parent,
+      final int step,
+      final CModuleType module_old,
+      final CModuleType module_new)
+      throws IOException
+    {
+      LOG.debug(
+        "chain step {}: {} -> {}",
+        Integer.valueOf(step),
+        module_old.archive().descriptor().path(),
+        module_new.archive().descriptor().path());
+
+      final CClassRegistryType registry =
+        CClassRegistry.createComparison(parent, module_old, module_new);
+
+      this.module_comp.compareModules(
+        receiver.onStepStarted(step, module_old, module_new),
+        registry,
+        module_old,
+        module_new);
+      receiver.onStepFinished(step, module_old, module_new);
+    }
   }
 }
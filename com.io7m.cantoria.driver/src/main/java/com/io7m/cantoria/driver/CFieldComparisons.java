@@ -17,23 +17,28 @@
 package com.io7m.cantoria.driver;
 
 import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassName;
 import com.io7m.cantoria.api.CClassNames;
 import com.io7m.cantoria.api.CClassRegistryType;
 import com.io7m.cantoria.api.CField;
-import com.io7m.cantoria.api.CFields;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
 import com.io7m.cantoria.changes.spi.CChangeReceiverType;
 import com.io7m.cantoria.changes.spi.CFieldCheckAdditionType;
 import com.io7m.cantoria.changes.spi.CFieldCheckRemovalType;
 import com.io7m.cantoria.changes.spi.CFieldComparatorType;
+import com.io7m.cantoria.driver.api.CAPIVisibility;
 import com.io7m.jaffirm.core.Preconditions;
 import io.vavr.collection.List;
-import io.vavr.collection.SortedMap;
 import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeSet;
+import org.objectweb.asm.tree.FieldNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Objects;
-import java.util.ServiceLoader;
+import java.util.function.Predicate;
 
 /**
  * Functions to compare fields.
@@ -44,15 +49,20 @@ public final class CFieldComparisons
   private static final Logger LOG =
     LoggerFactory.getLogger(CFieldComparisons.class);
 
-  private final ServiceLoader<CFieldCheckRemovalType> field_removals;
-  private final ServiceLoader<CFieldComparatorType> field_comparators;
-  private final ServiceLoader<CFieldCheckAdditionType> field_additions;
+  private final CFieldCheckRemovalType[] field_removals;
+  private final CFieldComparatorType[] field_comparators;
+  private final CFieldCheckAdditionType[] field_additions;
+  private final CAPIVisibilityFilter visibility;
 
-  private CFieldComparisons()
+  private CFieldComparisons(
+    final CCheckPipeline in_pipeline,
+    final CAPIVisibility in_visibility)
   {
-    this.field_additions = ServiceLoader.load(CFieldCheckAdditionType.class);
-    this.field_removals = ServiceLoader.load(CFieldCheckRemovalType.class);
-    this.field_comparators = ServiceLoader.load(CFieldComparatorType.class);
+    Objects.requireNonNull(in_pipeline, "Pipeline");
+    this.visibility = new CAPIVisibilityFilter(in_visibility);
+    this.field_additions = in_pipeline.fieldAdditions();
+    this.field_removals = in_pipeline.fieldRemovals();
+    this.field_comparators = in_pipeline.fieldComparators();
   }
 
   /**
@@ -61,7 +71,34 @@ public final class CFieldComparisons
 
   public static CFieldComparisons create()
   {
-    return new CFieldComparisons();
+    return create(
+      CCheckPipeline.load(), CAPIVisibility.API_VISIBILITY_NON_PRIVATE);
+  }
+
+  /**
+   * @param pipeline   The pipeline of checks
+   * @param visibility The API visibility policy
+   *
+   * @return A field comparison driver
+   */
+
+  public static CFieldComparisons create(
+    final CCheckPipeline pipeline,
+    final CAPIVisibility visibility)
+  {
+    return new CFieldComparisons(pipeline, visibility);
+  }
+
+  /**
+   * @return The names of all of the checks that this driver runs
+   */
+
+  public SortedSet<String> checks()
+  {
+    return TreeSet.<String>empty()
+      .addAll(List.of(this.field_additions).map(CChangeCheckType::name))
+      .addAll(List.of(this.field_removals).map(CChangeCheckType::name))
+      .addAll(List.of(this.field_comparators).map(CChangeCheckType::name));
   }
 
   /**
@@ -103,7 +140,9 @@ public final class CFieldComparisons
   }
 
   /**
-   * Compare all fields of the given classes.
+   * Compare all fields of the given classes. Fields that are not part of the
+   * API in either class are ignored. The fields of both classes are sorted by
+   * name and then merged in a single pass.
    *
    * @param receiver The change receiver
    * @param registry The class registry
@@ -126,30 +165,68 @@ public final class CFieldComparisons
       s -> Objects.equals(s, c_old.node().name),
       s -> "Class name " + c_old.node().name + " must match " + c_new.node().name);
 
-    final SortedMap<String, CField> fields_old =
-      List.ofAll(c_old.node().fields)
-        .toSortedMap(
-          n -> n.name,
-          n -> CFields.field(c_old.name(), n));
-
-    final SortedMap<String, CField> fields_new =
-      List.ofAll(c_new.node().fields)
-        .toSortedMap(
-          n -> n.name,
-          n -> CFields.field(c_new.name(), n));
-
-    this.onFieldsAdditionsAndRemovals(
-      receiver, registry, c_new, fields_old, fields_new);
-
-    final SortedSet<String> fields_both =
-      fields_new.keySet().intersect(fields_old.keySet());
-
-    fields_both.forEach(name -> {
-      final CField field_old = fields_old.get(name).get();
-      final CField field_new = fields_new.get(name).get();
-      this.onFieldCompare(
-        receiver, registry, c_old, field_old, c_new, field_new);
-    });
+    final Predicate<FieldNode> include;
+    if (this.visibility.includesEverything()) {
+      include = field -> true;
+    } else {
+      final HashSet<String> api =
+        this.visibility.fieldsAPI(c_old.node(), c_new.node());
+      include = field -> api.contains(field.name);
+    }
+
+    final CFieldView[] fields_old =
+      sortedFields(c_old.name(), c_old.node().fields, include);
+    final CFieldView[] fields_new =
+      sortedFields(c_new.name(), c_new.node().fields, include);
+
+    CSortedMerge.merge(
+      fields_old,
+      0,
+      fields_old.length,
+      fields_new,
+      0,
+      fields_new.length,
+      CFieldView.ORDER_NAME,
+      new FieldMerge(receiver, registry, c_old, c_new));
+  }
+
+  /**
+   * @param class_name The name of the class that declares the fields
+   * @param nodes      The fields of the class
+   * @param include    A predicate that selects the fields to compare
+   *
+   * @return Views of the selected fields, sorted by name, with at most one
+   * view per name
+   */
+
+  public static CFieldView[] sortedFields(
+    final CClassName class_name,
+    final java.util.List<FieldNode> nodes,
+    final Predicate<FieldNode> include)
+  {
+    final ArrayList<CFieldView> views = new ArrayList<>(nodes.size());
+    for (int index = 0; index < nodes.size(); ++index) {
+      final FieldNode node = nodes.get(index);
+      if (include.test(node)) {
+        views.add(new CFieldView(class_name, node));
+      }
+    }
+
+    /*
+     * The sort is stable, so when a (malformed) class declares more than one
+     * field with the same name, the last declaration wins.
+     */
+
+    views.sort(CFieldView.ORDER_NAME);
+    final ArrayList<CFieldView> unique = new ArrayList<>(views.size());
+    for (int index = 0; index < views.size(); ++index) {
+      final int next = index + 1;
+      if (next == views.size()
+        || CFieldView.ORDER_NAME.compare(views.get(index), views.get(next)) != 0) {
+        unique.add(views.get(index));
+      }
+    }
+    return unique.toArray(new CFieldView[unique.size()]);
   }
 
   private void onFieldCompare(
@@ -160,38 +237,17 @@ public final class CFieldComparisons
     final CClass clazz_new,
     final CField field_new)
   {
-    this.field_comparators.forEach(
-      ch -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}:{}",
-            ch.name(),
-            CClassNames.show(clazz_new.name()),
-            field_new.name());
-        }
-        ch.compareFieldChecked(
-          receiver, registry, clazz_old, field_old, clazz_new, field_new);
-      });
-  }
-
-  private void onFieldsAdditionsAndRemovals(
-    final CChangeReceiverType receiver,
-    final CClassRegistryType registry,
-    final CClass c_new,
-    final SortedMap<String, CField> fields_old,
-    final SortedMap<String, CField> fields_new)
-  {
-    final SortedMap<String, CField> fields_removed =
-      fields_old.removeAll(fields_new.keySet());
-
-    fields_removed.forEach(
-      p -> this.onFieldRemoved(receiver, registry, c_new, p._2));
-
-    final SortedMap<String, CField> fields_added =
-      fields_new.removeAll(fields_old.keySet());
-
-    fields_added.forEach(
-      p -> this.onFieldAdded(receiver, registry, c_new, p._2));
+    for (final CFieldComparatorType ch : this.field_comparators) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}:{}",
+          ch.name(),
+          CClassNames.show(clazz_new.name()),
+          field_new.name());
+      }
+      ch.compareFieldChecked(
+        receiver, registry, clazz_old, field_old, clazz_new, field_new);
+    }
   }
 
   private void onFieldAdded(
@@ -200,17 +256,16 @@ public final class CFieldComparisons
     final CClass clazz,
     final CField field)
   {
-    this.field_additions.forEach(
-      ch -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}:{}",
-            ch.name(),
-            CClassNames.show(clazz.name()),
-            field.name());
-        }
-        ch.checkFieldAdditionChecked(receiver, registry, clazz, field);
-      });
+    for (final CFieldCheckAdditionType ch : this.field_additions) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}:{}",
+          ch.name(),
+          CClassNames.show(clazz.name()),
+          field.name());
+      }
+      ch.checkFieldAdditionChecked(receiver, registry, clazz, field);
+    }
   }
 
   private void onFieldRemoved(
@@ -219,17 +274,76 @@ public final class CFieldComparisons
     final CClass clazz,
     final CField field)
   {
-    this.field_removals.forEach(
-      ch -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}:{}",
-            ch.name(),
-            CClassNames.show(clazz.name()),
-            field.name());
-        }
-        ch.checkFieldRemovalChecked(receiver, registry, clazz, field);
-      });
+    for (final CFieldCheckRemovalType ch : this.field_removals) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}:{}",
+          ch.name(),
+          CClassNames.show(clazz.name()),
+          field.name());
+      }
+      ch.checkFieldRemovalChecked(receiver, registry, clazz, field);
+    }
   }
 
+  /**
+   * The merge of the fields of two versions of a class.
+   */
+
+  private final class FieldMerge implements CSortedMerge.ReceiverType<CFieldView>
+  {
+    private final CChangeReceiverType receiver;
+    private final CClassRegistryType registry;
+    private final CClass class_old;
+    private final CClass class_new;
+
+    FieldMerge(
+      final CChangeReceiverType in_receiver,
+      final CClassRegistryType in_registry,
+      final CClass in_class_old,
+      final CClass in_class_new)
+    {
+      this.receiver = in_receiver;
+      this.registry = in_registry;
+      this.class_old = in_class_old;
+      this.class_new = in_class_new;
+    }
+
+    @Override
+    public void onOnlyOld(
+      final CFieldView x)
+    {
+      if (CFieldComparisons.this.field_removals.length > 0) {
+        CFieldComparisons.this.onFieldRemoved(
+          this.receiver, this.registry, this.class_new, x.field());
+      }
+    }
+
+    @Override
+    public void onOnlyNew(
+      final CFieldView y)
+    {
+      if (CFieldComparisons.this.field_additions.length > 0) {
+        CFieldComparisons.this.onFieldAdded(
+          this.receiver, this.registry, this.class_new, y.field());
+      }
+    }
+
+    @Override
+    public void onBoth(
+      final CFieldView x,
+      final CFieldView y)
+    {
+      if (CFieldComparisons.this.field_comparators.length > 0) {
+        y.shareTypeWith(x);
+        CFieldComparisons.this.onFieldCompare(
+          this.receiver,
+          this.registry,
+          this.class_old,
+          x.field(),
+          this.class_new,
+          y.field());
+      }
+    }
+  }
 }
@@ -0,0 +1,107 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver;
+
+import com.io7m.cantoria.api.CClassName;
+import com.io7m.cantoria.api.CField;
+import com.io7m.cantoria.api.CFields;
+import com.io7m.cantoria.api.CFieldTypes;
+import org.objectweb.asm.tree.FieldNode;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A lightweight handle over a field node. The name is read directly from the
+ * node; the parsed type and the full {@link CField} value are only computed
+ * when a check actually asks for them. Views are confined to the comparison
+ * of a single pair of classes and are not thread-safe.
+ */
+
+public final class CFieldView
+{
+  /**
+   * The order of views by name.
+   */
+
+  public static final Comparator<CFieldView> ORDER_NAME =
+    Comparator.comparing(CFieldView::name);
+
+  private final CClassName class_name;
+  private final FieldNode node;
+  private String type;
+  private CField field;
+
+  /**
+   * Construct a view.
+   *
+   * @param in_class_name The name of the class that declares the field
+   * @param in_node       The field node
+   */
+
+  public CFieldView(
+    final CClassName in_class_name,
+    final FieldNode in_node)
+  {
+    this.class_name = Objects.requireNonNull(in_class_name, "Class name");
+    this.node = Objects.requireNonNull(in_node, "Node");
+  }
+
+  /**
+   * @return The name of the field
+   */
+
+  public String name()
+  {
+    return this.node.name;
+  }
+
+  /**
+   * Share the parsed type of {@code other} with this view, if both fields
+   * have the same type descriptor.
+   *
+   * @param other The other view
+   */
+
+  public void shareTypeWith(
+    final CFieldView other)
+  {
+    if (Objects.equals(this.node.desc, other.node.desc)) {
+      this.type = other.type();
+    }
+  }
+
+  private String type()
+  {
+    if (this.type == null) {
+      this.type = CFieldTypes.parseFieldType(this.node.desc);
+    }
+    return this.type;
+  }
+
+  /**
+   * @return The full field value
+   */
+
+  public CField field()
+  {
+    if (this.field == null) {
+      this.field = CFields.field(this.class_name, this.node, this.type());
+    }
+    return this.field;
+  }
+}
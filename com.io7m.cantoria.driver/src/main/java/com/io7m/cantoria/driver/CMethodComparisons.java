@@ -20,23 +20,26 @@ import com.io7m.cantoria.api.CClass;
 import com.io7m.cantoria.api.CClassNames;
 import com.io7m.cantoria.api.CClassRegistryType;
 import com.io7m.cantoria.api.CMethod;
-import com.io7m.cantoria.api.CMethods;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
 import com.io7m.cantoria.changes.spi.CChangeReceiverType;
 import com.io7m.cantoria.changes.spi.CMethodCheckAdditionType;
 import com.io7m.cantoria.changes.spi.CMethodCheckRemovalType;
 import com.io7m.cantoria.changes.spi.CMethodOverloadComparatorType;
+import com.io7m.cantoria.driver.api.CAPIVisibility;
 import com.io7m.jaffirm.core.Invariants;
-import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
 import io.vavr.collection.Map;
-import io.vavr.collection.Set;
 import io.vavr.collection.SortedSet;
-import io.vavr.collection.TreeMap;
+import io.vavr.collection.TreeSet;
 import org.objectweb.asm.tree.MethodNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Objects;
-import java.util.ServiceLoader;
+import java.util.function.Predicate;
 
 /**
  * Functions to compare methods.
@@ -47,18 +50,20 @@ public final class CMethodComparisons
   private static final Logger LOG =
     LoggerFactory.getLogger(CMethodComparisons.class);
 
-  private ServiceLoader<CMethodOverloadComparatorType> overload_comparators;
-  private ServiceLoader<CMethodCheckRemovalType> removal_checks;
-  private ServiceLoader<CMethodCheckAdditionType> addition_checks;
+  private final CMethodOverloadComparatorType[] overload_comparators;
+  private final CMethodCheckRemovalType[] removal_checks;
+  private final CMethodCheckAdditionType[] addition_checks;
+  private final CAPIVisibilityFilter visibility;
 
-  private CMethodComparisons()
+  private CMethodComparisons(
+    final CCheckPipeline in_pipeline,
+    final CAPIVisibility in_visibility)
   {
-    this.overload_comparators =
-      ServiceLoader.load(CMethodOverloadComparatorType.class);
-    this.removal_checks =
-      ServiceLoader.load(CMethodCheckRemovalType.class);
-    this.addition_checks =
-      ServiceLoader.load(CMethodCheckAdditionType.class);
+    Objects.requireNonNull(in_pipeline, "Pipeline");
+    this.visibility = new CAPIVisibilityFilter(in_visibility);
+    this.overload_comparators = in_pipeline.methodOverloadComparators();
+    this.removal_checks = in_pipeline.methodRemovals();
+    this.addition_checks = in_pipeline.methodAdditions();
   }
 
   /**
@@ -67,30 +72,65 @@ public final class CMethodComparisons
 
   public static CMethodComparisons create()
   {
-    return new CMethodComparisons();
+    return create(
+      CCheckPipeline.load(), CAPIVisibility.API_VISIBILITY_NON_PRIVATE);
   }
 
-  private static TreeMap<String, Map<String, CMethod>> collectMethods(
-    final CClass c)
+  /**
+   * @param pipeline   The pipeline of checks
+   * @param visibility The API visibility policy
+   *
+   * @return A method comparison driver
+   */
+
+  public static CMethodComparisons create(
+    final CCheckPipeline pipeline,
+    final CAPIVisibility visibility)
   {
-    TreeMap<String, Map<String, CMethod>> mm = TreeMap.empty();
-    for (int index = 0; index < c.node().methods.size(); ++index) {
-      final MethodNode c_method = c.node().methods.get(index);
-      Map<String, CMethod> overloads =
-        mm.getOrElse(c_method.name, HashMap.empty());
+    return new CMethodComparisons(pipeline, visibility);
+  }
+
+  /**
+   * @return The names of all of the checks that this driver runs
+   */
+
+  public SortedSet<String> checks()
+  {
+    return TreeSet.<String>empty()
+      .addAll(List.of(this.overload_comparators).map(CChangeCheckType::name))
+      .addAll(List.of(this.removal_checks).map(CChangeCheckType::name))
+      .addAll(List.of(this.addition_checks).map(CChangeCheckType::name));
+  }
+
+  private static CMethodView[] sortedMethods(
+    final CClass c,
+    final Predicate<MethodNode> include)
+  {
+    final java.util.List<MethodNode> nodes = c.node().methods;
+    final ArrayList<CMethodView> views = new ArrayList<>(nodes.size());
+    for (int index = 0; index < nodes.size(); ++index) {
+      final MethodNode c_method = nodes.get(index);
+      if (include.test(c_method)) {
+        views.add(new CMethodView(c.name(), c_method));
+      }
+    }
+
+    final CMethodView[] sorted = views.toArray(new CMethodView[views.size()]);
+    Arrays.sort(sorted, CMethodView.ORDER_NAME_DESCRIPTOR);
+    for (int index = 1; index < sorted.length; ++index) {
       Invariants.checkInvariant(
-        !overloads.containsKey(c_method.desc),
+        CMethodView.ORDER_NAME_DESCRIPTOR.compare(
+          sorted[index - 1], sorted[index]) != 0,
         "Methods with the same name cannot have the same type descriptor");
-      overloads = overloads.put(
-        c_method.desc, CMethods.method(c.name(), c_method));
-      mm = mm.put(c_method.name, overloads);
     }
-
-    return mm;
+    return sorted;
   }
 
   /**
-   * Compare all methods in the given classes.
+   * Compare all methods in the given classes. Methods that are not part of
+   * the API in either class are ignored. The methods of both classes are
+   * sorted by name and descriptor and then merged in a single pass, one group
+   * of overloads at a time.
    *
    * @param receiver  The change receiver
    * @param registry  A class registry
@@ -108,57 +148,58 @@ public final class CMethodComparisons
     Objects.requireNonNull(class_old, "Class (old)");
     Objects.requireNonNull(class_new, "Class (new)");
 
-    final TreeMap<String, Map<String, CMethod>> methods_old =
-      collectMethods(class_old);
-    final TreeMap<String, Map<String, CMethod>> methods_new =
-      collectMethods(class_new);
-
-    final SortedSet<String> all_names =
-      methods_new.keySet().union(methods_old.keySet());
-
-    for (final String name : all_names) {
-      final Map<String, CMethod> method_types_old =
-        methods_old.getOrElse(name, HashMap.empty());
-      final Map<String, CMethod> method_types_new =
-        methods_new.getOrElse(name, HashMap.empty());
-
-      final Set<String> types_all =
-        method_types_new.keySet().union(method_types_old.keySet());
-
-      for (final String type : types_all) {
-        LOG.debug("method {} {}", name, type);
-
-        if (!method_types_old.containsKey(type)
-          && method_types_new.containsKey(type)) {
-
-          final CMethod method =
-            method_types_new.get(type).get();
-          final Map<String, CMethod> other_overloads =
-            method_types_new.remove(type);
-
-          this.onMethodAdded(
-            receiver, registry, class_old, class_new, method, other_overloads);
-          continue;
-        }
-
-        if (method_types_old.containsKey(type)
-          && !method_types_new.containsKey(type)) {
-
-          final CMethod method =
-            method_types_old.get(type).get();
-          final Map<String, CMethod> other_overloads =
-            method_types_old.remove(type);
-
-          this.onMethodRemoved(
-            receiver, registry, class_old, class_new, method, other_overloads);
-          continue;
-        }
+    final Predicate<MethodNode> include;
+    if (this.visibility.includesEverything()) {
+      include = method -> true;
+    } else {
+      final HashSet<String> api =
+        this.visibility.methodsAPI(class_old.node(), class_new.node());
+      include = method -> api.contains(CAPIVisibilityFilter.methodKey(method));
+    }
 
-        final CMethod method_old = method_types_old.get(type).get();
-        final CMethod method_new = method_types_new.get(type).get();
-        this.compareMethodExactOverload(
-          receiver, registry, class_old, method_old, class_new, method_new);
+    final CMethodView[] methods_old = sortedMethods(class_old, include);
+    final CMethodView[] methods_new = sortedMethods(class_new, include);
+
+    int index_old = 0;
+    int index_new = 0;
+    while (index_old < methods_old.length || index_new < methods_new.length) {
+      final int order;
+      if (index_old == methods_old.length) {
+        order = 1;
+      } else if (index_new == methods_new.length) {
+        order = -1;
+      } else {
+        order = CMethodView.ORDER_NAME.compare(
+          methods_old[index_old], methods_new[index_new]);
       }
+
+      final int end_old =
+        order <= 0
+          ? CSortedMerge.runEnd(methods_old, index_old, CMethodView.ORDER_NAME)
+          : index_old;
+      final int end_new =
+        order >= 0
+          ? CSortedMerge.runEnd(methods_new, index_new, CMethodView.ORDER_NAME)
+          : index_new;
+
+      CSortedMerge.merge(
+        methods_old,
+        index_old,
+        end_old,
+        methods_new,
+        index_new,
+        end_new,
+        CMethodView.ORDER_DESCRIPTOR,
+        new OverloadGroup(
+          receiver,
+          registry,
+          class_old,
+          class_new,
+          new CMethodOverloads(methods_old, index_old, end_old),
+          new CMethodOverloads(methods_new, index_new, end_new)));
+
+      index_old = end_old;
+      index_new = end_new;
     }
   }
 
@@ -166,8 +207,8 @@ public final class CMethodComparisons
    * A method was removed.
    *
    * @param receiver  A change receiver
-   * @param method    The removed method
-   * @param overloads The existing method overloads
+   * @param view      The removed method
+   * @param overloads The overloads of the method in the old class
    */
 
   private void onMethodRemoved(
@@ -175,30 +216,35 @@ public final class CMethodComparisons
     final CClassRegistryType registry,
     final CClass class_old,
     final CClass class_new,
-    final CMethod method,
-    final Map<String, CMethod> overloads)
+    final CMethodView view,
+    final CMethodOverloads overloads)
   {
-    this.removal_checks.forEach(
-      check -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}:{}",
-            check.name(),
-            CClassNames.show(class_new.name()),
-            method.name());
-        }
-
-        check.checkMethodRemovalChecked(
-          receiver, registry, class_old, class_new, method, overloads);
-      });
+    if (this.removal_checks.length == 0) {
+      return;
+    }
+
+    final CMethod method = view.method();
+    final Map<String, CMethod> others = overloads.othersThan(view);
+    for (final CMethodCheckRemovalType check : this.removal_checks) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}:{}",
+          check.name(),
+          CClassNames.show(class_new.name()),
+          method.name());
+      }
+
+      check.checkMethodRemovalChecked(
+        receiver, registry, class_old, class_new, method, others);
+    }
   }
 
   /**
    * A method was added.
    *
    * @param receiver  A change receiver
-   * @param method    The added method
-   * @param overloads The existing method overloads
+   * @param view      The added method
+   * @param overloads The overloads of the method in the new class
    */
 
   private void onMethodAdded(
@@ -206,44 +252,124 @@ public final class CMethodComparisons
     final CClassRegistryType registry,
     final CClass class_old,
     final CClass class_new,
-    final CMethod method,
-    final Map<String, CMethod> overloads)
+    final CMethodView view,
+    final CMethodOverloads overloads)
   {
-    this.addition_checks.forEach(
-      check -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}:{}",
-            check.name(),
-            CClassNames.show(class_new.name()),
-            method.name());
-        }
-
-        check.checkMethodAdditionChecked(
-          receiver, registry, class_old, class_new, method, overloads);
-      });
+    if (this.addition_checks.length == 0) {
+      return;
+    }
+
+    final CMethod method = view.method();
+    final Map<String, CMethod> others = overloads.othersThan(view);
+    for (final CMethodCheckAdditionType check : this.addition_checks) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}:{}",
+          check.name(),
+          CClassNames.show(class_new.name()),
+          method.name());
+      }
+
+      check.checkMethodAdditionChecked(
+        receiver, registry, class_old, class_new, method, others);
+    }
   }
 
   private void compareMethodExactOverload(
     final CChangeReceiverType receiver,
     final CClassRegistryType registry,
     final CClass c_old,
-    final CMethod m_old,
+    final CMethodView view_old,
     final CClass c_new,
-    final CMethod m_new)
+    final CMethodView view_new)
   {
-    this.overload_comparators.forEach(
-      compare -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}:{}",
-            compare.name(),
-            CClassNames.show(c_new.name()),
-            m_new.name());
-        }
-
-        compare.compareMethodOverloadChecked(
-          receiver, registry, c_old, m_old, c_new, m_new);
-      });
+    if (this.overload_comparators.length == 0) {
+      return;
+    }
+
+    final CMethod m_old = view_old.method();
+    final CMethod m_new = view_new.method();
+    for (final CMethodOverloadComparatorType compare : this.overload_comparators) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}:{}",
+          compare.name(),
+          CClassNames.show(c_new.name()),
+          m_new.name());
+      }
+
+      compare.compareMethodOverloadChecked(
+        receiver, registry, c_old, m_old, c_new, m_new);
+    }
+  }
+
+  /**
+   * The merge of a single group of overloads with the same name.
+   */
+
+  private final class OverloadGroup
+    implements CSortedMerge.ReceiverType<CMethodView>
+  {
+    private final CChangeReceiverType receiver;
+    private final CClassRegistryType registry;
+    private final CClass class_old;
+    private final CClass class_new;
+    private final CMethodOverloads overloads_old;
+    private final CMethodOverloads overloads_new;
+
+    OverloadGroup(
+      final CChangeReceiverType in_receiver,
+      final CClassRegistryType in_registry,
+      final CClass in_class_old,
+      final CClass in_class_new,
+      final CMethodOverloads in_overloads_old,
+      final CMethodOverloads in_overloads_new)
+    {
+      this.receiver = in_receiver;
+      this.registry = in_registry;
+      this.class_old = in_class_old;
+      this.class_new = in_class_new;
+      this.overloads_old = in_overloads_old;
+      this.overloads_new = in_overloads_new;
+    }
+
+    @Override
+    public void onOnlyOld(
+      final CMethodView x)
+    {
+      LOG.debug("method {} {}", x.name(), x.descriptor());
+      CMethodComparisons.this.onMethodRemoved(
+        this.receiver,
+        this.registry,
+        this.class_old,
+        this.class_new,
+        x,
+        this.overloads_old);
+    }
+
+    @Override
+    public void onOnlyNew(
+      final CMethodView y)
+    {
+      LOG.debug("method {} {}", y.name(), y.descriptor());
+      CMethodComparisons.this.onMethodAdded(
+        this.receiver,
+        this.registry,
+        this.class_old,
+        this.class_new,
+        y,
+        this.overloads_new);
+    }
+
+    @Override
+    public void onBoth(
+      final CMethodView x,
+      final CMethodView y)
+    {
+      LOG.debug("method {} {}", y.name(), y.descriptor());
+      y.shareTypesWith(x);
+      CMethodComparisons.this.compareMethodExactOverload(
+        this.receiver, this.registry, this.class_old, x, this.class_new, y);
+    }
   }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver;
+
+import com.io7m.cantoria.api.CMethod;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
+
+import java.util.Objects;
+
+/**
+ * The overloads of a single method name within one version of a class. The
+ * overloads are a range of a shared array of views sorted by descriptor, and
+ * the map of full method values is built at most once per group no matter how
+ * many overloads are added or removed.
+ */
+
+public final class CMethodOverloads
+{
+  private final CMethodView[] views;
+  private final int start;
+  private final int end;
+  private Map<String, CMethod> methods;
+
+  /**
+   * Construct a group of overloads.
+   *
+   * @param in_views The shared array of views, sorted by name and descriptor
+   * @param in_start The index of the first overload (inclusive)
+   * @param in_end   The index of the last overload (exclusive)
+   */
+
+  public CMethodOverloads(
+    final CMethodView[] in_views,
+    final int in_start,
+    final int in_end)
+  {
+    this.views = Objects.requireNonNull(in_views, "Views");
+    this.start = in_start;
+    this.end = in_end;
+  }
+
+  /**
+   * @param view A view within this group
+   *
+   * @return All overloads in the group other than {@code view}
+   */
+
+  public Map<String, CMethod> othersThan(
+    final CMethodView view)
+  {
+    if (this.methods == null) {
+      Map<String, CMethod> m = HashMap.empty();
+      for (int index = this.start; index < this.end; ++index) {
+        final CMethodView v = this.views[index];
+        m = m.put(v.descriptor(), v.method());
+      }
+      this.methods = m;
+    }
+    return this.methods.remove(view.descriptor());
+  }
+}
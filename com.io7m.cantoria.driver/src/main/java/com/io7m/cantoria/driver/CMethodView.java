@@ -0,0 +1,143 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver;
+
+import com.io7m.cantoria.api.CClassName;
+import com.io7m.cantoria.api.CMethod;
+import com.io7m.cantoria.api.CMethods;
+import com.io7m.cantoria.api.CMethodTypes;
+import com.io7m.jaffirm.core.Preconditions;
+import io.vavr.collection.List;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * A lightweight handle over a method node. The name and descriptor are read
+ * directly from the node; the parsed types and the full {@link CMethod} value
+ * are only computed when a check actually asks for them. Views are confined
+ * to the comparison of a single pair of classes and are not thread-safe.
+ */
+
+public final class CMethodView
+{
+  /**
+   * The order of views by name.
+   */
+
+  public static final Comparator<CMethodView> ORDER_NAME =
+    Comparator.comparing(CMethodView::name);
+
+  /**
+   * The order of views by type descriptor.
+   */
+
+  public static final Comparator<CMethodView> ORDER_DESCRIPTOR =
+    Comparator.comparing(CMethodView::descriptor);
+
+  /**
+   * The order of views by name and then type descriptor.
+   */
+
+  public static final Comparator<CMethodView> ORDER_NAME_DESCRIPTOR =
+    ORDER_NAME.thenComparing(ORDER_DESCRIPTOR);
+
+  private final CClassName class_name;
+  private final MethodNode node;
+  private List<String> parameter_types;
+  private String return_type;
+  private CMethod method;
+
+  /**
+   * Construct a view.
+   *
+   * @param in_class_name The name of the class that declares the method
+   * @param in_node       The method node
+   */
+
+  public CMethodView(
+    final CClassName in_class_name,
+    final MethodNode in_node)
+  {
+    this.class_name = Objects.requireNonNull(in_class_name, "Class name");
+    this.node = Objects.requireNonNull(in_node, "Node");
+  }
+
+  /**
+   * @return The name of the method
+   */
+
+  public String name()
+  {
+    return this.node.name;
+  }
+
+  /**
+   * @return The type descriptor of the method
+   */
+
+  public String descriptor()
+  {
+    return this.node.desc;
+  }
+
+  /**
+   * Share the parsed descriptor types of {@code other} with this view. The
+   * old and new versions of an overload have identical descriptors, so the
+   * types only need to be parsed once per pair.
+   *
+   * @param other The other view
+   */
+
+  public void shareTypesWith(
+    final CMethodView other)
+  {
+    Preconditions.checkPrecondition(
+      other.descriptor(),
+      d -> Objects.equals(d, this.descriptor()),
+      d -> "Descriptor " + d + " must match " + this.descriptor());
+
+    other.parseTypes();
+    this.parameter_types = other.parameter_types;
+    this.return_type = other.return_type;
+  }
+
+  private void parseTypes()
+  {
+    if (this.return_type == null) {
+      this.parameter_types =
+        CMethodTypes.parseParameterTypesFromSignature(this.node.desc);
+      this.return_type =
+        CMethodTypes.parseReturnTypeFromSignature(this.node.desc);
+    }
+  }
+
+  /**
+   * @return The full method value
+   */
+
+  public CMethod method()
+  {
+    if (this.method == null) {
+      this.parseTypes();
+      this.method = CMethods.method(
+        this.class_name, this.node, this.parameter_types, this.return_type);
+    }
+    return this.method;
+  }
+}
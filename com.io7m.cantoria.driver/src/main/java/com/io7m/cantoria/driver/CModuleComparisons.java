@@ -16,26 +16,49 @@
 
 package com.io7m.cantoria.driver;
 
+import com.io7m.cantoria.api.CArchiveType;
 import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassDigest;
+import com.io7m.cantoria.api.CClassHeader;
 import com.io7m.cantoria.api.CClassModifiers;
 import com.io7m.cantoria.api.CClassNames;
 import com.io7m.cantoria.api.CClassRegistryType;
 import com.io7m.cantoria.api.CEnum;
 import com.io7m.cantoria.api.CEnums;
 import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.cantoria.changes.api.CCompatibilityTracker;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
 import com.io7m.cantoria.changes.spi.CChangeReceiverType;
 import com.io7m.cantoria.changes.spi.CClassCheckAdditionType;
 import com.io7m.cantoria.changes.spi.CClassCheckRemovalType;
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
+import com.io7m.cantoria.driver.api.CComparisonGate;
+import com.io7m.cantoria.driver.api.CComparisonMemoType;
+import com.io7m.cantoria.driver.api.CComparisonVerdict;
 import com.io7m.jaffirm.core.Invariants;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
 import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.ServiceLoader;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Functions to compare modules.
@@ -47,20 +70,27 @@ public final class CModuleComparisons
     LoggerFactory.getLogger(CModuleComparisons.class);
 
   private final CModuleDescriptorComparisons module_desc_comparisons;
-  private final ServiceLoader<CClassCheckRemovalType> class_removals;
-  private final ServiceLoader<CClassCheckAdditionType> class_additions;
+  private final CClassCheckRemovalType[] class_removals;
+  private final CClassCheckAdditionType[] class_additions;
   private final CClassComparisons class_comparisons;
+  private final CComparisonDriverConfiguration configuration;
+  private final CAPIVisibilityFilter visibility;
 
-  private CModuleComparisons()
+  private CModuleComparisons(
+    final CComparisonDriverConfiguration in_configuration,
+    final CCheckPipeline in_pipeline)
   {
-    this.class_removals =
-      ServiceLoader.load(CClassCheckRemovalType.class);
-    this.class_additions =
-      ServiceLoader.load(CClassCheckAdditionType.class);
+    this.configuration =
+      Objects.requireNonNull(in_configuration, "Configuration");
+    Objects.requireNonNull(in_pipeline, "Pipeline");
+    this.visibility =
+      new CAPIVisibilityFilter(in_configuration.apiVisibility());
+    this.class_removals = in_pipeline.classRemovals();
+    this.class_additions = in_pipeline.classAdditions();
     this.module_desc_comparisons =
-      CModuleDescriptorComparisons.create();
+      CModuleDescriptorComparisons.create(in_pipeline);
     this.class_comparisons =
-      CClassComparisons.create();
+      CClassComparisons.create(in_pipeline, in_configuration);
   }
 
   /**
@@ -69,7 +99,106 @@ public final class CModuleComparisons
 
   public static CModuleComparisons create()
   {
-    return new CModuleComparisons();
+    return create(CComparisonDriverConfiguration.builder().build());
+  }
+
+  /**
+   * @param configuration The driver configuration
+   *
+   * @return A module comparison driver
+   */
+
+  public static CModuleComparisons create(
+    final CComparisonDriverConfiguration configuration)
+  {
+    return create(configuration, CCheckPipeline.load());
+  }
+
+  /**
+   * @param configuration The driver configuration
+   * @param pipeline      The pipeline of checks
+   *
+   * @return A module comparison driver
+   */
+
+  public static CModuleComparisons create(
+    final CComparisonDriverConfiguration configuration,
+    final CCheckPipeline pipeline)
+  {
+    return new CModuleComparisons(configuration, pipeline);
+  }
+
+  /**
+   * @return The names of all of the checks that this driver runs
+   */
+
+  public SortedSet<String> checks()
+  {
+    return TreeSet.<String>empty()
+      .addAll(this.module_desc_comparisons.checks())
+      .addAll(List.of(this.class_removals).map(CChangeCheckType::name))
+      .addAll(List.of(this.class_additions).map(CChangeCheckType::name))
+      .addAll(this.class_comparisons.checks());
+  }
+
+  private static boolean isOrdinaryFile(
+    final Path path)
+  {
+    return Objects.equals(path.getFileSystem(), FileSystems.getDefault())
+      && Files.isRegularFile(path);
+  }
+
+  /**
+   * @return {@code true} if the given archives are ordinary files with
+   * byte-for-byte identical contents
+   */
+
+  private static boolean archivesIdentical(
+    final CArchiveType archive_old,
+    final CArchiveType archive_new)
+    throws IOException
+  {
+    final Path path_old = archive_old.descriptor().path();
+    final Path path_new = archive_new.descriptor().path();
+
+    if (!isOrdinaryFile(path_old) || !isOrdinaryFile(path_new)) {
+      return false;
+    }
+    if (Files.isSameFile(path_old, path_new)) {
+      return true;
+    }
+    if (Files.size(path_old) != Files.size(path_new)) {
+      return false;
+    }
+
+    try (InputStream stream_old = Files.newInputStream(path_old)) {
+      try (InputStream stream_new = Files.newInputStream(path_new)) {
+        return streamsIdentical(stream_old, stream_new);
+      }
+    }
+  }
+
+  private static boolean streamsIdentical(
+    final InputStream stream_old,
+    final InputStream stream_new)
+    throws IOException
+  {
+    final byte[] buffer_old = new byte[8192];
+    final byte[] buffer_new = new byte[8192];
+
+    while (true) {
+      final int r_old = stream_old.readNBytes(buffer_old, 0, buffer_old.length);
+      final int r_new = stream_new.readNBytes(buffer_new, 0, buffer_new.length);
+      if (r_old != r_new) {
+        return false;
+      }
+      if (r_old == 0) {
+        return true;
+      }
+      if (!Arrays.equals(buffer_old, 0, r_old, buffer_new, 0, r_new)) {
+        return false;
+      }
+    }
   }
 
   /**
@@ -89,22 +218,236 @@ public final class CModuleComparisons
     final CModuleType c_old,
     final CModuleType c_new)
     throws IOException
+  {
+    this.compareModulesWith(
+      receiver,
+      registry,
+      c_old,
+      c_new,
+      new Run(this.configuration.memo(), Optional.empty()));
+  }
+
+  /**
+   * Compare the given modules until the given gate condition is reached,
+   * delivering changes to the receiver.
+   *
+   * @param receiver The change receiver
+   * @param gate     The condition at which to stop
+   * @param registry A class registry for finding external classes
+   * @param c_old    The old module
+   * @param c_new    The new module
+   *
+   * @return The verdict of the comparison
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public CComparisonVerdict compareModulesGated(
+    final CChangeReceiverType receiver,
+    final CComparisonGate gate,
+    final CClassRegistryType registry,
+    final CModuleType c_old,
+    final CModuleType c_new)
+    throws IOException
+  {
+    Objects.requireNonNull(gate, "Gate");
+
+    final Run run = new Run(Optional.empty(), Optional.of(gate));
+    this.compareModulesWith(receiver, registry, c_old, c_new, run);
+    return run.verdict();
+  }
+
+  private void compareModulesWith(
+    final CChangeReceiverType receiver,
+    final CClassRegistryType registry,
+    final CModuleType c_old,
+    final CModuleType c_new,
+    final Run run)
+    throws IOException
   {
     Objects.requireNonNull(receiver, "Receiver");
     Objects.requireNonNull(registry, "Registry");
     Objects.requireNonNull(c_old, "Module (old)");
     Objects.requireNonNull(c_new, "Module (new)");
 
+    if (archivesIdentical(c_old.archive(), c_new.archive())) {
+      LOG.debug(
+        "archives {} and {} are identical",
+        c_old.archive().descriptor().path(),
+        c_new.archive().descriptor().path());
+      return;
+    }
+
     this.module_desc_comparisons.compareModuleDescriptors(
-      receiver, c_old.descriptor(), c_new.descriptor());
+      (originator, change) -> {
+        run.observe(change);
+        receiver.onChange(originator, change);
+      },
+      c_old.descriptor(),
+      c_new.descriptor());
+
+    if (run.isReached()) {
+      LOG.debug("gate reached after comparing module descriptors");
+      return;
+    }
 
     try {
-      this.compareClassesExportedUnqualified(receiver, registry, c_old, c_new);
+      this.compareClassesExportedUnqualified(
+        receiver, registry, c_old, c_new, run);
     } catch (final UncheckedIOException e) {
       throw e.getCause();
     }
   }
 
+  /**
+   * Run the given comparison tasks on the given executor, delivering the
+   * changes produced by each task to the receiver in task order. If the
+   * gate of the run is reached, tasks that have not yet started are
+   * abandoned and no further results are delivered. The changes delivered
+   * are exactly those of the tasks up to and including the first task, in
+   * task order, whose changes reach the gate, and so do not depend on the
+   * order in which the tasks happen to finish. This method does not return
+   * until every task that was started has finished.
+   */
+
+  private void runParallel(
+    final CChangeReceiverType receiver,
+    final Executor executor,
+    final CModuleType module_old,
+    final CModuleType module_new,
+    final List<ClassTask> tasks,
+    final Run run)
+  {
+    final List<CompletableFuture<Optional<BufferedReceiver>>> futures =
+      tasks.zipWithIndex().map(pair -> CompletableFuture.supplyAsync(
+        () -> this.execute(
+          module_old, module_new, pair._1, pair._2.intValue(), run),
+        executor));
+
+    try {
+      for (int index = 0; index < tasks.size(); ++index) {
+        if (run.isReached()) {
+          LOG.debug("gate reached; abandoning {} tasks", tasks.size() - index);
+          return;
+        }
+        this.deliver(receiver, tasks.get(index), futures.get(index).join(), run);
+      }
+    } catch (final CompletionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    } finally {
+      run.abandon();
+      awaitAll(futures);
+    }
+  }
+
+  /**
+   * Wait for all of the given futures to complete, ignoring their results.
+   * Tasks that are still running may be using the modules, and so must
+   * finish before the caller is allowed to close them.
+   */
+
+  private static void awaitAll(
+    final List<? extends CompletableFuture<?>> futures)
+  {
+    CompletableFuture.allOf(
+      futures.toJavaList().toArray(new CompletableFuture<?>[0]))
+      .handle((ignored, exception) -> null)
+      .join();
+  }
+
+  /**
+   * Run the given comparison task, buffering the changes it produces. If the
+   * class is byte-identical in both modules, the task is not run and the memo
+   * of the run, if any, is not consulted. If the memo holds current results
+   * for the class, the task is not run. If the task has been abandoned
+   * because an earlier task has reached the gate of the run, the task is not
+   * run and an empty buffer is returned.
+   *
+   * @return The buffered changes, or nothing if the memo will replay the
+   * results for the class
+   */
+
+  private Optional<BufferedReceiver> execute(
+    final CModuleType module_old,
+    final CModuleType module_new,
+    final ClassTask task,
+    final int index,
+    final Run run)
+  {
+    if (run.isAbandoned(index)) {
+      return Optional.of(new BufferedReceiver(false));
+    }
+
+    if (run.memo.isPresent()) {
+      try {
+
+        /*
+         * Identical classes produce no changes and are cheaper to detect
+         * than any memo key, so the memo is only asked about the others.
+         */
+
+        if (task.present_both
+          && this.classesIdentical(
+          module_old, module_new, task.package_name, task.class_name)) {
+          if (LOG.isTraceEnabled()) {
+            LOG.trace(
+              "skipping identical class {}.{}",
+              task.package_name,
+              task.class_name);
+          }
+          return Optional.of(new BufferedReceiver(false));
+        }
+
+        if (run.memo.get().isCurrent(
+          module_old, module_new, task.package_name, task.class_name)) {
+          if (LOG.isTraceEnabled()) {
+            LOG.trace(
+              "replaying memo for {}.{}", task.package_name, task.class_name);
+          }
+          return Optional.empty();
+        }
+      } catch (final IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    final BufferedReceiver buffer = new BufferedReceiver(true);
+    task.comparison.run(buffer);
+    run.finished(index, buffer);
+    return Optional.of(buffer);
+  }
+
+  /**
+   * Deliver the result of the given comparison task.
+   */
+
+  private void deliver(
+    final CChangeReceiverType receiver,
+    final ClassTask task,
+    final Optional<BufferedReceiver> result,
+    final Run run)
+  {
+    if (!result.isPresent()) {
+      run.memo.get().replay(task.package_name, task.class_name);
+      return;
+    }
+
+    final BufferedReceiver buffer = result.get();
+    buffer.replay(receiver);
+    run.observeAll(buffer);
+    if (buffer.record) {
+      run.memo.ifPresent(memo -> memo.compared(
+        task.package_name, task.class_name, buffer.changes()));
+    }
+  }
+
   /**
    * For each of the packages exported by both modules, compare all of the
    * public classes.
@@ -114,7 +457,8 @@ public final class CModuleComparisons
     final CChangeReceiverType receiver,
     final CClassRegistryType registry,
     final CModuleType module_old,
-    final CModuleType module_new)
+    final CModuleType module_new,
+    final Run run)
   {
     final SortedSet<String> old_exports =
       module_old.descriptor().exportsUnqualified();
@@ -123,45 +467,109 @@ public final class CModuleComparisons
     final SortedSet<String> exported_both =
       old_exports.intersect(new_exports);
 
-    exported_both.forEach(pack -> {
-      final SortedSet<String> classes_old =
-        module_old.classesInPackage(pack);
-      final SortedSet<String> classes_new =
-        module_new.classesInPackage(pack);
+    final List<ClassTask> tasks =
+      exported_both.toList().flatMap(
+        pack -> this.packageTasks(registry, module_old, module_new, pack));
+
+    final Optional<Executor> executor_opt = this.configuration.executor();
+    if (executor_opt.isPresent()) {
+      this.runParallel(
+        receiver, executor_opt.get(), module_old, module_new, tasks, run);
+    } else {
+      for (int index = 0; index < tasks.size(); ++index) {
+        if (run.isReached()) {
+          LOG.debug("gate reached; skipping remaining tasks");
+          return;
+        }
+        final ClassTask task = tasks.get(index);
+        this.deliver(
+          receiver,
+          task,
+          this.execute(module_old, module_new, task, index, run),
+          run);
+      }
+    }
+  }
 
-      final SortedSet<String> classes_added =
-        classes_new.removeAll(classes_old);
+  /**
+   * @return The per-class comparison tasks for the given package, in the
+   * order that their changes must be delivered
+   */
 
-      classes_added.forEach(
-        added -> {
+  private List<ClassTask> packageTasks(
+    final CClassRegistryType registry,
+    final CModuleType module_old,
+    final CModuleType module_new,
+    final String pack)
+  {
+    final SortedSet<String> classes_old =
+      module_old.classesInPackage(pack);
+    final SortedSet<String> classes_new =
+      module_new.classesInPackage(pack);
+
+    final SortedSet<String> classes_added =
+      classes_new.removeAll(classes_old);
+
+    final List<ClassTask> tasks_added =
+      classes_added.toList().map(
+        added -> new ClassTask(pack, added, false, receiver -> {
           try {
-            module_new.classValue(pack, added).ifPresent(
-              clazz -> this.onClassAdded(receiver, registry, clazz));
+            if (this.classIsAPI(module_new, pack, added)) {
+              module_new.classValue(pack, added).ifPresent(
+                clazz -> this.onClassAdded(receiver, registry, clazz));
+            }
           } catch (final IOException e) {
             throw new UncheckedIOException(e);
           }
-        });
+        }));
 
-      final SortedSet<String> classes_removed =
-        classes_old.removeAll(classes_new);
+    final SortedSet<String> classes_removed =
+      classes_old.removeAll(classes_new);
 
-      classes_removed.forEach(
-        removed -> {
+    final List<ClassTask> tasks_removed =
+      classes_removed.toList().map(
+        removed -> new ClassTask(pack, removed, false, receiver -> {
           try {
-            module_old.classValue(pack, removed).ifPresent(
-              clazz -> this.onClassRemoved(receiver, registry, clazz));
+            if (this.classIsAPI(module_old, pack, removed)) {
+              module_old.classValue(pack, removed).ifPresent(
+                clazz -> this.onClassRemoved(receiver, registry, clazz));
+            }
           } catch (final IOException e) {
             throw new UncheckedIOException(e);
           }
-        });
+        }));
 
-      final SortedSet<String> classes_both =
-        classes_new.intersect(classes_old);
+    final SortedSet<String> classes_both =
+      classes_new.intersect(classes_old);
 
-      classes_both.forEach(
-        present -> this.compareClasses(
-          receiver, registry, module_old, module_new, pack, present));
-    });
+    final List<ClassTask> tasks_both =
+      classes_both.toList().map(
+        present -> new ClassTask(pack, present, true, receiver ->
+          this.compareClasses(
+            receiver, registry, module_old, module_new, pack, present)));
+
+    return tasks_added.appendAll(tasks_removed).appendAll(tasks_both);
+  }
+
+  /**
+   * @return {@code true} if the header of the given class marks it as part of
+   * the API; the class itself is not parsed
+   */
+
+  private boolean classIsAPI(
+    final CModuleType module,
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    if (this.visibility.classesAllAPI()) {
+      return true;
+    }
+
+    final Optional<CClassHeader> header =
+      module.classHeader(package_name, class_name);
+    return header.isPresent()
+      && this.visibility.classIsAPI(header.get().access());
   }
 
   private void onClassRemoved(
@@ -169,16 +577,15 @@ public final class CModuleComparisons
     final CClassRegistryType registry,
     final CClass clazz)
   {
-    this.class_removals.forEach(
-      check -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}",
-            check.name(),
-            CClassNames.show(clazz.name()));
-        }
-        check.checkClassRemovalChecked(receiver, registry, clazz);
-      });
+    for (final CClassCheckRemovalType check : this.class_removals) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}",
+          check.name(),
+          CClassNames.show(clazz.name()));
+      }
+      check.checkClassRemovalChecked(receiver, registry, clazz);
+    }
   }
 
   private void onClassAdded(
@@ -186,16 +593,61 @@ public final class CModuleComparisons
     final CClassRegistryType registry,
     final CClass clazz)
   {
-    this.class_additions.forEach(
-      check -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}",
-            check.name(),
-            CClassNames.show(clazz.name()));
-        }
-        check.checkClassAdditionChecked(receiver, registry, clazz);
-      });
+    for (final CClassCheckAdditionType check : this.class_additions) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}",
+          check.name(),
+          CClassNames.show(clazz.name()));
+      }
+      check.checkClassAdditionChecked(receiver, registry, clazz);
+    }
+  }
+
+  /**
+   * @return {@code true} if the archives of both modules record the same
+   * digest for the given class, optionally confirmed by comparing the
+   * contents of the classes
+   */
+
+  private boolean classesIdentical(
+    final CModuleType module_old,
+    final CModuleType module_new,
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    final Optional<CClassDigest> digest_old =
+      module_old.classDigest(package_name, class_name);
+    if (!digest_old.isPresent()) {
+      return false;
+    }
+
+    final Optional<CClassDigest> digest_new =
+      module_new.classDigest(package_name, class_name);
+    if (!Objects.equals(digest_old, digest_new)) {
+      return false;
+    }
+
+    if (!this.configuration.verifyIdenticalClasses()) {
+      return true;
+    }
+
+    final Optional<InputStream> bytes_old =
+      module_old.classBytes(package_name, class_name);
+    final Optional<InputStream> bytes_new =
+      module_new.classBytes(package_name, class_name);
+
+    Invariants.checkInvariant(
+      bytes_old.isPresent(), "Class must be present");
+    Invariants.checkInvariant(
+      bytes_new.isPresent(), "Class must be present");
+
+    try (InputStream stream_old = bytes_old.get()) {
+      try (InputStream stream_new = bytes_new.get()) {
+        return streamsIdentical(stream_old, stream_new);
+      }
+    }
   }
 
   private void compareClasses(
@@ -207,6 +659,22 @@ public final class CModuleComparisons
     final String class_name)
   {
     try {
+      if (this.classesIdentical(
+        module_old, module_new, package_name, class_name)) {
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("skipping identical class {}.{}", package_name, class_name);
+        }
+        return;
+      }
+
+      if (!this.classIsAPI(module_old, package_name, class_name)
+        && !this.classIsAPI(module_new, package_name, class_name)) {
+        if (LOG.isTraceEnabled()) {
+          LOG.trace("skipping non-API class {}.{}", package_name, class_name);
+        }
+        return;
+      }
+
       final Optional<CClass> clazz_opt_old =
         module_old.classValue(package_name, class_name);
       final Optional<CClass> clazz_opt_new =
@@ -240,4 +708,190 @@ public final class CModuleComparisons
     }
   }
 
+  /**
+   * A comparison of a single class.
+   */
+
+  @FunctionalInterface
+  private interface ComparisonTaskType
+  {
+    void run(CChangeReceiverType receiver);
+  }
+
+  /**
+   * A comparison task for a named class.
+   */
+
+  private static final class ClassTask
+  {
+    private final String package_name;
+    private final String class_name;
+    private final boolean present_both;
+    private final ComparisonTaskType comparison;
+
+    ClassTask(
+      final String in_package_name,
+      final String in_class_name,
+      final boolean in_present_both,
+      final ComparisonTaskType in_comparison)
+    {
+      this.package_name =
+        Objects.requireNonNull(in_package_name, "Package");
+      this.class_name =
+        Objects.requireNonNull(in_class_name, "Class");
+      this.present_both = in_present_both;
+      this.comparison =
+        Objects.requireNonNull(in_comparison, "Comparison");
+    }
+  }
+
+  /**
+   * The state of a single comparison of two modules: the memo to use, if any,
+   * and the gate at which to stop, if any. Changes are observed as they are
+   * delivered, in task order, so that the verdict counts exactly the changes
+   * that the receiver has seen. Tasks running concurrently check their own
+   * changes against the gate as they finish, so that a task whose changes
+   * reach the gate can stop the tasks that follow it from starting.
+   */
+
+  private static final class Run
+  {
+    private final Optional<CComparisonMemoType> memo;
+    private final Optional<CComparisonGate> gate;
+    private final CCompatibilityTracker tracker;
+    private final AtomicInteger first_tripped;
+    private volatile boolean reached;
+
+    Run(
+      final Optional<CComparisonMemoType> in_memo,
+      final Optional<CComparisonGate> in_gate)
+    {
+      this.memo = Objects.requireNonNull(in_memo, "Memo");
+      this.gate = Objects.requireNonNull(in_gate, "Gate");
+      this.tracker = CCompatibilityTracker.create();
+      this.first_tripped = new AtomicInteger(Integer.MAX_VALUE);
+    }
+
+    void observe(
+      final CChangeType change)
+    {
+      if (this.gate.isPresent()) {
+        synchronized (this.tracker) {
+          this.tracker.onChange(change);
+          if (this.gate.get().isReached(this.tracker)) {
+            this.reached = true;
+          }
+        }
+      }
+    }
+
+    /**
+     * Observe the delivered changes produced by a task.
+     */
+
+    void observeAll(
+      final BufferedReceiver buffer)
+    {
+      if (this.gate.isPresent()) {
+        buffer.changes.forEach(pair -> this.observe(pair._2));
+      }
+    }
+
+    /**
+     * Note that the task with the given index has finished. If the changes
+     * produced by the task reach the gate on their own, then the changes
+     * delivered for the task will certainly reach the gate, and so every task
+     * that follows it can be abandoned.
+     */
+
+    void finished(
+      final int index,
+      final BufferedReceiver buffer)
+    {
+      if (this.gate.isPresent()) {
+        final CCompatibilityTracker own = CCompatibilityTracker.create();
+        buffer.changes.forEach(pair -> own.onChange(pair._2));
+        if (this.gate.get().isReached(own)) {
+          this.first_tripped.accumulateAndGet(index, Math::min);
+        }
+      }
+    }
+
+    /**
+     * Abandon all tasks that have not yet started.
+     */
+
+    void abandon()
+    {
+      this.first_tripped.set(-1);
+    }
+
+    boolean isAbandoned(
+      final int index)
+    {
+      return index > this.first_tripped.get();
+    }
+
+    boolean isReached()
+    {
+      return this.reached;
+    }
+
+    CComparisonVerdict verdict()
+    {
+      synchronized (this.tracker) {
+        return CComparisonVerdict.of(
+          this.gate.get(),
+          this.isReached(),
+          this.tracker.binaryCompatibility(),
+          this.tracker.sourceCompatibility(),
+          this.tracker.semanticVersioning());
+      }
+    }
+  }
+
+  /**
+   * A receiver that buffers changes so that they can be delivered to another
+   * receiver later.
+   */
+
+  private static final class BufferedReceiver implements CChangeReceiverType
+  {
+    private final ArrayList<Tuple2<CChangeCheckType, CChangeType>> changes;
+    private final boolean record;
+
+    /**
+     * @param in_record {@code true} if the buffered changes are the result of
+     *                  comparing the class, and so should be recorded in the
+     *                  memo of the run
+     */
+
+    BufferedReceiver(
+      final boolean in_record)
+    {
+      this.changes = new ArrayList<>(8);
+      this.record = in_record;
+    }
+
+    @Override
+    public void onChange(
+      final CChangeCheckType originator,
+      final CChangeType change)
+    {
+      this.changes.add(Tuple.of(originator, change));
+    }
+
+    List<Tuple2<CChangeCheckType, CChangeType>> changes()
+    {
+      return List.ofAll(this.changes);
+    }
+
+    void replay(
+      final CChangeReceiverType receiver)
+    {
+      for (final Tuple2<CChangeCheckType, CChangeType> pair : this.changes) {
+        receiver.onChange(pair._1, pair._2);
+      }
+    }
+  }
 }
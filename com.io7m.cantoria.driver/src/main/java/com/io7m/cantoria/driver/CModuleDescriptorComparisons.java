@@ -17,13 +17,16 @@
 package com.io7m.cantoria.driver;
 
 import com.io7m.cantoria.api.CModuleDescriptor;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
 import com.io7m.cantoria.changes.spi.CChangeReceiverType;
 import com.io7m.cantoria.changes.spi.CModuleDescriptorComparatorType;
+import io.vavr.collection.List;
+import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Objects;
-import java.util.ServiceLoader;
 
 /**
  * Functions to compare module descriptors.
@@ -34,11 +37,14 @@ public final class CModuleDescriptorComparisons
   private static final Logger LOG =
     LoggerFactory.getLogger(CModuleDescriptorComparisons.class);
 
-  private ServiceLoader<CModuleDescriptorComparatorType> services;
+  private final CModuleDescriptorComparatorType[] comparators;
 
-  private CModuleDescriptorComparisons()
+  private CModuleDescriptorComparisons(
+    final CCheckPipeline in_pipeline)
   {
-    this.services = ServiceLoader.load(CModuleDescriptorComparatorType.class);
+    this.comparators =
+      Objects.requireNonNull(in_pipeline, "Pipeline")
+        .moduleDescriptorComparators();
   }
 
   /**
@@ -47,7 +53,29 @@ public final class CModuleDescriptorComparisons
 
   public static CModuleDescriptorComparisons create()
   {
-    return new CModuleDescriptorComparisons();
+    return create(CCheckPipeline.load());
+  }
+
+  /**
+   * @param pipeline The pipeline of checks
+   *
+   * @return A module descriptor comparison driver
+   */
+
+  public static CModuleDescriptorComparisons create(
+    final CCheckPipeline pipeline)
+  {
+    return new CModuleDescriptorComparisons(pipeline);
+  }
+
+  /**
+   * @return The names of all of the checks that this driver runs
+   */
+
+  public SortedSet<String> checks()
+  {
+    return TreeSet.ofAll(
+      List.of(this.comparators).map(CChangeCheckType::name));
   }
 
   /**
@@ -67,16 +95,15 @@ public final class CModuleDescriptorComparisons
     Objects.requireNonNull(md_old, "Module descriptor (old)");
     Objects.requireNonNull(md_new, "Module descriptor (new)");
 
-    this.services.forEach(
-      check -> {
-        if (LOG.isDebugEnabled()) {
-          LOG.debug(
-            "running {} for {}",
-            check.name(),
-            md_new.name());
-        }
-
-        check.compareModule(receiver, md_old, md_new);
-      });
+    for (final CModuleDescriptorComparatorType check : this.comparators) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug(
+          "running {} for {}",
+          check.name(),
+          md_new.name());
+      }
+
+      check.compareModule(receiver, md_old, md_new);
+    }
   }
 }
@@ -0,0 +1,150 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.driver;
+
+import com.io7m.junreachable.UnreachableCodeException;
+
+import java.util.Comparator;
+
+/**
+ * A single-pass merge of two sorted arrays. Elements that compare as equal
+ * are matched; all other elements are reported as present in only one of the
+ * arrays. Ranges of both arrays are merged in time linear in their combined
+ * length.
+ */
+
+public final class CSortedMerge
+{
+  private CSortedMerge()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * A receiver of merge results.
+   *
+   * @param <T> The type of elements
+   */
+
+  public interface ReceiverType<T>
+  {
+    /**
+     * An element appears only in the old array.
+     *
+     * @param x The element
+     */
+
+    void onOnlyOld(T x);
+
+    /**
+     * An element appears only in the new array.
+     *
+     * @param y The element
+     */
+
+    void onOnlyNew(T y);
+
+    /**
+     * An element appears in both arrays.
+     *
+     * @param x The old element
+     * @param y The new element
+     */
+
+    void onBoth(
+      T x,
+      T y);
+  }
+
+  /**
+   * Merge the ranges {@code [x_start, x_end)} and {@code [y_start, y_end)} of
+   * the given arrays. Both ranges must be sorted by {@code order} and must not
+   * contain duplicate elements.
+   *
+   * @param xs       The old array
+   * @param x_start  The start of the old range (inclusive)
+   * @param x_end    The end of the old range (exclusive)
+   * @param ys       The new array
+   * @param y_start  The start of the new range (inclusive)
+   * @param y_end    The end of the new range (exclusive)
+   * @param order    The order of both arrays
+   * @param receiver The receiver of results
+   * @param <T>      The type of elements
+   */
+
+  public static <T> void merge(
+    final T[] xs,
+    final int x_start,
+    final int x_end,
+    final T[] ys,
+    final int y_start,
+    final int y_end,
+    final Comparator<? super T> order,
+    final ReceiverType<T> receiver)
+  {
+    int x_index = x_start;
+    int y_index = y_start;
+
+    while (x_index < x_end && y_index < y_end) {
+      final T x = xs[x_index];
+      final T y = ys[y_index];
+      final int c = order.compare(x, y);
+      if (c < 0) {
+        receiver.onOnlyOld(x);
+        ++x_index;
+      } else if (c > 0) {
+        receiver.onOnlyNew(y);
+        ++y_index;
+      } else {
+        receiver.onBoth(x, y);
+        ++x_index;
+        ++y_index;
+      }
+    }
+
+    for (; x_index < x_end; ++x_index) {
+      receiver.onOnlyOld(xs[x_index]);
+    }
+    for (; y_index < y_end; ++y_index) {
+      receiver.onOnlyNew(ys[y_index]);
+    }
+  }
+
+  /**
+   * Find the end of the run of elements starting at {@code start} that are
+   * equal to {@code xs[start]} according to {@code order}.
+   *
+   * @param xs    The array
+   * @param start The start of the run
+   * @param order The order of the array
+   * @param <T>   The type of elements
+   *
+   * @return The index of the first element after the run
+   */
+
+  public static <T> int runEnd(
+    final T[] xs,
+    final int start,
+    final Comparator<? super T> order)
+  {
+    int index = start + 1;
+    while (index < xs.length && order.compare(xs[start], xs[index]) == 0) {
+      ++index;
+    }
+    return index;
+  }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.modules.api;
+
+import com.io7m.cantoria.api.CArchiveDescriptor;
+import com.io7m.cantoria.api.CArchiveType;
+import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassDigest;
+import com.io7m.cantoria.api.CClassHeader;
+import com.io7m.cantoria.api.CClassParsingMode;
+import com.io7m.cantoria.api.CModuleDescriptor;
+import com.io7m.cantoria.api.CModuleDescriptors;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import io.vavr.collection.SortedSet;
+import org.objectweb.asm.tree.ModuleNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A module that reads only its module descriptor when created, and opens the
+ * underlying archive using a module loader when a class is first requested.
+ *
+ * <p>The descriptor is sufficient to place the module into a class registry,
+ * so archives that are never queried during a comparison are never held
+ * open.</p>
+ */
+
+public final class CModuleLazy implements CModuleType
+{
+  private final CModuleLoaderType loader;
+  private final CArchiveDescriptor archive_descriptor;
+  private final CModuleDescriptor module_descriptor;
+  private final ModuleNode module_node;
+  private final CClassParsingMode mode;
+  private final LazyArchive archive;
+  private CModuleType module;
+  private boolean closed;
+
+  private CModuleLazy(
+    final CModuleLoaderType in_loader,
+    final CArchiveDescriptor in_archive_descriptor,
+    final CModuleDescriptor in_module_descriptor,
+    final ModuleNode in_module_node,
+    final CClassParsingMode in_mode)
+  {
+    this.loader =
+      Objects.requireNonNull(in_loader, "Loader");
+    this.archive_descriptor =
+      Objects.requireNonNull(in_archive_descriptor, "Archive descriptor");
+    this.module_descriptor =
+      Objects.requireNonNull(in_module_descriptor, "Module descriptor");
+    this.module_node =
+      Objects.requireNonNull(in_module_node, "Module node");
+    this.mode =
+      Objects.requireNonNull(in_mode, "Mode");
+    this.archive = new LazyArchive();
+  }
+
+  /**
+   * Read the module descriptor of the given archive, deferring the opening of
+   * the archive itself until a class is requested.
+   *
+   * @param loader  The loader used to open the archive on demand
+   * @param path    The path to the archive
+   * @param version The archive version
+   * @param mode    The mode used to parse classes
+   *
+   * @return A module
+   *
+   * @throws IOException On I/O errors, or if the archive does not contain a
+   *                     module descriptor
+   */
+
+  public static CModuleType open(
+    final CModuleLoaderType loader,
+    final Path path,
+    final CVersion version,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    Objects.requireNonNull(loader, "Loader");
+    Objects.requireNonNull(path, "Path");
+    Objects.requireNonNull(version, "Version");
+    Objects.requireNonNull(mode, "Mode");
+
+    try (ZipFile zip = new ZipFile(path.toFile())) {
+      final ZipEntry entry = zip.getEntry("module-info.class");
+      if (entry == null) {
+        throw new IOException(
+          new StringBuilder(64)
+            .append("Archive does not contain a module descriptor: ")
+            .append(path)
+            .toString());
+      }
+
+      try (InputStream stream = zip.getInputStream(entry)) {
+        final ModuleNode node = CModuleDescriptors.loadModuleNode(stream);
+        return new CModuleLazy(
+          loader,
+          CArchiveDescriptor.of(path, version),
+          CModuleDescriptors.loadModuleDescriptor(node),
+          node,
+          mode);
+      }
+    }
+  }
+
+  /**
+   * @return {@code true} if the underlying archive has been opened
+   */
+
+  public synchronized boolean isOpened()
+  {
+    return this.module != null;
+  }
+
+  private synchronized CModuleType opened()
+    throws IOException
+  {
+    if (this.closed) {
+      throw new IllegalStateException("Module is closed");
+    }
+
+    if (this.module == null) {
+      this.module = this.loader.open(
+        this.archive_descriptor.path(),
+        this.archive_descriptor.version(),
+        this.mode);
+    }
+    return this.module;
+  }
+
+  @Override
+  public synchronized boolean isClosed()
+  {
+    return this.closed;
+  }
+
+  @Override
+  public CModuleDescriptor descriptor()
+  {
+    return this.module_descriptor;
+  }
+
+  @Override
+  public CArchiveType archive()
+  {
+    return this.archive;
+  }
+
+  @Override
+  public ModuleNode node()
+  {
+    return this.module_node;
+  }
+
+  @Override
+  public CClassParsingMode parsingMode()
+  {
+    return this.mode;
+  }
+
+  @Override
+  public Optional<InputStream> classBytes(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return this.opened().classBytes(package_name, class_name);
+  }
+
+  @Override
+  public Optional<CClassHeader> classHeader(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return this.opened().classHeader(package_name, class_name);
+  }
+
+  @Override
+  public Optional<CClassDigest> classDigest(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return this.opened().classDigest(package_name, class_name);
+  }
+
+  @Override
+  public Optional<CClass> classValue(
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return this.opened().classValue(package_name, class_name);
+  }
+
+  @Override
+  public SortedSet<String> classesInPackage(
+    final String package_name)
+  {
+    try {
+      return this.opened().classesInPackage(package_name);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public synchronized void close()
+    throws IOException
+  {
+    try {
+      if (this.module != null) {
+        this.module.close();
+      }
+    } finally {
+      this.closed = true;
+    }
+  }
+
+  private final class LazyArchive implements CArchiveType
+  {
+    LazyArchive()
+    {
+
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+      return CModuleLazy.this.isClosed();
+    }
+
+    @Override
+    public CArchiveDescriptor descriptor()
+    {
+      return CModuleLazy.this.archive_descriptor;
+    }
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      CModuleLazy.this.close();
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.io7m.cantoria.modules.api;
 
+import com.io7m.cantoria.api.CClassParsingMode;
 import com.io7m.cantoria.api.CModuleType;
 import com.io7m.cantoria.api.CVersion;
 import io.vavr.collection.SortedSet;
@@ -48,10 +49,30 @@ public interface CModuleLoaderType
   SortedSet<String> listPlatformModules()
     throws IOException;
 
+  /**
+   * Open the named platform module. Classes are parsed using
+   * {@link CClassParsingMode#CLASS_PARSING_API_SURFACE}.
+   *
+   * @param name The module name
+   *
+   * @return An opened module
+   *
+   * @throws IOException On I/O errors
+   */
+
+  default CModuleType openPlatformModule(
+    final String name)
+    throws IOException
+  {
+    return this.openPlatformModule(
+      name, CClassParsingMode.CLASS_PARSING_API_SURFACE);
+  }
+
   /**
    * Open the named platform module.
    *
    * @param name The module name
+   * @param mode The mode used to parse classes
    *
    * @return An opened module
    *
@@ -59,11 +80,13 @@ public interface CModuleLoaderType
    */
 
   CModuleType openPlatformModule(
-    String name)
+    String name,
+    CClassParsingMode mode)
     throws IOException;
 
   /**
-   * Open an archive and parse the module descriptor.
+   * Open an archive and parse the module descriptor. Classes are parsed using
+   * {@link CClassParsingMode#CLASS_PARSING_API_SURFACE}.
    *
    * @param path    The path to the file, for diagnostic purposes
    * @param version The archive version
@@ -77,10 +100,56 @@ public interface CModuleLoaderType
     final Path path,
     final CVersion version)
     throws IOException
+  {
+    return this.open(
+      path, version, CClassParsingMode.CLASS_PARSING_API_SURFACE);
+  }
+
+  /**
+   * Open an archive and parse the module descriptor.
+   *
+   * @param path    The path to the file, for diagnostic purposes
+   * @param version The archive version
+   * @param mode    The mode used to parse classes
+   *
+   * @return An opened module
+   *
+   * @throws IOException On I/O errors
+   */
+
+  default CModuleType open(
+    final Path path,
+    final CVersion version,
+    final CClassParsingMode mode)
+    throws IOException
   {
     Objects.requireNonNull(path, "Path");
     Objects.requireNonNull(version, "Version");
-    return this.openFromZip(path, version, new ZipFile(path.toFile()));
+    Objects.requireNonNull(mode, "Mode");
+    return this.openFromZip(path, version, new ZipFile(path.toFile()), mode);
+  }
+
+  /**
+   * Open an archive and parse the module descriptor. Classes are parsed using
+   * {@link CClassParsingMode#CLASS_PARSING_API_SURFACE}.
+   *
+   * @param path    The path to the file, for diagnostic purposes
+   * @param version The archive version
+   * @param input   The archive input
+   *
+   * @return An opened module
+   *
+   * @throws IOException On I/O errors
+   */
+
+  default CModuleType openFromZip(
+    final Path path,
+    final CVersion version,
+    final ZipFile input)
+    throws IOException
+  {
+    return this.openFromZip(
+      path, version, input, CClassParsingMode.CLASS_PARSING_API_SURFACE);
   }
 
   /**
@@ -89,6 +158,7 @@ public interface CModuleLoaderType
    * @param path    The path to the file, for diagnostic purposes
    * @param version The archive version
    * @param input   The archive input
+   * @param mode    The mode used to parse classes
    *
    * @return An opened module
    *
@@ -98,6 +168,32 @@ public interface CModuleLoaderType
   CModuleType openFromZip(
     Path path,
     CVersion version,
-    ZipFile input)
+    ZipFile input,
+    CClassParsingMode mode)
     throws IOException;
+
+  /**
+   * Read the module descriptor of an archive without opening the archive for
+   * class access. The archive is opened with
+   * {@link #open(Path, CVersion, CClassParsingMode)} when a class is first
+   * requested from the returned module.
+   *
+   * @param path    The path to the archive
+   * @param version The archive version
+   * @param mode    The mode used to parse classes
+   *
+   * @return A module
+   *
+   * @throws IOException On I/O errors
+   * @see CModuleLazy
+   */
+
+  default CModuleType openLazily(
+    final Path path,
+    final CVersion version,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    return CModuleLazy.open(this, path, version, mode);
+  }
 }
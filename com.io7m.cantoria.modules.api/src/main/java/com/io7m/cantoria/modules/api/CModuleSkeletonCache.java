@@ -0,0 +1,297 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.modules.api;
+
+import com.io7m.cantoria.api.CClassParsingMode;
+import com.io7m.cantoria.api.CHashes;
+import com.io7m.cantoria.api.CModuleDescriptors;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.api.CVersions;
+import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeMap;
+import org.objectweb.asm.tree.ModuleNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Enumeration;
+import java.util.Objects;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * A module loader that caches API skeletons of modules in a directory.
+ *
+ * <p>A skeleton is an uncompressed jar file containing the module descriptor
+ * and every class of the module with method bodies, stack map frames, and
+ * debugging information removed. Skeletons of platform modules are keyed by
+ * the running JDK's version and image location, and skeletons of archives are
+ * keyed by a hash of the archive contents. Skeletons are created once and
+ * then only ever read, so a cache directory may be shared by concurrently
+ * running processes. Skeleton entries are stored uncompressed, so loaders
+ * such as {@code CModulesMapped} that memory-map archives only need to copy
+ * each entry out of the mapping rather than inflate it.</p>
+ *
+ * <p>Classes loaded from a skeleton never contain code, so skeletons are
+ * only suitable for modules used to resolve classes, and not for the modules
+ * being compared. Archives opened with {@link #openFromZip(Path, CVersion,
+ * ZipFile, CClassParsingMode)} are passed to the underlying loader without
+ * caching.</p>
+ */
+
+public final class CModuleSkeletonCache implements CModuleLoaderType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CModuleSkeletonCache.class);
+
+  /**
+   * The version of the skeleton format. Changing this invalidates all
+   * existing skeletons.
+   */
+
+  private static final String FORMAT = "cantoria-skeleton-1";
+
+  private final Path directory;
+  private final CModuleLoaderType loader;
+
+  private CModuleSkeletonCache(
+    final Path in_directory,
+    final CModuleLoaderType in_loader)
+  {
+    this.directory = Objects.requireNonNull(in_directory, "Directory");
+    this.loader = Objects.requireNonNull(in_loader, "Loader");
+  }
+
+  /**
+   * Create a skeleton cache in the given directory. The directory is created
+   * if it does not exist.
+   *
+   * @param directory The cache directory
+   * @param loader    The loader used to open skeletons
+   *
+   * @return A caching module loader
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static CModuleSkeletonCache create(
+    final Path directory,
+    final CModuleLoaderType loader)
+    throws IOException
+  {
+    Objects.requireNonNull(directory, "Directory");
+    Objects.requireNonNull(loader, "Loader");
+    Files.createDirectories(directory);
+    return new CModuleSkeletonCache(directory.toAbsolutePath(), loader);
+  }
+
+  private static String platformKey(
+    final String name)
+  {
+    final MessageDigest digest = CHashes.sha256();
+    final String text =
+      new StringBuilder(128)
+        .append(FORMAT)
+        .append('\u0000')
+        .append(System.getProperty("java.runtime.version"))
+        .append('\u0000')
+        .append(System.getProperty("java.home"))
+        .append('\u0000')
+        .append(name)
+        .toString();
+    return CHashes.hex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String archiveKey(
+    final Path path)
+    throws IOException
+  {
+    final MessageDigest digest = CHashes.sha256();
+    digest.update(FORMAT.getBytes(StandardCharsets.UTF_8));
+
+    final byte[] buffer = new byte[65536];
+    try (InputStream stream = Files.newInputStream(path)) {
+      while (true) {
+        final int r = stream.read(buffer);
+        if (r == -1) {
+          break;
+        }
+        digest.update(buffer, 0, r);
+      }
+    }
+    return CHashes.hex(digest.digest());
+  }
+
+  /**
+   * Find or create the skeleton of the named platform module.
+   *
+   * @param name The module name
+   *
+   * @return The path of the skeleton
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public Path skeletonForPlatformModule(
+    final String name)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "Name");
+
+    final Path target =
+      this.directory.resolve("platform-" + platformKey(name) + ".jar");
+    if (Files.isRegularFile(target)) {
+      LOG.debug("skeleton hit: {} -> {}", name, target);
+      return target;
+    }
+
+    LOG.debug("skeleton miss: {} -> {}", name, target);
+
+    final Path module_path =
+      FileSystems.getFileSystem(URI.create("jrt:/"))
+        .getPath("modules", name);
+
+    TreeMap<String, byte[]> entries = TreeMap.empty();
+    try (Stream<Path> paths = Files.walk(module_path)) {
+      for (final Path path : (Iterable<Path>) paths::iterator) {
+        final String entry_name = module_path.relativize(path).toString();
+        if (Files.isRegularFile(path) && entry_name.endsWith(".class")) {
+          final byte[] data = Files.readAllBytes(path);
+          entries = entries.put(
+            entry_name, CModuleSkeletons.skeletonOf(entry_name, data));
+        }
+      }
+    }
+
+    CModuleSkeletons.write(target, entries);
+    return target;
+  }
+
+  /**
+   * Find or create the skeleton of the given archive.
+   *
+   * @param path The archive
+   *
+   * @return The path of the skeleton
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public Path skeletonForArchive(
+    final Path path)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "Path");
+
+    final Path target =
+      this.directory.resolve("archive-" + archiveKey(path) + ".jar");
+    if (Files.isRegularFile(target)) {
+      LOG.debug("skeleton hit: {} -> {}", path, target);
+      return target;
+    }
+
+    LOG.debug("skeleton miss: {} -> {}", path, target);
+
+    TreeMap<String, byte[]> entries = TreeMap.empty();
+    try (ZipFile zip = new ZipFile(path.toFile())) {
+      final Enumeration<? extends ZipEntry> zip_entries = zip.entries();
+      while (zip_entries.hasMoreElements()) {
+        final ZipEntry entry = zip_entries.nextElement();
+        final String entry_name = entry.getName();
+        if (!entry.isDirectory() && entry_name.endsWith(".class")) {
+          try (InputStream stream = zip.getInputStream(entry)) {
+            final byte[] data = stream.readAllBytes();
+            entries = entries.put(
+              entry_name, CModuleSkeletons.skeletonOf(entry_name, data));
+          }
+        }
+      }
+    }
+
+    CModuleSkeletons.write(target, entries);
+    return target;
+  }
+
+  @Override
+  public String name()
+  {
+    return CModuleSkeletonCache.class.getCanonicalName();
+  }
+
+  @Override
+  public SortedSet<String> listPlatformModules()
+    throws IOException
+  {
+    return this.loader.listPlatformModules();
+  }
+
+  @Override
+  public CModuleType openPlatformModule(
+    final String name,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    Objects.requireNonNull(name, "Name");
+    Objects.requireNonNull(mode, "Mode");
+
+    final Path skeleton = this.skeletonForPlatformModule(name);
+
+    final ModuleNode node;
+    try (ZipFile zip = new ZipFile(skeleton.toFile())) {
+      try (InputStream stream =
+             zip.getInputStream(zip.getEntry("module-info.class"))) {
+        node = CModuleDescriptors.loadModuleNode(stream);
+      }
+    }
+
+    return this.loader.openLazily(
+      skeleton, CVersions.parseNullable(node.version), mode);
+  }
+
+  @Override
+  public CModuleType open(
+    final Path path,
+    final CVersion version,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "Path");
+    Objects.requireNonNull(version, "Version");
+    Objects.requireNonNull(mode, "Mode");
+    return this.loader.open(this.skeletonForArchive(path), version, mode);
+  }
+
+  @Override
+  public CModuleType openFromZip(
+    final Path path,
+    final CVersion version,
+    final ZipFile input,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    return this.loader.openFromZip(path, version, input, mode);
+  }
+}
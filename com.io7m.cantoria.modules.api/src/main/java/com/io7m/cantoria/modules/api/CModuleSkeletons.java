@@ -0,0 +1,123 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.modules.api;
+
+import com.io7m.cantoria.api.CClassParsingMode;
+import com.io7m.junreachable.UnreachableCodeException;
+import io.vavr.Tuple2;
+import io.vavr.collection.SortedMap;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Functions to write API skeletons of modules.
+ */
+
+final class CModuleSkeletons
+{
+  private CModuleSkeletons()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  /**
+   * Strip the given class down to its API surface. The module descriptor is
+   * retained unmodified.
+   *
+   * @param entry_name The archive entry name of the class
+   * @param data       The class bytes
+   *
+   * @return The bytes of the stripped class
+   */
+
+  static byte[] skeletonOf(
+    final String entry_name,
+    final byte[] data)
+  {
+    if (Objects.equals(entry_name, "module-info.class")) {
+      return data;
+    }
+
+    final ClassReader reader = new ClassReader(data);
+    final ClassWriter writer = new ClassWriter(0);
+    reader.accept(
+      writer, CClassParsingMode.CLASS_PARSING_API_SURFACE.readerFlags());
+    return writer.toByteArray();
+  }
+
+  /**
+   * Write the given entries, uncompressed and in order, to a temporary file
+   * next to {@code target}, and then atomically move the file into place.
+   * Concurrent writers of the same content produce identical files, so
+   * whichever move happens last is harmless.
+   *
+   * @param target  The output file
+   * @param entries The archive entries
+   *
+   * @throws IOException On I/O errors
+   */
+
+  static void write(
+    final Path target,
+    final SortedMap<String, byte[]> entries)
+    throws IOException
+  {
+    final Path absolute = target.toAbsolutePath();
+    final Path temporary =
+      Files.createTempFile(absolute.getParent(), "skeleton-", ".tmp");
+
+    try {
+      try (OutputStream file = Files.newOutputStream(temporary)) {
+        try (ZipOutputStream zip = new ZipOutputStream(file)) {
+          for (final Tuple2<String, byte[]> pair : entries) {
+            final byte[] data = pair._2;
+            final CRC32 crc = new CRC32();
+            crc.update(data);
+
+            final ZipEntry entry = new ZipEntry(pair._1);
+            entry.setMethod(ZipEntry.STORED);
+            entry.setSize((long) data.length);
+            entry.setCompressedSize((long) data.length);
+            entry.setCrc(crc.getValue());
+            entry.setTime(0L);
+            zip.putNextEntry(entry);
+            zip.write(data);
+            zip.closeEntry();
+          }
+        }
+      }
+
+      Files.move(
+        temporary,
+        absolute,
+        StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.modules.api;
+
+import com.io7m.cantoria.api.CClassNames;
+import com.io7m.cantoria.api.CClassParsingMode;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.api.CVersions;
+import com.io7m.junreachable.UnreachableCodeException;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.TreeMap;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.ModuleExportNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+/**
+ * Functions to export and load API snapshots of modules.
+ *
+ * <p>A snapshot is an uncompressed jar file containing the module descriptor,
+ * every class in each package exported by the module together with every
+ * class of the module that those classes extend or implement, directly or
+ * indirectly, with method bodies, stack map frames, and debugging information
+ * removed, and a small metadata entry recording the snapshot format, the
+ * module name, and the module version. Because a snapshot is itself a module
+ * archive, it is opened with an ordinary {@link CModuleLoaderType} and can be
+ * used anywhere the original module could be, with the exception that classes
+ * never contain code.</p>
+ */
+
+public final class CModuleSnapshots
+{
+  /**
+   * The name of the metadata entry in snapshots.
+   */
+
+  public static final String METADATA_ENTRY =
+    "META-INF/com.io7m.cantoria/snapshot.properties";
+
+  /**
+   * The snapshot format version written by this implementation.
+   */
+
+  public static final int FORMAT_VERSION = 1;
+
+  private CModuleSnapshots()
+  {
+    throw new UnreachableCodeException();
+  }
+
+  private static byte[] moduleInfoOf(
+    final CModuleType module)
+  {
+    final ClassNode node = new ClassNode(Opcodes.ASM7);
+    node.version = Opcodes.V9;
+    node.access = Opcodes.ACC_MODULE;
+    node.name = "module-info";
+    node.module = module.node();
+
+    final ClassWriter writer = new ClassWriter(0);
+    node.accept(writer);
+    return writer.toByteArray();
+  }
+
+  private static byte[] metadataOf(
+    final CModuleType module,
+    final CVersion version)
+  {
+    final String text =
+      new StringBuilder(128)
+        .append("format=")
+        .append(FORMAT_VERSION)
+        .append('\n')
+        .append("module=")
+        .append(module.descriptor().name())
+        .append('\n')
+        .append("version=")
+        .append(CVersions.showVersion(version))
+        .append('\n')
+        .toString();
+    return text.getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Export a snapshot of the given module. The snapshot contains the classes
+   * of all packages exported by the module, whether qualified or not, and
+   * the superclasses and superinterfaces of those classes that are contained
+   * in the module, whether exported or not.
+   *
+   * @param module  The module
+   * @param version The module version recorded in the snapshot
+   * @param output  The output file
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static void export(
+    final CModuleType module,
+    final CVersion version,
+    final Path output)
+    throws IOException
+  {
+    Objects.requireNonNull(module, "Module");
+    Objects.requireNonNull(version, "Version");
+    Objects.requireNonNull(output, "Output");
+
+    SortedMap<String, byte[]> entries = TreeMap.empty();
+    entries = entries.put(METADATA_ENTRY, metadataOf(module, version));
+    entries = entries.put("module-info.class", moduleInfoOf(module));
+
+    /*
+     * Start from the classes of the exported packages, and then add every
+     * superclass and superinterface that the module itself contains, so that
+     * the ancestors of exported classes can be resolved against the snapshot.
+     */
+
+    final Deque<String> pending = new ArrayDeque<>();
+    final List<ModuleExportNode> exports = module.node().exports;
+    if (exports != null) {
+      for (final ModuleExportNode export : exports) {
+        final String package_name = CClassNames.toDottedName(export.packaze);
+        for (final String class_name : module.classesInPackage(package_name)) {
+          pending.add(export.packaze + "/" + class_name);
+        }
+      }
+    }
+
+    while (!pending.isEmpty()) {
+      final String name = pending.remove();
+      final String entry_name = name + ".class";
+      if (entries.containsKey(entry_name)) {
+        continue;
+      }
+
+      final Optional<byte[]> data_opt = classBytesOf(module, name);
+      if (!data_opt.isPresent()) {
+        continue;
+      }
+
+      final byte[] data = data_opt.get();
+      entries = entries.put(
+        entry_name, CModuleSkeletons.skeletonOf(entry_name, data));
+
+      final ClassReader reader = new ClassReader(data);
+      final String super_name = reader.getSuperName();
+      if (super_name != null) {
+        pending.add(super_name);
+      }
+      Collections.addAll(pending, reader.getInterfaces());
+    }
+
+    CModuleSkeletons.write(output, entries);
+  }
+
+  /**
+   * @return The bytes of the class with the given internal name, if the
+   * module contains it
+   */
+
+  private static Optional<byte[]> classBytesOf(
+    final CModuleType module,
+    final String name)
+    throws IOException
+  {
+    final int slash = name.lastIndexOf('/');
+    final String package_name =
+      slash < 0 ? "" : CClassNames.toDottedName(name.substring(0, slash));
+    final String class_name = name.substring(slash + 1);
+
+    final Optional<InputStream> stream_opt =
+      module.classBytes(package_name, class_name);
+    if (!stream_opt.isPresent()) {
+      return Optional.empty();
+    }
+
+    try (InputStream stream = stream_opt.get()) {
+      return Optional.of(stream.readAllBytes());
+    }
+  }
+
+  private static Optional<Properties> metadata(
+    final Path path)
+    throws IOException
+  {
+    try (ZipFile zip = new ZipFile(path.toFile())) {
+      final ZipEntry entry = zip.getEntry(METADATA_ENTRY);
+      if (entry == null) {
+        return Optional.empty();
+      }
+
+      try (InputStream stream = zip.getInputStream(entry)) {
+        final Properties properties = new Properties();
+        properties.load(new InputStreamReader(stream, StandardCharsets.UTF_8));
+        return Optional.of(properties);
+      }
+    }
+  }
+
+  /**
+   * @param path An archive
+   *
+   * @return {@code true} if the given archive is a snapshot
+   *
+   * @throws IOException On I/O errors
+   */
+
+  public static boolean isSnapshot(
+    final Path path)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "Path");
+    return metadata(path).isPresent();
+  }
+
+  /**
+   * @param path A snapshot
+   *
+   * @return The module version recorded in the given snapshot
+   *
+   * @throws IOException On I/O errors, or if the file is not a snapshot in a
+   *                     supported format
+   */
+
+  public static CVersion version(
+    final Path path)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "Path");
+    return CVersions.parse(checkedMetadata(path).getProperty("version"));
+  }
+
+  private static Properties checkedMetadata(
+    final Path path)
+    throws IOException
+  {
+    final Optional<Properties> properties_opt = metadata(path);
+    if (!properties_opt.isPresent()) {
+      throw new IOException("Not a module snapshot: " + path);
+    }
+
+    final Properties properties = properties_opt.get();
+    final String format = properties.getProperty("format");
+    if (!Objects.equals(format, Integer.toString(FORMAT_VERSION))) {
+      throw new IOException(
+        new StringBuilder(128)
+          .append("Unsupported snapshot format: ")
+          .append(path)
+          .append(": format ")
+          .append(format)
+          .append(" (supported: ")
+          .append(FORMAT_VERSION)
+          .append(")")
+          .toString());
+    }
+    return properties;
+  }
+
+  /**
+   * Open a snapshot.
+   *
+   * @param loader  The loader used to open the snapshot archive
+   * @param path    The snapshot
+   * @param version The module version
+   * @param mode    The mode used to parse classes
+   *
+   * @return An opened module
+   *
+   * @throws IOException On I/O errors, or if the file is not a snapshot in a
+   *                     supported format
+   */
+
+  public static CModuleType open(
+    final CModuleLoaderType loader,
+    final Path path,
+    final CVersion version,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    Objects.requireNonNull(loader, "Loader");
+    Objects.requireNonNull(path, "Path");
+    Objects.requireNonNull(version, "Version");
+    Objects.requireNonNull(mode, "Mode");
+
+    checkedMetadata(path);
+    return loader.open(path, version, mode);
+  }
+}
@@ -19,8 +19,11 @@ package com.io7m.cantoria.modules.vanilla;
 import com.io7m.cantoria.api.CArchiveDescriptor;
 import com.io7m.cantoria.api.CArchiveType;
 import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassDigest;
+import com.io7m.cantoria.api.CClassHeader;
 import com.io7m.cantoria.api.CClassName;
 import com.io7m.cantoria.api.CClassNames;
+import com.io7m.cantoria.api.CClassParsingMode;
 import com.io7m.cantoria.api.CClasses;
 import com.io7m.cantoria.api.CModuleDescriptor;
 import com.io7m.cantoria.api.CModuleDescriptors;
@@ -29,6 +32,8 @@ import com.io7m.cantoria.api.CVersion;
 import com.io7m.cantoria.api.CVersions;
 import com.io7m.cantoria.modules.api.CModuleLoaderType;
 import com.io7m.jaffirm.core.Preconditions;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.Map;
 import io.vavr.collection.SortedSet;
 import io.vavr.collection.TreeSet;
 import org.objectweb.asm.tree.ClassNode;
@@ -38,18 +43,15 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.UncheckedIOException;
 import java.net.URI;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Enumeration;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.Spliterator;
-import java.util.Spliterators;
-import java.util.regex.Pattern;
-import java.util.stream.StreamSupport;
+import java.util.stream.Stream;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
@@ -62,9 +64,6 @@ public final class CModules implements CModuleLoaderType
   private static final Logger LOG =
     LoggerFactory.getLogger(CModules.class);
 
-  private static final Pattern MATCH_CLASS_NAME =
-    Pattern.compile("\\.class$");
-
   /**
    * Instantiate a module loader. This method is intended to be used by
    * {@link java.util.ServiceLoader}.
@@ -75,12 +74,75 @@ public final class CModules implements CModuleLoaderType
 
   }
 
+  /**
+   * Add the class file with the given {@code a/b/C.class} style name to the
+   * package index. Entries that are not class files are ignored.
+   */
+
+  private static Map<String, SortedSet<String>> indexAdd(
+    final Map<String, SortedSet<String>> index,
+    final String file_name)
+  {
+    if (!file_name.endsWith(".class")) {
+      return index;
+    }
+
+    final int slash = file_name.lastIndexOf('/');
+    final String package_name =
+      slash < 0 ? "" : CClassNames.toDottedName(file_name.substring(0, slash));
+    final String class_name =
+      file_name.substring(slash + 1, file_name.length() - ".class".length());
+
+    return index.put(
+      package_name,
+      index.getOrElse(package_name, TreeSet.empty()).add(class_name));
+  }
+
+  /**
+   * Build an index of the classes in each package of the given archive.
+   */
+
+  private static Map<String, SortedSet<String>> indexZip(
+    final ZipFile input)
+  {
+    Map<String, SortedSet<String>> index = HashMap.empty();
+    final Enumeration<? extends ZipEntry> entries = input.entries();
+    while (entries.hasMoreElements()) {
+      final ZipEntry entry = entries.nextElement();
+      if (!entry.isDirectory()) {
+        index = indexAdd(index, entry.getName());
+      }
+    }
+    return index;
+  }
+
+  /**
+   * Build an index of the classes in each package of the given platform
+   * module.
+   */
+
+  private static Map<String, SortedSet<String>> indexPlatform(
+    final Path module_path)
+    throws IOException
+  {
+    Map<String, SortedSet<String>> index = HashMap.empty();
+    try (Stream<Path> paths = Files.walk(module_path)) {
+      for (final Path path : (Iterable<Path>) paths::iterator) {
+        if (Files.isRegularFile(path)) {
+          index = indexAdd(index, module_path.relativize(path).toString());
+        }
+      }
+    }
+    return index;
+  }
+
   /**
    * Open an archive and parse the module descriptor.
    *
    * @param path    The path to the file, for diagnostic purposes
    * @param version The archive version
    * @param input   The archive input
+   * @param mode    The mode used to parse classes
    *
    * @return An opened module
    *
@@ -91,12 +153,14 @@ public final class CModules implements CModuleLoaderType
   public CModuleType openFromZip(
     final Path path,
     final CVersion version,
-    final ZipFile input)
+    final ZipFile input,
+    final CClassParsingMode mode)
     throws IOException
   {
     Objects.requireNonNull(path, "Path");
     Objects.requireNonNull(version, "Version");
     Objects.requireNonNull(input, "Input");
+    Objects.requireNonNull(mode, "Mode");
 
     final CArchiveDescriptor archive_descriptor =
       CArchiveDescriptor.of(path, version);
@@ -110,7 +174,8 @@ public final class CModules implements CModuleLoaderType
 
       final ZipArchive zip_archive =
         new ZipArchive(input, archive_descriptor);
-      return new OrdinaryModule(zip_archive, module, module_node);
+      return new OrdinaryModule(
+        zip_archive, module, module_node, indexZip(input), mode);
     }
   }
 
@@ -119,6 +184,7 @@ public final class CModules implements CModuleLoaderType
    *
    * @param path    The path to the file, for diagnostic purposes
    * @param version The archive version
+   * @param mode    The mode used to parse classes
    *
    * @return An opened module
    *
@@ -128,12 +194,14 @@ public final class CModules implements CModuleLoaderType
   @Override
   public CModuleType open(
     final Path path,
-    final CVersion version)
+    final CVersion version,
+    final CClassParsingMode mode)
     throws IOException
   {
     Objects.requireNonNull(path, "Path");
     Objects.requireNonNull(version, "Version");
-    return this.openFromZip(path, version, new ZipFile(path.toFile()));
+    Objects.requireNonNull(mode, "Mode");
+    return this.openFromZip(path, version, new ZipFile(path.toFile()), mode);
   }
 
   @Override
@@ -172,6 +240,7 @@ public final class CModules implements CModuleLoaderType
    * Open the named platform modules.
    *
    * @param name The modules name
+   * @param mode The mode used to parse classes
    *
    * @return An opened modules
    *
@@ -180,9 +249,13 @@ public final class CModules implements CModuleLoaderType
 
   @Override
   public CModuleType openPlatformModule(
-    final String name)
+    final String name,
+    final CClassParsingMode mode)
     throws IOException
   {
+    Objects.requireNonNull(name, "Name");
+    Objects.requireNonNull(mode, "Mode");
+
     final FileSystem filesystem =
       FileSystems.getFileSystem(URI.create("jrt:/"));
     final Path module_path =
@@ -208,7 +281,9 @@ public final class CModules implements CModuleLoaderType
         archive,
         module_path,
         module_node,
-        module_desc);
+        module_desc,
+        indexPlatform(module_path),
+        mode);
     }
   }
 
@@ -299,12 +374,16 @@ public final class CModules implements CModuleLoaderType
     private final CModuleDescriptor module_desc;
     private final Path module_path;
     private final CArchiveType archive;
+    private final Map<String, SortedSet<String>> packages;
+    private final CClassParsingMode mode;
 
     PlatformModule(
       final CArchiveType in_archive,
       final Path in_module_path,
       final ModuleNode in_module_node,
-      final CModuleDescriptor in_module_desc)
+      final CModuleDescriptor in_module_desc,
+      final Map<String, SortedSet<String>> in_packages,
+      final CClassParsingMode in_mode)
     {
       this.archive =
         Objects.requireNonNull(in_archive, "Archive");
@@ -314,12 +393,10 @@ public final class CModules implements CModuleLoaderType
         Objects.requireNonNull(in_module_node, "Module node");
       this.module_desc =
         Objects.requireNonNull(in_module_desc, "Module descriptor");
-    }
-
-    private static boolean looksLikeClassFile(
-      final Path path)
-    {
-      return path.getFileName().toString().endsWith(".class");
+      this.packages =
+        Objects.requireNonNull(in_packages, "Packages");
+      this.mode =
+        Objects.requireNonNull(in_mode, "Mode");
     }
 
     @Override
@@ -346,6 +423,12 @@ public final class CModules implements CModuleLoaderType
       return this.module_node;
     }
 
+    @Override
+    public CClassParsingMode parsingMode()
+    {
+      return this.mode;
+    }
+
     @Override
     public Optional<InputStream> classBytes(
       final String package_name,
@@ -386,7 +469,8 @@ public final class CModules implements CModuleLoaderType
 
       if (opt_stream.isPresent()) {
         try (InputStream stream = opt_stream.get()) {
-          final ClassNode node = CClasses.classNodeFromStream(stream);
+          final ClassNode node =
+            CClasses.classNodeFromStream(stream, this.mode);
           final CClassName name =
             CClassName.of(this.module_desc.name(), package_name, class_name);
           return Optional.of(CClasses.classOf(name, this, node));
@@ -405,17 +489,7 @@ public final class CModules implements CModuleLoaderType
       Preconditions.checkPrecondition(
         !this.isClosed(), "Module archive must be open");
 
-      final Path path =
-        this.module_path.resolve(CClassNames.toDashedName(package_name));
-
-      try {
-        return TreeSet.ofAll(
-          Files.list(path)
-            .filter(PlatformModule::looksLikeClassFile)
-            .map(Path::toString));
-      } catch (final IOException e) {
-        throw new UncheckedIOException(e);
-      }
+      return this.packages.getOrElse(package_name, TreeSet.empty());
     }
 
     @Override
@@ -431,11 +505,15 @@ public final class CModules implements CModuleLoaderType
     private final ZipArchive archive;
     private final CModuleDescriptor module_desc;
     private final ModuleNode module_node;
+    private final Map<String, SortedSet<String>> packages;
+    private final CClassParsingMode mode;
 
     OrdinaryModule(
       final ZipArchive in_archive,
       final CModuleDescriptor in_module_descriptor,
-      final ModuleNode in_module_node)
+      final ModuleNode in_module_node,
+      final Map<String, SortedSet<String>> in_packages,
+      final CClassParsingMode in_mode)
     {
       this.archive =
         Objects.requireNonNull(in_archive, "Archive");
@@ -443,23 +521,24 @@ public final class CModules implements CModuleLoaderType
         Objects.requireNonNull(in_module_descriptor, "Module descriptor");
       this.module_node =
         Objects.requireNonNull(in_module_node, "Module node");
+      this.packages =
+        Objects.requireNonNull(in_packages, "Packages");
+      this.mode =
+        Objects.requireNonNull(in_mode, "Mode");
     }
 
-    private static String parseClassName(
-      final String file_name)
-    {
-      final String no_class =
-        MATCH_CLASS_NAME.matcher(file_name).replaceAll("");
-      return CClassNames.parseFullyQualifiedDotted(
-        CClassNames.toDottedName(no_class))._2;
-    }
-
-    private static boolean looksLikeClassInPackage(
-      final String package_slash,
-      final ZipEntry entry)
+    private static String entryName(
+      final String package_name,
+      final String class_name)
     {
-      return entry.getName().startsWith(package_slash)
-        && entry.getName().endsWith(".class");
+      final StringBuilder sb = new StringBuilder(64);
+      if (!package_name.isEmpty()) {
+        sb.append(package_name.replace(".", "/"));
+        sb.append("/");
+      }
+      sb.append(class_name);
+      sb.append(".class");
+      return sb.toString();
     }
 
     @Override
@@ -487,15 +566,7 @@ public final class CModules implements CModuleLoaderType
       Preconditions.checkPrecondition(
         !this.isClosed(), "Module archive must be open");
 
-      final StringBuilder sb = new StringBuilder(64);
-      if (!package_name.isEmpty()) {
-        sb.append(package_name.replace(".", "/"));
-        sb.append("/");
-      }
-      sb.append(class_name);
-      sb.append(".class");
-
-      final String name = sb.toString();
+      final String name = entryName(package_name, class_name);
       LOG.debug("classBytes: {}: {}", this.archive.zip.getName(), name);
 
       final ZipEntry e = this.archive.zip.getEntry(name);
@@ -505,6 +576,52 @@ public final class CModules implements CModuleLoaderType
       return Optional.of(this.archive.zip.getInputStream(e));
     }
 
+    @Override
+    public Optional<CClassDigest> classDigest(
+      final String package_name,
+      final String class_name)
+    {
+      Objects.requireNonNull(package_name, "Package name");
+      Objects.requireNonNull(class_name, "Class name");
+
+      Preconditions.checkPrecondition(
+        !this.isClosed(), "Module archive must be open");
+
+      final ZipEntry e =
+        this.archive.zip.getEntry(entryName(package_name, class_name));
+      if (e == null || e.getCrc() == -1L || e.getSize() == -1L) {
+        return Optional.empty();
+      }
+      return Optional.of(CClassDigest.of(e.getCrc(), e.getSize()));
+    }
+
+    @Override
+    public Optional<CClassHeader> classHeader(
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      Objects.requireNonNull(package_name, "Package name");
+      Objects.requireNonNull(class_name, "Class name");
+
+      Preconditions.checkPrecondition(
+        !this.isClosed(), "Module archive must be open");
+
+      final ZipEntry e =
+        this.archive.zip.getEntry(entryName(package_name, class_name));
+      if (e == null) {
+        return Optional.empty();
+      }
+
+      /*
+       * Only the prefix of the entry that contains the header is inflated.
+       */
+
+      try (InputStream stream = this.archive.zip.getInputStream(e)) {
+        return Optional.of(CClasses.classHeaderFromStream(stream));
+      }
+    }
+
     @Override
     public Optional<CClass> classValue(
       final String package_name,
@@ -522,7 +639,8 @@ public final class CModules implements CModuleLoaderType
 
       if (opt_stream.isPresent()) {
         try (InputStream stream = opt_stream.get()) {
-          final ClassNode node = CClasses.classNodeFromStream(stream);
+          final ClassNode node =
+            CClasses.classNodeFromStream(stream, this.mode);
           final CClassName name =
             CClassName.of(this.module_desc.name(), package_name, class_name);
           return Optional.of(CClasses.classOf(name, this, node));
@@ -541,17 +659,7 @@ public final class CModules implements CModuleLoaderType
       Preconditions.checkPrecondition(
         !this.isClosed(), "Module archive must be open");
 
-      final String package_slash =
-        CClassNames.toDashedName(package_name);
-      final Spliterator<ZipEntry> split =
-        Spliterators.spliteratorUnknownSize(
-          this.archive.zip.entries().asIterator(),
-          Spliterator.ORDERED);
-
-      return TreeSet.ofAll(
-        StreamSupport.stream(split, false)
-          .filter(e -> looksLikeClassInPackage(package_slash, e))
-          .map(e -> parseClassName(e.getName())));
+      return this.packages.getOrElse(package_name, TreeSet.empty());
     }
 
     @Override
@@ -578,6 +686,12 @@ public final class CModules implements CModuleLoaderType
       return this.module_node;
     }
 
+    @Override
+    public CClassParsingMode parsingMode()
+    {
+      return this.mode;
+    }
+
     @Override
     public void close()
       throws IOException
@@ -0,0 +1,1025 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.modules.vanilla;
+
+import com.io7m.cantoria.api.CArchiveDescriptor;
+import com.io7m.cantoria.api.CArchiveType;
+import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassDigest;
+import com.io7m.cantoria.api.CClassHeader;
+import com.io7m.cantoria.api.CClassName;
+import com.io7m.cantoria.api.CClassNames;
+import com.io7m.cantoria.api.CClassParsingMode;
+import com.io7m.cantoria.api.CClasses;
+import com.io7m.cantoria.api.CModuleDescriptor;
+import com.io7m.cantoria.api.CModuleDescriptors;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import com.io7m.jaffirm.core.Preconditions;
+import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeSet;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.ModuleNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * A module loader that memory-maps archives instead of reading them through
+ * {@link ZipFile}. The central directory of each archive is parsed once into a
+ * compact table of offsets. When classes are parsed, entries that are stored
+ * uncompressed are copied from the mapping, and compressed entries are
+ * inflated from the mapping, into reusable buffers, so that no per-class
+ * buffers are allocated. Platform modules are loaded in the same manner as
+ * {@link CModules}. This loader is registered after {@link CModules}, so
+ * the command line tools only use it when it is selected by name with the
+ * {@code --module-loader} option.
+ */
+
+public final class CModulesMapped implements CModuleLoaderType
+{
+  private static final Logger LOG =
+    LoggerFactory.getLogger(CModulesMapped.class);
+
+  private static final int SIGNATURE_END = 0x06054b50;
+  private static final int SIGNATURE_CENTRAL = 0x02014b50;
+  private static final int SIGNATURE_LOCAL = 0x04034b50;
+  private static final int END_SIZE = 22;
+  private static final int END_COMMENT_MAXIMUM = 0xffff;
+  private static final int CENTRAL_SIZE = 46;
+  private static final int LOCAL_SIZE = 30;
+  private static final int METHOD_STORED = 0;
+  private static final int METHOD_DEFLATED = 8;
+  private static final int FLAG_ENCRYPTED = 0x1;
+
+  private final CModules platform;
+
+  /**
+   * Instantiate a module loader. This method is intended to be used by
+   * {@link java.util.ServiceLoader}.
+   */
+
+  public CModulesMapped()
+  {
+    this.platform = new CModules();
+  }
+
+  private static MappedByteBuffer map(
+    final Path file)
+    throws IOException
+  {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      final long size = channel.size();
+      if (size > (long) Integer.MAX_VALUE) {
+        throw new ZipException(
+          "Archive is too large to be mapped: " + file);
+      }
+
+      /*
+       * The mapping remains valid after the channel is closed, so no file
+       * descriptor is held for the lifetime of the module.
+       */
+
+      final MappedByteBuffer buffer =
+        channel.map(FileChannel.MapMode.READ_ONLY, 0L, size);
+      buffer.order(ByteOrder.LITTLE_ENDIAN);
+      return buffer;
+    }
+  }
+
+  private static int findEnd(
+    final Path file,
+    final ByteBuffer buffer)
+    throws ZipException
+  {
+    final int limit = buffer.limit();
+    final int lowest = Math.max(0, limit - (END_SIZE + END_COMMENT_MAXIMUM));
+    for (int offset = limit - END_SIZE; offset >= lowest; --offset) {
+      if (buffer.getInt(offset) == SIGNATURE_END) {
+        return offset;
+      }
+    }
+    throw new ZipException("No end of central directory record: " + file);
+  }
+
+  private static MappedDirectory parseDirectory(
+    final Path file,
+    final ByteBuffer buffer)
+    throws ZipException
+  {
+    final int end = findEnd(file, buffer);
+    final int count = Short.toUnsignedInt(buffer.getShort(end + 10));
+    final long directory_size = Integer.toUnsignedLong(buffer.getInt(end + 12));
+    final long directory_offset = Integer.toUnsignedLong(buffer.getInt(end + 16));
+
+    if (count == 0xffff || directory_offset == 0xffffffffL) {
+      throw new ZipException("Zip64 archives are not supported: " + file);
+    }
+    if (directory_offset + directory_size > (long) end) {
+      throw new ZipException("Malformed central directory: " + file);
+    }
+
+    final ArrayList<MappedEntry> entries = new ArrayList<>(count);
+    int offset = (int) directory_offset;
+    for (int index = 0; index < count; ++index) {
+      if (buffer.getInt(offset) != SIGNATURE_CENTRAL) {
+        throw new ZipException(
+          "Malformed central directory entry at offset " + offset + ": " + file);
+      }
+
+      final int flags = Short.toUnsignedInt(buffer.getShort(offset + 8));
+      final int method = Short.toUnsignedInt(buffer.getShort(offset + 10));
+      final int crc = buffer.getInt(offset + 16);
+      final long size_compressed =
+        Integer.toUnsignedLong(buffer.getInt(offset + 20));
+      final long size =
+        Integer.toUnsignedLong(buffer.getInt(offset + 24));
+      final int name_length = Short.toUnsignedInt(buffer.getShort(offset + 28));
+      final int extra_length = Short.toUnsignedInt(buffer.getShort(offset + 30));
+      final int comment_length =
+        Short.toUnsignedInt(buffer.getShort(offset + 32));
+      final long local_offset =
+        Integer.toUnsignedLong(buffer.getInt(offset + 42));
+
+      final String name =
+        StandardCharsets.UTF_8.decode(
+          buffer.duplicate()
+            .position(offset + CENTRAL_SIZE)
+            .limit(offset + CENTRAL_SIZE + name_length))
+          .toString();
+
+      if (name.endsWith(".class")) {
+        if (size > (long) Integer.MAX_VALUE
+          || size_compressed > (long) Integer.MAX_VALUE
+          || local_offset > (long) Integer.MAX_VALUE) {
+          throw new ZipException("Zip64 entries are not supported: " + name);
+        }
+        if ((flags & FLAG_ENCRYPTED) == FLAG_ENCRYPTED) {
+          throw new ZipException("Encrypted entries are not supported: " + name);
+        }
+
+        entries.add(new MappedEntry(
+          name,
+          (int) local_offset,
+          (int) size_compressed,
+          (int) size,
+          method,
+          crc));
+      }
+
+      offset += CENTRAL_SIZE + name_length + extra_length + comment_length;
+    }
+
+    return MappedDirectory.of(entries);
+  }
+
+  private static CModuleType openMapped(
+    final Path path,
+    final Path file,
+    final CVersion version,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    final MappedByteBuffer buffer = map(file);
+    final MappedDirectory directory = parseDirectory(file, buffer);
+    final MappedArchive archive =
+      new MappedArchive(
+        CArchiveDescriptor.of(path, version), buffer, directory);
+
+    LOG.debug(
+      "mapped {} ({} class entries)", file, Integer.valueOf(directory.names.length));
+
+    final int index = directory.find("module-info.class");
+    if (index < 0) {
+      throw new NoSuchFileException(
+        path.toString(), null, "Archive has no module descriptor");
+    }
+
+    final ModuleNode module_node;
+    try (InputStream stream = archive.stream(index)) {
+      module_node = CModuleDescriptors.loadModuleNode(stream);
+    }
+
+    final CModuleDescriptor module =
+      CModuleDescriptors.loadModuleDescriptor(module_node);
+    return new MappedModule(archive, module, module_node, mode);
+  }
+
+  @Override
+  public String name()
+  {
+    return CModulesMapped.class.getCanonicalName();
+  }
+
+  @Override
+  public SortedSet<String> listPlatformModules()
+    throws IOException
+  {
+    return this.platform.listPlatformModules();
+  }
+
+  @Override
+  public CModuleType openPlatformModule(
+    final String name,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    return this.platform.openPlatformModule(name, mode);
+  }
+
+  @Override
+  public CModuleType open(
+    final Path path,
+    final CVersion version,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "Path");
+    Objects.requireNonNull(version, "Version");
+    Objects.requireNonNull(mode, "Mode");
+
+    return openMapped(path, path, version, mode);
+  }
+
+  /**
+   * Open an archive and parse the module descriptor. The archive is mapped
+   * using the file named by {@code input}, and {@code input} is closed once
+   * the mapping has been established.
+   *
+   * @param path    The path to the file, for diagnostic purposes
+   * @param version The archive version
+   * @param input   The archive input
+   * @param mode    The mode used to parse classes
+   *
+   * @return An opened module
+   *
+   * @throws IOException On I/O errors
+   */
+
+  @Override
+  public CModuleType openFromZip(
+    final Path path,
+    final CVersion version,
+    final ZipFile input,
+    final CClassParsingMode mode)
+    throws IOException
+  {
+    Objects.requireNonNull(path, "Path");
+    Objects.requireNonNull(version, "Version");
+    Objects.requireNonNull(input, "Input");
+    Objects.requireNonNull(mode, "Mode");
+
+    final Path file = Paths.get(input.getName());
+    input.close();
+
+    return openMapped(path, file, version, mode);
+  }
+
+  private static final class MappedEntry
+  {
+    private final String name;
+    private final int local_offset;
+    private final int size_compressed;
+    private final int size;
+    private final int method;
+    private final int crc;
+
+    MappedEntry(
+      final String in_name,
+      final int in_local_offset,
+      final int in_size_compressed,
+      final int in_size,
+      final int in_method,
+      final int in_crc)
+    {
+      this.name = Objects.requireNonNull(in_name, "Name");
+      this.local_offset = in_local_offset;
+      this.size_compressed = in_size_compressed;
+      this.size = in_size;
+      this.method = in_method;
+      this.crc = in_crc;
+    }
+  }
+
+  /**
+   * The class file entries of an archive, sorted by name. Entries are held in
+   * parallel arrays rather than as individual objects.
+   */
+
+  private static final class MappedDirectory
+  {
+    private final String[] names;
+    private final int[] local_offsets;
+    private final int[] sizes_compressed;
+    private final int[] sizes;
+    private final byte[] methods;
+    private final int[] crcs;
+
+    private MappedDirectory(
+      final int count)
+    {
+      this.names = new String[count];
+      this.local_offsets = new int[count];
+      this.sizes_compressed = new int[count];
+      this.sizes = new int[count];
+      this.methods = new byte[count];
+      this.crcs = new int[count];
+    }
+
+    static MappedDirectory of(
+      final ArrayList<MappedEntry> entries)
+    {
+      entries.sort((x, y) -> x.name.compareTo(y.name));
+
+      final MappedDirectory directory = new MappedDirectory(entries.size());
+      for (int index = 0; index < entries.size(); ++index) {
+        final MappedEntry entry = entries.get(index);
+        directory.names[index] = entry.name;
+        directory.local_offsets[index] = entry.local_offset;
+        directory.sizes_compressed[index] = entry.size_compressed;
+        directory.sizes[index] = entry.size;
+        directory.methods[index] = (byte) entry.method;
+        directory.crcs[index] = entry.crc;
+      }
+      return directory;
+    }
+
+    int find(
+      final String name)
+    {
+      return Arrays.binarySearch(this.names, name);
+    }
+
+    SortedSet<String> classesInPackage(
+      final String package_slash)
+    {
+      final String prefix = package_slash.isEmpty() ? "" : package_slash + "/";
+      final int start = this.find(prefix);
+      int index = start < 0 ? -(start + 1) : start;
+
+      TreeSet<String> results = TreeSet.empty();
+      while (index < this.names.length) {
+        final String name = this.names[index];
+        if (!name.startsWith(prefix)) {
+          break;
+        }
+
+        final String file_name = name.substring(prefix.length());
+        if (file_name.indexOf('/') == -1) {
+          results = results.add(
+            file_name.substring(0, file_name.length() - ".class".length()));
+        }
+        ++index;
+      }
+      return results;
+    }
+  }
+
+  /**
+   * Scratch state used to inflate compressed entries. Decoders are pooled so
+   * that neither inflaters nor buffers are allocated for each entry.
+   */
+
+  private static final class Decoder
+  {
+    private final Inflater inflater;
+    private byte[] buffer;
+
+    Decoder()
+    {
+      this.inflater = new Inflater(true);
+      this.buffer = new byte[8192];
+    }
+
+    byte[] reserve(
+      final int size)
+    {
+      if (this.buffer.length < size) {
+        this.buffer = new byte[Math.max(size, this.buffer.length * 2)];
+      }
+      return this.buffer;
+    }
+  }
+
+  private static final class MappedArchive implements CArchiveType
+  {
+    private final CArchiveDescriptor descriptor;
+    private final ConcurrentLinkedQueue<Decoder> decoders;
+    private final MappedDirectory directory;
+    private volatile ByteBuffer buffer;
+
+    MappedArchive(
+      final CArchiveDescriptor in_descriptor,
+      final ByteBuffer in_buffer,
+      final MappedDirectory in_directory)
+    {
+      this.descriptor =
+        Objects.requireNonNull(in_descriptor, "Descriptor");
+      this.buffer =
+        Objects.requireNonNull(in_buffer, "Buffer");
+      this.directory =
+        Objects.requireNonNull(in_directory, "Directory");
+      this.decoders =
+        new ConcurrentLinkedQueue<>();
+    }
+
+    private static void inflate(
+      final Inflater inflater,
+      final ByteBuffer input,
+      final byte[] output,
+      final int size,
+      final String name)
+      throws IOException
+    {
+      inflater.reset();
+      inflater.setInput(input);
+
+      int total = 0;
+      while (total < size) {
+        final int r = inflateSome(inflater, output, total, size - total, name);
+        if (r == 0) {
+          break;
+        }
+        total += r;
+      }
+
+      if (total != size) {
+        throw new ZipException(
+          "Entry " + name + " inflated to " + total + " bytes, expected " + size);
+      }
+    }
+
+    /**
+     * Inflate at most {@code length} bytes into {@code output}.
+     *
+     * @return The number of bytes inflated, or {@code 0} if the compressed
+     * data is exhausted
+     */
+
+    private static int inflateSome(
+      final Inflater inflater,
+      final byte[] output,
+      final int offset,
+      final int length,
+      final String name)
+      throws ZipException
+    {
+      try {
+        final int r = inflater.inflate(output, offset, length);
+        if (r > 0) {
+          return r;
+        }
+      } catch (final DataFormatException e) {
+        throw new ZipException("Malformed entry " + name + ": " + e.getMessage());
+      }
+
+      if (inflater.needsDictionary()) {
+        throw new ZipException("Entry requires a dictionary: " + name);
+      }
+      if (inflater.finished() || inflater.needsInput()) {
+        return 0;
+      }
+      throw new ZipException("Inflater made no progress on entry " + name);
+    }
+
+    /**
+     * @return A read-only slice of the mapping containing the raw data of the
+     * entry at the given index
+     */
+
+    private ByteBuffer raw(
+      final int index)
+      throws ZipException
+    {
+      final ByteBuffer map = this.buffer;
+      if (map == null) {
+        throw new ZipException("Archive is closed");
+      }
+
+      final int local = this.directory.local_offsets[index];
+      if (map.getInt(local) != SIGNATURE_LOCAL) {
+        throw new ZipException(
+          "Malformed local header for " + this.directory.names[index]);
+      }
+
+      final int name_length = Short.toUnsignedInt(map.getShort(local + 26));
+      final int extra_length = Short.toUnsignedInt(map.getShort(local + 28));
+      final int data = local + LOCAL_SIZE + name_length + extra_length;
+
+      return map.duplicate()
+        .position(data)
+        .limit(data + this.directory.sizes_compressed[index])
+        .slice();
+    }
+
+    InputStream stream(
+      final int index)
+      throws IOException
+    {
+      final ByteBuffer raw = this.raw(index);
+      final String name = this.directory.names[index];
+      final int size = this.directory.sizes[index];
+
+      switch (this.directory.methods[index]) {
+        case METHOD_STORED: {
+          return new ByteBufferInputStream(raw);
+        }
+        case METHOD_DEFLATED: {
+          return new InflatingInputStream(
+            this, this.takeDecoder(), raw, name, size);
+        }
+        default: {
+          throw new ZipException(
+            "Unsupported compression method for " + name);
+        }
+      }
+    }
+
+    ClassNode classNode(
+      final int index,
+      final CClassParsingMode mode)
+      throws IOException
+    {
+      final int size = this.directory.sizes[index];
+      final Decoder decoder = this.takeDecoder();
+      try {
+        final byte[] output = this.decode(decoder, index);
+        return CClasses.classNodeFromBytes(output, 0, size, mode);
+      } finally {
+        this.releaseDecoder(decoder);
+      }
+    }
+
+    CClassHeader classHeader(
+      final int index)
+      throws IOException
+    {
+      final int size = this.directory.sizes[index];
+      final Decoder decoder = this.takeDecoder();
+      try {
+        final byte[] output = this.decode(decoder, index);
+        return CClasses.classHeaderFromBytes(output, 0, size);
+      } finally {
+        this.releaseDecoder(decoder);
+      }
+    }
+
+    /**
+     * @return The decoder's buffer, holding the uncompressed bytes of the
+     * entry at the given index
+     */
+
+    private byte[] decode(
+      final Decoder decoder,
+      final int index)
+      throws IOException
+    {
+      final ByteBuffer raw = this.raw(index);
+      final String name = this.directory.names[index];
+      final int size = this.directory.sizes[index];
+
+      final byte[] output = decoder.reserve(size);
+      switch (this.directory.methods[index]) {
+        case METHOD_STORED: {
+          raw.get(output, 0, size);
+          return output;
+        }
+        case METHOD_DEFLATED: {
+          inflate(decoder.inflater, raw, output, size, name);
+          return output;
+        }
+        default: {
+          throw new ZipException(
+            "Unsupported compression method for " + name);
+        }
+      }
+    }
+
+    private Decoder takeDecoder()
+    {
+      final Decoder decoder = this.decoders.poll();
+      if (decoder != null) {
+        return decoder;
+      }
+      return new Decoder();
+    }
+
+    /**
+     * Return a decoder to the pool. If the archive was closed while the
+     * decoder was in use, the pool is drained again so that the decoder is
+     * ended rather than retained.
+     */
+
+    private void releaseDecoder(
+      final Decoder decoder)
+    {
+      this.decoders.add(decoder);
+      if (this.buffer == null) {
+        this.endDecoders();
+      }
+    }
+
+    private void endDecoders()
+    {
+      while (true) {
+        final Decoder decoder = this.decoders.poll();
+        if (decoder == null) {
+          break;
+        }
+        decoder.inflater.end();
+      }
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+      return this.buffer == null;
+    }
+
+    @Override
+    public CArchiveDescriptor descriptor()
+    {
+      return this.descriptor;
+    }
+
+    @Override
+    public void close()
+    {
+      if (this.buffer != null) {
+        LOG.debug("close: {}", this.descriptor.path());
+        this.buffer = null;
+        this.endDecoders();
+      }
+    }
+  }
+
+  /**
+   * A stream that inflates a compressed entry directly into the caller's
+   * buffers, using a pooled decoder that is returned when the stream is
+   * closed.
+   */
+
+  private static final class InflatingInputStream extends InputStream
+  {
+    private final MappedArchive archive;
+    private final Decoder decoder;
+    private final String name;
+    private final int size;
+    private int remaining;
+    private boolean closed;
+
+    InflatingInputStream(
+      final MappedArchive in_archive,
+      final Decoder in_decoder,
+      final ByteBuffer in_raw,
+      final String in_name,
+      final int in_size)
+    {
+      this.archive = Objects.requireNonNull(in_archive, "Archive");
+      this.decoder = Objects.requireNonNull(in_decoder, "Decoder");
+      this.name = Objects.requireNonNull(in_name, "Name");
+      this.size = in_size;
+      this.remaining = in_size;
+
+      this.decoder.inflater.reset();
+      this.decoder.inflater.setInput(Objects.requireNonNull(in_raw, "Raw"));
+    }
+
+    @Override
+    public int read()
+      throws IOException
+    {
+      final byte[] single = this.decoder.reserve(1);
+      if (this.read(single, 0, 1) == -1) {
+        return -1;
+      }
+      return Byte.toUnsignedInt(single[0]);
+    }
+
+    @Override
+    public int read(
+      final byte[] data,
+      final int offset,
+      final int length)
+      throws IOException
+    {
+      Objects.checkFromIndexSize(offset, length, data.length);
+      if (this.closed) {
+        throw new IOException("Stream is closed");
+      }
+      if (length == 0) {
+        return 0;
+      }
+      if (this.remaining == 0) {
+        return -1;
+      }
+
+      final int r =
+        MappedArchive.inflateSome(
+          this.decoder.inflater,
+          data,
+          offset,
+          Math.min(length, this.remaining),
+          this.name);
+
+      if (r == 0) {
+        throw new ZipException(
+          "Entry " + this.name + " inflated to " + (this.size - this.remaining)
+            + " bytes, expected " + this.size);
+      }
+
+      this.remaining -= r;
+      return r;
+    }
+
+    @Override
+    public int available()
+    {
+      return this.remaining;
+    }
+
+    @Override
+    public void close()
+    {
+      if (!this.closed) {
+        this.closed = true;
+        this.archive.releaseDecoder(this.decoder);
+      }
+    }
+  }
+
+  private static final class ByteBufferInputStream extends InputStream
+  {
+    private final ByteBuffer buffer;
+
+    ByteBufferInputStream(
+      final ByteBuffer in_buffer)
+    {
+      this.buffer = Objects.requireNonNull(in_buffer, "Buffer");
+    }
+
+    @Override
+    public int read()
+    {
+      if (!this.buffer.hasRemaining()) {
+        return -1;
+      }
+      return Byte.toUnsignedInt(this.buffer.get());
+    }
+
+    @Override
+    public int read(
+      final byte[] data,
+      final int offset,
+      final int length)
+    {
+      Objects.checkFromIndexSize(offset, length, data.length);
+      if (length == 0) {
+        return 0;
+      }
+      if (!this.buffer.hasRemaining()) {
+        return -1;
+      }
+
+      final int count = Math.min(length, this.buffer.remaining());
+      this.buffer.get(data, offset, count);
+      return count;
+    }
+
+    @Override
+    public long skip(
+      final long count)
+    {
+      final int skipped =
+        (int) Math.max(0L, Math.min(count, (long) this.buffer.remaining()));
+      this.buffer.position(this.buffer.position() + skipped);
+      return (long) skipped;
+    }
+
+    @Override
+    public int available()
+    {
+      return this.buffer.remaining();
+    }
+  }
+
+  private static final class MappedModule implements CModuleType
+  {
+    private final MappedArchive archive;
+    private final CModuleDescriptor module_desc;
+    private final ModuleNode module_node;
+    private final CClassParsingMode mode;
+
+    MappedModule(
+      final MappedArchive in_archive,
+      final CModuleDescriptor in_module_descriptor,
+      final ModuleNode in_module_node,
+      final CClassParsingMode in_mode)
+    {
+      this.archive =
+        Objects.requireNonNull(in_archive, "Archive");
+      this.module_desc =
+        Objects.requireNonNull(in_module_descriptor, "Module descriptor");
+      this.module_node =
+        Objects.requireNonNull(in_module_node, "Module node");
+      this.mode =
+        Objects.requireNonNull(in_mode, "Mode");
+    }
+
+    private static String entryName(
+      final String package_name,
+      final String class_name)
+    {
+      final StringBuilder sb = new StringBuilder(64);
+      if (!package_name.isEmpty()) {
+        sb.append(CClassNames.toDashedName(package_name));
+        sb.append("/");
+      }
+      sb.append(class_name);
+      sb.append(".class");
+      return sb.toString();
+    }
+
+    @Override
+    public String toString()
+    {
+      return new StringBuilder(128)
+        .append("[")
+        .append(this.module_desc.name())
+        .append(" (")
+        .append(this.archive.descriptor.path())
+        .append(")")
+        .append("]")
+        .toString();
+    }
+
+    @Override
+    public Optional<InputStream> classBytes(
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      Objects.requireNonNull(package_name, "Package name");
+      Objects.requireNonNull(class_name, "Class name");
+
+      Preconditions.checkPrecondition(
+        !this.isClosed(), "Module archive must be open");
+
+      final int index =
+        this.archive.directory.find(entryName(package_name, class_name));
+      if (index < 0) {
+        return Optional.empty();
+      }
+      return Optional.of(this.archive.stream(index));
+    }
+
+    @Override
+    public Optional<CClassHeader> classHeader(
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      Objects.requireNonNull(package_name, "Package name");
+      Objects.requireNonNull(class_name, "Class name");
+
+      Preconditions.checkPrecondition(
+        !this.isClosed(), "Module archive must be open");
+
+      final int index =
+        this.archive.directory.find(entryName(package_name, class_name));
+      if (index < 0) {
+        return Optional.empty();
+      }
+      return Optional.of(this.archive.classHeader(index));
+    }
+
+    @Override
+    public Optional<CClassDigest> classDigest(
+      final String package_name,
+      final String class_name)
+    {
+      Objects.requireNonNull(package_name, "Package name");
+      Objects.requireNonNull(class_name, "Class name");
+
+      Preconditions.checkPrecondition(
+        !this.isClosed(), "Module archive must be open");
+
+      final MappedDirectory directory = this.archive.directory;
+      final int index = directory.find(entryName(package_name, class_name));
+      if (index < 0) {
+        return Optional.empty();
+      }
+      return Optional.of(CClassDigest.of(
+        Integer.toUnsignedLong(directory.crcs[index]),
+        Integer.toUnsignedLong(directory.sizes[index])));
+    }
+
+    @Override
+    public Optional<CClass> classValue(
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      Objects.requireNonNull(package_name, "Package");
+      Objects.requireNonNull(class_name, "Class");
+
+      Preconditions.checkPrecondition(
+        !this.isClosed(), "Module archive must be open");
+
+      final int index =
+        this.archive.directory.find(entryName(package_name, class_name));
+      if (index < 0) {
+        return Optional.empty();
+      }
+
+      final ClassNode node = this.archive.classNode(index, this.mode);
+      final CClassName name =
+        CClassName.of(this.module_desc.name(), package_name, class_name);
+      return Optional.of(CClasses.classOf(name, this, node));
+    }
+
+    @Override
+    public SortedSet<String> classesInPackage(
+      final String package_name)
+    {
+      Objects.requireNonNull(package_name, "Package");
+
+      Preconditions.checkPrecondition(
+        !this.isClosed(), "Module archive must be open");
+
+      return this.archive.directory.classesInPackage(
+        CClassNames.toDashedName(package_name));
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+      return this.archive.isClosed();
+    }
+
+    @Override
+    public CModuleDescriptor descriptor()
+    {
+      return this.module_desc;
+    }
+
+    @Override
+    public CArchiveType archive()
+    {
+      return this.archive;
+    }
+
+    @Override
+    public ModuleNode node()
+    {
+      return this.module_node;
+    }
+
+    @Override
+    public CClassParsingMode parsingMode()
+    {
+      return this.mode;
+    }
+
+    @Override
+    public void close()
+    {
+      this.archive.close();
+    }
+  }
+}
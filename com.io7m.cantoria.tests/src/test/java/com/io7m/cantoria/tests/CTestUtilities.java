@@ -22,6 +22,7 @@ import com.io7m.cantoria.modules.api.CModuleLoaderType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URL;
@@ -49,15 +50,7 @@ public final class CTestUtilities
     LOG.debug("copying {} to {}", name, f);
 
     try (OutputStream out = Files.newOutputStream(f)) {
-      final String path =
-        "/com/io7m/cantoria/tests/driver/api/" + name + "/module.jar";
-      final URL url = CTestUtilities.class.getResource(path);
-
-      if (url == null) {
-        throw new NoSuchFileException(path);
-      }
-
-      try (InputStream in = url.openStream()) {
+      try (InputStream in = moduleStream(name)) {
         final byte[] buffer = new byte[8192];
         while (true) {
           final int r = in.read(buffer);
@@ -76,6 +69,20 @@ public final class CTestUtilities
       new ZipFile(f.toFile()));
   }
 
+  public static InputStream moduleStream(
+    final String name)
+    throws IOException
+  {
+    final String path =
+      "/com/io7m/cantoria/tests/driver/api/" + name + "/module.jar";
+    final URL url = CTestUtilities.class.getResource(path);
+
+    if (url == null) {
+      throw new NoSuchFileException(path);
+    }
+    return url.openStream();
+  }
+
   public static CModuleLoaderType defaultModuleLoader()
   {
     return ServiceLoader.load(CModuleLoaderType.class)
@@ -0,0 +1,124 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.api;
+
+import com.io7m.cantoria.api.CClassFingerprints;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.InsnNode;
+import org.objectweb.asm.tree.MethodNode;
+
+public final class CClassFingerprintsTest
+{
+  private static ClassNode classNode()
+  {
+    final ClassNode node = new ClassNode();
+    node.version = Opcodes.V9;
+    node.access = Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER;
+    node.name = "x/y/z/p/X";
+    node.superName = "java/lang/Object";
+    node.methods.add(new MethodNode(
+      Opcodes.ACC_PUBLIC, "f", "()V", null, null));
+    node.methods.add(new MethodNode(
+      Opcodes.ACC_PUBLIC, "g", "(I)V", null, new String[]{"java/io/IOException"}));
+    node.fields.add(new FieldNode(
+      Opcodes.ACC_PUBLIC, "x", "I", null, null));
+    return node;
+  }
+
+  @Test
+  public void testIdentical()
+  {
+    Assertions.assertEquals(
+      CClassFingerprints.fingerprint(classNode()),
+      CClassFingerprints.fingerprint(classNode()));
+  }
+
+  @Test
+  public void testIgnoresPrivateMembersAndBodies()
+  {
+    final ClassNode node = classNode();
+    node.methods.get(0).instructions.add(new InsnNode(Opcodes.RETURN));
+    node.methods.add(new MethodNode(
+      Opcodes.ACC_PRIVATE, "h", "()V", null, null));
+    node.fields.add(new FieldNode(
+      Opcodes.ACC_PRIVATE, "y", "I", null, null));
+
+    Assertions.assertEquals(
+      CClassFingerprints.fingerprint(classNode()),
+      CClassFingerprints.fingerprint(node));
+  }
+
+  @Test
+  public void testIgnoresMemberOrder()
+  {
+    final ClassNode node = classNode();
+    node.methods.add(node.methods.remove(0));
+
+    Assertions.assertEquals(
+      CClassFingerprints.fingerprint(classNode()),
+      CClassFingerprints.fingerprint(node));
+  }
+
+  @Test
+  public void testMethodAdded()
+  {
+    final ClassNode node = classNode();
+    node.methods.add(new MethodNode(
+      Opcodes.ACC_PROTECTED, "h", "()V", null, null));
+
+    Assertions.assertNotEquals(
+      CClassFingerprints.fingerprint(classNode()),
+      CClassFingerprints.fingerprint(node));
+  }
+
+  @Test
+  public void testMethodExceptionsChanged()
+  {
+    final ClassNode node = classNode();
+    node.methods.get(1).exceptions.clear();
+
+    Assertions.assertNotEquals(
+      CClassFingerprints.fingerprint(classNode()),
+      CClassFingerprints.fingerprint(node));
+  }
+
+  @Test
+  public void testFieldBecameFinal()
+  {
+    final ClassNode node = classNode();
+    node.fields.get(0).access |= Opcodes.ACC_FINAL;
+
+    Assertions.assertNotEquals(
+      CClassFingerprints.fingerprint(classNode()),
+      CClassFingerprints.fingerprint(node));
+  }
+
+  @Test
+  public void testBytecodeVersionChanged()
+  {
+    final ClassNode node = classNode();
+    node.version = Opcodes.V10;
+
+    Assertions.assertNotEquals(
+      CClassFingerprints.fingerprint(classNode()),
+      CClassFingerprints.fingerprint(node));
+  }
+}
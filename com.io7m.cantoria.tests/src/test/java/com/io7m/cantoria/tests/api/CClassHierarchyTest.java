@@ -0,0 +1,342 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.api;
+
+import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassHierarchy;
+import com.io7m.cantoria.api.CClassHierarchyType;
+import com.io7m.cantoria.api.CClassNames;
+import com.io7m.cantoria.api.CClassRegistry;
+import com.io7m.cantoria.api.CClassRegistryType;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.tests.CTestUtilities;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public final class CClassHierarchyTest
+{
+  private CModuleType java_base;
+  private CClassRegistryType registry;
+
+  /**
+   * A registry that counts the classes that are looked up in it.
+   */
+
+  private static final class CountingRegistry implements CClassRegistryType
+  {
+    private final CClassRegistryType delegate;
+    private final AtomicInteger lookups;
+    private final CClassHierarchyType hierarchy;
+
+    CountingRegistry(
+      final CClassRegistryType in_delegate)
+    {
+      this.delegate = in_delegate;
+      this.lookups = new AtomicInteger(0);
+      this.hierarchy = CClassHierarchy.create(this);
+    }
+
+    @Override
+    public Optional<CClass> findClassInModule(
+      final String module_name,
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      this.lookups.incrementAndGet();
+      return this.delegate.findClassInModule(
+        module_name, package_name, class_name);
+    }
+
+    @Override
+    public Optional<CClass> findClass(
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      this.lookups.incrementAndGet();
+      return this.delegate.findClass(package_name, class_name);
+    }
+
+    @Override
+    public CClass javaLangObject()
+      throws IOException
+    {
+      return this.delegate.javaLangObject();
+    }
+
+    @Override
+    public CClassHierarchyType hierarchy()
+    {
+      return this.hierarchy;
+    }
+  }
+
+  /**
+   * The superclass walk that the hierarchy service replaced.
+   */
+
+  private static List<CClass> superclassesByWalking(
+    final CClassRegistryType registry,
+    final CClass c)
+    throws IOException
+  {
+    CClass current = c;
+    List<CClass> supers = List.empty();
+
+    while (current.node().superName != null) {
+      final Tuple2<String, String> pair =
+        CClassNames.parseFullyQualifiedDotted(
+          CClassNames.toDottedName(current.node().superName));
+
+      final Optional<CClass> c_opt = registry.findClass(pair._1, pair._2);
+      if (c_opt.isPresent()) {
+        current = c_opt.get();
+      } else {
+        break;
+      }
+      supers = supers.prepend(current);
+    }
+
+    return supers;
+  }
+
+  private static List<String> names(
+    final List<CClass> classes)
+  {
+    return classes.map(c -> c.node().name);
+  }
+
+  private static List<String> methods(
+    final List<Tuple2<CClass, MethodNode>> members)
+  {
+    return members.map(p -> p._1.node().name + "." + p._2.name + p._2.desc);
+  }
+
+  private static List<String> fields(
+    final List<Tuple2<CClass, FieldNode>> members)
+  {
+    return members.map(p -> p._1.node().name + "." + p._2.name + p._2.desc);
+  }
+
+  private CClass find(
+    final CClassRegistryType in_registry,
+    final String package_name,
+    final String class_name)
+    throws IOException
+  {
+    return in_registry.findClass(package_name, class_name).get();
+  }
+
+  @BeforeEach
+  public void setUp()
+    throws Exception
+  {
+    this.java_base =
+      CTestUtilities.defaultModuleLoader().openPlatformModule("java.base");
+    this.registry = CClassRegistry.create(List.of(this.java_base));
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.java_base.close();
+  }
+
+  @Test
+  public void testSuperclassesAcrossModules()
+    throws Exception
+  {
+    try (CModuleType module_old =
+           CTestUtilities.module("class_internal_superclass/before");
+         CModuleType module_new =
+           CTestUtilities.module("class_internal_superclass/after")) {
+      final CClassRegistryType layer =
+        CClassRegistry.createComparison(this.registry, module_old, module_new);
+
+      final CClass x = module_new.classValue("x.y.z.p", "X").get();
+      Assertions.assertEquals(
+        List.of("java/lang/Object", "x/y/z/q/AbstractX"),
+        names(layer.hierarchy().superclassesOf(x)));
+      Assertions.assertEquals(
+        List.of("x/y/z/q/I"),
+        names(layer.hierarchy().superinterfacesOf(x)));
+      Assertions.assertEquals(
+        List.of("x/y/z/q/AbstractX.kI"),
+        fields(layer.hierarchy().superclassFieldsWithName(x, "k")));
+    }
+  }
+
+  @Test
+  public void testSuperclassesMatchWalk()
+    throws Exception
+  {
+    final CClassHierarchyType hierarchy = this.registry.hierarchy();
+    for (final String name : List.of(
+      "java.util.ArrayList",
+      "java.util.LinkedHashMap",
+      "java.io.FileNotFoundException",
+      "java.lang.Object")) {
+      final Tuple2<String, String> pair =
+        CClassNames.parseFullyQualifiedDotted(name);
+      final CClass c = this.find(this.registry, pair._1, pair._2);
+      Assertions.assertEquals(
+        names(superclassesByWalking(this.registry, c)),
+        names(hierarchy.superclassesOf(c)),
+        name);
+    }
+  }
+
+  @Test
+  public void testInterfaceClosureOrder()
+    throws Exception
+  {
+    final CClass c = this.find(this.registry, "java.util", "ArrayList");
+    Assertions.assertEquals(
+      List.of(
+        "java/util/List",
+        "java/util/Collection",
+        "java/lang/Iterable",
+        "java/util/RandomAccess",
+        "java/lang/Cloneable",
+        "java/io/Serializable"),
+      names(this.registry.hierarchy().superinterfacesOf(c)));
+  }
+
+  @Test
+  public void testInheritedMembersMatchWalk()
+    throws Exception
+  {
+    final CClassHierarchyType hierarchy = this.registry.hierarchy();
+    for (final String name : List.of(
+      "java.util.ArrayList",
+      "java.util.LinkedHashMap",
+      "java.io.FileNotFoundException")) {
+      final Tuple2<String, String> pair =
+        CClassNames.parseFullyQualifiedDotted(name);
+      final CClass c = this.find(this.registry, pair._1, pair._2);
+      final List<CClass> chain = superclassesByWalking(this.registry, c);
+
+      for (final CClass s : chain) {
+        for (final MethodNode m : s.node().methods) {
+          final List<String> expected =
+            chain.flatMap(k -> List.ofAll(k.node().methods)
+              .find(o -> o.name.equals(m.name) && o.desc.equals(m.desc))
+              .map(o -> k.node().name + "." + o.name + o.desc));
+          Assertions.assertEquals(
+            expected,
+            methods(hierarchy.superclassMethodsWithNameAndType(
+              c, m.name, m.desc)),
+            name + " " + m.name + m.desc);
+        }
+
+        for (final FieldNode f : s.node().fields) {
+          final List<String> expected_by_name =
+            chain.flatMap(k -> List.ofAll(k.node().fields)
+              .find(o -> o.name.equals(f.name))
+              .map(o -> k.node().name + "." + o.name + o.desc));
+          Assertions.assertEquals(
+            expected_by_name,
+            fields(hierarchy.superclassFieldsWithName(c, f.name)),
+            name + " " + f.name);
+
+          final List<String> expected_by_type =
+            chain.flatMap(k -> List.ofAll(k.node().fields)
+              .find(o -> o.name.equals(f.name) && o.desc.equals(f.desc))
+              .map(o -> k.node().name + "." + o.name + o.desc));
+          Assertions.assertEquals(
+            expected_by_type,
+            fields(hierarchy.superclassFieldsWithNameAndType(
+              c, f.name, f.desc)),
+            name + " " + f.name + " " + f.desc);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testMemoSharedByCommonAncestor()
+    throws Exception
+  {
+    final CClassHierarchyType hierarchy = this.registry.hierarchy();
+    final CClass array_list = this.find(this.registry, "java.util", "ArrayList");
+    final CClass vector = this.find(this.registry, "java.util", "Vector");
+
+    Assertions.assertEquals(
+      array_list.node().superName, vector.node().superName);
+    Assertions.assertSame(
+      hierarchy.superclassesOf(array_list),
+      hierarchy.superclassesOf(vector));
+  }
+
+  @Test
+  public void testMemoReusedUnderConcurrentLookups()
+    throws Exception
+  {
+    final CountingRegistry counting = new CountingRegistry(this.registry);
+    final CClass c = this.find(this.registry, "java.util", "LinkedHashMap");
+    final List<String> expected =
+      names(superclassesByWalking(this.registry, c));
+
+    final ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      final ArrayList<CompletableFuture<List<CClass>>> futures =
+        new ArrayList<>();
+      for (int index = 0; index < 64; ++index) {
+        futures.add(CompletableFuture.supplyAsync(() -> {
+          try {
+            return counting.hierarchy().superclassesOf(c);
+          } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }, pool));
+      }
+
+      final List<CClass> retained = counting.hierarchy().superclassesOf(c);
+      for (final CompletableFuture<List<CClass>> future : futures) {
+        Assertions.assertEquals(expected, names(future.join()));
+      }
+      Assertions.assertEquals(expected, names(retained));
+    } finally {
+      pool.shutdown();
+    }
+
+    final int lookups = counting.lookups.get();
+    Assertions.assertTrue(lookups > 0);
+
+    final List<CClass> first = counting.hierarchy().superclassesOf(c);
+    final List<CClass> second = counting.hierarchy().superclassesOf(c);
+    Assertions.assertSame(first, second);
+    Assertions.assertEquals(lookups, counting.lookups.get());
+  }
+}
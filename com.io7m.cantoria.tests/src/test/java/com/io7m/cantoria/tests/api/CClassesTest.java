@@ -17,18 +17,27 @@
 package com.io7m.cantoria.tests.api;
 
 import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassHeader;
 import com.io7m.cantoria.api.CClassRegistry;
 import com.io7m.cantoria.api.CClassRegistryType;
 import com.io7m.cantoria.api.CClasses;
+import com.io7m.cantoria.api.CModuleCaching;
 import com.io7m.cantoria.api.CModuleType;
 import com.io7m.cantoria.modules.api.CModuleLoaderType;
 import com.io7m.cantoria.tests.CTestUtilities;
 import io.vavr.collection.List;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ClassNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Optional;
+
 public final class CClassesTest
 {
   private static final Logger LOG = LoggerFactory.getLogger(CClassesTest.class);
@@ -98,4 +107,114 @@ public final class CClassesTest
     final CClass clazz =
       module0.classValue("x.y.z.p", "X").get();
   }
+
+  @Test
+  public void testSuperclassesLayered()
+    throws Exception
+  {
+    final CModuleLoaderType loader = CTestUtilities.defaultModuleLoader();
+
+    final CModuleType module0 =
+      CTestUtilities.module("class_superclass_changed/before");
+    final CModuleType module1 =
+      CTestUtilities.module("class_superclass_changed/after");
+
+    final CClassRegistryType parent =
+      classRegistry(List.of(
+        CModuleCaching.wrap(loader.openPlatformModule("java.base"))));
+    final CClassRegistryType er =
+      CClassRegistry.createComparison(parent, module0, module1);
+
+    final CClass clazz0 =
+      module0.classValue("x.y.z.p", "X").get();
+    final CClass clazz1 =
+      module1.classValue("x.y.z.p", "X").get();
+
+    final List<CClass> supers0 = CClasses.superclassesOf(er, clazz0);
+    final List<CClass> supers1 = CClasses.superclassesOf(er, clazz1);
+    LOG.debug("supers0: {}", supers0);
+    LOG.debug("supers1: {}", supers1);
+
+    Assertions.assertEquals(2, supers0.size());
+    Assertions.assertEquals("x/y/z/p/Y", supers0.get(1).node().name);
+    Assertions.assertEquals(
+      module0.archive().descriptor(),
+      supers0.get(1).module().archive().descriptor());
+
+    Assertions.assertEquals(2, supers1.size());
+    Assertions.assertEquals("x/y/z/p/Z", supers1.get(1).node().name);
+    Assertions.assertEquals(
+      module1.archive().descriptor(),
+      supers1.get(1).module().archive().descriptor());
+
+    Assertions.assertSame(
+      parent.javaLangObject().node(), supers0.get(0).node());
+    Assertions.assertSame(
+      parent.javaLangObject().node(), supers1.get(0).node());
+  }
+
+  @Test
+  public void testClassHeaderFromStream()
+    throws Exception
+  {
+    final CModuleLoaderType loader = CTestUtilities.defaultModuleLoader();
+
+    try (CModuleType module = loader.openPlatformModule("java.base")) {
+      for (final String name : module.classesInPackage("java.lang")) {
+        final byte[] data;
+        try (InputStream stream = module.classBytes("java.lang", name).get()) {
+          data = stream.readAllBytes();
+        }
+
+        final CClassHeader expected =
+          CClasses.classHeaderFromBytes(data, 0, data.length);
+        final CClassHeader received =
+          CClasses.classHeaderFromStream(new ByteArrayInputStream(data));
+        Assertions.assertEquals(expected, received, name);
+
+        final ClassNode node =
+          CClasses.classNodeFromStream(new ByteArrayInputStream(data));
+        Assertions.assertEquals(
+          expected, CClasses.classHeaderFromNode(node), name);
+      }
+    }
+  }
+
+  @Test
+  public void testClassHeaderFromStreamReadsPrefixOnly()
+    throws Exception
+  {
+    final CModuleType module =
+      CTestUtilities.module("class_superclass_changed/before");
+
+    final byte[] data;
+    try (InputStream stream = module.classBytes("x.y.z.p", "X").get()) {
+      data = stream.readAllBytes();
+    }
+
+    final byte[] prefix = Arrays.copyOf(data, data.length - 8);
+    final CClassHeader header =
+      CClasses.classHeaderFromStream(new ByteArrayInputStream(prefix));
+    Assertions.assertEquals("x/y/z/p/X", header.name());
+    Assertions.assertEquals(Optional.of("x/y/z/p/Y"), header.superName());
+  }
+
+  @Test
+  public void testClassHeaderFromStreamNotClass()
+  {
+    Assertions.assertThrows(IOException.class, () -> {
+      CClasses.classHeaderFromStream(
+        new ByteArrayInputStream(new byte[]{0x0, 0x1, 0x2, 0x3, 0x4}));
+    });
+  }
+
+  @Test
+  public void testClassHeaderFromStreamTruncated()
+  {
+    Assertions.assertThrows(IOException.class, () -> {
+      CClasses.classHeaderFromStream(
+        new ByteArrayInputStream(new byte[]{
+          (byte) 0xca, (byte) 0xfe, (byte) 0xba, (byte) 0xbe, 0x0, 0x0}));
+    });
+  }
 }
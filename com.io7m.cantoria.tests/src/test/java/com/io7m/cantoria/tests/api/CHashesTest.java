@@ -0,0 +1,53 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.api;
+
+import com.io7m.cantoria.api.CHashes;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public final class CHashesTest
+{
+  @Test
+  public void testHexEmpty()
+  {
+    Assertions.assertEquals("", CHashes.hex(new byte[0]));
+  }
+
+  @Test
+  public void testHexAllBytes()
+  {
+    final byte[] data = new byte[256];
+    final StringBuilder expected = new StringBuilder(512);
+    for (int index = 0; index < 256; ++index) {
+      data[index] = (byte) index;
+      expected.append(String.format("%02x", Integer.valueOf(index)));
+    }
+    Assertions.assertEquals(expected.toString(), CHashes.hex(data));
+  }
+
+  @Test
+  public void testSHA256()
+  {
+    Assertions.assertEquals(
+      "ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad",
+      CHashes.hex(CHashes.sha256().digest(
+        "abc".getBytes(StandardCharsets.US_ASCII))));
+  }
+}
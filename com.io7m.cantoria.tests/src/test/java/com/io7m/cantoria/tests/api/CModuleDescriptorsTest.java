@@ -0,0 +1,96 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.api;
+
+import com.io7m.cantoria.api.CModuleDescriptor;
+import com.io7m.cantoria.api.CModuleDescriptors;
+import com.io7m.cantoria.api.CModuleQualifiedExport;
+import com.io7m.cantoria.api.CModuleQualifiedOpens;
+import io.vavr.collection.HashSet;
+import io.vavr.collection.TreeSet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.ModuleExportNode;
+import org.objectweb.asm.tree.ModuleNode;
+import org.objectweb.asm.tree.ModuleOpenNode;
+
+public final class CModuleDescriptorsTest
+{
+  private static ModuleNode moduleNode()
+  {
+    final ModuleNode node = new ModuleNode("x.y.z", 0, null);
+    node.visitExport("x/y/z/a", 0);
+    node.visitExport("x/y/z/b", 0, "m.n", "m.o");
+    node.visitOpen("x/y/z/c", 0);
+    node.visitOpen("x/y/z/d", 0, "m.n");
+    return node;
+  }
+
+  /**
+   * ASM 7 represents an unqualified directive with an empty module list.
+   */
+
+  @Test
+  public void testUnqualifiedEmptyList()
+    throws Exception
+  {
+    final ModuleNode node = moduleNode();
+    Assertions.assertTrue(node.exports.get(0).modules.isEmpty());
+    Assertions.assertTrue(node.opens.get(0).modules.isEmpty());
+
+    final CModuleDescriptor descriptor =
+      CModuleDescriptors.loadModuleDescriptor(node);
+
+    Assertions.assertEquals(
+      TreeSet.of("x.y.z.a"), descriptor.exportsUnqualified());
+    Assertions.assertEquals(
+      HashSet.of(
+        CModuleQualifiedExport.of("x.y.z.b", "m.n"),
+        CModuleQualifiedExport.of("x.y.z.b", "m.o")),
+      descriptor.exportsQualified());
+    Assertions.assertEquals(
+      TreeSet.of("x.y.z.c"), descriptor.opensUnqualified());
+    Assertions.assertEquals(
+      HashSet.of(CModuleQualifiedOpens.of("x.y.z.d", "m.n")),
+      descriptor.opensQualified());
+  }
+
+  /**
+   * ASM 6 represents an unqualified directive with a null module list.
+   */
+
+  @Test
+  public void testUnqualifiedNull()
+    throws Exception
+  {
+    final ModuleNode node = new ModuleNode("x.y.z", 0, null);
+    node.exports = new java.util.ArrayList<>();
+    node.exports.add(new ModuleExportNode("x/y/z/a", 0, null));
+    node.opens = new java.util.ArrayList<>();
+    node.opens.add(new ModuleOpenNode("x/y/z/c", 0, null));
+
+    final CModuleDescriptor descriptor =
+      CModuleDescriptors.loadModuleDescriptor(node);
+
+    Assertions.assertEquals(
+      TreeSet.of("x.y.z.a"), descriptor.exportsUnqualified());
+    Assertions.assertTrue(descriptor.exportsQualified().isEmpty());
+    Assertions.assertEquals(
+      TreeSet.of("x.y.z.c"), descriptor.opensUnqualified());
+    Assertions.assertTrue(descriptor.opensQualified().isEmpty());
+  }
+}
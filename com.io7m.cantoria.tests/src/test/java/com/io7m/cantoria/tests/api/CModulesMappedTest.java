@@ -0,0 +1,88 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.api;
+
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import com.io7m.cantoria.tests.modules.api.CModulesContract;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Objects;
+import java.util.ServiceLoader;
+
+public final class CModulesMappedTest extends CModulesContract
+{
+  private static boolean hasCorrectName(
+    final CModuleLoaderType p)
+  {
+    return Objects.equals(p.name(), "com.io7m.cantoria.modules.vanilla.CModulesMapped");
+  }
+
+  @Override
+  protected CModuleLoaderType loader()
+  {
+    return ServiceLoader.load(CModuleLoaderType.class)
+      .stream()
+      .map(ServiceLoader.Provider::get)
+      .filter(CModulesMappedTest::hasCorrectName)
+      .findFirst()
+      .get();
+  }
+
+  @Test
+  public void testClassBytesOutlivesModule()
+    throws Exception
+  {
+    final Path file = Files.createTempFile("cantoria-test-", ".jar");
+    try (InputStream in = CModulesMappedTest.class.getResourceAsStream(
+      "/com/io7m/cantoria/tests/driver/api/class_added/after/module.jar")) {
+      Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    try {
+      final byte[] expected;
+      final InputStream stream;
+      try (CModuleType m = this.loader().open(file, CVersion.of(1, 0, 0, ""))) {
+        try (InputStream bulk = m.classBytes("x.y.z.p", "Y").get()) {
+          expected = bulk.readAllBytes();
+        }
+        stream = m.classBytes("x.y.z.p", "Y").get();
+      }
+
+      try (InputStream single = stream) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        while (true) {
+          final int b = single.read();
+          if (b == -1) {
+            break;
+          }
+          out.write(b);
+        }
+        Assertions.assertArrayEquals(expected, out.toByteArray());
+      }
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+}
@@ -18,8 +18,8 @@ package com.io7m.cantoria.tests.changes.spi;
 
 import com.io7m.cantoria.api.CClassRegistry;
 import com.io7m.cantoria.api.CClassRegistryType;
+import com.io7m.cantoria.api.CModuleCaching;
 import com.io7m.cantoria.api.CModuleType;
-import com.io7m.cantoria.api.CModuleWeaklyCaching;
 import com.io7m.cantoria.changes.api.CChangeType;
 import com.io7m.cantoria.changes.spi.CChangeCheckType;
 import com.io7m.cantoria.changes.spi.CChangeDescriberType;
@@ -58,7 +58,7 @@ public final class CChangeDescriberTest
       io.vavr.collection.List.of(modules)
         .prepend(CTestUtilities.defaultModuleLoader()
                    .openPlatformModule("java.base"))
-        .map(CModuleWeaklyCaching::wrap));
+        .map(CModuleCaching::wrap));
   }
 
   private static void describe(
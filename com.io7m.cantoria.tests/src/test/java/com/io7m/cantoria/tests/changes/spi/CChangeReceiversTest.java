@@ -0,0 +1,156 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.changes.spi;
+
+import com.io7m.cantoria.changes.api.CChangeModuleType;
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
+import com.io7m.cantoria.changes.spi.CChangeReceiverReordering;
+import com.io7m.cantoria.changes.spi.CChangeReceiverSharded;
+import com.io7m.cantoria.changes.spi.CChangeReceiverType;
+import com.io7m.cantoria.changes.vanilla.api.CChangeModulePackageUnqualifiedExported;
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.ServiceLoader;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public final class CChangeReceiversTest
+{
+  private static CChangeCheckType check()
+  {
+    return ServiceLoader.load(CChangeCheckType.class).findFirst().get();
+  }
+
+  private static CChangeType change(
+    final String module)
+  {
+    return CChangeModulePackageUnqualifiedExported.of(module, "p");
+  }
+
+  private static List<String> modules(
+    final Iterable<CChangeType> changes)
+  {
+    return List.ofAll(changes).map(c -> ((CChangeModuleType) c).module());
+  }
+
+  @Test
+  public void testReorderingOutOfOrder()
+  {
+    final CChangeCheckType check = check();
+    final ArrayList<CChangeType> received = new ArrayList<>();
+    final CChangeReceiverReordering buffer =
+      CChangeReceiverReordering.create((o, c) -> received.add(c), 16);
+
+    final CChangeReceiverType r0 = buffer.slot(0);
+    final CChangeReceiverType r1 = buffer.slot(1);
+    final CChangeReceiverType r2 = buffer.slot(2);
+
+    r2.onChange(check, change("c0"));
+    r1.onChange(check, change("b0"));
+    r2.onChange(check, change("c1"));
+    Assertions.assertEquals(0, received.size());
+    Assertions.assertEquals(3, buffer.buffered());
+
+    r0.onChange(check, change("a0"));
+    Assertions.assertEquals(List.of("a0"), modules(received));
+
+    buffer.complete(2);
+    Assertions.assertEquals(List.of("a0"), modules(received));
+
+    buffer.complete(0);
+    Assertions.assertEquals(List.of("a0", "b0"), modules(received));
+    Assertions.assertEquals(1, buffer.head());
+
+    r1.onChange(check, change("b1"));
+    buffer.complete(1);
+
+    Assertions.assertEquals(
+      List.of("a0", "b0", "b1", "c0", "c1"), modules(received));
+    Assertions.assertEquals(3, buffer.head());
+    Assertions.assertEquals(0, buffer.buffered());
+  }
+
+  @Test
+  public void testReorderingBounded()
+    throws Exception
+  {
+    final CChangeCheckType check = check();
+    final ArrayList<CChangeType> received = new ArrayList<>();
+    final CChangeReceiverReordering buffer =
+      CChangeReceiverReordering.create((o, c) -> received.add(c), 2);
+
+    final ExecutorService exec = Executors.newFixedThreadPool(4);
+    try {
+      final ArrayList<Future<?>> futures = new ArrayList<>();
+      for (int index = 0; index < 32; ++index) {
+        final int slot = index;
+        futures.add(exec.submit(() -> {
+          final CChangeReceiverType r = buffer.slot(slot);
+          for (int k = 0; k < 4; ++k) {
+            r.onChange(check, change(String.format("%02d-%d", Integer.valueOf(slot), Integer.valueOf(k))));
+            Assertions.assertTrue(buffer.buffered() <= 2);
+          }
+          buffer.complete(slot);
+        }));
+      }
+      for (final Future<?> f : futures) {
+        f.get(10L, TimeUnit.SECONDS);
+      }
+    } finally {
+      exec.shutdown();
+    }
+
+    final List<String> names = modules(received);
+    Assertions.assertEquals(128, names.size());
+    Assertions.assertEquals(names.sorted(), names);
+  }
+
+  @Test
+  public void testShardedMerge()
+    throws Exception
+  {
+    final CChangeCheckType check = check();
+    final CChangeReceiverSharded receiver = CChangeReceiverSharded.create();
+
+    final ExecutorService exec = Executors.newFixedThreadPool(4);
+    try {
+      final ArrayList<Future<?>> futures = new ArrayList<>();
+      for (int index = 31; index >= 0; --index) {
+        final int slot = index;
+        futures.add(exec.submit(
+          () -> receiver.onChange(
+            check, change(String.format("%02d", Integer.valueOf(slot))))));
+      }
+      for (final Future<?> f : futures) {
+        f.get(10L, TimeUnit.SECONDS);
+      }
+    } finally {
+      exec.shutdown();
+    }
+
+    final List<String> names =
+      modules(receiver.merged().map(p -> p._2));
+    Assertions.assertEquals(32, names.size());
+    Assertions.assertEquals(names.sorted(), names);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.changes.vanilla;
+
+import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassRegistry;
+import com.io7m.cantoria.api.CClassRegistryType;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.cantoria.changes.spi.CClassComparatorType;
+import com.io7m.cantoria.changes.vanilla.CClassChangedAccessibility;
+import com.io7m.cantoria.changes.vanilla.CClassChangedEnum;
+import com.io7m.cantoria.changes.vanilla.CClassChangedInterfaceModifier;
+import com.io7m.cantoria.changes.vanilla.api.CChangeClassBecameEnum;
+import com.io7m.cantoria.changes.vanilla.api.CChangeClassBecameInterface;
+import com.io7m.cantoria.changes.vanilla.api.CChangeClassBecameNonPublic;
+import com.io7m.cantoria.tests.CTestUtilities;
+import io.vavr.collection.List;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+public final class CClassSubsumesMembersTest
+{
+  private static final List<String> FIXTURES =
+    List.of(
+      "class_became_abstract",
+      "class_became_enum",
+      "class_became_final",
+      "class_became_interface",
+      "class_became_non_enum",
+      "class_became_public",
+      "class_no_longer_interface",
+      "class_no_longer_public");
+
+  private static int checkAgreement(
+    final CClassComparatorType comparator,
+    final Class<? extends CChangeType> subsuming)
+    throws Exception
+  {
+    int subsumed = 0;
+    for (final String fixture : FIXTURES) {
+      final CModuleType module0 =
+        CTestUtilities.module(fixture + "/before");
+      final CModuleType module1 =
+        CTestUtilities.module(fixture + "/after");
+      final CClassRegistryType registry =
+        CClassRegistry.create(List.of(module0, module1));
+
+      final CClass class0 = module0.classValue("x.y.z.p", "X").get();
+      final CClass class1 = module1.classValue("x.y.z.p", "X").get();
+
+      subsumed += checkPair(comparator, subsuming, registry, class0, class1);
+      subsumed += checkPair(comparator, subsuming, registry, class1, class0);
+    }
+    return subsumed;
+  }
+
+  private static int checkPair(
+    final CClassComparatorType comparator,
+    final Class<? extends CChangeType> subsuming,
+    final CClassRegistryType registry,
+    final CClass class_old,
+    final CClass class_new)
+  {
+    final ArrayList<CChangeType> changes = new ArrayList<>();
+    comparator.compareClass(
+      (o, c) -> changes.add(c), registry, class_old, class_new);
+
+    final boolean reported = changes.stream().anyMatch(subsuming::isInstance);
+    final boolean subsumes = comparator.subsumesMembers(class_old, class_new);
+    Assertions.assertEquals(
+      Boolean.valueOf(reported),
+      Boolean.valueOf(subsumes),
+      () -> class_old.module().archive().descriptor().path() + ": " + changes);
+    return subsumes ? 1 : 0;
+  }
+
+  @Test
+  public void testAccessibility()
+    throws Exception
+  {
+    Assertions.assertEquals(
+      2,
+      checkAgreement(
+        new CClassChangedAccessibility(),
+        CChangeClassBecameNonPublic.class));
+  }
+
+  @Test
+  public void testEnum()
+    throws Exception
+  {
+    Assertions.assertEquals(
+      2,
+      checkAgreement(
+        new CClassChangedEnum(),
+        CChangeClassBecameEnum.class));
+  }
+
+  @Test
+  public void testInterfaceModifier()
+    throws Exception
+  {
+    Assertions.assertEquals(
+      2,
+      checkAgreement(
+        new CClassChangedInterfaceModifier(),
+        CChangeClassBecameInterface.class));
+  }
+}
@@ -0,0 +1,628 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.cmdline;
+
+import com.io7m.cantoria.api.CArchiveType;
+import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassDigest;
+import com.io7m.cantoria.api.CClassHeader;
+import com.io7m.cantoria.api.CClassParsingMode;
+import com.io7m.cantoria.api.CClassRegistry;
+import com.io7m.cantoria.api.CModuleDescriptor;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.changes.api.CChangeBinaryCompatibility;
+import com.io7m.cantoria.changes.api.CChangeSemanticVersioning;
+import com.io7m.cantoria.changes.api.CChangeSourceCompatibility;
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.cantoria.changes.spi.CChangeCheckType;
+import com.io7m.cantoria.changes.spi.CChangeDescriberType;
+import com.io7m.cantoria.changes.vanilla.CClassChangedEnum;
+import com.io7m.cantoria.cmdline.CIncrementalDatabase;
+import com.io7m.cantoria.cmdline.CReportRecord;
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
+import com.io7m.cantoria.driver.api.CComparisonDriverProviderType;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import com.io7m.cantoria.tests.CTestUtilities;
+import io.vavr.Tuple;
+import io.vavr.Tuple2;
+import io.vavr.collection.List;
+import io.vavr.collection.SortedSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.ModuleNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+public final class CIncrementalDatabaseTest
+{
+  private static final String HEADER = "header";
+
+  private Path directory;
+  private Path path;
+  private CModuleLoaderType loader;
+  private java.util.List<CChangeDescriberType> describers;
+
+  /**
+   * A change that no describer knows how to describe.
+   */
+
+  private static final class Undescribable implements CChangeType
+  {
+    Undescribable()
+    {
+
+    }
+
+    @Override
+    public Category category()
+    {
+      return Category.CHANGE_CLASS;
+    }
+
+    @Override
+    public CChangeSemanticVersioning semanticVersioning()
+    {
+      return CChangeSemanticVersioning.SEMANTIC_MINOR;
+    }
+
+    @Override
+    public CChangeBinaryCompatibility binaryCompatibility()
+    {
+      return CChangeBinaryCompatibility.BINARY_COMPATIBLE;
+    }
+
+    @Override
+    public CChangeSourceCompatibility sourceCompatibility()
+    {
+      return CChangeSourceCompatibility.SOURCE_COMPATIBLE;
+    }
+  }
+
+  /**
+   * A module that counts the number of classes parsed from it.
+   */
+
+  private static final class CountingModule implements CModuleType
+  {
+    private final CModuleType delegate;
+    private final AtomicInteger parsed;
+
+    CountingModule(
+      final CModuleType in_delegate)
+    {
+      this.delegate = in_delegate;
+      this.parsed = new AtomicInteger(0);
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+      return this.delegate.isClosed();
+    }
+
+    @Override
+    public CModuleDescriptor descriptor()
+    {
+      return this.delegate.descriptor();
+    }
+
+    @Override
+    public CArchiveType archive()
+    {
+      return this.delegate.archive();
+    }
+
+    @Override
+    public ModuleNode node()
+    {
+      return this.delegate.node();
+    }
+
+    @Override
+    public CClassParsingMode parsingMode()
+    {
+      return this.delegate.parsingMode();
+    }
+
+    @Override
+    public Optional<InputStream> classBytes(
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      return this.delegate.classBytes(package_name, class_name);
+    }
+
+    @Override
+    public Optional<CClassHeader> classHeader(
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      return this.delegate.classHeader(package_name, class_name);
+    }
+
+    @Override
+    public Optional<CClassDigest> classDigest(
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      return this.delegate.classDigest(package_name, class_name);
+    }
+
+    @Override
+    public Optional<CClass> classValue(
+      final String package_name,
+      final String class_name)
+      throws IOException
+    {
+      this.parsed.incrementAndGet();
+      return this.delegate.classValue(package_name, class_name);
+    }
+
+    @Override
+    public SortedSet<String> classesInPackage(
+      final String package_name)
+    {
+      return this.delegate.classesInPackage(package_name);
+    }
+
+    @Override
+    public void close()
+      throws IOException
+    {
+      this.delegate.close();
+    }
+  }
+
+  private static String show(
+    final CReportRecord record)
+  {
+    return record.typeName()
+      + ": "
+      + new String(record.text().get(), StandardCharsets.UTF_8);
+  }
+
+  private static byte[] withExtraField(
+    final byte[] data)
+  {
+    final ClassNode node = new ClassNode(Opcodes.ASM7);
+    new ClassReader(data).accept(node, 0);
+    node.fields.add(
+      new FieldNode(Opcodes.ACC_PUBLIC, "extra", "I", null, null));
+    final ClassWriter writer = new ClassWriter(0);
+    node.accept(writer);
+    return writer.toByteArray();
+  }
+
+  private static CReportRecord render(
+    final Iterable<CChangeDescriberType> describers,
+    final Tuple2<CChangeCheckType, CChangeType> change_pair)
+  {
+    try {
+      return CReportRecord.render(describers, change_pair._1, change_pair._2);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Open a copy of the given fixture in which the given class has gained a
+   * field.
+   */
+
+  private CModuleType variant(
+    final String fixture,
+    final String entry_name)
+    throws Exception
+  {
+    final Path file = Files.createTempFile(this.directory, "variant-", ".jar");
+    boolean found = false;
+    try (ZipInputStream in = new ZipInputStream(
+      CTestUtilities.moduleStream(fixture));
+         ZipOutputStream out = new ZipOutputStream(
+           Files.newOutputStream(file))) {
+      while (true) {
+        final ZipEntry entry = in.getNextEntry();
+        if (entry == null) {
+          break;
+        }
+
+        byte[] data = in.readAllBytes();
+        if (entry.getName().equals(entry_name)) {
+          data = withExtraField(data);
+          found = true;
+        }
+        out.putNextEntry(new ZipEntry(entry.getName()));
+        out.write(data);
+        out.closeEntry();
+      }
+    }
+
+    Assertions.assertTrue(found, entry_name);
+    return this.loader.open(file, CVersion.of(1, 0, 0, ""));
+  }
+
+  private CIncrementalDatabase database(
+    final java.util.List<CReportRecord> output)
+  {
+    return new CIncrementalDatabase(
+      this.path,
+      output::add,
+      change_pair -> render(this.describers, change_pair));
+  }
+
+  /**
+   * Compare the given modules in the way that the compare command does,
+   * optionally using an incremental database, and return the report.
+   */
+
+  private java.util.List<String> run(
+    final boolean incremental,
+    final CModuleType module_old,
+    final CModuleType module_new)
+    throws Exception
+  {
+    final ArrayList<CReportRecord> report = new ArrayList<>();
+    final CIncrementalDatabase database = this.database(report);
+    database.load(HEADER);
+
+    final CComparisonDriverConfiguration.Builder configuration =
+      CComparisonDriverConfiguration.builder();
+    if (incremental) {
+      configuration.setMemo(database);
+    }
+
+    ServiceLoader.load(CComparisonDriverProviderType.class)
+      .findFirst()
+      .get()
+      .create(configuration.build())
+      .compareModules(
+        (originator, change) -> report.add(
+          render(
+            this.describers, Tuple.of(originator, change))),
+        CClassRegistry.createComparison(
+          CClassRegistry.create(
+            List.of(
+              this.loader.openPlatformModule("java.base"))),
+          module_old,
+          module_new),
+        module_old,
+        module_new);
+
+    if (incremental) {
+      database.save();
+    }
+
+    final java.util.List<String> shown = new ArrayList<>();
+    report.forEach(record -> shown.add(show(record)));
+    return shown;
+  }
+
+  /**
+   * Record an empty result for each of the given classes, save the database,
+   * and then reload it.
+   */
+
+  private CIncrementalDatabase populated(
+    final CModuleType module_old,
+    final CModuleType module_new,
+    final String... names)
+    throws Exception
+  {
+    final CIncrementalDatabase database = this.database(new ArrayList<>());
+    database.load(HEADER);
+    for (final String name : names) {
+      final int dot = name.lastIndexOf('.');
+      final String package_name = name.substring(0, dot);
+      final String class_name = name.substring(dot + 1);
+      Assertions.assertFalse(
+        database.isCurrent(module_old, module_new, package_name, class_name));
+      database.compared(package_name, class_name, List.empty());
+    }
+    database.save();
+
+    final CIncrementalDatabase loaded = this.database(new ArrayList<>());
+    loaded.load(HEADER);
+    return loaded;
+  }
+
+  @BeforeEach
+  public void setUp()
+    throws Exception
+  {
+    this.directory = Files.createTempDirectory("cantoria-database-");
+    this.path = this.directory.resolve("database.bin");
+    this.loader =
+      ServiceLoader.load(CModuleLoaderType.class).findFirst().get();
+
+    this.describers = new ArrayList<>();
+    ServiceLoader.load(CChangeDescriberType.class).forEach(this.describers::add);
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    try (java.util.stream.Stream<Path> files = Files.list(this.directory)) {
+      for (final Path file : (Iterable<Path>) files::iterator) {
+        Files.deleteIfExists(file);
+      }
+    }
+    Files.deleteIfExists(this.directory);
+  }
+
+  @Test
+  public void testRoundTrip()
+    throws Exception
+  {
+    final CModuleType module_old =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module_new =
+      CTestUtilities.module("classes_many_changed/after");
+
+    final CIncrementalDatabase loaded =
+      this.populated(module_old, module_new, "x.y.z.p.C00", "x.y.z.p.C01");
+
+    Assertions.assertTrue(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "C00"));
+    Assertions.assertTrue(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "C01"));
+    Assertions.assertFalse(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "C02"));
+  }
+
+  @Test
+  public void testHeaderMismatch()
+    throws Exception
+  {
+    final CModuleType module_old =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module_new =
+      CTestUtilities.module("classes_many_changed/after");
+
+    this.populated(module_old, module_new, "x.y.z.p.C00");
+
+    final CIncrementalDatabase loaded = this.database(new ArrayList<>());
+    loaded.load("other");
+    Assertions.assertFalse(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "C00"));
+  }
+
+  @Test
+  public void testTruncated()
+    throws Exception
+  {
+    final CModuleType module_old =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module_new =
+      CTestUtilities.module("classes_many_changed/after");
+
+    this.populated(module_old, module_new, "x.y.z.p.C00", "x.y.z.p.C01");
+
+    final byte[] data = Files.readAllBytes(this.path);
+    try (OutputStream out = Files.newOutputStream(this.path)) {
+      out.write(data, 0, data.length - 8);
+    }
+
+    final CIncrementalDatabase loaded = this.database(new ArrayList<>());
+    loaded.load(HEADER);
+    Assertions.assertFalse(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "C00"));
+    Assertions.assertFalse(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "C01"));
+  }
+
+  @Test
+  public void testUnrecognizedFormat()
+    throws Exception
+  {
+    final CModuleType module_old =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module_new =
+      CTestUtilities.module("classes_many_changed/after");
+
+    this.populated(module_old, module_new, "x.y.z.p.C00");
+
+    final byte[] data = Files.readAllBytes(this.path);
+    data[0] = (byte) (data[0] + 1);
+    Files.write(this.path, data);
+
+    final CIncrementalDatabase loaded = this.database(new ArrayList<>());
+    loaded.load(HEADER);
+    Assertions.assertFalse(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "C00"));
+  }
+
+  @Test
+  public void testClassChangedInvalidatesOnlyThatClass()
+    throws Exception
+  {
+    final CModuleType module_old =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module_new =
+      CTestUtilities.module("classes_many_changed/after");
+    final CModuleType module_changed =
+      this.variant("classes_many_changed/after", "x/y/z/p/C01.class");
+
+    final CIncrementalDatabase loaded =
+      this.populated(
+        module_old, module_new, "x.y.z.p.C00", "x.y.z.p.C01", "x.y.z.p.C02");
+
+    Assertions.assertTrue(
+      loaded.isCurrent(module_old, module_changed, "x.y.z.p", "C00"));
+    Assertions.assertFalse(
+      loaded.isCurrent(module_old, module_changed, "x.y.z.p", "C01"));
+    Assertions.assertTrue(
+      loaded.isCurrent(module_old, module_changed, "x.y.z.p", "C02"));
+  }
+
+  @Test
+  public void testSuperclassChangedInvalidatesSubclass()
+    throws Exception
+  {
+    final CModuleType module_old =
+      CTestUtilities.module("class_internal_superclass/before");
+    final CModuleType module_new =
+      CTestUtilities.module("class_internal_superclass/after");
+    final CModuleType module_changed =
+      this.variant(
+        "class_internal_superclass/after", "x/y/z/q/AbstractX.class");
+
+    final CIncrementalDatabase loaded =
+      this.populated(
+        module_old, module_new, "x.y.z.p.X", "x.y.z.q.AbstractX", "x.y.z.q.I");
+
+    Assertions.assertTrue(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "X"));
+    Assertions.assertFalse(
+      loaded.isCurrent(module_old, module_changed, "x.y.z.p", "X"));
+    Assertions.assertFalse(
+      loaded.isCurrent(module_old, module_changed, "x.y.z.q", "AbstractX"));
+    Assertions.assertTrue(
+      loaded.isCurrent(module_old, module_changed, "x.y.z.q", "I"));
+  }
+
+  @Test
+  public void testReplayMatchesFreshRun()
+    throws Exception
+  {
+    final CModuleType module_old =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module_new =
+      CTestUtilities.module("classes_many_changed/after");
+
+    final java.util.List<String> fresh =
+      this.run(false, module_old, module_new);
+    final java.util.List<String> recorded =
+      this.run(true, module_old, module_new);
+    final java.util.List<String> replayed =
+      this.run(true, module_old, module_new);
+
+    Assertions.assertEquals(16 * 3, fresh.size());
+    Assertions.assertEquals(fresh, recorded);
+    Assertions.assertEquals(fresh, replayed);
+
+    final CIncrementalDatabase loaded = this.database(new ArrayList<>());
+    loaded.load(HEADER);
+    for (final String class_name : module_new.classesInPackage("x.y.z.p")) {
+      Assertions.assertTrue(
+        loaded.isCurrent(module_old, module_new, "x.y.z.p", class_name));
+    }
+
+    /*
+     * With one class changed, the report mixes replayed and fresh results.
+     */
+
+    final CModuleType module_changed =
+      this.variant("classes_many_changed/after", "x/y/z/p/C07.class");
+    Assertions.assertEquals(
+      this.run(false, module_old, module_changed),
+      this.run(true, module_old, module_changed));
+  }
+
+  @Test
+  public void testCachedRerunParsesNothing()
+    throws Exception
+  {
+    final CountingModule module_old =
+      new CountingModule(CTestUtilities.module("classes_many_changed/before"));
+    final CountingModule module_new =
+      new CountingModule(CTestUtilities.module("classes_many_changed/after"));
+
+    final java.util.List<String> recorded =
+      this.run(true, module_old, module_new);
+    Assertions.assertTrue(module_old.parsed.get() > 0);
+    Assertions.assertTrue(module_new.parsed.get() > 0);
+
+    module_old.parsed.set(0);
+    module_new.parsed.set(0);
+
+    final java.util.List<String> replayed =
+      this.run(true, module_old, module_new);
+    Assertions.assertEquals(recorded, replayed);
+    Assertions.assertEquals(0, module_old.parsed.get());
+    Assertions.assertEquals(0, module_new.parsed.get());
+  }
+
+  @Test
+  public void testIdenticalModulesParseNothing()
+    throws Exception
+  {
+    final CountingModule module_old =
+      new CountingModule(CTestUtilities.module("classes_many_changed/after"));
+    final CountingModule module_new =
+      new CountingModule(CTestUtilities.module("classes_many_changed/after"));
+
+    Assertions.assertEquals(
+      java.util.List.of(), this.run(true, module_old, module_new));
+    Assertions.assertEquals(0, module_old.parsed.get());
+    Assertions.assertEquals(0, module_new.parsed.get());
+  }
+
+  @Test
+  public void testUndescribableNotPersisted()
+    throws Exception
+  {
+    final CModuleType module_old =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module_new =
+      CTestUtilities.module("classes_many_changed/after");
+
+    final CIncrementalDatabase database = this.database(new ArrayList<>());
+    database.load(HEADER);
+    Assertions.assertFalse(
+      database.isCurrent(module_old, module_new, "x.y.z.p", "C00"));
+    Assertions.assertFalse(
+      database.isCurrent(module_old, module_new, "x.y.z.p", "C01"));
+    database.compared("x.y.z.p", "C00", List.empty());
+    database.compared(
+      "x.y.z.p",
+      "C01",
+      List.of(Tuple.of(new CClassChangedEnum(), new Undescribable())));
+    database.save();
+
+    final CIncrementalDatabase loaded = this.database(new ArrayList<>());
+    loaded.load(HEADER);
+    Assertions.assertTrue(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "C00"));
+    Assertions.assertFalse(
+      loaded.isCurrent(module_old, module_new, "x.y.z.p", "C01"));
+  }
+}
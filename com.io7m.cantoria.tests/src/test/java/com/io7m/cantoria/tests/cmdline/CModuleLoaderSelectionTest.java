@@ -0,0 +1,108 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.cmdline;
+
+import com.beust.jcommander.JCommander;
+import com.io7m.cantoria.cmdline.CommandExport;
+import com.io7m.cantoria.cmdline.CommandStatus;
+import com.io7m.cantoria.tests.CTestUtilities;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public final class CModuleLoaderSelectionTest
+{
+  private Path directory;
+  private Path module;
+  private Path output;
+
+  private static CommandStatus export(
+    final String... args)
+  {
+    final CommandExport command = new CommandExport();
+    JCommander.newBuilder()
+      .addObject(command)
+      .build()
+      .parse(args);
+    return command.run();
+  }
+
+  @BeforeEach
+  public void setUp()
+    throws Exception
+  {
+    this.directory = Files.createTempDirectory("cantoria-loader-");
+    this.module = this.directory.resolve("module.jar");
+    this.output = this.directory.resolve("snapshot.jar");
+    try (InputStream stream =
+           CTestUtilities.moduleStream("classes_many_changed/after")) {
+      Files.copy(stream, this.module);
+    }
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    Files.deleteIfExists(this.output);
+    Files.deleteIfExists(this.module);
+    Files.deleteIfExists(this.directory);
+  }
+
+  @Test
+  public void testDefault()
+  {
+    Assertions.assertEquals(
+      CommandStatus.COMMAND_SUCCESS,
+      export(
+        "--module", this.module.toString(),
+        "--module-version", "1.0.0",
+        "--output", this.output.toString()));
+    Assertions.assertTrue(Files.isRegularFile(this.output));
+  }
+
+  @Test
+  public void testMapped()
+  {
+    Assertions.assertEquals(
+      CommandStatus.COMMAND_SUCCESS,
+      export(
+        "--module", this.module.toString(),
+        "--module-version", "1.0.0",
+        "--output", this.output.toString(),
+        "--module-loader", "com.io7m.cantoria.modules.vanilla.CModulesMapped"));
+    Assertions.assertTrue(Files.isRegularFile(this.output));
+  }
+
+  @Test
+  public void testUnknown()
+  {
+    Assertions.assertEquals(
+      CommandStatus.COMMAND_FAILURE,
+      export(
+        "--module", this.module.toString(),
+        "--module-version", "1.0.0",
+        "--output", this.output.toString(),
+        "--module-loader", "nonexistent"));
+    Assertions.assertFalse(Files.exists(this.output));
+  }
+}
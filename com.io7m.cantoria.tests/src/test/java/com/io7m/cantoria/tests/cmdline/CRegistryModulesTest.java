@@ -0,0 +1,155 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.cmdline;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.beust.jcommander.JCommander;
+import com.io7m.cantoria.cmdline.CRegistryModules;
+import com.io7m.cantoria.cmdline.CommandStatus;
+import com.io7m.cantoria.tests.CTestUtilities;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+public final class CRegistryModulesTest
+{
+  private Path directory;
+  private ListAppender<ILoggingEvent> appender;
+  private Logger logger;
+
+  private void copyModule(
+    final String fixture,
+    final String file)
+    throws Exception
+  {
+    try (InputStream stream = CTestUtilities.moduleStream(fixture)) {
+      Files.copy(stream, this.directory.resolve(file));
+    }
+  }
+
+  /**
+   * Load the module path directory on the given executor, and return the
+   * paths of the opened modules and the errors that were logged.
+   */
+
+  private List<List<String>> load(
+    final Executor executor)
+  {
+    this.appender.list.clear();
+
+    final CRegistryModules modules = new CRegistryModules();
+    JCommander.newBuilder()
+      .addObject(modules)
+      .build()
+      .parse("--module-path", this.directory.toString());
+
+    try {
+      Assertions.assertEquals(
+        CommandStatus.COMMAND_FAILURE,
+        modules.load(CTestUtilities.defaultModuleLoader(), executor));
+
+      final List<String> paths =
+        modules.modules()
+          .stream()
+          .map(module -> module.archive().descriptor().path().toString())
+          .collect(Collectors.toList());
+      final List<String> errors =
+        this.appender.list
+          .stream()
+          .filter(event -> event.getLevel() == Level.ERROR)
+          .map(ILoggingEvent::getFormattedMessage)
+          .collect(Collectors.toList());
+      return List.of(paths, errors);
+    } finally {
+      modules.unload();
+    }
+  }
+
+  @BeforeEach
+  public void setUp()
+    throws Exception
+  {
+    this.directory = Files.createTempDirectory("cantoria-module-path-");
+    this.copyModule("classes_many_changed/after", "a.jar");
+    Files.write(
+      this.directory.resolve("b.jar"),
+      "not an archive".getBytes(StandardCharsets.UTF_8));
+    this.copyModule("class_internal_superclass/after", "c.jar");
+    this.copyModule("module_requires_added/after", "d.jar");
+
+    this.logger = (Logger) LoggerFactory.getLogger(CRegistryModules.class);
+    this.appender = new ListAppender<>();
+    this.appender.start();
+    this.logger.addAppender(this.appender);
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws Exception
+  {
+    this.logger.detachAppender(this.appender);
+    this.appender.stop();
+
+    try (java.util.stream.Stream<Path> files = Files.list(this.directory)) {
+      for (final Path file : (Iterable<Path>) files::iterator) {
+        Files.deleteIfExists(file);
+      }
+    }
+    Files.deleteIfExists(this.directory);
+  }
+
+  @Test
+  public void testSameResultForAnyThreadCount()
+  {
+    final List<List<String>> sequential = this.load(Runnable::run);
+
+    final List<String> expected_paths = new ArrayList<>();
+    expected_paths.add("modules/java.base");
+    expected_paths.add(this.directory.resolve("a.jar").toString());
+    expected_paths.add(this.directory.resolve("c.jar").toString());
+    expected_paths.add(this.directory.resolve("d.jar").toString());
+    Assertions.assertEquals(expected_paths, sequential.get(0));
+    Assertions.assertEquals(1, sequential.get(1).size());
+    Assertions.assertTrue(
+      sequential.get(1).get(0).contains(
+        this.directory.resolve("b.jar").toString()));
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      for (int index = 0; index < 8; ++index) {
+        Assertions.assertEquals(sequential, this.load(pool));
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
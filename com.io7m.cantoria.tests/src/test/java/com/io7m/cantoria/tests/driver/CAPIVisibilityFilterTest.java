@@ -0,0 +1,209 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.driver;
+
+import com.io7m.cantoria.driver.CAPIVisibilityFilter;
+import com.io7m.cantoria.driver.api.CAPIVisibility;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.Set;
+
+public final class CAPIVisibilityFilterTest
+{
+  private static final int PACKAGE_PRIVATE = 0;
+
+  private static final CAPIVisibilityFilter ALL =
+    new CAPIVisibilityFilter(CAPIVisibility.API_VISIBILITY_ALL);
+  private static final CAPIVisibilityFilter NON_PRIVATE =
+    new CAPIVisibilityFilter(CAPIVisibility.API_VISIBILITY_NON_PRIVATE);
+  private static final CAPIVisibilityFilter EXPORTED =
+    new CAPIVisibilityFilter(CAPIVisibility.API_VISIBILITY_EXPORTED);
+
+  private static ClassNode classNode(
+    final int access)
+  {
+    final ClassNode node = new ClassNode();
+    node.version = Opcodes.V9;
+    node.access = access | Opcodes.ACC_SUPER;
+    node.name = "x/y/z/p/X";
+    node.superName = "java/lang/Object";
+    return node;
+  }
+
+  private static MethodNode method(
+    final int access,
+    final String name)
+  {
+    return new MethodNode(access, name, "()V", null, null);
+  }
+
+  private static FieldNode field(
+    final int access,
+    final String name)
+  {
+    return new FieldNode(access, name, "I", null, null);
+  }
+
+  @Test
+  public void testIncludesEverything()
+  {
+    Assertions.assertTrue(ALL.includesEverything());
+    Assertions.assertFalse(NON_PRIVATE.includesEverything());
+    Assertions.assertFalse(EXPORTED.includesEverything());
+  }
+
+  @Test
+  public void testClassesAllAPI()
+  {
+    Assertions.assertTrue(ALL.classesAllAPI());
+    Assertions.assertTrue(NON_PRIVATE.classesAllAPI());
+    Assertions.assertFalse(EXPORTED.classesAllAPI());
+  }
+
+  @Test
+  public void testAll()
+  {
+    final ClassNode owner = classNode(Opcodes.ACC_PUBLIC);
+
+    Assertions.assertTrue(ALL.classIsAPI(Opcodes.ACC_PUBLIC));
+    Assertions.assertTrue(ALL.classIsAPI(PACKAGE_PRIVATE));
+
+    Assertions.assertTrue(ALL.memberIsAPI(owner, Opcodes.ACC_PUBLIC));
+    Assertions.assertTrue(ALL.memberIsAPI(owner, Opcodes.ACC_PROTECTED));
+    Assertions.assertTrue(ALL.memberIsAPI(owner, PACKAGE_PRIVATE));
+    Assertions.assertTrue(ALL.memberIsAPI(owner, Opcodes.ACC_PRIVATE));
+  }
+
+  @Test
+  public void testNonPrivate()
+  {
+    final ClassNode owner = classNode(Opcodes.ACC_PUBLIC);
+
+    Assertions.assertTrue(NON_PRIVATE.classIsAPI(Opcodes.ACC_PUBLIC));
+    Assertions.assertTrue(NON_PRIVATE.classIsAPI(PACKAGE_PRIVATE));
+
+    Assertions.assertTrue(NON_PRIVATE.memberIsAPI(owner, Opcodes.ACC_PUBLIC));
+    Assertions.assertTrue(
+      NON_PRIVATE.memberIsAPI(owner, Opcodes.ACC_PROTECTED));
+    Assertions.assertTrue(NON_PRIVATE.memberIsAPI(owner, PACKAGE_PRIVATE));
+    Assertions.assertFalse(
+      NON_PRIVATE.memberIsAPI(owner, Opcodes.ACC_PRIVATE));
+    Assertions.assertFalse(
+      NON_PRIVATE.memberIsAPI(
+        owner, Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC));
+  }
+
+  @Test
+  public void testExported()
+  {
+    final ClassNode owner = classNode(Opcodes.ACC_PUBLIC);
+
+    Assertions.assertTrue(EXPORTED.classIsAPI(Opcodes.ACC_PUBLIC));
+    Assertions.assertTrue(
+      EXPORTED.classIsAPI(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL));
+    Assertions.assertFalse(EXPORTED.classIsAPI(PACKAGE_PRIVATE));
+    Assertions.assertFalse(EXPORTED.classIsAPI(Opcodes.ACC_FINAL));
+
+    Assertions.assertTrue(EXPORTED.memberIsAPI(owner, Opcodes.ACC_PUBLIC));
+    Assertions.assertFalse(EXPORTED.memberIsAPI(owner, PACKAGE_PRIVATE));
+    Assertions.assertFalse(EXPORTED.memberIsAPI(owner, Opcodes.ACC_PRIVATE));
+  }
+
+  @Test
+  public void testExportedProtected()
+  {
+    final ClassNode open = classNode(Opcodes.ACC_PUBLIC);
+    final ClassNode abstracted =
+      classNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_ABSTRACT);
+    final ClassNode closed = classNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL);
+
+    Assertions.assertTrue(EXPORTED.memberIsAPI(open, Opcodes.ACC_PROTECTED));
+    Assertions.assertTrue(
+      EXPORTED.memberIsAPI(abstracted, Opcodes.ACC_PROTECTED));
+    Assertions.assertFalse(
+      EXPORTED.memberIsAPI(closed, Opcodes.ACC_PROTECTED));
+    Assertions.assertTrue(EXPORTED.memberIsAPI(closed, Opcodes.ACC_PUBLIC));
+  }
+
+  @Test
+  public void testMethodsAPIEitherVersion()
+  {
+    final ClassNode class_old = classNode(Opcodes.ACC_PUBLIC);
+    class_old.methods.add(method(Opcodes.ACC_PRIVATE, "f"));
+    class_old.methods.add(method(Opcodes.ACC_PUBLIC, "g"));
+    class_old.methods.add(method(Opcodes.ACC_PRIVATE, "h"));
+
+    final ClassNode class_new = classNode(Opcodes.ACC_PUBLIC);
+    class_new.methods.add(method(Opcodes.ACC_PUBLIC, "f"));
+    class_new.methods.add(method(Opcodes.ACC_PRIVATE, "g"));
+    class_new.methods.add(method(Opcodes.ACC_PRIVATE, "h"));
+
+    Assertions.assertEquals(
+      Set.of("f()V", "g()V"),
+      EXPORTED.methodsAPI(class_old, class_new));
+    Assertions.assertEquals(
+      Set.of("f()V", "g()V"),
+      NON_PRIVATE.methodsAPI(class_old, class_new));
+    Assertions.assertEquals(
+      Set.of("f()V", "g()V", "h()V"),
+      ALL.methodsAPI(class_old, class_new));
+  }
+
+  @Test
+  public void testMethodsAPIOwnerOfEachVersion()
+  {
+    final ClassNode class_old = classNode(Opcodes.ACC_PUBLIC);
+    class_old.methods.add(method(Opcodes.ACC_PROTECTED, "f"));
+
+    final ClassNode class_new =
+      classNode(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL);
+    class_new.methods.add(method(Opcodes.ACC_PROTECTED, "f"));
+
+    Assertions.assertEquals(
+      Set.of("f()V"),
+      EXPORTED.methodsAPI(class_old, class_new));
+    Assertions.assertEquals(
+      Set.of(),
+      EXPORTED.methodsAPI(class_new, class_new));
+  }
+
+  @Test
+  public void testFieldsAPIEitherVersion()
+  {
+    final ClassNode class_old = classNode(Opcodes.ACC_PUBLIC);
+    class_old.fields.add(field(Opcodes.ACC_PRIVATE, "x"));
+    class_old.fields.add(field(Opcodes.ACC_PUBLIC, "y"));
+    class_old.fields.add(field(PACKAGE_PRIVATE, "z"));
+
+    final ClassNode class_new = classNode(Opcodes.ACC_PUBLIC);
+    class_new.fields.add(field(Opcodes.ACC_PUBLIC, "x"));
+    class_new.fields.add(field(Opcodes.ACC_PRIVATE, "y"));
+    class_new.fields.add(field(PACKAGE_PRIVATE, "z"));
+
+    Assertions.assertEquals(
+      Set.of("x", "y"),
+      EXPORTED.fieldsAPI(class_old, class_new));
+    Assertions.assertEquals(
+      Set.of("x", "y", "z"),
+      NON_PRIVATE.fieldsAPI(class_old, class_new));
+  }
+}
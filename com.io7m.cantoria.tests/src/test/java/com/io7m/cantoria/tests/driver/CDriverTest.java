@@ -16,6 +16,7 @@
 
 package com.io7m.cantoria.tests.driver;
 
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
 import com.io7m.cantoria.driver.api.CComparisonDriverProviderType;
 import com.io7m.cantoria.driver.api.CComparisonDriverType;
 import com.io7m.cantoria.modules.api.CModuleLoaderType;
@@ -40,4 +41,14 @@ public final class CDriverTest extends CDriverContract
       .get()
       .create();
   }
+
+  @Override
+  protected CComparisonDriverType driver(
+    final CComparisonDriverConfiguration configuration)
+  {
+    return ServiceLoader.load(CComparisonDriverProviderType.class)
+      .findFirst()
+      .get()
+      .create(configuration);
+  }
 }
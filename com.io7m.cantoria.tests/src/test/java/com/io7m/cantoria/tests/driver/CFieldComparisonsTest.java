@@ -0,0 +1,121 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.driver;
+
+import com.io7m.cantoria.api.CClassName;
+import com.io7m.cantoria.driver.CFieldComparisons;
+import com.io7m.cantoria.driver.CFieldView;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.FieldNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class CFieldComparisonsTest
+{
+  private static final CClassName CLASS_NAME =
+    CClassName.of("x.y.z", "x.y.z.p", "X");
+
+  private static FieldNode field(
+    final int access,
+    final String name,
+    final String descriptor)
+  {
+    return new FieldNode(access, name, descriptor, null, null);
+  }
+
+  private static List<String> names(
+    final CFieldView[] views)
+  {
+    final ArrayList<String> names = new ArrayList<>(views.length);
+    for (final CFieldView view : views) {
+      names.add(view.name());
+    }
+    return names;
+  }
+
+  @Test
+  public void testSortedFieldsEmpty()
+  {
+    final CFieldView[] views =
+      CFieldComparisons.sortedFields(CLASS_NAME, List.of(), f -> true);
+    Assertions.assertEquals(0, views.length);
+  }
+
+  @Test
+  public void testSortedFieldsOrder()
+  {
+    final List<FieldNode> nodes = List.of(
+      field(Opcodes.ACC_PUBLIC, "c", "I"),
+      field(Opcodes.ACC_PUBLIC, "a", "I"),
+      field(Opcodes.ACC_PUBLIC, "b", "I"));
+
+    Assertions.assertEquals(
+      List.of("a", "b", "c"),
+      names(CFieldComparisons.sortedFields(CLASS_NAME, nodes, f -> true)));
+  }
+
+  @Test
+  public void testSortedFieldsInclude()
+  {
+    final List<FieldNode> nodes = List.of(
+      field(Opcodes.ACC_PUBLIC, "c", "I"),
+      field(Opcodes.ACC_PRIVATE, "a", "I"),
+      field(Opcodes.ACC_PUBLIC, "b", "I"));
+
+    Assertions.assertEquals(
+      List.of("b", "c"),
+      names(CFieldComparisons.sortedFields(
+        CLASS_NAME, nodes, f -> (f.access & Opcodes.ACC_PRIVATE) == 0)));
+  }
+
+  @Test
+  public void testSortedFieldsLastDuplicateWins()
+  {
+    final FieldNode a0 = field(Opcodes.ACC_PUBLIC, "a", "I");
+    final FieldNode b = field(Opcodes.ACC_PUBLIC, "b", "I");
+    final FieldNode a1 = field(Opcodes.ACC_PUBLIC, "a", "J");
+    final FieldNode a2 = field(Opcodes.ACC_PROTECTED, "a", "D");
+
+    final CFieldView[] views =
+      CFieldComparisons.sortedFields(
+        CLASS_NAME, List.of(a0, b, a1, a2), f -> true);
+
+    Assertions.assertEquals(List.of("a", "b"), names(views));
+    Assertions.assertSame(a2, views[0].field().node());
+    Assertions.assertEquals("double", views[0].field().type());
+    Assertions.assertSame(b, views[1].field().node());
+  }
+
+  @Test
+  public void testSortedFieldsLastDuplicateWinsAfterInclude()
+  {
+    final FieldNode a0 = field(Opcodes.ACC_PUBLIC, "a", "I");
+    final FieldNode a1 = field(Opcodes.ACC_PRIVATE, "a", "J");
+
+    final CFieldView[] views =
+      CFieldComparisons.sortedFields(
+        CLASS_NAME,
+        List.of(a0, a1),
+        f -> (f.access & Opcodes.ACC_PRIVATE) == 0);
+
+    Assertions.assertEquals(1, views.length);
+    Assertions.assertSame(a0, views[0].field().node());
+  }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.driver;
+
+import com.io7m.cantoria.api.CClassName;
+import com.io7m.cantoria.api.CMethod;
+import com.io7m.cantoria.driver.CMethodOverloads;
+import com.io7m.cantoria.driver.CMethodView;
+import io.vavr.collection.Map;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+public final class CMethodOverloadsTest
+{
+  private static final CClassName CLASS_NAME =
+    CClassName.of("x.y.z", "x.y.z.p", "X");
+
+  private static CMethodView view(
+    final String name,
+    final String descriptor)
+  {
+    return new CMethodView(
+      CLASS_NAME,
+      new MethodNode(Opcodes.ACC_PUBLIC, name, descriptor, null, null));
+  }
+
+  /**
+   * @return The descriptor of a method that takes {@code count} integers
+   */
+
+  private static String descriptor(
+    final int count)
+  {
+    return "(" + "I".repeat(count) + ")V";
+  }
+
+  private static CMethodView[] overloads(
+    final String name,
+    final int count)
+  {
+    final CMethodView[] views = new CMethodView[count];
+    for (int index = 0; index < count; ++index) {
+      views[index] = view(name, descriptor(index));
+    }
+    Arrays.sort(views, CMethodView.ORDER_DESCRIPTOR);
+    return views;
+  }
+
+  private static Set<String> descriptors(
+    final CMethodView[] views,
+    final int start,
+    final int end)
+  {
+    final HashSet<String> names = new HashSet<>();
+    for (int index = start; index < end; ++index) {
+      names.add(views[index].descriptor());
+    }
+    return names;
+  }
+
+  @Test
+  public void testOthersThanLargeGroup()
+  {
+    final CMethodView[] views = overloads("f", 64);
+    final CMethodOverloads group =
+      new CMethodOverloads(views, 0, views.length);
+
+    for (final CMethodView view : views) {
+      final Map<String, CMethod> others = group.othersThan(view);
+      final Set<String> expected = descriptors(views, 0, views.length);
+      expected.remove(view.descriptor());
+
+      Assertions.assertEquals(views.length - 1, others.size());
+      Assertions.assertEquals(expected, others.keySet().toJavaSet());
+      others.forEach((descriptor, method) -> {
+        Assertions.assertEquals("f", method.name());
+        Assertions.assertEquals(descriptor, method.node().desc);
+      });
+    }
+  }
+
+  @Test
+  public void testOthersThanRange()
+  {
+    final CMethodView[] views = new CMethodView[]{
+      view("e", "()V"),
+      view("f", "()V"),
+      view("f", "(I)V"),
+      view("f", "(J)V"),
+      view("g", "()V"),
+    };
+
+    final CMethodOverloads group = new CMethodOverloads(views, 1, 4);
+    Assertions.assertEquals(
+      Set.of("(I)V", "(J)V"),
+      group.othersThan(views[1]).keySet().toJavaSet());
+    Assertions.assertEquals(
+      Set.of("()V", "(J)V"),
+      group.othersThan(views[2]).keySet().toJavaSet());
+    Assertions.assertEquals(
+      "f",
+      group.othersThan(views[2]).get("()V").get().name());
+  }
+
+  @Test
+  public void testOthersThanSingle()
+  {
+    final CMethodView[] views = overloads("f", 1);
+    final CMethodOverloads group = new CMethodOverloads(views, 0, 1);
+    Assertions.assertTrue(group.othersThan(views[0]).isEmpty());
+  }
+
+  @Test
+  public void testOthersThanBuiltOnce()
+  {
+    final CMethodView[] views = overloads("f", 8);
+    final CMethodOverloads group =
+      new CMethodOverloads(views, 0, views.length);
+
+    final Map<String, CMethod> others0 = group.othersThan(views[0]);
+    final Map<String, CMethod> others1 = group.othersThan(views[1]);
+    final String shared = views[2].descriptor();
+    Assertions.assertSame(
+      others0.get(shared).get(), others1.get(shared).get());
+    Assertions.assertSame(views[2].method(), others0.get(shared).get());
+  }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.driver;
+
+import com.io7m.cantoria.driver.CSortedMerge;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+public final class CSortedMergeTest
+{
+  private static final String[] NONE = new String[0];
+
+  private static List<String> merge(
+    final String[] xs,
+    final int x_start,
+    final int x_end,
+    final String[] ys,
+    final int y_start,
+    final int y_end)
+  {
+    final ArrayList<String> results = new ArrayList<>();
+    CSortedMerge.merge(
+      xs,
+      x_start,
+      x_end,
+      ys,
+      y_start,
+      y_end,
+      Comparator.<String>naturalOrder(),
+      new CSortedMerge.ReceiverType<>()
+      {
+        @Override
+        public void onOnlyOld(
+          final String x)
+        {
+          results.add("old " + x);
+        }
+
+        @Override
+        public void onOnlyNew(
+          final String y)
+        {
+          results.add("new " + y);
+        }
+
+        @Override
+        public void onBoth(
+          final String x,
+          final String y)
+        {
+          Assertions.assertEquals(x, y);
+          results.add("both " + x);
+        }
+      });
+    return results;
+  }
+
+  private static List<String> merge(
+    final String[] xs,
+    final String[] ys)
+  {
+    return merge(xs, 0, xs.length, ys, 0, ys.length);
+  }
+
+  @Test
+  public void testEmpty()
+  {
+    Assertions.assertEquals(List.of(), merge(NONE, NONE));
+  }
+
+  @Test
+  public void testEmptyRanges()
+  {
+    final String[] xs = {"a", "b"};
+    final String[] ys = {"a", "b"};
+    Assertions.assertEquals(List.of(), merge(xs, 1, 1, ys, 2, 2));
+  }
+
+  @Test
+  public void testOnlyOld()
+  {
+    Assertions.assertEquals(
+      List.of("old a", "old b"),
+      merge(new String[]{"a", "b"}, NONE));
+  }
+
+  @Test
+  public void testOnlyNew()
+  {
+    Assertions.assertEquals(
+      List.of("new a", "new b"),
+      merge(NONE, new String[]{"a", "b"}));
+  }
+
+  @Test
+  public void testDisjoint()
+  {
+    Assertions.assertEquals(
+      List.of("old a", "new b", "old c", "new d", "old e", "new f"),
+      merge(new String[]{"a", "c", "e"}, new String[]{"b", "d", "f"}));
+  }
+
+  @Test
+  public void testDisjointBlocks()
+  {
+    Assertions.assertEquals(
+      List.of("new a", "new b", "old c", "old d"),
+      merge(new String[]{"c", "d"}, new String[]{"a", "b"}));
+  }
+
+  @Test
+  public void testMatched()
+  {
+    Assertions.assertEquals(
+      List.of("old a", "both b", "new c", "both d", "old e"),
+      merge(new String[]{"a", "b", "d", "e"}, new String[]{"b", "c", "d"}));
+  }
+
+  @Test
+  public void testRanges()
+  {
+    final String[] xs = {"a", "b", "c", "d"};
+    final String[] ys = {"a", "b", "c", "d"};
+    Assertions.assertEquals(
+      List.of("both b", "new c", "new d"),
+      merge(xs, 1, 2, ys, 1, 4));
+    Assertions.assertEquals(
+      List.of("old a", "new d"),
+      merge(xs, 0, 1, ys, 3, 4));
+  }
+
+  @Test
+  public void testRunEnd()
+  {
+    final Comparator<String> order = Comparator.naturalOrder();
+    final String[] xs = {"a", "a", "b", "c", "c"};
+
+    Assertions.assertEquals(2, CSortedMerge.runEnd(xs, 0, order));
+    Assertions.assertEquals(2, CSortedMerge.runEnd(xs, 1, order));
+    Assertions.assertEquals(3, CSortedMerge.runEnd(xs, 2, order));
+    Assertions.assertEquals(5, CSortedMerge.runEnd(xs, 3, order));
+    Assertions.assertEquals(5, CSortedMerge.runEnd(xs, 4, order));
+  }
+
+  @Test
+  public void testRunEndWholeArray()
+  {
+    final Comparator<String> order = Comparator.naturalOrder();
+    Assertions.assertEquals(
+      1, CSortedMerge.runEnd(new String[]{"a"}, 0, order));
+    Assertions.assertEquals(
+      3, CSortedMerge.runEnd(new String[]{"a", "a", "a"}, 0, order));
+  }
+
+  @Test
+  public void testRunEndByKey()
+  {
+    final Comparator<String> order = Comparator.comparing(s -> s.charAt(0));
+    final String[] xs = {"a0", "a1", "a2", "b0"};
+
+    Assertions.assertEquals(3, CSortedMerge.runEnd(xs, 0, order));
+    Assertions.assertEquals(4, CSortedMerge.runEnd(xs, 3, order));
+  }
+}
@@ -34,9 +34,11 @@ import com.io7m.cantoria.api.CGTypeArguments;
 import com.io7m.cantoria.api.CGTypeParameter;
 import com.io7m.cantoria.api.CMethod;
 import com.io7m.cantoria.api.CModifier;
+import com.io7m.cantoria.api.CModuleCaching;
 import com.io7m.cantoria.api.CModuleProvides;
 import com.io7m.cantoria.api.CModuleType;
-import com.io7m.cantoria.api.CModuleWeaklyCaching;
+import com.io7m.cantoria.changes.api.CChangeBinaryCompatibility;
+import com.io7m.cantoria.changes.api.CChangeSemanticVersioning;
 import com.io7m.cantoria.changes.api.CChangeType;
 import com.io7m.cantoria.changes.spi.CChangeCheckType;
 import com.io7m.cantoria.changes.spi.CChangeReceiverType;
@@ -101,15 +103,27 @@ import com.io7m.cantoria.changes.vanilla.api.CChangeModulePackageUnqualifiedOpen
 import com.io7m.cantoria.changes.vanilla.api.CChangeModuleRequired;
 import com.io7m.cantoria.changes.vanilla.api.CChangeModuleServiceNoLongerProvided;
 import com.io7m.cantoria.changes.vanilla.api.CChangeModuleServiceProvided;
+import com.io7m.cantoria.driver.api.CAPIVisibility;
+import com.io7m.cantoria.driver.api.CComparisonBaselinesReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonBatchReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonChainReceiverType;
+import com.io7m.cantoria.driver.api.CComparisonDriverConfiguration;
 import com.io7m.cantoria.driver.api.CComparisonDriverType;
+import com.io7m.cantoria.driver.api.CComparisonGate;
+import com.io7m.cantoria.driver.api.CComparisonPair;
+import com.io7m.cantoria.driver.api.CComparisonVerdict;
 import com.io7m.cantoria.modules.api.CModuleLoaderType;
 import com.io7m.cantoria.tests.CTestUtilities;
+import com.io7m.jaffirm.core.PreconditionViolationException;
 import io.vavr.collection.HashMap;
 import io.vavr.collection.HashSet;
 import io.vavr.collection.List;
+import io.vavr.collection.SortedMap;
+import io.vavr.collection.TreeSet;
 import mockit.Expectations;
 import mockit.FullVerifications;
 import mockit.Mocked;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.objectweb.asm.Opcodes;
 import org.objectweb.asm.tree.ClassNode;
@@ -117,6 +131,12 @@ import org.objectweb.asm.tree.FieldNode;
 import org.objectweb.asm.tree.MethodNode;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class CDriverContract
 {
@@ -137,7 +157,7 @@ public abstract class CDriverContract
     return CClassRegistry.create(
       List.of(modules)
         .prepend(this.moduleLoader().openPlatformModule("java.base"))
-        .map(CModuleWeaklyCaching::wrap));
+        .map(CModuleCaching::wrap));
   }
 
   private static MethodNode anyMethod()
@@ -202,6 +222,9 @@ public abstract class CDriverContract
 
   protected abstract CComparisonDriverType driver();
 
+  protected abstract CComparisonDriverType driver(
+    CComparisonDriverConfiguration configuration);
+
   @Test
   public final void testModuleRequiresTransitiveAdded(
     final @Mocked CChangeReceiverType receiver)
@@ -264,6 +287,529 @@ public abstract class CDriverContract
     }};
   }
 
+  @Test
+  public final void testCheckPipeline()
+  {
+    final CComparisonDriverType driver = this.driver();
+    final SortedMap<String, List<String>> pipeline = driver.checkPipeline();
+
+    Assertions.assertTrue(pipeline.containsKey("CClassComparatorType"));
+    Assertions.assertTrue(pipeline.containsKey("CMethodCheckAdditionType"));
+    Assertions.assertFalse(driver.checks().isEmpty());
+    Assertions.assertEquals(
+      driver.checks(),
+      TreeSet.ofAll(pipeline.values().flatMap(names -> names)));
+  }
+
+  @Test
+  public final void testCompareModulesGated()
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module("module_requires_transitive_removed/before");
+    final CModuleType module1 =
+      CTestUtilities.module("module_requires_transitive_removed/after");
+
+    final ArrayList<CChangeType> changes = new ArrayList<>();
+    final CComparisonVerdict verdict =
+      this.driver().compareModulesGated(
+        (originator, change) -> changes.add(change),
+        CComparisonGate.GATE_BINARY_INCOMPATIBLE,
+        this.classRegistry(module0, module1),
+        module0,
+        module1);
+
+    Assertions.assertTrue(verdict.gateReached());
+    Assertions.assertEquals(
+      CChangeBinaryCompatibility.BINARY_INCOMPATIBLE,
+      verdict.binaryCompatibility());
+    Assertions.assertEquals(
+      java.util.List.of(
+        CChangeModulePackageNoLongerTransitivelyExported.of(
+          "x.y.z", "java.logging")),
+      changes);
+  }
+
+  @Test
+  public final void testCompareModulesGatedNotReached()
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module("module_requires_transitive_removed/before");
+    final CModuleType module1 =
+      CTestUtilities.module("module_requires_transitive_removed/before");
+
+    final CComparisonVerdict verdict =
+      this.driver().compareModulesGated(
+        (originator, change) -> Assertions.fail("Unexpected change"),
+        CComparisonGate.GATE_SEMANTIC_MAJOR,
+        this.classRegistry(module0, module1),
+        module0,
+        module1);
+
+    Assertions.assertFalse(verdict.gateReached());
+    Assertions.assertEquals(
+      CChangeSemanticVersioning.SEMANTIC_NONE,
+      verdict.semanticVersioning());
+  }
+
+  @Test
+  public final void testCompareModulesGatedParallel()
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module1 =
+      CTestUtilities.module("classes_many_changed/after");
+    final CClassRegistryType registry = this.classRegistry(module0, module1);
+
+    final ArrayList<CChangeType> all = new ArrayList<>();
+    this.driver().compareModules(
+      (originator, change) -> all.add(change),
+      registry,
+      module0,
+      module1);
+
+    final ArrayList<CChangeType> sequential = new ArrayList<>();
+    final CComparisonVerdict sequential_verdict =
+      this.driver().compareModulesGated(
+        (originator, change) -> sequential.add(change),
+        CComparisonGate.GATE_SEMANTIC_MAJOR,
+        registry,
+        module0,
+        module1);
+
+    Assertions.assertTrue(sequential_verdict.gateReached());
+    Assertions.assertTrue(sequential.size() < all.size());
+    Assertions.assertEquals(all.subList(0, sequential.size()), sequential);
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final CComparisonDriverType driver =
+        this.driver(
+          CComparisonDriverConfiguration.builder()
+            .setExecutor(pool)
+            .build());
+
+      for (int index = 0; index < 8; ++index) {
+        final ArrayList<CChangeType> parallel = new ArrayList<>();
+        final CComparisonVerdict parallel_verdict =
+          driver.compareModulesGated(
+            (originator, change) -> parallel.add(change),
+            CComparisonGate.GATE_SEMANTIC_MAJOR,
+            registry,
+            module0,
+            module1);
+        Assertions.assertEquals(sequential_verdict, parallel_verdict);
+        Assertions.assertEquals(sequential, parallel);
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  public final void testCompareModulesParallelOrder()
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module1 =
+      CTestUtilities.module("classes_many_changed/after");
+    final CClassRegistryType registry = this.classRegistry(module0, module1);
+
+    final ArrayList<CChangeType> sequential = new ArrayList<>();
+    this.driver().compareModules(
+      (originator, change) -> sequential.add(change),
+      registry,
+      module0,
+      module1);
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final CComparisonDriverType driver =
+        this.driver(
+          CComparisonDriverConfiguration.builder()
+            .setExecutor(pool)
+            .build());
+
+      for (int index = 0; index < 8; ++index) {
+        final ArrayList<CChangeType> parallel = new ArrayList<>();
+        driver.compareModules(
+          (originator, change) -> parallel.add(change),
+          registry,
+          module0,
+          module1);
+        Assertions.assertEquals(sequential, parallel);
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    Assertions.assertEquals(16 * 3, sequential.size());
+  }
+
+  @Test
+  public final void testCompareChain()
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module(
+        "module_requires_transitive_added/before");
+    final CModuleType module1 =
+      CTestUtilities.module(
+        "module_requires_transitive_added/after");
+    final CModuleType module2 =
+      CTestUtilities.module(
+        "module_requires_transitive_added/before");
+
+    final ArrayList<ArrayList<CChangeType>> steps = new ArrayList<>();
+    final ArrayList<Integer> finished = new ArrayList<>();
+
+    this.driver().compareChain(
+      new CComparisonChainReceiverType()
+      {
+        @Override
+        public CChangeReceiverType onStepStarted(
+          final int step,
+          final CModuleType module_old,
+          final CModuleType module_new)
+        {
+          Assertions.assertFalse(module_old.isClosed());
+          Assertions.assertFalse(module_new.isClosed());
+
+          final ArrayList<CChangeType> changes = new ArrayList<>();
+          steps.add(changes);
+          return (originator, change) -> changes.add(change);
+        }
+
+        @Override
+        public void onStepFinished(
+          final int step,
+          final CModuleType module_old,
+          final CModuleType module_new)
+        {
+          finished.add(Integer.valueOf(step));
+        }
+      },
+      this.classRegistry(),
+      List.of(() -> module0, () -> module1, () -> module2));
+
+    Assertions.assertEquals(
+      java.util.List.of(Integer.valueOf(0), Integer.valueOf(1)), finished);
+    Assertions.assertEquals(
+      java.util.List.of(
+        CChangeModulePackageTransitivelyExported.of("x.y.z", "java.logging")),
+      steps.get(0));
+    Assertions.assertEquals(
+      java.util.List.of(
+        CChangeModulePackageNoLongerTransitivelyExported.of(
+          "x.y.z", "java.logging")),
+      steps.get(1));
+
+    Assertions.assertTrue(module0.isClosed());
+    Assertions.assertTrue(module1.isClosed());
+    Assertions.assertTrue(module2.isClosed());
+  }
+
+  @Test
+  public final void testCompareBaselines()
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module(
+        "module_requires_transitive_added/before");
+    final CModuleType module1 =
+      CTestUtilities.module(
+        "module_requires_transitive_added/after");
+    final CModuleType module2 =
+      CTestUtilities.module(
+        "module_requires_transitive_added/after");
+
+    final ArrayList<ArrayList<CChangeType>> baselines = new ArrayList<>();
+    baselines.add(new ArrayList<>());
+    baselines.add(new ArrayList<>());
+    final ArrayList<Integer> finished = new ArrayList<>();
+
+    this.driver().compareBaselines(
+      new CComparisonBaselinesReceiverType()
+      {
+        @Override
+        public CChangeReceiverType onBaselineStarted(
+          final int baseline,
+          final CModuleType module_old,
+          final CModuleType module_new)
+        {
+          final ArrayList<CChangeType> changes = baselines.get(baseline);
+          return (originator, change) -> changes.add(change);
+        }
+
+        @Override
+        public void onBaselineFinished(
+          final int baseline,
+          final CModuleType module_old,
+          final CModuleType module_new)
+        {
+          finished.add(Integer.valueOf(baseline));
+        }
+      },
+      this.classRegistry(),
+      List.of(module0, module1),
+      module2);
+
+    Assertions.assertEquals(
+      java.util.List.of(Integer.valueOf(0), Integer.valueOf(1)), finished);
+    Assertions.assertEquals(
+      java.util.List.of(
+        CChangeModulePackageTransitivelyExported.of("x.y.z", "java.logging")),
+      baselines.get(0));
+    Assertions.assertEquals(java.util.List.of(), baselines.get(1));
+    Assertions.assertFalse(module2.isClosed());
+  }
+
+  @Test
+  public final void testCompareBaselinesFixedExecutor()
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module1 =
+      CTestUtilities.module("classes_many_changed/before");
+    final CModuleType module2 =
+      CTestUtilities.module("classes_many_changed/after");
+
+    final ArrayList<CChangeType> sequential = new ArrayList<>();
+    this.driver().compareModules(
+      (originator, change) -> sequential.add(change),
+      this.classRegistry(module0, module2),
+      module0,
+      module2);
+
+    final java.util.Map<Integer, ArrayList<CChangeType>> baselines =
+      new java.util.concurrent.ConcurrentHashMap<>();
+
+    final ExecutorService pool = Executors.newFixedThreadPool(1);
+    try {
+      final CComparisonDriverType driver =
+        this.driver(
+          CComparisonDriverConfiguration.builder()
+            .setExecutor(pool)
+            .build());
+
+      Assertions.assertTimeoutPreemptively(
+        Duration.ofSeconds(60L),
+        () -> driver.compareBaselines(
+          new CComparisonBaselinesReceiverType()
+          {
+            @Override
+            public CChangeReceiverType onBaselineStarted(
+              final int baseline,
+              final CModuleType module_old,
+              final CModuleType module_new)
+            {
+              final ArrayList<CChangeType> changes = new ArrayList<>();
+              baselines.put(Integer.valueOf(baseline), changes);
+              return (originator, change) -> changes.add(change);
+            }
+
+            @Override
+            public void onBaselineFinished(
+              final int baseline,
+              final CModuleType module_old,
+              final CModuleType module_new)
+            {
+            }
+          },
+          this.classRegistry(),
+          List.of(module0, module1),
+          module2));
+    } finally {
+      pool.shutdown();
+    }
+
+    Assertions.assertEquals(16 * 3, sequential.size());
+    Assertions.assertEquals(sequential, baselines.get(Integer.valueOf(0)));
+    Assertions.assertEquals(sequential, baselines.get(Integer.valueOf(1)));
+  }
+
+  @Test
+  public final void testCompareBatch()
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module(
+        "module_requires_transitive_added/before");
+    final CModuleType module1 =
+      CTestUtilities.module(
+        "module_requires_transitive_added/after");
+    final CModuleType module2 =
+      CTestUtilities.module(
+        "module_requires_transitive_removed/before");
+    final CModuleType module3 =
+      CTestUtilities.module(
+        "module_requires_transitive_removed/after");
+
+    final java.util.Map<Integer, ArrayList<CChangeType>> pairs =
+      new java.util.concurrent.ConcurrentHashMap<>();
+    final java.util.Map<Integer, IOException> failures =
+      new java.util.concurrent.ConcurrentHashMap<>();
+
+    this.driver().compareBatch(
+      new CComparisonBatchReceiverType()
+      {
+        @Override
+        public CChangeReceiverType onPairStarted(
+          final int pair,
+          final CModuleType module_old,
+          final CModuleType module_new)
+        {
+          final ArrayList<CChangeType> changes = new ArrayList<>();
+          pairs.put(Integer.valueOf(pair), changes);
+          return (originator, change) -> changes.add(change);
+        }
+
+        @Override
+        public void onPairFinished(
+          final int pair,
+          final CModuleType module_old,
+          final CModuleType module_new)
+        {
+        }
+
+        @Override
+        public void onPairFailed(
+          final int pair,
+          final IOException error)
+        {
+          failures.put(Integer.valueOf(pair), error);
+        }
+      },
+      this.classRegistry(),
+      List.of(
+        CComparisonPair.of(() -> module0, () -> module1),
+        CComparisonPair.of(
+          () -> {
+            throw new IOException("Missing");
+          },
+          () -> module1),
+        CComparisonPair.of(() -> module2, () -> module3)));
+
+    Assertions.assertEquals(
+      java.util.List.of(
+        CChangeModulePackageTransitivelyExported.of("x.y.z", "java.logging")),
+      pairs.get(Integer.valueOf(0)));
+    Assertions.assertEquals(
+      java.util.List.of(
+        CChangeModulePackageNoLongerTransitivelyExported.of(
+          "x.y.z", "java.logging")),
+      pairs.get(Integer.valueOf(2)));
+    Assertions.assertEquals(
+      java.util.Set.of(Integer.valueOf(1)), failures.keySet());
+
+    Assertions.assertTrue(module0.isClosed());
+    Assertions.assertTrue(module1.isClosed());
+    Assertions.assertTrue(module2.isClosed());
+    Assertions.assertTrue(module3.isClosed());
+  }
+
+  @Test
+  public final void testCompareBatchConcurrencyBounded()
+    throws Exception
+  {
+    final ArrayList<CComparisonPair> pairs = new ArrayList<>();
+    for (int index = 0; index < 6; ++index) {
+      final CModuleType module_old =
+        CTestUtilities.module("classes_many_changed/before");
+      final CModuleType module_new =
+        CTestUtilities.module("classes_many_changed/after");
+      pairs.add(CComparisonPair.of(() -> module_old, () -> module_new));
+    }
+
+    final AtomicInteger running = new AtomicInteger(0);
+    final AtomicInteger running_max = new AtomicInteger(0);
+    final AtomicInteger finished = new AtomicInteger(0);
+
+    final ForkJoinPool pool = new ForkJoinPool(4);
+    try {
+      final CComparisonDriverType driver =
+        this.driver(
+          CComparisonDriverConfiguration.builder()
+            .setExecutor(pool)
+            .setMaxConcurrentComparisons(2)
+            .build());
+
+      driver.compareBatch(
+        new CComparisonBatchReceiverType()
+        {
+          @Override
+          public CChangeReceiverType onPairStarted(
+            final int pair,
+            final CModuleType module_old,
+            final CModuleType module_new)
+          {
+            running_max.accumulateAndGet(
+              running.incrementAndGet(), Math::max);
+            return (originator, change) -> {
+
+            };
+          }
+
+          @Override
+          public void onPairFinished(
+            final int pair,
+            final CModuleType module_old,
+            final CModuleType module_new)
+          {
+            running.decrementAndGet();
+            finished.incrementAndGet();
+          }
+
+          @Override
+          public void onPairFailed(
+            final int pair,
+            final IOException error)
+          {
+            Assertions.fail(error);
+          }
+        },
+        this.classRegistry(),
+        List.ofAll(pairs));
+    } finally {
+      pool.shutdown();
+    }
+
+    Assertions.assertEquals(6, finished.get());
+    Assertions.assertTrue(running_max.get() >= 1);
+    Assertions.assertTrue(running_max.get() <= 2);
+  }
+
+  @Test
+  public final void testMaxConcurrentComparisonsDefault()
+  {
+    final ForkJoinPool pool = new ForkJoinPool(3);
+    try {
+      Assertions.assertEquals(
+        3,
+        CComparisonDriverConfiguration.builder()
+          .setExecutor(pool)
+          .build()
+          .maxConcurrentComparisons());
+    } finally {
+      pool.shutdown();
+    }
+
+    Assertions.assertEquals(
+      1,
+      CComparisonDriverConfiguration.builder()
+        .build()
+        .maxConcurrentComparisons());
+    Assertions.assertThrows(
+      PreconditionViolationException.class,
+      () -> CComparisonDriverConfiguration.builder()
+        .setMaxConcurrentComparisons(0)
+        .build());
+  }
+
   @Test
   public final void testModuleRequiresRemoved(
     final @Mocked CChangeReceiverType receiver)
@@ -1157,6 +1703,78 @@ public abstract class CDriverContract
 
     final CClassRegistryType er = this.classRegistry(module0, module1);
 
+    new Expectations()
+    {{
+      receiver.onChange(
+        (CChangeCheckType) this.any,
+        CChangeClassBecameEnum.builder()
+          .setClassPrevious(
+            CClass.builder()
+              .setAccessibility(CAccessibility.PUBLIC)
+              .setBytecodeVersion(53)
+              .setModule(module0)
+              .setName(CLASS_NAME_X)
+              .setNode(anyClass())
+              .build())
+          .setClassValue(
+            CClass.builder()
+              .setAccessibility(CAccessibility.PUBLIC)
+              .addModifiers(CModifier.FINAL)
+              .addModifiers(CModifier.ENUM)
+              .setBytecodeVersion(53)
+              .setModule(module1)
+              .setName(CLASS_NAME_X)
+              .setNode(anyClass())
+              .setSignature(enumSignature("x.y.z.p.X"))
+              .build())
+          .build());
+
+      receiver.onChange(
+        (CChangeCheckType) this.any,
+        CChangeClassBecameFinal.builder()
+          .setClassPrevious(
+            CClass.builder()
+              .setAccessibility(CAccessibility.PUBLIC)
+              .setBytecodeVersion(53)
+              .setModule(module0)
+              .setName(CLASS_NAME_X)
+              .setNode(anyClass())
+              .build())
+          .setClassValue(
+            CClass.builder()
+              .setAccessibility(CAccessibility.PUBLIC)
+              .addModifiers(CModifier.FINAL)
+              .addModifiers(CModifier.ENUM)
+              .setBytecodeVersion(53)
+              .setModule(module1)
+              .setName(CLASS_NAME_X)
+              .setNode(anyClass())
+              .setSignature(enumSignature("x.y.z.p.X"))
+              .build())
+          .build());
+    }};
+
+    this.driver().compareModules(receiver, er, module0, module1);
+
+    new FullVerifications()
+    {{
+      receiver.onChange((CChangeCheckType) this.any, (CChangeType) this.any);
+      this.times = 3;
+    }};
+  }
+
+  @Test
+  public final void testClassBecameEnumExhaustive(
+    final @Mocked CChangeReceiverType receiver)
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module("class_became_enum/before");
+    final CModuleType module1 =
+      CTestUtilities.module("class_became_enum/after");
+
+    final CClassRegistryType er = this.classRegistry(module0, module1);
+
     new Expectations()
     {{
       receiver.onChange(
@@ -1271,7 +1889,11 @@ public abstract class CDriverContract
           .build());
     }};
 
-    this.driver().compareModules(receiver, er, module0, module1);
+    this.driver(
+      CComparisonDriverConfiguration.builder()
+        .setExhaustiveMembers(true)
+        .build())
+      .compareModules(receiver, er, module0, module1);
 
     new FullVerifications()
     {{
@@ -1886,6 +2508,39 @@ public abstract class CDriverContract
     }};
   }
 
+  @Test
+  public final void testMethodPrivateBecamePublicAnyVisibility()
+    throws Exception
+  {
+    final CModuleType module0 =
+      CTestUtilities.module("method_private_became_public/before");
+    final CModuleType module1 =
+      CTestUtilities.module("method_private_became_public/after");
+
+    final CClassRegistryType er = this.classRegistry(module0, module1);
+
+    final ArrayList<CChangeType> everything = new ArrayList<>();
+    this.driver(
+      CComparisonDriverConfiguration.builder()
+        .setApiVisibility(CAPIVisibility.API_VISIBILITY_ALL)
+        .build())
+      .compareModules(
+        (originator, change) -> everything.add(change), er, module0, module1);
+
+    Assertions.assertFalse(everything.isEmpty());
+
+    for (final CAPIVisibility visibility : CAPIVisibility.values()) {
+      final ArrayList<CChangeType> changes = new ArrayList<>();
+      this.driver(
+        CComparisonDriverConfiguration.builder()
+          .setApiVisibility(visibility)
+          .build())
+        .compareModules(
+          (originator, change) -> changes.add(change), er, module0, module1);
+      Assertions.assertEquals(everything, changes, visibility.toString());
+    }
+  }
+
   @Test
   public final void testMethodPrivateRemoved(
     final @Mocked CChangeReceiverType receiver)
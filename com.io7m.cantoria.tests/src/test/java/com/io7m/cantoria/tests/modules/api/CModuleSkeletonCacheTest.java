@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.modules.api;
+
+import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import com.io7m.cantoria.modules.api.CModuleSkeletonCache;
+import io.vavr.collection.TreeSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.ServiceLoader;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+public final class CModuleSkeletonCacheTest
+{
+  private Path directory;
+  private Path archive;
+  private CModuleSkeletonCache cache;
+
+  @BeforeEach
+  public void setUp()
+    throws IOException
+  {
+    this.directory = Files.createTempDirectory("cantoria-skeletons-");
+    this.archive = Files.createTempFile("cantoria-test-", ".jar");
+    try (InputStream in = CModuleSkeletonCacheTest.class.getResourceAsStream(
+      "/com/io7m/cantoria/tests/driver/api/class_added/after/module.jar")) {
+      Files.copy(in, this.archive, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    final CModuleLoaderType loader =
+      ServiceLoader.load(CModuleLoaderType.class).findFirst().get();
+    this.cache = CModuleSkeletonCache.create(this.directory, loader);
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws IOException
+  {
+    Files.deleteIfExists(this.archive);
+    try (Stream<Path> paths = Files.walk(this.directory)) {
+      for (final Path path : (Iterable<Path>)
+        paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.deleteIfExists(path);
+      }
+    }
+  }
+
+  @Test
+  public void testArchiveSkeleton()
+    throws Exception
+  {
+    final Path skeleton_0 = this.cache.skeletonForArchive(this.archive);
+    final Path skeleton_1 = this.cache.skeletonForArchive(this.archive);
+    Assertions.assertEquals(skeleton_0, skeleton_1);
+
+    try (ZipFile zip = new ZipFile(skeleton_0.toFile())) {
+      Assertions.assertNotNull(zip.getEntry("module-info.class"));
+      Assertions.assertEquals(
+        ZipEntry.STORED, zip.getEntry("x/y/z/p/X.class").getMethod());
+    }
+
+    try (CModuleType m =
+           this.cache.open(this.archive, CVersion.of(1, 0, 0, ""))) {
+      Assertions.assertEquals("x.y.z", m.descriptor().name());
+      Assertions.assertEquals(
+        TreeSet.of("X", "Y"),
+        m.classesInPackage("x.y.z.p"));
+
+      final CClass c = m.classValue("x.y.z.p", "X").get();
+      Assertions.assertEquals("X", c.name().className());
+      for (final MethodNode method : c.node().methods) {
+        Assertions.assertEquals(0, method.instructions.size());
+      }
+    }
+  }
+
+  @Test
+  public void testPlatformSkeleton()
+    throws Exception
+  {
+    final Path skeleton_0 =
+      this.cache.skeletonForPlatformModule("java.logging");
+    final Path skeleton_1 =
+      this.cache.skeletonForPlatformModule("java.logging");
+    Assertions.assertEquals(skeleton_0, skeleton_1);
+
+    try (CModuleType m = this.cache.openPlatformModule("java.logging")) {
+      Assertions.assertEquals("java.logging", m.descriptor().name());
+      Assertions.assertTrue(
+        m.classValue("java.util.logging", "Logger").isPresent());
+    }
+  }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2017 <code@io7m.com> http://io7m.com
+ *
+ * Permission to use, copy, modify, and/or distribute this software for any
+ * purpose with or without fee is hereby granted, provided that the above
+ * copyright notice and this permission notice appear in all copies.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS" AND THE AUTHOR DISCLAIMS ALL WARRANTIES
+ * WITH REGARD TO THIS SOFTWARE INCLUDING ALL IMPLIED WARRANTIES OF
+ * MERCHANTABILITY AND FITNESS. IN NO EVENT SHALL THE AUTHOR BE LIABLE FOR ANY
+ * SPECIAL, DIRECT, INDIRECT, OR CONSEQUENTIAL DAMAGES OR ANY DAMAGES
+ * WHATSOEVER RESULTING FROM LOSS OF USE, DATA OR PROFITS, WHETHER IN AN
+ * ACTION OF CONTRACT, NEGLIGENCE OR OTHER TORTIOUS ACTION, ARISING OUT OF OR
+ * IN CONNECTION WITH THE USE OR PERFORMANCE OF THIS SOFTWARE.
+ */
+
+package com.io7m.cantoria.tests.modules.api;
+
+import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassNames;
+import com.io7m.cantoria.api.CClassParsingMode;
+import com.io7m.cantoria.api.CClassRegistry;
+import com.io7m.cantoria.api.CClassRegistryType;
+import com.io7m.cantoria.api.CModuleType;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.changes.api.CChangeType;
+import com.io7m.cantoria.driver.api.CComparisonDriverProviderType;
+import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import com.io7m.cantoria.modules.api.CModuleSnapshots;
+import io.vavr.collection.List;
+import io.vavr.collection.TreeSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.ServiceLoader;
+
+public final class CModuleSnapshotsTest
+{
+  private Path archive;
+  private Path snapshot;
+  private CModuleLoaderType loader;
+
+  @BeforeEach
+  public void setUp()
+    throws IOException
+  {
+    this.archive = Files.createTempFile("cantoria-test-", ".jar");
+    this.snapshot = Files.createTempFile("cantoria-snapshot-", ".jar");
+    try (InputStream in = CModuleSnapshotsTest.class.getResourceAsStream(
+      "/com/io7m/cantoria/tests/driver/api/class_added/after/module.jar")) {
+      Files.copy(in, this.archive, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    this.loader =
+      ServiceLoader.load(CModuleLoaderType.class).findFirst().get();
+  }
+
+  @AfterEach
+  public void tearDown()
+    throws IOException
+  {
+    Files.deleteIfExists(this.archive);
+    Files.deleteIfExists(this.snapshot);
+  }
+
+  @Test
+  public void testExportOpen()
+    throws Exception
+  {
+    final CVersion version = CVersion.of(1, 2, 3, "");
+
+    try (CModuleType m = this.loader.open(this.archive, version)) {
+      CModuleSnapshots.export(m, version, this.snapshot);
+    }
+
+    Assertions.assertFalse(CModuleSnapshots.isSnapshot(this.archive));
+    Assertions.assertTrue(CModuleSnapshots.isSnapshot(this.snapshot));
+    Assertions.assertEquals(version, CModuleSnapshots.version(this.snapshot));
+
+    try (CModuleType m = CModuleSnapshots.open(
+      this.loader,
+      this.snapshot,
+      version,
+      CClassParsingMode.CLASS_PARSING_API_SURFACE)) {
+      Assertions.assertEquals("x.y.z", m.descriptor().name());
+      Assertions.assertEquals(
+        TreeSet.of("X", "Y"),
+        m.classesInPackage("x.y.z.p"));
+
+      final CClass c = m.classValue("x.y.z.p", "X").get();
+      Assertions.assertEquals("X", c.name().className());
+    }
+  }
+
+  private static Path fixture(
+    final String name)
+    throws IOException
+  {
+    final Path file = Files.createTempFile("cantoria-test-", ".jar");
+    try (InputStream in = CModuleSnapshotsTest.class.getResourceAsStream(
+      "/com/io7m/cantoria/tests/driver/api/" + name + "/module.jar")) {
+      Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+    return file;
+  }
+
+  private ArrayList<CChangeType> compare(
+    final CModuleType module_old,
+    final CModuleType module_new)
+    throws IOException
+  {
+    final CClassRegistryType registry =
+      CClassRegistry.createComparison(
+        CClassRegistry.create(
+          List.of(this.loader.openPlatformModule("java.base"))),
+        module_old,
+        module_new);
+
+    final ArrayList<CChangeType> changes = new ArrayList<>();
+    ServiceLoader.load(CComparisonDriverProviderType.class)
+      .findFirst()
+      .get()
+      .create()
+      .compareModules(
+        (originator, change) -> changes.add(change),
+        registry,
+        module_old,
+        module_new);
+
+    Assertions.assertEquals(
+      List.of(
+        "x.y.z/x.y.z.q.I",
+        "x.y.z/x.y.z.q.AbstractX",
+        "java.base/java.lang.Object"),
+      registry.hierarchy()
+        .superinterfacesOf(module_old.classValue("x.y.z.p", "X").get())
+        .appendAll(
+          registry.hierarchy()
+            .superclassesOf(module_old.classValue("x.y.z.p", "X").get())
+            .reverse())
+        .map(c -> CClassNames.show(c.name())));
+    return changes;
+  }
+
+  @Test
+  public void testExportNonExportedAncestors()
+    throws Exception
+  {
+    final CVersion version_old = CVersion.of(1, 0, 0, "");
+    final CVersion version_new = CVersion.of(1, 1, 0, "");
+    final Path file_old = fixture("class_internal_superclass/before");
+    final Path file_new = fixture("class_internal_superclass/after");
+
+    try {
+      final ArrayList<CChangeType> changes_archive;
+      try (CModuleType m_old = this.loader.open(file_old, version_old);
+           CModuleType m_new = this.loader.open(file_new, version_new)) {
+        CModuleSnapshots.export(m_old, version_old, this.snapshot);
+        changes_archive = this.compare(m_old, m_new);
+      }
+
+      final ArrayList<CChangeType> changes_snapshot;
+      try (CModuleType m_old = CModuleSnapshots.open(
+        this.loader,
+        this.snapshot,
+        version_old,
+        CClassParsingMode.CLASS_PARSING_API_SURFACE);
+           CModuleType m_new = this.loader.open(file_new, version_new)) {
+        Assertions.assertEquals(
+          TreeSet.of("AbstractX", "I"),
+          m_old.classesInPackage("x.y.z.q"));
+        changes_snapshot = this.compare(m_old, m_new);
+      }
+
+      Assertions.assertFalse(changes_archive.isEmpty());
+      Assertions.assertEquals(changes_archive, changes_snapshot);
+    } finally {
+      Files.deleteIfExists(file_old);
+      Files.deleteIfExists(file_new);
+    }
+  }
+
+  @Test
+  public void testOpenNotSnapshot()
+  {
+    Assertions.assertThrows(IOException.class, () -> CModuleSnapshots.open(
+      this.loader,
+      this.archive,
+      CVersion.of(1, 0, 0, ""),
+      CClassParsingMode.CLASS_PARSING_API_SURFACE));
+  }
+}
@@ -17,14 +17,31 @@
 package com.io7m.cantoria.tests.modules.api;
 
 import com.io7m.cantoria.api.CClass;
+import com.io7m.cantoria.api.CClassCacheStatistics;
+import com.io7m.cantoria.api.CClassDigest;
+import com.io7m.cantoria.api.CClassHeader;
+import com.io7m.cantoria.api.CClassParsingMode;
+import com.io7m.cantoria.api.CModuleCaching;
 import com.io7m.cantoria.api.CModuleType;
-import com.io7m.cantoria.api.CModuleWeaklyCaching;
+import com.io7m.cantoria.api.CVersion;
+import com.io7m.cantoria.modules.api.CModuleLazy;
 import com.io7m.cantoria.modules.api.CModuleLoaderType;
+import io.vavr.collection.SortedSet;
+import io.vavr.collection.TreeSet;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 public abstract class CModulesContract
 {
@@ -52,6 +69,14 @@ public abstract class CModulesContract
       Assertions.assertEquals("Object", object.name().className());
       Assertions.assertEquals("java.lang", object.name().packageName());
     }
+
+    {
+      final SortedSet<String> classes = m.classesInPackage("java.lang");
+      Assertions.assertTrue(classes.contains("Object"));
+      Assertions.assertTrue(classes.contains("Thread$State"));
+      Assertions.assertFalse(classes.contains("MethodHandle"));
+      Assertions.assertTrue(m.classesInPackage("nonexistent").isEmpty());
+    }
   }
 
   @Test
@@ -64,15 +89,183 @@ public abstract class CModulesContract
   }
 
   @Test
-  public final void testJavaBaseWeaklyCached()
+  public final void testJavaBaseCached()
     throws Exception
   {
-    try (CModuleType m = CModuleWeaklyCaching.wrap(
+    try (CModuleType m = CModuleCaching.wrap(
       this.loader().openPlatformModule("java.base"))) {
       checkBase(m);
     }
   }
 
+  @Test
+  public final void testJavaBaseCachedHeader()
+    throws Exception
+  {
+    try (CModuleType base = this.loader().openPlatformModule("java.base")) {
+      try (CModuleCaching m = CModuleCaching.wrap(base)) {
+        final CClassHeader uncached =
+          m.classHeader("java.lang", "String").get();
+        Assertions.assertEquals(0, m.statistics().size());
+
+        m.classValue("java.lang", "String").get();
+        Assertions.assertEquals(
+          uncached, m.classHeader("java.lang", "String").get());
+        Assertions.assertEquals(
+          base.classHeader("java.lang", "String").get(),
+          m.classHeader("java.lang", "String").get());
+        Assertions.assertEquals(1L, m.statistics().misses());
+
+        Assertions.assertFalse(
+          m.classValue("java.lang", "Nonexistent").isPresent());
+        Assertions.assertFalse(
+          m.classHeader("java.lang", "Nonexistent").isPresent());
+      }
+    }
+  }
+
+  @Test
+  public final void testJavaBaseCachedConcurrent()
+    throws Exception
+  {
+    try (CModuleCaching m = CModuleCaching.wrap(
+      this.loader().openPlatformModule("java.base"), 2)) {
+
+      final ExecutorService exec = Executors.newFixedThreadPool(8);
+      try {
+        final ArrayList<Future<CClass>> futures = new ArrayList<>();
+        for (int index = 0; index < 64; ++index) {
+          futures.add(exec.submit(
+            () -> m.classValue("java.lang", "Object").get()));
+        }
+
+        final CClass first = futures.get(0).get(10L, TimeUnit.SECONDS);
+        for (final Future<CClass> future : futures) {
+          Assertions.assertSame(first, future.get(10L, TimeUnit.SECONDS));
+        }
+      } finally {
+        exec.shutdown();
+      }
+
+      final CClassCacheStatistics stats_0 = m.statistics();
+      Assertions.assertEquals(1L, stats_0.misses());
+      Assertions.assertEquals(63L, stats_0.hits());
+      Assertions.assertEquals(1, stats_0.size());
+
+      m.classValue("java.lang", "String");
+      m.classValue("java.lang", "Integer");
+
+      final CClassCacheStatistics stats_1 = m.statistics();
+      Assertions.assertEquals(3L, stats_1.misses());
+      Assertions.assertEquals(1L, stats_1.evictions());
+      Assertions.assertEquals(2, stats_1.size());
+    }
+  }
+
+  @Test
+  public final void testJavaBaseAPISurface()
+    throws Exception
+  {
+    try (CModuleType m = this.loader().openPlatformModule(
+      "java.base", CClassParsingMode.CLASS_PARSING_API_SURFACE)) {
+      Assertions.assertEquals(
+        CClassParsingMode.CLASS_PARSING_API_SURFACE, m.parsingMode());
+
+      final CClass object = m.classValue("java.lang", "Object").get();
+      Assertions.assertFalse(object.node().methods.isEmpty());
+      object.node().methods.forEach(
+        method -> Assertions.assertEquals(0, method.instructions.size()));
+    }
+  }
+
+  @Test
+  public final void testJavaBaseFull()
+    throws Exception
+  {
+    try (CModuleType m = this.loader().openPlatformModule(
+      "java.base", CClassParsingMode.CLASS_PARSING_FULL)) {
+      Assertions.assertEquals(
+        CClassParsingMode.CLASS_PARSING_FULL, m.parsingMode());
+
+      final CClass object = m.classValue("java.lang", "Object").get();
+      Assertions.assertTrue(
+        object.node().methods.stream()
+          .anyMatch(method -> method.instructions.size() > 0));
+    }
+  }
+
+  @Test
+  public final void testModuleArchive()
+    throws Exception
+  {
+    final Path file = Files.createTempFile("cantoria-test-", ".jar");
+    try (InputStream in = CModulesContract.class.getResourceAsStream(
+      "/com/io7m/cantoria/tests/driver/api/class_added/after/module.jar")) {
+      Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    try (CModuleType m = this.loader().open(file, CVersion.of(1, 0, 0, ""))) {
+      Assertions.assertEquals("x.y.z", m.descriptor().name());
+      Assertions.assertEquals(
+        TreeSet.of("X", "Y"),
+        m.classesInPackage("x.y.z.p"));
+
+      final CClass c = m.classValue("x.y.z.p", "X").get();
+      Assertions.assertEquals("X", c.name().className());
+      Assertions.assertEquals("x.y.z.p", c.name().packageName());
+
+      try (InputStream stream = m.classBytes("x.y.z.p", "Y").get()) {
+        Assertions.assertEquals(184, stream.readAllBytes().length);
+      }
+
+      final CClassDigest digest = m.classDigest("x.y.z.p", "X").get();
+      Assertions.assertEquals(0x480ce29fL, digest.crc32());
+      Assertions.assertEquals(184L, digest.size());
+
+      final CClassHeader header = m.classHeader("x.y.z.p", "X").get();
+      Assertions.assertEquals("x/y/z/p/X", header.name());
+      Assertions.assertEquals(
+        Optional.of("java/lang/Object"), header.superName());
+      Assertions.assertEquals(c.node().access, header.access());
+
+      Assertions.assertFalse(m.classValue("x.y.z.p", "Z").isPresent());
+      Assertions.assertFalse(m.classBytes("x.y.z.p", "Z").isPresent());
+      Assertions.assertFalse(m.classDigest("x.y.z.p", "Z").isPresent());
+      Assertions.assertFalse(m.classHeader("x.y.z.p", "Z").isPresent());
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
+  @Test
+  public final void testModuleArchiveLazy()
+    throws Exception
+  {
+    final Path file = Files.createTempFile("cantoria-test-", ".jar");
+    try (InputStream in = CModulesContract.class.getResourceAsStream(
+      "/com/io7m/cantoria/tests/driver/api/class_added/after/module.jar")) {
+      Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    try (CModuleLazy m = (CModuleLazy) this.loader().openLazily(
+      file,
+      CVersion.of(1, 0, 0, ""),
+      CClassParsingMode.CLASS_PARSING_API_SURFACE)) {
+      Assertions.assertEquals("x.y.z", m.descriptor().name());
+      Assertions.assertEquals(file, m.archive().descriptor().path());
+      Assertions.assertFalse(m.isOpened());
+
+      final CClass c = m.classValue("x.y.z.p", "X").get();
+      Assertions.assertEquals("X", c.name().className());
+      Assertions.assertTrue(m.isOpened());
+      Assertions.assertEquals(
+        TreeSet.of("X", "Y"),
+        m.classesInPackage("x.y.z.p"));
+    } finally {
+      Files.deleteIfExists(file);
+    }
+  }
+
   @Test
   public final void testPlatformModules()
     throws Exception
@@ -0,0 +1,8 @@
+package x.y.z.p;
+
+import x.y.z.q.AbstractX;
+
+public class X extends AbstractX
+{
+
+}
@@ -0,0 +1,6 @@
+package x.y.z.q;
+
+public interface I
+{
+  void g();
+}
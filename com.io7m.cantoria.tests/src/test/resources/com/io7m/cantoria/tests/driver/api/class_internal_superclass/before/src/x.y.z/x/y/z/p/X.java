@@ -0,0 +1,13 @@
+package x.y.z.p;
+
+import x.y.z.q.AbstractX;
+
+public class X extends AbstractX
+{
+  public int k;
+
+  public void f()
+  {
+
+  }
+}
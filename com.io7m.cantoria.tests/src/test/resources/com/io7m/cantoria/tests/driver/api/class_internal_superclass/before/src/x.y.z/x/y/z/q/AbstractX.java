@@ -0,0 +1,16 @@
+package x.y.z.q;
+
+public abstract class AbstractX implements I
+{
+  public int k;
+
+  public void f()
+  {
+
+  }
+
+  public void g()
+  {
+
+  }
+}
@@ -0,0 +1,13 @@
+package x.y.z.p;
+
+public class C15
+{
+  public long x;
+
+  public int y;
+
+  public void g()
+  {
+
+  }
+}
@@ -0,0 +1,11 @@
+package x.y.z.p;
+
+public class C04
+{
+  public int x;
+
+  public void f()
+  {
+
+  }
+}
@@ -0,0 +1,9 @@
+package x.y.z.p;
+
+public class X
+{
+  public int f()
+  {
+    return 23;
+  }
+}
@@ -0,0 +1,9 @@
+package x.y.z.p;
+
+public class X
+{
+  private int f()
+  {
+    return 23;
+  }
+}
@@ -0,0 +1,3 @@
+#!/bin/sh
+pushd before && ./make.sh && popd
+pushd after && ./make.sh && popd